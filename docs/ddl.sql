@@ -2,6 +2,7 @@ create table quote (
     quote_id CHAR(16) FOR BIT DATA not null, 
     created timestamp not null, 
     text varchar(4096) not null, 
+    version bigint default 0 not null, 
     source_id CHAR(16) FOR BIT DATA not null, 
     primary key (quote_id)
 );
@@ -10,9 +11,30 @@ create table source (
     source_id CHAR(16) FOR BIT DATA not null, 
     created timestamp not null, 
     name varchar(1024) not null, 
+    version bigint default 0 not null, 
     primary key (source_id)
 );
 
 alter table source add constraint UK_4a1uurs8rtj4xnah2j9uguec0 unique (name);
 
 alter table quote add constraint FK4gnwxqrpbw5culhb0cxc6lnv0 foreign key (source_id) references source;
+
+create table quote_sources (
+    quote_id CHAR(16) FOR BIT DATA not null,
+    source_id CHAR(16) FOR BIT DATA not null,
+    primary key (quote_id, source_id)
+);
+
+create index ix_quote_sources_source_quote on quote_sources (source_id, quote_id);
+
+create table change_log (
+    change_seq bigint generated by default as identity not null,
+    created timestamp not null,
+    type SMALLINT not null,
+    resource SMALLINT not null,
+    resource_id CHAR(16) FOR BIT DATA not null,
+    related_id CHAR(16) FOR BIT DATA,
+    primary key (change_seq)
+);
+
+create index ix_change_log_created on change_log (created);
@@ -15,16 +15,25 @@
  */
 package edu.cnm.deepdive.qod;
 
+import edu.cnm.deepdive.qod.controller.ConcurrencyLimitInterceptor;
+import edu.cnm.deepdive.qod.controller.RateLimitFilter;
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter;
+import edu.cnm.deepdive.qod.service.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
+import org.springframework.security.web.authentication.preauth.AbstractPreAuthenticatedProcessingFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Main class of the QoD application. All of the work of application startup is performed (directly
@@ -35,11 +44,22 @@ import org.springframework.security.oauth2.config.annotation.web.configurers.Res
 @SpringBootApplication
 @EnableWebSecurity
 @EnableResourceServer
-public class QodApplication extends ResourceServerConfigurerAdapter {
+@EnableScheduling
+public class QodApplication extends ResourceServerConfigurerAdapter
+    implements WebMvcConfigurer {
 
   @Value("${oauth.clientId}")
   private String clientId;
 
+  @Autowired
+  private RateLimiter rateLimiter;
+
+  @Autowired
+  private ConcurrencyLimiter concurrencyLimiter;
+
+  @Value("${concurrency-limit.excluded-paths:}")
+  private String[] concurrencyLimitExcludedPaths;
+
   /**
    * Main entry point for the QoD Spring Boot application. Any command line arguments will be
    * forwarded to {@link SpringApplication#run(Class, String...)}.
@@ -60,6 +80,16 @@ public class QodApplication extends ResourceServerConfigurerAdapter {
     http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
     http.authorizeRequests().anyRequest().anonymous();
 //    http.authorizeRequests().anyRequest().hasRole("USER");
+    // Bearer token authentication is added before AbstractPreAuthenticatedProcessingFilter.
+    http.addFilterAfter(new RateLimitFilter(rateLimiter),
+        AbstractPreAuthenticatedProcessingFilter.class);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    // Endpoints served without the database (from caches or memory) are not limited.
+    registry.addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimiter))
+        .excludePathPatterns(concurrencyLimitExcludedPaths);
   }
 
 }
@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import edu.cnm.deepdive.qod.model.entity.Change;
+import edu.cnm.deepdive.qod.service.ChangeLogService;
+import edu.cnm.deepdive.qod.service.ChangeLogService.CompactedException;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Defines REST endpoints for reading the log of changes to {@link
+ * edu.cnm.deepdive.qod.model.entity.Quote} and {@link edu.cnm.deepdive.qod.model.entity.Source}
+ * resources, so that a client holding a copy of the catalog can bring it up to date without
+ * re-reading it in full. A client records the sequence number of the last change it has applied,
+ * and either polls for subsequent changes, or opens a stream of server-sent events, which resumes
+ * (via the standard {@code Last-Event-ID} header) from the last event received.
+ */
+@RestController
+@RequestMapping("/changes")
+public class ChangeController {
+
+  private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+  private ChangeLogService changeLogService;
+
+  /**
+   * Initializes this instance, injecting an instance of {@link ChangeLogService}.
+   *
+   * @param changeLogService service used to read and stream recorded changes.
+   */
+  @Autowired
+  public ChangeController(ChangeLogService changeLogService) {
+    this.changeLogService = changeLogService;
+  }
+
+  /**
+   * Returns (up to the specified limit) the {@link Change} resources recorded after the specified
+   * sequence number, in sequence order. A response with fewer changes than the limit indicates that
+   * the client is up to date.
+   *
+   * @param since sequence number of the last change already applied by the client (0 if none).
+   * @param limit maximum number of changes to return.
+   * @return sequence of {@link Change} resources.
+   */
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public List<Change> list(@RequestParam(value = "since", defaultValue = "0") long since,
+      @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+    return changeLogService.list(since, limit);
+  }
+
+  /**
+   * Opens a stream of server-sent events, each containing a single {@link Change} resource. If a
+   * starting sequence number is given (either as a query parameter, or in a {@code Last-Event-ID}
+   * header sent by a reconnecting client), the retained changes after it are sent first; otherwise,
+   * only changes recorded after the stream is opened are sent.
+   *
+   * @param since sequence number of the last change already applied by the client (optional).
+   * @param lastEventId ID of the last event received on a previous stream (optional).
+   * @return stream of {@link Change} events.
+   */
+  @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(@RequestParam(value = "since", required = false) Long since,
+      @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+    return changeLogService.subscribe((lastEventId != null) ? lastEventId : since);
+  }
+
+  /**
+   * Maps (via annotation) a {@link CompactedException} (thrown when the requested changes are no
+   * longer retained) to a response status code of {@link HttpStatus#GONE}. The client must re-read
+   * the full catalog before requesting further changes.
+   */
+  @ResponseStatus(value = HttpStatus.GONE, reason = "Requested changes are no longer retained")
+  @ExceptionHandler(CompactedException.class)
+  public void compacted() {}
+
+  /**
+   * Maps (via annotation) an {@link IllegalArgumentException} to a response status code of {@link
+   * HttpStatus#BAD_REQUEST}.
+   */
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  @ExceptionHandler(IllegalArgumentException.class)
+  public void badRequest() {}
+
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter;
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Operation;
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Permit;
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Admits or refuses each request to a controller method according to the {@link
+ * ConcurrencyLimiter}, treating {@code GET}, {@code HEAD}, and {@code OPTIONS} requests as reads,
+ * and all others as writes. A refused request receives a 503 (Service Unavailable) response
+ * immediately. The permit of an admitted request is released when the request completes. For an
+ * asynchronous request whose controller method returns a {@link CompletionStage} (i.e. work
+ * performed on the {@link edu.cnm.deepdive.qod.service.DatabaseExecutor}), that is when the result
+ * has been written, so that the latency observed by the limiter includes the work itself; for any
+ * other asynchronous request (e.g. a stream of events), the permit is released when the controller
+ * method returns.
+ * <p>Only database-bound endpoints should be limited: endpoints served from caches or memory (e.g.
+ * the quote of the day, and the change event stream), and administrative endpoints (which must
+ * remain available when the database is saturated), are excluded when this interceptor is
+ * registered, with the path patterns of {@code concurrency-limit.excluded-paths}.</p>
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+  private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName();
+
+  private final ConcurrencyLimiter limiter;
+
+  /**
+   * Initializes this instance with the specified {@link ConcurrencyLimiter}.
+   *
+   * @param limiter concurrency limiter consulted for each request.
+   */
+  public ConcurrencyLimitInterceptor(ConcurrencyLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) throws IOException {
+    if (!limiter.isEnabled() || request.getDispatcherType() != DispatcherType.REQUEST
+        || !(handler instanceof HandlerMethod)) {
+      return true;
+    }
+    HttpMethod method = HttpMethod.resolve(request.getMethod());
+    Operation operation =
+        (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS)
+            ? Operation.READ
+            : Operation.WRITE;
+    Permit permit = limiter.tryAcquire(operation);
+    if (permit == null) {
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is busy");
+      return false;
+    }
+    request.setAttribute(PERMIT_ATTRIBUTE, permit);
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request,
+      HttpServletResponse response, Object handler) {
+    if (!(handler instanceof HandlerMethod) || !CompletionStage.class.isAssignableFrom(
+        ((HandlerMethod) handler).getReturnType().getParameterType())) {
+      release(request);
+    }
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    release(request);
+  }
+
+  private void release(HttpServletRequest request) {
+    Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+    if (permit != null) {
+      request.removeAttribute(PERMIT_ATTRIBUTE);
+      permit.release();
+    }
+  }
+
+}
@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Converts between entity versions and the (strong) entity tags used in {@code ETag} and {@code
+ * If-Match} headers. The tag of a resource is simply its version, in quotes.
+ */
+final class EntityTags {
+
+  private static final String QUOTE = "\"";
+  private static final String ANY = "*";
+  private static final long NO_MATCH = -1;
+
+  private EntityTags() {
+  }
+
+  /**
+   * Returns the entity tag corresponding to the specified version.
+   *
+   * @param version entity version.
+   * @return entity tag, including quotes.
+   */
+  static String of(long version) {
+    return QUOTE + version + QUOTE;
+  }
+
+  /**
+   * Returns the version required by the specified {@code If-Match} header value. Only a single
+   * strong entity tag (or {@code *}) is recognized; any other value (including a weak tag, which
+   * never matches under the strong comparison required by {@code If-Match}) is treated as a version
+   * that no resource can have.
+   *
+   * @param ifMatch {@code If-Match} header value (may be {@code null}).
+   * @return expected version, or {@code null} if the header is absent or matches any version.
+   */
+  static Long expectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.trim().equals(ANY)) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.length() > 2 && tag.startsWith(QUOTE) && tag.endsWith(QUOTE)) {
+      try {
+        return Long.parseLong(tag.substring(1, tag.length() - 1));
+      } catch (NumberFormatException e) {
+        // Fall through to non-matching version.
+      }
+    }
+    return NO_MATCH;
+  }
+
+  /**
+   * Verifies that the specified {@code If-Match} header value is satisfied by the specified current
+   * version of an entity.
+   *
+   * @param ifMatch {@code If-Match} header value (may be {@code null}).
+   * @param version current entity version.
+   * @throws OptimisticLockingFailureException if the precondition is not satisfied.
+   */
+  static void verify(String ifMatch, long version) {
+    Long expected = expectedVersion(ifMatch);
+    if (expected != null && expected != version) {
+      throw new OptimisticLockingFailureException("Entity tag does not match");
+    }
+  }
+
+}
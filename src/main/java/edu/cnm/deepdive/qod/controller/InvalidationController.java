@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import edu.cnm.deepdive.qod.service.HttpInvalidationBus;
+import edu.cnm.deepdive.qod.service.Invalidation;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Defines the REST endpoint to which peer instances send {@link Invalidation} notices, when the
+ * {@link HttpInvalidationBus} is selected (with {@code invalidation.bus=http}). This endpoint is
+ * not intended for clients: a request is accepted only if it includes the secret shared by all
+ * instances, in the {@link HttpInvalidationBus#SECRET_HEADER} header.
+ */
+@RestController
+@RequestMapping("/invalidations")
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "http")
+public class InvalidationController {
+
+  private final HttpInvalidationBus bus;
+
+  /**
+   * Initializes this instance, injecting an instance of {@link HttpInvalidationBus}.
+   *
+   * @param bus bus to whose subscribers received invalidations are delivered.
+   */
+  @Autowired
+  public InvalidationController(HttpInvalidationBus bus) {
+    this.bus = bus;
+  }
+
+  /**
+   * Applies the specified invalidations, sent by a peer instance, to the state of this instance.
+   *
+   * @param secret secret shared by all instances.
+   * @param invalidations invalidations published by the peer.
+   * @return empty response, with a status of {@link HttpStatus#NO_CONTENT} if the invalidations
+   * were applied, or {@link HttpStatus#FORBIDDEN} if the secret does not match.
+   */
+  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Void> post(
+      @RequestHeader(value = HttpInvalidationBus.SECRET_HEADER, required = false) String secret,
+      @RequestBody List<Invalidation> invalidations) {
+    if (!bus.isAuthentic(secret)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    bus.receive(invalidations);
+    return ResponseEntity.noContent().build();
+  }
+
+}
@@ -17,19 +17,51 @@ package edu.cnm.deepdive.qod.controller;
 
 import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
 import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
 import edu.cnm.deepdive.qod.model.entity.Quote;
 import edu.cnm.deepdive.qod.model.entity.Source;
-import edu.cnm.deepdive.qod.service.RandomReplacementStage;
+import edu.cnm.deepdive.qod.service.AttributionService;
+import edu.cnm.deepdive.qod.service.CatalogReadModel;
+import edu.cnm.deepdive.qod.service.ChangeLogService;
+import edu.cnm.deepdive.qod.service.DatabaseExecutor;
+import edu.cnm.deepdive.qod.service.IdempotencyService;
+import edu.cnm.deepdive.qod.service.IdempotencyService.ConflictingRequestException;
+import edu.cnm.deepdive.qod.service.QuoteBatchService;
+import edu.cnm.deepdive.qod.service.QuoteBatchService.Result;
+import edu.cnm.deepdive.qod.service.QuoteSelectionService;
+import edu.cnm.deepdive.qod.service.QuoteWriteBehindService;
+import edu.cnm.deepdive.qod.service.QuoteWriteBehindService.Durability;
+import edu.cnm.deepdive.qod.service.QuoteWriteBehindService.Status;
+import edu.cnm.deepdive.qod.service.QuoteWriteBehindService.Submission;
+import edu.cnm.deepdive.qod.service.SnapshotService;
+import edu.cnm.deepdive.qod.view.ExpandedQuote;
+import edu.cnm.deepdive.qod.view.FlatQuote;
+import edu.cnm.deepdive.qod.view.QuoteSummary;
+import edu.cnm.deepdive.qod.view.SourceSummary;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 import javax.persistence.RollbackException;
 import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.hateoas.ExposesResourceFor;
+import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -37,6 +69,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -45,19 +78,45 @@ import org.springframework.web.bind.annotation.RestController;
 /**
  * Defines REST endpoints for servicing requests on {@link Quote} resources, invoking {@link
  * QuoteRepository} methods to perform the required operations.
+ * <p>Individual quote resources carry an {@code ETag} header, derived from the version of the
+ * quote. Updates, deletions, and changes to the sources of a quote may be made conditional on that
+ * version, via an {@code If-Match} header; if the quote has been modified in the meantime, the
+ * request fails with {@link HttpStatus#PRECONDITION_FAILED}.</p>
+ * <p>Creation of quotes, and association of sources with quotes, may be retried safely by
+ * including an {@code Idempotency-Key} header (see {@link IdempotencyService}); the response to
+ * the first request with a given key is replayed to any retry with the same key.</p>
+ * <p>If the in-memory read model is enabled (see {@link CatalogReadModel}), all of the catalog
+ * queries are served from it, rather than from the database.</p>
+ * <p>Database-bound work is performed on the {@link DatabaseExecutor}, and the response completed
+ * asynchronously, so that servlet container threads are not held while waiting on JDBC; only the
+ * quote of the day (which is cached), the status of a write-behind submission (which is held in
+ * memory), and streamed batches (whose content is read as they are ingested) are served directly
+ * on container threads.</p>
  */
 @RestController
 @ExposesResourceFor(Quote.class)
 @RequestMapping("/quotes")
 public class QuoteController {
 
-  private static final long MILLISECONDS_PER_DAY = 24 * 60 * 60 * 1000L;
+  private static final String EXPAND_SOURCES = "sources";
+  private static final String SUBMISSIONS = "submissions";
+  private static final String RETRY_AFTER_SECONDS = "1";
+  private static final String POST_SCOPE = "quotes.post";
+  private static final String POST_BATCH_SCOPE = "quotes.post-batch";
+  private static final String ATTACH_ALL_SCOPE = "quotes.attach-all";
+  private static final String ATTACH_SCOPE = "quotes.attach";
 
   private final QuoteRepository quoteRepository;
   private final SourceRepository sourceRepository;
-  private final RandomReplacementStage<Quote> stage;
-  private int daysSinceEpoch = Integer.MIN_VALUE;
-  private Quote lastQod = null;
+  private final QuoteBatchService batchService;
+  private final AttributionService attributionService;
+  private final QuoteWriteBehindService writeBehindService;
+  private final IdempotencyService idempotencyService;
+  private final ChangeLogService changeLogService;
+  private final CatalogReadModel readModel;
+  private final DatabaseExecutor database;
+  private final QuoteSelectionService selectionService;
+  private final TransactionTemplate transactionTemplate;
 
   /**
    * Initializes this instance, injecting an instance of {@link QuoteRepository} and an instance of
@@ -65,14 +124,36 @@ public class QuoteController {
    *
    * @param quoteRepository repository used for operations on {@link Quote} entity instances.
    * @param sourceRepository repository used for operations on {@link Source} entity instances.
-   * @param stage container used to select the quote of the day at random from a stream.
+   * @param batchService service used to insert quotes in bulk.
+   * @param attributionService service used to associate sources with quotes in bulk.
+   * @param writeBehindService service used to queue quote submissions, when write-behind mode is
+   * enabled.
+   * @param idempotencyService service used to replay responses to retried requests.
+   * @param changeLogService service used to record changes to quotes.
+   * @param readModel in-memory copy of the catalog, used (if enabled) to serve queries.
+   * @param database executor on which database-bound work is performed.
+   * @param selectionService service used to select random quotes, and the quote of the day.
+   * @param transactionManager manager of the transactions in which each quote and its change log
+   * entry are written together.
    */
   @Autowired
   public QuoteController(QuoteRepository quoteRepository, SourceRepository sourceRepository,
-      RandomReplacementStage<Quote> stage) {
+      QuoteBatchService batchService, AttributionService attributionService,
+      QuoteWriteBehindService writeBehindService,
+      IdempotencyService idempotencyService, ChangeLogService changeLogService,
+      CatalogReadModel readModel, DatabaseExecutor database,
+      QuoteSelectionService selectionService, PlatformTransactionManager transactionManager) {
     this.quoteRepository = quoteRepository;
     this.sourceRepository = sourceRepository;
-    this.stage = stage;
+    this.batchService = batchService;
+    this.attributionService = attributionService;
+    this.writeBehindService = writeBehindService;
+    this.idempotencyService = idempotencyService;
+    this.changeLogService = changeLogService;
+    this.readModel = readModel;
+    this.database = database;
+    this.selectionService = selectionService;
+    transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   /**
@@ -80,11 +161,15 @@ public class QuoteController {
    * usually not give the same result on successive invocations, unless the number of quotes in the
    * database is small.
    *
+   * @param expand if {@code sources}, the {@link Source} resources to which the quote is attributed
+   * are included in the response.
    * @return random {@link Quote}.
    */
   @GetMapping(value = "random", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Quote random() {
-    return quoteRepository.findRandom().get();
+  public CompletableFuture<FlatQuote> random(
+      @RequestParam(value = "expand", required = false) String expand) {
+    return database.submit(
+        () -> selectionService.getRandomQuote(EXPAND_SOURCES.equalsIgnoreCase(expand)));
   }
 
   /**
@@ -93,68 +178,194 @@ public class QuoteController {
    * until the next day (according to the server), so while the quote returned will generally not be
    * the same from one day to the next, invocations during the same day will generally return the
    * same quote.
+   * <p>This method is served directly on the servlet container thread, since the selection is
+   * generally confirmed without querying the database (see {@link QuoteSelectionService}).</p>
    *
    * @return random {@link Quote}, regenerated daily.
    */
   @GetMapping(value = "qod", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Quote qod() {
-    int daysSinceEpoch = (int) (System.currentTimeMillis() / MILLISECONDS_PER_DAY);
-    if (lastQod == null
-        || !quoteRepository.existsById(lastQod.getId())
-        || daysSinceEpoch != this.daysSinceEpoch) {
-      lastQod = StreamSupport.stream(quoteRepository.findAll().spliterator(), false)
-          .reduce((a, b) -> stage.offer(b))
-          .get();
-      this.daysSinceEpoch = daysSinceEpoch;
-    }
-    return lastQod;
+  public QuoteSummary qod() {
+    return selectionService.getQuoteOfTheDay();
   }
 
   /**
    * Returns a sequence of {@link Quote} resources, containing the specified text.
    *
    * @param fragment text to match (case-insensitive).
+   * @param expand if {@code sources}, the {@link Source} resources to which each quote is
+   * attributed are included in the response, fetched in a single query.
    * @return sequence of {@link Quote} resources.
    */
   @GetMapping(value = "search", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Iterable<Quote> search(@RequestParam("q") String fragment) {
-    return quoteRepository.findAllByTextContainingOrderByTextAsc(fragment);
+  public CompletableFuture<Iterable<? extends FlatQuote>> search(
+      @RequestParam("q") String fragment,
+      @RequestParam(value = "expand", required = false) String expand) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        return EXPAND_SOURCES.equalsIgnoreCase(expand)
+            ? readModel.findExpandedQuotes(fragment)
+            : readModel.findQuotes(fragment);
+      }
+      return EXPAND_SOURCES.equalsIgnoreCase(expand)
+          ? quoteRepository.findDistinctByTextContainingOrderByTextAsc(fragment)
+          : quoteRepository.findAllByTextContainingOrderByTextAsc(fragment);
+    });
   }
 
   /**
    * Returns a sequence of all the {@link Quote} resources in the database.
    *
+   * @param expand if {@code sources}, the {@link Source} resources to which each quote is
+   * attributed are included in the response, fetched in a single query.
    * @return sequence of {@link Quote} resources.
    */
   @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-  public Iterable<Quote> list() {
-    return quoteRepository.findAllByOrderByTextAsc();
+  public CompletableFuture<Iterable<? extends FlatQuote>> list(
+      @RequestParam(value = "expand", required = false) String expand) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        return EXPAND_SOURCES.equalsIgnoreCase(expand)
+            ? readModel.findExpandedQuotes(null)
+            : readModel.findQuotes(null);
+      }
+      return EXPAND_SOURCES.equalsIgnoreCase(expand)
+          ? quoteRepository.findDistinctByOrderByTextAsc()
+          : quoteRepository.findAllByOrderByTextAsc();
+    });
   }
 
   /**
    * Adds the provided {@link Quote} resource to the database and returns the completed resource,
    * including timestamp &amp; ID. The provided resource is only required to contain a {@code text}
    * property, with a non-{@code null} value.
+   * <p>If write-behind mode is enabled (see {@link QuoteWriteBehindService}), the quote is instead
+   * queued for a group commit, and a {@link Submission} is returned. With {@link
+   * Durability#ACCEPTED} durability, the response (status {@link HttpStatus#ACCEPTED}) is sent as
+   * soon as the quote is queued, with a {@code Location} header referencing the status of the
+   * submission; with {@link Durability#COMMITTED}, the response is sent after the group commit
+   * including the quote, with status {@link HttpStatus#CREATED} (if the quote was inserted), or
+   * {@link HttpStatus#BAD_REQUEST} (if it was not)&mdash;or, if the commit timeout elapses first,
+   * as for {@link Durability#ACCEPTED}. No thread waits for the group commit in the
+   * meantime.</p>
    *
    * @param quote partial {@link Quote} resource.
-   * @return completed {@link Quote} resource.
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
+   * @return completed {@link Quote} resource, or {@link Submission} in write-behind mode.
    */
   @PostMapping(
       consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<Quote> post(@RequestBody Quote quote) {
-    quoteRepository.save(quote);
-    return ResponseEntity.created(quote.getHref()).body(quote);
+  public CompletableFuture<ResponseEntity<?>> post(@RequestBody Quote quote,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    return idempotencyService.execute(idempotencyKey, POST_SCOPE, quote.getText(),
+        () -> writeBehindService.isEnabled()
+            ? submit(quote)
+            : database.submit(() -> create(quote)));
+  }
+
+  private ResponseEntity<?> create(Quote quote) {
+    transactionTemplate.execute((status) -> {
+      quoteRepository.save(quote);
+      changeLogService.record(Type.CREATE, Resource.QUOTE, quote.getId());
+      return null;
+    });
+    return ResponseEntity.created(quote.getHref())
+        .eTag(EntityTags.of(quote.getVersion()))
+        .body(quote);
+  }
+
+  private CompletableFuture<ResponseEntity<?>> submit(Quote quote) {
+    Submission submission = writeBehindService.submit(quote);
+    ResponseEntity<Submission> accepted = ResponseEntity.accepted()
+        .location(ControllerLinkBuilder.linkTo(QuoteController.class)
+            .slash(SUBMISSIONS)
+            .slash(submission.getId())
+            .toUri())
+        .body(submission);
+    if (writeBehindService.getDurability() != Durability.COMMITTED) {
+      return CompletableFuture.completedFuture(accepted);
+    }
+    return writeBehindService.whenWritten(submission)
+        .thenApply((written) -> {
+          if (!written) {
+            return accepted;
+          }
+          return (submission.getStatus() == Status.CREATED)
+              ? ResponseEntity.created(submission.getQuoteHref()).body(submission)
+              : ResponseEntity.badRequest().body(submission);
+        });
   }
 
   /**
-   * Retrieves and returns the {@link Quote} resource with the specified ID.
+   * Returns the current status of a quote submitted in write-behind mode.
+   *
+   * @param submissionId {@link UUID} of submission (not of quote).
+   * @return {@link Submission} status.
+   */
+  @GetMapping(value = SUBMISSIONS + "/{submissionId}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Submission getSubmission(@PathVariable("submissionId") UUID submissionId) {
+    return writeBehindService.get(submissionId);
+  }
+
+  /**
+   * Adds the provided array of {@link Quote} resources to the database in bulk, returning the
+   * outcome for each. Quotes whose text duplicates (ignoring case) that of an earlier element or an
+   * existing quote are skipped, rather than causing the entire request to fail.
+   *
+   * @param quotes partial {@link Quote} resources; only {@code text} is used.
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
+   * @return outcome of each element of {@code quotes}, in order.
+   */
+  @PostMapping(value = "batch",
+      consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> postBatch(@RequestBody List<Quote> quotes,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    List<String> texts = quotes.stream()
+        .map((quote) -> (quote != null) ? quote.getText() : null)
+        .collect(Collectors.toList());
+    return idempotencyService.execute(idempotencyKey, POST_BATCH_SCOPE, texts,
+        () -> database.submit(() -> ResponseEntity.ok(batchService.ingest(quotes.iterator()))));
+  }
+
+  /**
+   * Adds the provided newline-delimited stream of {@link Quote} resources to the database in bulk,
+   * returning the outcome for each, as for {@link #postBatch(List, String)}. Since the content is
+   * read from the client as it is ingested, this method runs on the container thread, rather than
+   * on the {@link DatabaseExecutor}; otherwise, a slow or large upload would be cut off by the
+   * asynchronous request timeout.
+   *
+   * @param input NDJSON content, with one partial {@link Quote} resource per line.
+   * @return outcome of each quote read from {@code input}, in order.
+   * @throws IOException if the content cannot be read or parsed.
+   */
+  @PostMapping(value = "batch",
+      consumes = SnapshotService.MEDIA_TYPE, produces = MediaType.APPLICATION_JSON_VALUE)
+  public List<Result> postBatch(InputStream input) throws IOException {
+    return batchService.ingest(input);
+  }
+
+  /**
+   * Retrieves and returns the {@link Quote} resource with the specified ID, with its {@code ETag}.
    *
    * @param quoteId quote {@link UUID}.
    * @return retrieved {@link Quote} resource.
    */
   @GetMapping(value = "{quoteId}", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Quote get(@PathVariable("quoteId") UUID quoteId) {
-    return quoteRepository.findById(quoteId).get();
+  public CompletableFuture<ResponseEntity<FlatQuote>> get(
+      @PathVariable("quoteId") UUID quoteId) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        ExpandedQuote quote = readModel.getQuote(quoteId).get();
+        return ResponseEntity.ok()
+            .eTag(EntityTags.of(quote.getVersion()))
+            .body(quote);
+      }
+      Quote quote = quoteRepository.findById(quoteId).get();
+      return ResponseEntity.ok()
+          .eTag(EntityTags.of(quote.getVersion()))
+          .body(quote);
+    });
   }
 
   /**
@@ -163,24 +374,92 @@ public class QuoteController {
    *
    * @param quoteId source {@link UUID}.
    * @param update {@link Quote} resource to use to replace contents of existing quote.
+   * @param ifMatch entity tag of the version being replaced (optional).
    * @return complete {@link Quote} resource, including new {@code text}.
    */
   @PutMapping(value = "{quoteId}", consumes = MediaType.APPLICATION_JSON_VALUE)
-  public Quote put(@PathVariable("quoteId") UUID quoteId, @RequestBody Quote update) {
-    Quote quote = quoteRepository.findById(quoteId).get();
-    quote.setText(update.getText());
-    return quoteRepository.save(quote);
+  public CompletableFuture<ResponseEntity<Quote>> put(@PathVariable("quoteId") UUID quoteId,
+      @RequestBody Quote update,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return database.submit(() -> {
+      Quote quote = transactionTemplate.execute((status) -> {
+        Quote updated = quoteRepository.findById(quoteId).get();
+        EntityTags.verify(ifMatch, updated.getVersion());
+        updated.setText(update.getText());
+        updated = quoteRepository.save(updated);
+        changeLogService.record(Type.UPDATE, Resource.QUOTE, updated.getId());
+        return updated;
+      });
+      return ResponseEntity.ok()
+          .eTag(EntityTags.of(quote.getVersion()))
+          .body(quote);
+    });
   }
 
   /**
    * Deletes the specified {@link Quote} resource from the database.
    *
    * @param quoteId quote {@link UUID}.
+   * @param ifMatch entity tag of the version being deleted (optional).
+   * @return empty response.
    */
   @DeleteMapping(value = "{quoteId}")
-  @ResponseStatus(HttpStatus.NO_CONTENT)
-  public void delete(@PathVariable("quoteId") UUID quoteId) {
-    quoteRepository.delete(get(quoteId));
+  public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable("quoteId") UUID quoteId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return database.submit(() -> transactionTemplate.execute((status) -> {
+      Quote quote = quoteRepository.findById(quoteId).get();
+      EntityTags.verify(ifMatch, quote.getVersion());
+      quoteRepository.delete(quote);
+      changeLogService.record(Type.DELETE, Resource.QUOTE, quote.getId());
+      return ResponseEntity.noContent().<Void>build();
+    }));
+  }
+
+  /**
+   * Associates all of the {@link Source} resources whose IDs are given in the request body with the
+   * {@link Quote} referenced in the path, without retrieving the existing associations. IDs of
+   * non-existent sources, and of sources already associated with the quote, are ignored.
+   *
+   * @param quoteId {@link UUID} of {@link Quote} resource.
+   * @param sourceIds {@link UUID} values of {@link Source} resources to be associated with
+   * referenced {@link Quote}.
+   * @param ifMatch entity tag of the current version of the {@link Quote} (optional).
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
+   * @return empty response.
+   */
+  @PutMapping(value = "{quoteId}/sources", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> attachAll(
+      @PathVariable("quoteId") UUID quoteId, @RequestBody List<UUID> sourceIds,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    return idempotencyService.execute(idempotencyKey, ATTACH_ALL_SCOPE,
+        Arrays.asList(quoteId, sourceIds), () -> database.submit(() -> {
+          attributionService.attachSources(
+              quoteId, sourceIds, EntityTags.expectedVersion(ifMatch));
+          return ResponseEntity.noContent().build();
+        }));
+  }
+
+  /**
+   * Removes the associations between the {@link Quote} referenced in the path and all of the
+   * {@link Source} resources whose IDs are given in the request body. IDs of sources not associated
+   * with the quote are ignored.
+   *
+   * @param quoteId {@link UUID} of {@link Quote} resource.
+   * @param sourceIds {@link UUID} values of {@link Source} resources to be disassociated from
+   * referenced {@link Quote}.
+   * @param ifMatch entity tag of the current version of the {@link Quote} (optional).
+   * @return empty response.
+   */
+  @DeleteMapping(value = "{quoteId}/sources", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<Void>> detachAll(
+      @PathVariable("quoteId") UUID quoteId, @RequestBody List<UUID> sourceIds,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return database.submit(() -> {
+      attributionService.detachSources(quoteId, sourceIds, EntityTags.expectedVersion(ifMatch));
+      return ResponseEntity.noContent().build();
+    });
   }
 
   /**
@@ -189,35 +468,50 @@ public class QuoteController {
    *
    * @param quoteId {@link UUID} of {@link Quote} resource.
    * @param sourceId {@link UUID} of {@link Source} to be associated with referenced {@link Quote}.
+   * @param ifMatch entity tag of the current version of the {@link Quote} (optional).
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
    * @return updated {@code Source} resource.
    */
   @PutMapping(value = "{quoteId}/sources/{sourceId}", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Source attach(@PathVariable("quoteId") UUID quoteId, @PathVariable UUID sourceId) {
-    Source source = sourceRepository.findById(sourceId).get();
-    Quote quote = get(quoteId);
-    quote.getSources().add(source);
-    quoteRepository.save(quote);
-    source.getQuotes();
-    return source;
+  public CompletableFuture<ResponseEntity<?>> attach(@PathVariable("quoteId") UUID quoteId,
+      @PathVariable UUID sourceId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    return idempotencyService.execute(idempotencyKey, ATTACH_SCOPE,
+        Arrays.asList(quoteId, sourceId), () -> database.submit(() -> {
+          Source source = sourceRepository.findById(sourceId).get();
+          attributionService.attachSources(
+              quoteId, Collections.singleton(sourceId), EntityTags.expectedVersion(ifMatch));
+          return ResponseEntity.ok(source);
+        }));
   }
 
   /**
    * Retrieves and returns the referenced {@link Source} resource associated with the referenced
    * {@link Quote} resource. If either does not exist, or if the referenced source is not associated
-   * with the quote, this method will fail.
+   * with the quote, this method will fail. The association is verified with an indexed lookup on
+   * the join table, without loading the sources of the quote.
    *
    * @param quoteId {@link UUID} of {@link Quote} resource.
    * @param sourceId {@link UUID} of {@link Source} associated with referenced {@link Quote}.
    * @return referenced {@link Source} resource.
    */
   @GetMapping(value = "{quoteId}/sources/{sourceId}", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Source get(@PathVariable("quoteId") UUID quoteId, @PathVariable("sourceId") UUID sourceId) {
-    Quote quote = get(quoteId);
-    Source source = sourceRepository.findById(sourceId).get();
-    if (!quote.getSources().contains(source)) {
-      throw new NoSuchElementException();
-    }
-    return source;
+  public CompletableFuture<SourceSummary> get(
+      @PathVariable("quoteId") UUID quoteId, @PathVariable("sourceId") UUID sourceId) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        if (!readModel.isAttributed(quoteId, sourceId)) {
+          throw new NoSuchElementException();
+        }
+        return readModel.getSourceSummary(sourceId).get();
+      }
+      if (!quoteRepository.isAttributed(quoteId, sourceId)) {
+        throw new NoSuchElementException();
+      }
+      return sourceRepository.findSummaryById(sourceId).get();
+    });
   }
 
   /**
@@ -228,15 +522,17 @@ public class QuoteController {
    * @param quoteId {@link UUID} of {@link Quote} resource.
    * @param sourceId {@link UUID} of {@link Source} to be disassociated from referenced {@link
    * Quote}.
+   * @param ifMatch entity tag of the current version of the {@link Quote} (optional).
+   * @return empty response.
    */
   @DeleteMapping(value = "{quoteId}/sources/{sourceId}")
-  @ResponseStatus(HttpStatus.NO_CONTENT)
-  public void detach(
-      @PathVariable("quoteId") UUID quoteId, @PathVariable("sourceId") UUID sourceId) {
-    Quote quote = get(quoteId);
-    Source source = get(quoteId, sourceId);
-    quote.getSources().remove(source);
-    quoteRepository.save(quote);
+  public CompletableFuture<ResponseEntity<Void>> detach(
+      @PathVariable("quoteId") UUID quoteId, @PathVariable("sourceId") UUID sourceId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return database.submit(() -> {
+      attributionService.detachSource(quoteId, sourceId, EntityTags.expectedVersion(ifMatch));
+      return ResponseEntity.noContent().build();
+    });
   }
 
   /**
@@ -249,12 +545,53 @@ public class QuoteController {
   }
 
   /**
-   * Maps (via annotation) {@link ConstraintViolationException} and {@link RollbackException} to a
-   * response status code of {@link HttpStatus#BAD_REQUEST}.
+   * Maps (via annotation) {@link ConstraintViolationException}, {@link RollbackException}, and
+   * {@link IllegalArgumentException} to a response status code of {@link HttpStatus#BAD_REQUEST}.
+   * {@link DataIntegrityViolationException} and {@link
+   * javax.validation.ConstraintViolationException} are mapped the same way, since the in-memory
+   * repositories throw these directly, rather than wrapping the former or deferring the latter to
+   * commit time.
    */
   @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid quote")
-  @ExceptionHandler({ConstraintViolationException.class, RollbackException.class})
+  @ExceptionHandler({ConstraintViolationException.class, RollbackException.class,
+      IllegalArgumentException.class, DataIntegrityViolationException.class,
+      javax.validation.ConstraintViolationException.class})
   public void badRequest() {
   }
 
+  /**
+   * Maps (via annotation) an {@link OptimisticLockingFailureException} (thrown when an {@code
+   * If-Match} precondition is not satisfied, or a concurrent update is detected) to a response
+   * status code of {@link HttpStatus#PRECONDITION_FAILED}.
+   */
+  @ResponseStatus(value = HttpStatus.PRECONDITION_FAILED, reason = "Quote has been modified")
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public void preconditionFailed() {
+  }
+
+  /**
+   * Maps (via annotation) a {@link ConflictingRequestException} (thrown when an {@code
+   * Idempotency-Key} is reused for a different request) to a response status code of {@link
+   * HttpStatus#UNPROCESSABLE_ENTITY}.
+   */
+  @ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY,
+      reason = "Idempotency key already used for a different request")
+  @ExceptionHandler(ConflictingRequestException.class)
+  public void conflictingRequest() {
+  }
+
+  /**
+   * Maps a {@link RejectedExecutionException} (thrown when the write-behind queue, or the queue of
+   * the {@link DatabaseExecutor}, is full) to a response status code of {@link
+   * HttpStatus#SERVICE_UNAVAILABLE}, with a {@code Retry-After} header.
+   *
+   * @return empty response.
+   */
+  @ExceptionHandler(RejectedExecutionException.class)
+  public ResponseEntity<Void> queueFull() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+        .build();
+  }
+
 }
@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import edu.cnm.deepdive.qod.service.ClientIdentity;
+import edu.cnm.deepdive.qod.service.RateLimiter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Admits or refuses each request according to the {@link RateLimiter}, keyed by the {@link
+ * ClientIdentity} (the authenticated subject or, for anonymous requests, the client address). This
+ * filter must follow authentication
+ * in the security filter chain. A refused request receives a 429 (Too Many Requests) response,
+ * with a {@code Retry-After} header specifying the number of seconds until it may be retried.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  private final RateLimiter rateLimiter;
+  private final UrlPathHelper pathHelper = new UrlPathHelper();
+
+  /**
+   * Initializes this instance with the specified {@link RateLimiter}.
+   *
+   * @param rateLimiter rate limiter consulted for each request.
+   */
+  public RateLimitFilter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !rateLimiter.isEnabled();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    long wait = rateLimiter.tryAcquire(ClientIdentity.of(request), request.getMethod(),
+        pathHelper.getPathWithinApplication(request));
+    if (wait > 0) {
+      long seconds = TimeUnit.MILLISECONDS.toSeconds(wait + TimeUnit.SECONDS.toMillis(1) - 1);
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+      response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+    } else {
+      filterChain.doFilter(request, response);
+    }
+  }
+
+}
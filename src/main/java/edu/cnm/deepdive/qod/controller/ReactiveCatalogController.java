@@ -0,0 +1,285 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.service.CatalogReadModel;
+import edu.cnm.deepdive.qod.service.DatabaseExecutor;
+import edu.cnm.deepdive.qod.service.QuoteSelectionService;
+import edu.cnm.deepdive.qod.view.FlatQuote;
+import edu.cnm.deepdive.qod.view.QuoteSummary;
+import edu.cnm.deepdive.qod.view.SourceSummary;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Defines reactive variants of the read endpoints of {@link QuoteController} and {@link
+ * SourceController}, for clients reading many resources, or many clients reading concurrently.
+ * The JSON representation of each {@link Quote} or {@link Source} resource is the same as that
+ * served by the corresponding servlet endpoint.
+ * <p>Each sequence of resources is returned as a {@link Flux}. If the client accepts {@code
+ * application/json}, the sequence is written as a single JSON array; if it accepts {@code
+ * application/stream+json}, each resource is written as a separate JSON object, followed by a
+ * newline, as the client consumes the preceding resources (i.e. with backpressure), and {@code
+ * text/event-stream} is supported in the same way.</p>
+ * <p>Resources are read and rendered to JSON a page (of {@code reactive.page-size} resources) at a
+ * time, and the next page is read only when the client has consumed the preceding one, so that only
+ * a few pages of any sequence are held in memory at once. Each page is read and rendered on the
+ * {@link DatabaseExecutor}, whose pool and queue are bounded, so that no container thread is
+ * blocked on JDBC, with the request (used in building the {@code href} of each resource) of the
+ * controller method. Since the pages are read in separate queries, a sequence read while the
+ * catalog is modified may omit or repeat resources at page boundaries; a sequence served from the
+ * read model is selected in its entirety with the first page, and only rendered page by
+ * page.</p>
+ */
+@RestController
+@RequestMapping("/reactive")
+public class ReactiveCatalogController {
+
+  private static final String EXPAND_SOURCES = "sources";
+  private static final String EXPAND_QUOTES = "quotes";
+  private static final String RETRY_AFTER_SECONDS = "1";
+
+  private final QuoteRepository quoteRepository;
+  private final SourceRepository sourceRepository;
+  private final QuoteSelectionService selectionService;
+  private final CatalogReadModel readModel;
+  private final DatabaseExecutor database;
+  private final ObjectMapper mapper;
+  private final int pageSize;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Initializes this instance with the specified repositories and services.
+   *
+   * @param quoteRepository repository used to read {@link Quote} entity instances.
+   * @param sourceRepository repository used to read {@link Source} entity instances.
+   * @param selectionService service used to select random quotes, and the quote of the day.
+   * @param readModel in-memory copy of the catalog, used (if enabled) to serve queries.
+   * @param database executor on which database-bound work is performed.
+   * @param mapper mapper used to render each resource to JSON.
+   * @param pageSize maximum number of resources read and rendered at a time.
+   */
+  @Autowired
+  public ReactiveCatalogController(QuoteRepository quoteRepository,
+      SourceRepository sourceRepository, QuoteSelectionService selectionService,
+      CatalogReadModel readModel, DatabaseExecutor database, ObjectMapper mapper,
+      @Value("${reactive.page-size:100}") int pageSize) {
+    this.quoteRepository = quoteRepository;
+    this.sourceRepository = sourceRepository;
+    this.selectionService = selectionService;
+    this.readModel = readModel;
+    this.database = database;
+    this.mapper = mapper;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Returns a stream of all the {@link Quote} resources in the database, in order of their text.
+   *
+   * @param expand if {@code sources}, the {@link Source} resources to which each quote is
+   * attributed are included in the response.
+   * @return stream of {@link Quote} resources.
+   */
+  @GetMapping(value = "quotes", produces = {
+      MediaType.APPLICATION_JSON_VALUE,
+      MediaType.APPLICATION_STREAM_JSON_VALUE,
+      MediaType.TEXT_EVENT_STREAM_VALUE
+  })
+  public Flux<JsonNode> listQuotes(
+      @RequestParam(value = "expand", required = false) String expand) {
+    if (readModel.isEnabled()) {
+      return streamAll(() -> EXPAND_SOURCES.equalsIgnoreCase(expand)
+          ? readModel.findExpandedQuotes(null)
+          : readModel.findQuotes(null));
+    }
+    return stream((pageable) -> EXPAND_SOURCES.equalsIgnoreCase(expand)
+        ? expandQuotes(quoteRepository.findAllByOrderByTextAsc(pageable))
+        : quoteRepository.findAllByOrderByTextAsc(pageable));
+  }
+
+  /**
+   * Returns a stream of the {@link Quote} resources containing the specified text, in order of
+   * their text.
+   *
+   * @param fragment text to match (case-insensitive).
+   * @param expand if {@code sources}, the {@link Source} resources to which each quote is
+   * attributed are included in the response.
+   * @return stream of {@link Quote} resources.
+   */
+  @GetMapping(value = "quotes/search", produces = {
+      MediaType.APPLICATION_JSON_VALUE,
+      MediaType.APPLICATION_STREAM_JSON_VALUE,
+      MediaType.TEXT_EVENT_STREAM_VALUE
+  })
+  public Flux<JsonNode> searchQuotes(@RequestParam("q") String fragment,
+      @RequestParam(value = "expand", required = false) String expand) {
+    if (readModel.isEnabled()) {
+      return streamAll(() -> EXPAND_SOURCES.equalsIgnoreCase(expand)
+          ? readModel.findExpandedQuotes(fragment)
+          : readModel.findQuotes(fragment));
+    }
+    return stream((pageable) -> EXPAND_SOURCES.equalsIgnoreCase(expand)
+        ? expandQuotes(quoteRepository.findAllByTextContainingOrderByTextAsc(fragment, pageable))
+        : quoteRepository.findAllByTextContainingOrderByTextAsc(fragment, pageable));
+  }
+
+  /**
+   * Returns a randomly selected {@link Quote} resource.
+   *
+   * @param expand if {@code sources}, the {@link Source} resources to which the quote is attributed
+   * are included in the response.
+   * @return random {@link Quote}.
+   */
+  @GetMapping(value = "quotes/random", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<FlatQuote> random(@RequestParam(value = "expand", required = false) String expand) {
+    return Mono.defer(() -> Mono.fromFuture(database.submit(
+        () -> selectionService.getRandomQuote(EXPAND_SOURCES.equalsIgnoreCase(expand)))));
+  }
+
+  /**
+   * Returns the quote of the day&mdash;the same {@link Quote} resource returned by {@link
+   * QuoteController#qod()}. Since the selection is generally confirmed without querying the
+   * database, this is not deferred to the {@link DatabaseExecutor}.
+   *
+   * @return random {@link Quote}, regenerated daily.
+   */
+  @GetMapping(value = "quotes/qod", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<QuoteSummary> qod() {
+    return Mono.fromCallable(selectionService::getQuoteOfTheDay);
+  }
+
+  /**
+   * Returns a stream of all the {@link Source} resources in the database, in order of their names.
+   *
+   * @param expand if {@code quotes}, the {@link Quote} resources attributed to each source are
+   * included in the response.
+   * @return stream of {@link Source} resources.
+   */
+  @GetMapping(value = "sources", produces = {
+      MediaType.APPLICATION_JSON_VALUE,
+      MediaType.APPLICATION_STREAM_JSON_VALUE,
+      MediaType.TEXT_EVENT_STREAM_VALUE
+  })
+  public Flux<JsonNode> listSources(
+      @RequestParam(value = "expand", required = false) String expand) {
+    if (readModel.isEnabled()) {
+      return streamAll(() -> EXPAND_QUOTES.equalsIgnoreCase(expand)
+          ? readModel.findExpandedSources(null)
+          : readModel.findSources(null));
+    }
+    return stream((pageable) -> EXPAND_QUOTES.equalsIgnoreCase(expand)
+        ? expandSources(sourceRepository.findAllByOrderByNameAsc(pageable))
+        : sourceRepository.findAllByOrderByNameAsc(pageable));
+  }
+
+  /**
+   * Maps (via annotation) a {@link NoSuchElementException} to a response status code of {@link
+   * HttpStatus#NOT_FOUND}.
+   */
+  @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Resource not found")
+  @ExceptionHandler(NoSuchElementException.class)
+  public void notFound() {}
+
+  /**
+   * Maps a {@link RejectedExecutionException} (thrown when the queue of the {@link
+   * DatabaseExecutor} is full) to a response status code of {@link HttpStatus#SERVICE_UNAVAILABLE},
+   * with a {@code Retry-After} header.
+   *
+   * @return empty response.
+   */
+  @ExceptionHandler(RejectedExecutionException.class)
+  public ResponseEntity<Void> queueFull() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+        .build();
+  }
+
+  private Flux<JsonNode> streamAll(Supplier<? extends List<?>> query) {
+    AtomicReference<List<?>> resources = new AtomicReference<>();
+    return stream((pageable) -> {
+      List<?> all = resources.updateAndGet((value) -> (value != null) ? value : query.get());
+      int start = (int) Math.min(pageable.getOffset(), all.size());
+      return all.subList(start, Math.min(start + pageable.getPageSize(), all.size()));
+    });
+  }
+
+  private Flux<JsonNode> stream(Function<Pageable, ? extends List<?>> query) {
+    DatabaseExecutor.Context context = database.capture();
+    return Flux.range(0, Integer.MAX_VALUE)
+        .concatMap((page) -> Mono.defer(() -> Mono.fromFuture(context.submit(
+            () -> render(query.apply(PageRequest.of(page, pageSize)))))), 1)
+        .takeUntil((nodes) -> nodes.size() < pageSize)
+        .flatMapIterable(Function.identity(), 1);
+  }
+
+  private List<Quote> expandQuotes(List<QuoteSummary> summaries) {
+    return summaries.isEmpty()
+        ? Collections.emptyList()
+        : quoteRepository.findDistinctByIdInOrderByTextAsc(
+            summaries.stream().map(QuoteSummary::getId).collect(Collectors.toList()));
+  }
+
+  private List<Source> expandSources(List<SourceSummary> summaries) {
+    return summaries.isEmpty()
+        ? Collections.emptyList()
+        : sourceRepository.findDistinctByIdInOrderByNameAsc(
+            summaries.stream().map(SourceSummary::getId).collect(Collectors.toList()));
+  }
+
+  private List<JsonNode> render(List<?> resources) {
+    List<JsonNode> nodes = new ArrayList<>(resources.size());
+    for (Object resource : resources) {
+      nodes.add(mapper.valueToTree(resource));
+    }
+    // Entities already rendered need not remain in the (request-scoped) persistence context.
+    entityManager.clear();
+    return nodes;
+  }
+
+}
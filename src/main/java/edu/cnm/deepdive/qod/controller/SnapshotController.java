@@ -0,0 +1,206 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import edu.cnm.deepdive.qod.service.CacheInvalidationService;
+import edu.cnm.deepdive.qod.service.CatalogReadModel;
+import edu.cnm.deepdive.qod.service.SnapshotService;
+import edu.cnm.deepdive.qod.service.SnapshotService.Totals;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Defines administrative REST endpoints for exporting the entire catalog to, and importing it from,
+ * a versioned NDJSON snapshot, using {@link SnapshotService}.
+ */
+@RestController
+@RequestMapping("/admin/snapshot")
+public class SnapshotController {
+
+  private static final String SNAPSHOT_FILENAME = "qod-snapshot.ndjson";
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private static final Log logger = LogFactory.getLog(SnapshotController.class);
+
+  private final SnapshotService snapshotService;
+  private final CatalogReadModel readModel;
+  private final CacheInvalidationService invalidationService;
+  private final long sendfileRetention;
+  private final Map<Path, Long> sentFiles = new ConcurrentHashMap<>();
+
+  /**
+   * Initializes this instance, injecting instances of {@link SnapshotService}, {@link
+   * CatalogReadModel}, and {@link CacheInvalidationService}.
+   *
+   * @param snapshotService service used to write &amp; read snapshots.
+   * @param readModel in-memory copy of the catalog, rebuilt after an import.
+   * @param invalidationService service notifying peer instances of an import.
+   * @param sendfileRetention minimum time (in milliseconds) a snapshot file handed to the
+   * container for sendfile is kept, before it is deleted.
+   */
+  @Autowired
+  public SnapshotController(SnapshotService snapshotService, CatalogReadModel readModel,
+      CacheInvalidationService invalidationService,
+      @Value("${snapshot.sendfile-retention-ms:60000}") long sendfileRetention) {
+    this.snapshotService = snapshotService;
+    this.readModel = readModel;
+    this.invalidationService = invalidationService;
+    this.sendfileRetention = sendfileRetention;
+  }
+
+  /**
+   * Writes a snapshot of the entire catalog to a temporary file, then sends the contents of that
+   * file as the response. Since the snapshot is complete before any of it is sent, the response
+   * always includes an accurate {@code Content-Length}, and a failure during export results in an
+   * error status rather than a truncated body.
+   * <p>If the container supports sendfile (as Tomcat's NIO connector does, unless it is disabled),
+   * the file is handed to the container via the {@code org.apache.tomcat.sendfile.*} request
+   * attributes, and the container sends it from the file to the socket, without copying it
+   * through the JVM heap, after this method returns. The file is therefore not deleted
+   * immediately, but when the next snapshot is requested (or when the application stops), after
+   * the configured retention time has elapsed. Otherwise, the file is copied through the response
+   * output stream (via {@link FileChannel#transferTo(long, long, WritableByteChannel)}), and
+   * deleted before this method returns.</p>
+   *
+   * @param request servlet request, indicating whether sendfile is supported.
+   * @param response servlet response to which the snapshot is written.
+   * @throws IOException if the snapshot cannot be written or transferred.
+   */
+  @GetMapping(produces = SnapshotService.MEDIA_TYPE)
+  public void get(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    purgeSentFiles(false);
+    Path file = Files.createTempFile("qod-snapshot", ".ndjson");
+    boolean sent = false;
+    try {
+      try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+        snapshotService.export(output);
+      }
+      long size = Files.size(file);
+      response.setContentType(SnapshotService.MEDIA_TYPE);
+      response.setContentLengthLong(size);
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+          String.format("attachment; filename=\"%s\"", SNAPSHOT_FILENAME));
+      if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+        request.setAttribute(SENDFILE_FILENAME, file.toFile().getCanonicalPath());
+        request.setAttribute(SENDFILE_START, 0L);
+        request.setAttribute(SENDFILE_END, size);
+        sentFiles.put(file, System.currentTimeMillis() + sendfileRetention);
+        sent = true;
+      } else {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+          WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+          for (long position = 0; position < size; ) {
+            position += channel.transferTo(position, size - position, target);
+          }
+        }
+      }
+    } finally {
+      if (!sent) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * Deletes all snapshot files handed to the container for sendfile, when the application stops.
+   */
+  @PreDestroy
+  public void stop() {
+    purgeSentFiles(true);
+  }
+
+  /**
+   * Loads the snapshot in the request body into the database, returning the number of records of
+   * each type inserted. The import is all-or-nothing: a snapshot containing a record that conflicts
+   * with existing data is rejected in its entirety. Imported records are recorded in the change log
+   * (so that synchronizing clients receive them), but change log listeners are not notified of them
+   * individually; instead, the in-memory read model (if enabled) is rebuilt after the import, and
+   * peer instances (if any) are notified to invalidate all of their cached state.
+   *
+   * @param input snapshot content.
+   * @return numbers of sources, quotes, and attributions imported.
+   * @throws IOException if the snapshot cannot be read.
+   */
+  @PostMapping(consumes = SnapshotService.MEDIA_TYPE, produces = MediaType.APPLICATION_JSON_VALUE)
+  public Totals post(InputStream input) throws IOException {
+    Totals totals = snapshotService.load(input);
+    readModel.rebuild();
+    invalidationService.invalidateAll();
+    return totals;
+  }
+
+  /**
+   * Maps (via annotation) an {@link IllegalArgumentException} (thrown for an unrecognized snapshot
+   * format, version, or record type) to a response status code of {@link HttpStatus#BAD_REQUEST}.
+   */
+  @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid snapshot")
+  @ExceptionHandler(IllegalArgumentException.class)
+  public void badRequest() {
+  }
+
+  /**
+   * Maps (via annotation) a {@link DataIntegrityViolationException} (thrown when a snapshot record
+   * duplicates existing data) to a response status code of {@link HttpStatus#CONFLICT}.
+   */
+  @ResponseStatus(value = HttpStatus.CONFLICT, reason = "Snapshot conflicts with existing data")
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public void conflict() {
+  }
+
+  private void purgeSentFiles(boolean all) {
+    long now = System.currentTimeMillis();
+    sentFiles.forEach((file, expiration) -> {
+      if ((all || expiration <= now) && sentFiles.remove(file, expiration)) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          logger.warn(String.format("Snapshot file %s could not be deleted", file), e);
+        }
+      }
+    });
+  }
+
+}
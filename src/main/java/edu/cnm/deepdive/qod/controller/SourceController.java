@@ -17,17 +17,39 @@ package edu.cnm.deepdive.qod.controller;
 
 import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
 import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
 import edu.cnm.deepdive.qod.model.entity.Quote;
 import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.service.AttributionService;
+import edu.cnm.deepdive.qod.service.CatalogReadModel;
+import edu.cnm.deepdive.qod.service.ChangeLogService;
+import edu.cnm.deepdive.qod.service.DatabaseExecutor;
+import edu.cnm.deepdive.qod.service.IdempotencyService;
+import edu.cnm.deepdive.qod.service.IdempotencyService.ConflictingRequestException;
+import edu.cnm.deepdive.qod.service.SourceDeletionService;
+import edu.cnm.deepdive.qod.service.SourceDeletionService.Deletion;
+import edu.cnm.deepdive.qod.view.ExpandedSource;
+import edu.cnm.deepdive.qod.view.FlatSource;
+import edu.cnm.deepdive.qod.view.QuoteSummary;
+import edu.cnm.deepdive.qod.view.SourceSummary;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Set;
 import java.util.UUID;
-import javax.transaction.Transactional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.hateoas.ExposesResourceFor;
+import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -35,6 +57,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -43,14 +66,39 @@ import org.springframework.web.bind.annotation.RestController;
 /**
  * Defines REST endpoints for servicing requests on {@link Source} resources, invoking {@link
  * SourceRepository} methods to perform the required operations.
+ * <p>Individual source resources carry an {@code ETag} header, derived from the version of the
+ * source. Updates, deletions, and changes to the quotes of a source may be made conditional on that
+ * version, via an {@code If-Match} header; if the source has been modified in the meantime, the
+ * request fails with {@link HttpStatus#PRECONDITION_FAILED}.</p>
+ * <p>Creation of sources, and association of quotes with sources, may be retried safely by
+ * including an {@code Idempotency-Key} header (see {@link IdempotencyService}).</p>
+ * <p>If the in-memory read model is enabled (see {@link CatalogReadModel}), all of the catalog
+ * queries are served from it, rather than from the database.</p>
+ * <p>All of these operations are performed on the {@link DatabaseExecutor}, and the responses
+ * completed asynchronously, so that servlet container threads are not held while waiting on
+ * JDBC.</p>
  */
 @RestController
 @ExposesResourceFor(Source.class)
 @RequestMapping("/sources")
 public class SourceController {
 
+  private static final String EXPAND_QUOTES = "quotes";
+  private static final String POST_SCOPE = "sources.post";
+  private static final String ATTACH_ALL_SCOPE = "sources.attach-all";
+  private static final String ATTACH_SCOPE = "sources.attach";
+  private static final String DELETIONS = "deletions";
+  private static final String RETRY_AFTER_SECONDS = "1";
+
   private SourceRepository sourceRepository;
   private QuoteRepository quoteRepository;
+  private AttributionService attributionService;
+  private SourceDeletionService deletionService;
+  private IdempotencyService idempotencyService;
+  private ChangeLogService changeLogService;
+  private CatalogReadModel readModel;
+  private DatabaseExecutor database;
+  private TransactionTemplate transactionTemplate;
 
   /**
    * Initializes this instance, injecting an instance of {@link SourceRepository} and an instance of
@@ -58,32 +106,76 @@ public class SourceController {
    *
    * @param sourceRepository repository used for operations on {@link Source} entity instances.
    * @param quoteRepository repository used for operations on {@link Quote} entity instances.
+   * @param attributionService service used to associate quotes with sources in bulk.
+   * @param deletionService service used to delete sources without loading their quotes.
+   * @param idempotencyService service used to replay responses to retried requests.
+   * @param changeLogService service used to record changes to sources.
+   * @param readModel in-memory copy of the catalog, used (if enabled) to serve queries.
+   * @param database executor on which database-bound work is performed.
+   * @param transactionManager manager of the transactions in which each source and its change log
+   * entry are written together.
    */
   @Autowired
-  public SourceController(SourceRepository sourceRepository, QuoteRepository quoteRepository) {
+  public SourceController(SourceRepository sourceRepository, QuoteRepository quoteRepository,
+      AttributionService attributionService, SourceDeletionService deletionService,
+      IdempotencyService idempotencyService, ChangeLogService changeLogService,
+      CatalogReadModel readModel, DatabaseExecutor database,
+      PlatformTransactionManager transactionManager) {
     this.sourceRepository = sourceRepository;
     this.quoteRepository = quoteRepository;
+    this.attributionService = attributionService;
+    this.deletionService = deletionService;
+    this.idempotencyService = idempotencyService;
+    this.changeLogService = changeLogService;
+    this.readModel = readModel;
+    this.database = database;
+    transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   /**
    * Returns a sequence of {@link Source} resources, containing the specified text.
    *
    * @param fragment text to match (case-insensitive).
+   * @param expand if {@code quotes}, the {@link Quote} resources attributed to each source are
+   * included in the response, fetched in a single query.
    * @return sequence of {@link Source} resources.
    */
   @GetMapping(value = "search", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Iterable<Source> search(@RequestParam("q") String fragment) {
-    return sourceRepository.findAllByNameContainingOrderByNameAsc(fragment);
+  public CompletableFuture<Iterable<? extends FlatSource>> search(
+      @RequestParam("q") String fragment,
+      @RequestParam(value = "expand", required = false) String expand) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        return EXPAND_QUOTES.equalsIgnoreCase(expand)
+            ? readModel.findExpandedSources(fragment)
+            : readModel.findSources(fragment);
+      }
+      return EXPAND_QUOTES.equalsIgnoreCase(expand)
+          ? sourceRepository.findDistinctByNameContainingOrderByNameAsc(fragment)
+          : sourceRepository.findAllByNameContainingOrderByNameAsc(fragment);
+    });
   }
 
   /**
    * Returns a sequence of all the {@link Source} resources in the database.
    *
+   * @param expand if {@code quotes}, the {@link Quote} resources attributed to each source are
+   * included in the response, fetched in a single query.
    * @return sequence of {@link Source} resources.
    */
   @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-  public Iterable<Source> get() {
-    return sourceRepository.findAllByOrderByNameAsc();
+  public CompletableFuture<Iterable<? extends FlatSource>> get(
+      @RequestParam(value = "expand", required = false) String expand) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        return EXPAND_QUOTES.equalsIgnoreCase(expand)
+            ? readModel.findExpandedSources(null)
+            : readModel.findSources(null);
+      }
+      return EXPAND_QUOTES.equalsIgnoreCase(expand)
+          ? sourceRepository.findDistinctByOrderByNameAsc()
+          : sourceRepository.findAllByOrderByNameAsc();
+    });
   }
 
   /**
@@ -92,25 +184,50 @@ public class SourceController {
    * <code>name</code> property, with a non-<code>null</code> value.
    *
    * @param source partial {@link Source} resource.
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
    * @return completed {@link Source} resource.
    */
   @PostMapping(
       consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseStatus(value = HttpStatus.CREATED)
-  public ResponseEntity<Source> post(@RequestBody Source source) {
-    sourceRepository.save(source);
-    return ResponseEntity.created(source.getHref()).body(source);
+  public CompletableFuture<ResponseEntity<?>> post(@RequestBody Source source,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    return idempotencyService.execute(
+        idempotencyKey, POST_SCOPE, source.getName(), () -> database.submit(() -> {
+          transactionTemplate.execute((status) -> {
+            sourceRepository.save(source);
+            changeLogService.record(Type.CREATE, Resource.SOURCE, source.getId());
+            return null;
+          });
+          return ResponseEntity.created(source.getHref())
+              .eTag(EntityTags.of(source.getVersion()))
+              .body(source);
+        }));
   }
 
   /**
-   * Retrieves and returns the {@link Source} resource with the specified ID.
+   * Retrieves and returns the {@link Source} resource with the specified ID, with its {@code
+   * ETag}.
    *
    * @param sourceId source {@link UUID}.
    * @return retrieved {@link Source} resource.
    */
   @GetMapping(value = "{sourceId}", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Source get(@PathVariable("sourceId") UUID sourceId) {
-    return sourceRepository.findById(sourceId).get();
+  public CompletableFuture<ResponseEntity<FlatSource>> get(
+      @PathVariable("sourceId") UUID sourceId) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        ExpandedSource source = readModel.getSource(sourceId).get();
+        return ResponseEntity.ok()
+            .eTag(EntityTags.of(source.getVersion()))
+            .body(source);
+      }
+      Source source = sourceRepository.findById(sourceId).get();
+      return ResponseEntity.ok()
+          .eTag(EntityTags.of(source.getVersion()))
+          .body(source);
+    });
   }
 
   /**
@@ -119,30 +236,71 @@ public class SourceController {
    *
    * @param sourceId source {@link UUID}.
    * @param update {@link Source} resource to use to replace contents of existing source.
+   * @param ifMatch entity tag of the version being replaced (optional).
+   * @return empty response, with the {@code ETag} of the updated source.
    */
   @PutMapping(value = "{sourceId}", consumes = MediaType.APPLICATION_JSON_VALUE)
-  public void put(@PathVariable("sourceId") UUID sourceId, @RequestBody Source update) {
-    Source source = sourceRepository.findById(sourceId).get();
-    source.setName(update.getName());
-    sourceRepository.save(source);
+  public CompletableFuture<ResponseEntity<Void>> put(@PathVariable("sourceId") UUID sourceId,
+      @RequestBody Source update,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return database.submit(() -> {
+      Source source = transactionTemplate.execute((status) -> {
+        Source updated = sourceRepository.findById(sourceId).get();
+        EntityTags.verify(ifMatch, updated.getVersion());
+        updated.setName(update.getName());
+        updated = sourceRepository.save(updated);
+        changeLogService.record(Type.UPDATE, Resource.SOURCE, updated.getId());
+        return updated;
+      });
+      return ResponseEntity.ok()
+          .eTag(EntityTags.of(source.getVersion()))
+          .<Void>build();
+    });
   }
 
   /**
-   * Deletes the specified {@link Source} resource from the database.
+   * Deletes the specified {@link Source} resource from the database, along with its associations
+   * with {@link Quote} resources (but not the quotes themselves). By default, the deletion is
+   * complete when the response is returned (with status {@link HttpStatus#NO_CONTENT}); if {@code
+   * async} is {@code true}, the deletion is only scheduled, and the response (status {@link
+   * HttpStatus#ACCEPTED}) contains a {@link Deletion}, with a {@code Location} header referencing
+   * the status of that deletion.
    *
    * @param sourceId source {@link UUID}.
+   * @param async flag indicating whether deletion should be performed asynchronously.
+   * @param ifMatch entity tag of the version being deleted (optional).
+   * @return empty response, or {@link Deletion} if {@code async} is {@code true}.
    */
-  @Transactional
   @DeleteMapping(value = "{sourceId}")
-  @ResponseStatus(HttpStatus.NO_CONTENT)
-  public void delete(@PathVariable("sourceId") UUID sourceId) {
-    Source source = get(sourceId);
-    Set<Quote> quotes = source.getQuotes();
-    for (Quote quote : quotes) {
-      quote.getSources().remove(source);
-    }
-    quoteRepository.saveAll(quotes);
-    sourceRepository.delete(source);
+  public CompletableFuture<ResponseEntity<?>> delete(@PathVariable("sourceId") UUID sourceId,
+      @RequestParam(value = "async", defaultValue = "false") boolean async,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Long expectedVersion = EntityTags.expectedVersion(ifMatch);
+    return database.submit(() -> {
+      if (async) {
+        Deletion deletion = deletionService.deleteAsync(sourceId, expectedVersion);
+        return ResponseEntity.accepted()
+            .location(ControllerLinkBuilder.linkTo(SourceController.class)
+                .slash(DELETIONS)
+                .slash(deletion.getId())
+                .toUri())
+            .body(deletion);
+      } else {
+        deletionService.delete(sourceId, expectedVersion);
+        return ResponseEntity.noContent().build();
+      }
+    });
+  }
+
+  /**
+   * Returns the current status of an asynchronous source deletion.
+   *
+   * @param deletionId {@link UUID} of deletion (not of source).
+   * @return {@link Deletion} status.
+   */
+  @GetMapping(value = DELETIONS + "/{deletionId}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Deletion getDeletion(@PathVariable("deletionId") UUID deletionId) {
+    return deletionService.get(deletionId);
   }
 
   /**
@@ -152,12 +310,18 @@ public class SourceController {
    *
    * @param sourceId {@link UUID} of {@link Source} resource.
    * @param quote {@link Quote} to be associated with referenced {@link Source}.
+   * @param ifMatch entity tag of the current version of the {@link Source} (optional).
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
    * @return updated {@link Source} resource.
    */
   @PostMapping(value = "{sourceId}/quotes",
       consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-  public Source attach(@PathVariable("sourceId") UUID sourceId, @RequestBody Quote quote) {
-    return attach(sourceId, quote.getId());
+  public CompletableFuture<ResponseEntity<?>> attach(@PathVariable("sourceId") UUID sourceId,
+      @RequestBody Quote quote,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    return attach(sourceId, quote.getId(), ifMatch, idempotencyKey);
   }
 
   /**
@@ -168,9 +332,64 @@ public class SourceController {
    * @return collection of {@link Quote} resources associated with specified {@link Source}.
    */
   @GetMapping(value = "{sourceId}/quotes", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Iterable<Quote> list(@PathVariable("sourceId") UUID sourceId) {
-    Source source = get(sourceId);
-    return source.getQuotes();
+  public CompletableFuture<Iterable<QuoteSummary>> list(
+      @PathVariable("sourceId") UUID sourceId) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        return readModel.getSource(sourceId).get().getQuotes();
+      }
+      if (!sourceRepository.existsById(sourceId)) {
+        throw new NoSuchElementException();
+      }
+      return quoteRepository.findAllBySourceId(sourceId);
+    });
+  }
+
+  /**
+   * Associates all of the {@link Quote} resources whose IDs are given in the request body with the
+   * {@link Source} referenced in the path, without retrieving the existing associations. IDs of
+   * non-existent quotes, and of quotes already associated with the source, are ignored.
+   *
+   * @param sourceId {@link UUID} of {@link Source} resource.
+   * @param quoteIds {@link UUID} values of {@link Quote} resources to be associated with referenced
+   * {@link Source}.
+   * @param ifMatch entity tag of the current version of the {@link Source} (optional).
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
+   * @return empty response.
+   */
+  @PutMapping(value = "{sourceId}/quotes", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<?>> attachAll(
+      @PathVariable("sourceId") UUID sourceId, @RequestBody List<UUID> quoteIds,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    return idempotencyService.execute(idempotencyKey, ATTACH_ALL_SCOPE,
+        Arrays.asList(sourceId, quoteIds), () -> database.submit(() -> {
+          attributionService.attachQuotes(
+              sourceId, quoteIds, EntityTags.expectedVersion(ifMatch));
+          return ResponseEntity.noContent().build();
+        }));
+  }
+
+  /**
+   * Removes the associations between the {@link Source} referenced in the path and all of the
+   * {@link Quote} resources whose IDs are given in the request body. IDs of quotes not associated
+   * with the source are ignored.
+   *
+   * @param sourceId {@link UUID} of {@link Source} resource.
+   * @param quoteIds {@link UUID} values of {@link Quote} resources to be disassociated from
+   * referenced {@link Source}.
+   * @param ifMatch entity tag of the current version of the {@link Source} (optional).
+   * @return empty response.
+   */
+  @DeleteMapping(value = "{sourceId}/quotes", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<ResponseEntity<Void>> detachAll(
+      @PathVariable("sourceId") UUID sourceId, @RequestBody List<UUID> quoteIds,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return database.submit(() -> {
+      attributionService.detachQuotes(sourceId, quoteIds, EntityTags.expectedVersion(ifMatch));
+      return ResponseEntity.noContent().<Void>build();
+    });
   }
 
   /**
@@ -179,35 +398,52 @@ public class SourceController {
    *
    * @param sourceId {@link UUID} of {@link Source} resource.
    * @param quoteId {@link UUID} of {@link Quote} to be associated with referenced {@link Source}.
+   * @param ifMatch entity tag of the current version of the {@link Source} (optional).
+   * @param idempotencyKey client-generated key identifying retries of the same request (optional).
    * @return updated {@link Source} resource.
    */
   @PutMapping(value = "{sourceId}/quotes/{quoteId}", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Source attach(
-      @PathVariable("sourceId") UUID sourceId, @PathVariable("quoteId") UUID quoteId) {
-    Quote quote = quoteRepository.findById(quoteId).get();
-    Source source = get(sourceId);
-    quote.getSources().add(source);
-    quoteRepository.save(quote);
-    return source;
+  public CompletableFuture<ResponseEntity<?>> attach(
+      @PathVariable("sourceId") UUID sourceId, @PathVariable("quoteId") UUID quoteId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false)
+          String idempotencyKey) {
+    return idempotencyService.execute(idempotencyKey, ATTACH_SCOPE,
+        Arrays.asList(sourceId, quoteId), () -> database.submit(() -> {
+          if (!quoteRepository.existsById(quoteId)) {
+            throw new NoSuchElementException();
+          }
+          attributionService.attachQuotes(
+              sourceId, Collections.singleton(quoteId), EntityTags.expectedVersion(ifMatch));
+          return ResponseEntity.ok(sourceRepository.findById(sourceId).get());
+        }));
   }
 
   /**
    * Retrieves and returns the referenced {@link Quote} resource associated with the referenced
    * {@link Source} resource. If either does not exist, or if the referenced quote is not associated
-   * with the source, this method will fail.
+   * with the source, this method will fail. The association is verified with an indexed lookup on
+   * the join table, without loading the quotes of the source.
    *
    * @param sourceId {@link UUID} of {@link Source} resource.
    * @param quoteId {@link UUID} of {@link Quote} associated with referenced {@link Source}.
    * @return referenced {@link Quote} resource.
    */
   @GetMapping(value = "{sourceId}/quotes/{quoteId}", produces = MediaType.APPLICATION_JSON_VALUE)
-  public Quote get(@PathVariable("sourceId") UUID sourceId, @PathVariable("quoteId") UUID quoteId) {
-    Source source = get(sourceId);
-    Quote quote = quoteRepository.findById(quoteId).get();
-    if (!source.getQuotes().contains(quote)) {
-      throw new NoSuchElementException();
-    }
-    return quote;
+  public CompletableFuture<QuoteSummary> get(
+      @PathVariable("sourceId") UUID sourceId, @PathVariable("quoteId") UUID quoteId) {
+    return database.submit(() -> {
+      if (readModel.isEnabled()) {
+        if (!readModel.isAttributed(quoteId, sourceId)) {
+          throw new NoSuchElementException();
+        }
+        return readModel.getQuoteSummary(quoteId).get();
+      }
+      if (!quoteRepository.isAttributed(quoteId, sourceId)) {
+        throw new NoSuchElementException();
+      }
+      return quoteRepository.findSummaryById(quoteId).get();
+    });
   }
 
   /**
@@ -218,13 +454,17 @@ public class SourceController {
    * @param sourceId {@link UUID} of {@link Source} resource.
    * @param quoteId {@link UUID} of {@link Quote} to be disassociated from the referenced {@link
    * Source}.
+   * @param ifMatch entity tag of the current version of the {@link Source} (optional).
+   * @return empty response.
    */
   @DeleteMapping(value = "{sourceId}/quotes/{quoteId}")
-  public void detach(@PathVariable("sourceId") UUID sourceId, @PathVariable("quoteId") UUID quoteId) {
-    Source source = get(sourceId);
-    Quote quote = get(sourceId, quoteId);
-    quote.getSources().remove(source);
-    quoteRepository.save(quote);
+  public CompletableFuture<ResponseEntity<Void>> detach(@PathVariable("sourceId") UUID sourceId,
+      @PathVariable("quoteId") UUID quoteId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return database.submit(() -> {
+      attributionService.detachQuote(sourceId, quoteId, EntityTags.expectedVersion(ifMatch));
+      return ResponseEntity.ok().<Void>build();
+    });
   }
 
   /**
@@ -234,5 +474,38 @@ public class SourceController {
   @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Resource not found")
   @ExceptionHandler(NoSuchElementException.class)
   public void notFound() {}
-  
+
+  /**
+   * Maps (via annotation) an {@link OptimisticLockingFailureException} (thrown when an {@code
+   * If-Match} precondition is not satisfied, or a concurrent update is detected) to a response
+   * status code of {@link HttpStatus#PRECONDITION_FAILED}.
+   */
+  @ResponseStatus(value = HttpStatus.PRECONDITION_FAILED, reason = "Source has been modified")
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public void preconditionFailed() {}
+
+  /**
+   * Maps (via annotation) a {@link ConflictingRequestException} (thrown when an {@code
+   * Idempotency-Key} is reused for a different request) to a response status code of {@link
+   * HttpStatus#UNPROCESSABLE_ENTITY}.
+   */
+  @ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY,
+      reason = "Idempotency key already used for a different request")
+  @ExceptionHandler(ConflictingRequestException.class)
+  public void conflictingRequest() {}
+
+  /**
+   * Maps a {@link RejectedExecutionException} (thrown when the queue of the {@link
+   * DatabaseExecutor} is full) to a response status code of {@link HttpStatus#SERVICE_UNAVAILABLE},
+   * with a {@code Retry-After} header.
+   *
+   * @return empty response.
+   */
+  @ExceptionHandler(RejectedExecutionException.class)
+  public ResponseEntity<Void> queueFull() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+        .build();
+  }
+
 }
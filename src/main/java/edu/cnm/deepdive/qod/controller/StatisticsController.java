@@ -0,0 +1,168 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.controller;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Defines administrative REST endpoints for reading and resetting the Hibernate statistics
+ * collected since startup (or since the last reset), when enabled with {@code
+ * query-statistics.enabled}. The statistics are reported in 4 sections:
+ * <ul>
+ * <li>{@code totals}: counts of sessions, transactions, statements, queries, entity and
+ * collection loads, and second-level and query cache hits and misses, along with the slowest
+ * query;</li>
+ * <li>{@code queries}: for each distinct query, the number of executions, rows fetched, and
+ * average, minimum, maximum, and total execution times, ordered by total time (descending);</li>
+ * <li>{@code entities}: for each entity type, the number of instances loaded, fetched, inserted,
+ * updated, and deleted;</li>
+ * <li>{@code collections}: for each collection role, the number of collections loaded, fetched,
+ * recreated, updated, and removed.</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/admin/statistics")
+@ConditionalOnProperty(name = "query-statistics.enabled", havingValue = "true")
+public class StatisticsController {
+
+  private final Statistics statistics;
+
+  /**
+   * Initializes this instance with the statistics of the specified persistence unit.
+   *
+   * @param entityManagerFactory persistence unit whose statistics are reported.
+   */
+  @Autowired
+  public StatisticsController(EntityManagerFactory entityManagerFactory) {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  /**
+   * Returns the statistics collected since startup, or since the last reset.
+   *
+   * @return statistics, in the sections described above.
+   */
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public Map<String, Object> get() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("totals", totals());
+    report.put("queries", queries());
+    report.put("entities", entities());
+    report.put("collections", collections());
+    return report;
+  }
+
+  /**
+   * Resets all statistics to zero.
+   *
+   * @return empty response.
+   */
+  @DeleteMapping
+  public ResponseEntity<Void> clear() {
+    statistics.clear();
+    return ResponseEntity.noContent().build();
+  }
+
+  private Map<String, Object> totals() {
+    Map<String, Object> totals = new LinkedHashMap<>();
+    totals.put("since", statistics.getStartTime());
+    totals.put("sessions", statistics.getSessionOpenCount());
+    totals.put("transactions", statistics.getTransactionCount());
+    totals.put("statements", statistics.getPrepareStatementCount());
+    totals.put("queries", statistics.getQueryExecutionCount());
+    totals.put("slowestQueryTime", statistics.getQueryExecutionMaxTime());
+    totals.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+    totals.put("entityLoads", statistics.getEntityLoadCount());
+    totals.put("entityFetches", statistics.getEntityFetchCount());
+    totals.put("collectionLoads", statistics.getCollectionLoadCount());
+    totals.put("collectionFetches", statistics.getCollectionFetchCount());
+    totals.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+    totals.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+    totals.put("queryCacheHits", statistics.getQueryCacheHitCount());
+    totals.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+    return totals;
+  }
+
+  private List<Map<String, Object>> queries() {
+    List<Map<String, Object>> queries = new ArrayList<>();
+    for (String query : statistics.getQueries()) {
+      QueryStatistics stats = statistics.getQueryStatistics(query);
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("query", query);
+      entry.put("executions", stats.getExecutionCount());
+      entry.put("rows", stats.getExecutionRowCount());
+      entry.put("averageTime", stats.getExecutionAvgTime());
+      entry.put("minimumTime", stats.getExecutionMinTime());
+      entry.put("maximumTime", stats.getExecutionMaxTime());
+      entry.put("totalTime", stats.getExecutionAvgTime() * stats.getExecutionCount());
+      entry.put("cacheHits", stats.getCacheHitCount());
+      entry.put("cacheMisses", stats.getCacheMissCount());
+      queries.add(entry);
+    }
+    queries.sort(Comparator.comparing((Map<String, Object> entry) -> (Long) entry.get("totalTime"))
+        .reversed());
+    return queries;
+  }
+
+  private Map<String, Object> entities() {
+    Map<String, Object> entities = new LinkedHashMap<>();
+    for (String name : statistics.getEntityNames()) {
+      EntityStatistics stats = statistics.getEntityStatistics(name);
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("loads", stats.getLoadCount());
+      entry.put("fetches", stats.getFetchCount());
+      entry.put("inserts", stats.getInsertCount());
+      entry.put("updates", stats.getUpdateCount());
+      entry.put("deletes", stats.getDeleteCount());
+      entities.put(name, entry);
+    }
+    return entities;
+  }
+
+  private Map<String, Object> collections() {
+    Map<String, Object> collections = new LinkedHashMap<>();
+    for (String role : statistics.getCollectionRoleNames()) {
+      CollectionStatistics stats = statistics.getCollectionStatistics(role);
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("loads", stats.getLoadCount());
+      entry.put("fetches", stats.getFetchCount());
+      entry.put("recreates", stats.getRecreateCount());
+      entry.put("updates", stats.getUpdateCount());
+      entry.put("removes", stats.getRemoveCount());
+      collections.put(role, entry);
+    }
+    return collections;
+  }
+
+}
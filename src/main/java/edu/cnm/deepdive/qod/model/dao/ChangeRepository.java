@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.entity.Change;
+import java.util.Date;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Declares database operations that can be performed on {@link Change} entity instances.
+ */
+public interface ChangeRepository extends CrudRepository<Change, Long>, ChangeRepositoryCustom {
+
+  /**
+   * Selects and returns (a page of) the {@link Change} instances recorded after the specified
+   * sequence number, in sequence order.
+   *
+   * @param sequence sequence number of the last change already seen.
+   * @param pageable maximum number of changes to return.
+   * @return {@link List} of {@link Change} instances.
+   */
+  @Transactional(readOnly = true)
+  List<Change> findAllBySequenceGreaterThanOrderBySequenceAsc(long sequence, Pageable pageable);
+
+  /**
+   * Returns the lowest sequence number of the retained changes.
+   *
+   * @return minimum sequence number, or {@code null} if no changes have been recorded.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT MIN(c.sequence) FROM Change AS c")
+  Long findMinimumSequence();
+
+  /**
+   * Returns the highest sequence number of the retained changes.
+   *
+   * @return maximum sequence number, or {@code null} if no changes have been recorded.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT MAX(c.sequence) FROM Change AS c")
+  Long findMaximumSequence();
+
+  /**
+   * Deletes all {@link Change} instances recorded before the specified cutoff, with a sequence
+   * number lower than the specified limit.
+   *
+   * @param cutoff date &amp; time before which changes are deleted.
+   * @param sequence sequence number of the earliest change that must be retained, regardless of
+   * age.
+   * @return number of changes deleted.
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM Change AS c WHERE c.created < :cutoff AND c.sequence < :sequence")
+  int deleteExpired(@Param("cutoff") Date cutoff, @Param("sequence") long sequence);
+
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.entity.Change;
+import java.util.Collection;
+
+/**
+ * Declares database operations on {@link Change} entity instances that are not derived by Spring
+ * Data, but implemented directly (see {@link ChangeRepositoryImpl}).
+ */
+public interface ChangeRepositoryCustom {
+
+  /**
+   * Inserts the specified {@link Change} instances in JDBC batches, in the current transaction (if
+   * any). Unlike {@link ChangeRepository#saveAll(Iterable)}, which inserts one row per statement
+   * (since each sequence number is generated by an identity column), this does not assign the
+   * sequence numbers or timestamps of the instances themselves.
+   *
+   * @param changes changes to insert, in order.
+   */
+  void insertAll(Collection<Change> changes);
+
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import static edu.cnm.deepdive.qod.model.dao.DirectStatements.toBytes;
+
+import edu.cnm.deepdive.qod.model.entity.Change;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements {@link ChangeRepositoryCustom} with {@link JdbcTemplate} batch statements, which
+ * share the connection (and so the transaction) of the current JPA transaction.
+ */
+class ChangeRepositoryImpl implements ChangeRepositoryCustom {
+
+  private static final String INSERT_CHANGE = "INSERT INTO change_log "
+      + "(created, type, resource, resource_id, related_id) VALUES (?, ?, ?, ?, ?)";
+  private static final int[] INSERT_TYPES =
+      {Types.TIMESTAMP, Types.SMALLINT, Types.SMALLINT, Types.BINARY, Types.BINARY};
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int batchSize;
+
+  @Autowired
+  ChangeRepositoryImpl(DataSource dataSource,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  @Transactional
+  public void insertAll(Collection<Change> changes) {
+    Timestamp created = new Timestamp(System.currentTimeMillis());
+    List<Object[]> rows = changes.stream()
+        .map((change) -> new Object[]{created, (short) change.getType().ordinal(),
+            (short) change.getResource().ordinal(), toBytes(change.getResourceId()),
+            toBytes(change.getRelatedId())})
+        .collect(Collectors.toList());
+    for (int start = 0; start < rows.size(); start += batchSize) {
+      jdbcTemplate.batchUpdate(INSERT_CHANGE,
+          rows.subList(start, Math.min(start + batchSize, rows.size())), INSERT_TYPES);
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.UUID;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Executes the statements of the custom repository fragments that write to the database without
+ * going through the entities, limiting the second-level cache entries evicted by each to those
+ * it can affect. (Hibernate evicts every cache region after a native statement that does not
+ * declare the tables it writes, and the entire entity region after a bulk JPQL statement.)
+ */
+final class DirectStatements {
+
+  /** Name of the table associating quotes with sources. */
+  static final String JOIN_TABLE = "quote_sources";
+
+  private DirectStatements() {
+  }
+
+  /**
+   * Executes the specified native statement on the {@link #JOIN_TABLE join table}, declaring that
+   * table as the only one written. Hibernate then invalidates only the query results read from
+   * the join table, and the cached collections mapped to it; cached entities are not evicted.
+   *
+   * @param entityManager entity manager of the current transaction.
+   * @param sql statement with an {@code ownerId} parameter, and (if {@code ids} is not {@code
+   * null}) an {@code ids} parameter.
+   * @param ownerId value of the {@code ownerId} parameter.
+   * @param ids value of the {@code ids} parameter, or {@code null} if there is none.
+   * @return number of rows inserted or deleted.
+   */
+  static int updateJoinTable(EntityManager entityManager, String sql, UUID ownerId,
+      Collection<UUID> ids) {
+    NativeQuery<?> query = entityManager.createNativeQuery(sql)
+        .unwrap(NativeQuery.class)
+        .addSynchronizedQuerySpace(JOIN_TABLE);
+    query.setParameter("ownerId", ownerId);
+    if (ids != null) {
+      query.setParameterList("ids", ids);
+    }
+    return query.executeUpdate();
+  }
+
+  /**
+   * Increments the version column of the specified entity row with a JDBC statement, on the
+   * connection of the current transaction, then evicts that entity (only) from the second-level
+   * cache&mdash;immediately, and again when the transaction completes, in case a concurrent read
+   * cached the previous version in the meantime. Pending changes in the persistence context are
+   * flushed first, as they would be before a bulk JPQL statement.
+   *
+   * @param entityManager entity manager of the current transaction.
+   * @param entityClass class of the entity.
+   * @param table name of the entity table.
+   * @param idColumn name of the primary key column of {@code table}.
+   * @param id primary key value.
+   * @param version required current version, or {@code null} if any version is acceptable.
+   * @return number of rows updated (0 or 1).
+   */
+  static int incrementVersion(EntityManager entityManager, Class<?> entityClass, String table,
+      String idColumn, UUID id, Long version) {
+    String sql = String.format("UPDATE %1$s SET version = version + 1 WHERE %2$s = ?%3$s",
+        table, idColumn, (version != null) ? " AND version = ?" : "");
+    entityManager.flush();
+    int updated = entityManager.unwrap(Session.class).doReturningWork((connection) -> {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        statement.setBytes(1, toBytes(id));
+        if (version != null) {
+          statement.setLong(2, version);
+        }
+        return statement.executeUpdate();
+      }
+    });
+    if (updated > 0) {
+      Cache cache = entityManager.getEntityManagerFactory().getCache();
+      cache.evict(entityClass, id);
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronizationAdapter() {
+              @Override
+              public void afterCompletion(int status) {
+                cache.evict(entityClass, id);
+              }
+            });
+      }
+    }
+    return updated;
+  }
+
+  /**
+   * Returns the 16-byte big-endian representation of the specified {@link UUID}, as stored in the
+   * {@code CHAR(16) FOR BIT DATA} key columns.
+   *
+   * @param id {@link UUID} to convert.
+   * @return bytes of {@code id}, or {@code null} if {@code id} is {@code null}.
+   */
+  static byte[] toBytes(UUID id) {
+    return (id != null)
+        ? ByteBuffer.allocate(16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits())
+            .array()
+        : null;
+  }
+
+}
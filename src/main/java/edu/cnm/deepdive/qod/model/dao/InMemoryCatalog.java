@@ -0,0 +1,966 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.model.entity.TimeOrderedUuidGenerator;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds the entire quote catalog&mdash;sources, quotes, and the attributions between
+ * them&mdash;in concurrent in-memory maps, for use (via {@link InMemoryQuoteRepository} and {@link
+ * InMemorySourceRepository}) in place of the database, when the {@value #PROFILE} profile is
+ * active.
+ * <p>Each table is held as a hash map by ID, with two sorted indices: one on ID (in the unsigned
+ * byte order used by the database for binary keys), and one on a folded (lower-case, unaccented)
+ * form of the quote text or source name, which both enforces uniqueness and supplies alphabetical
+ * order, approximating the case- and accent-insensitive collation of the database. Reads do not
+ * lock; each write is validated and applied atomically with respect to other writes.</p>
+ * <p>Writes made within a Spring-managed transaction (e.g. the version increment guarding an
+ * attribution change in {@code AttributionService}, and the change itself) are isolated: they are
+ * validated and held in an overlay private to the transaction, and applied to the shared maps
+ * only after the transaction commits, so other threads never see them before then, and they are
+ * simply discarded if it rolls back. Lookups by ID, and of attributions, within the transaction
+ * see its own writes; listings and searches see only committed rows. A transaction holds the
+ * catalog's write lock from its first write until it completes, so write transactions are
+ * serialized, and the validation of each remains true until it is applied. Writes outside of any
+ * transaction are applied immediately. Reads never lock.</p>
+ * <p>Only quote, source, and attribution storage moves into memory with this profile. The data
+ * source, transaction manager, and change log (which are shared by other services) remain in
+ * place, on the configured database.</p>
+ * <p>If {@code in-memory.journal.path} is set, the changes made by each write are appended, as a
+ * single line of JSON, to the specified journal file before they are applied (for the writes of a
+ * transaction, after it commits), and the journal is replayed on startup. A torn final line, left
+ * by a crash mid-write, is discarded, so each write is replayed entirely or not at all. With {@code in-memory.journal.sync} set, each line is forced to
+ * the storage device before the changes are applied.</p>
+ */
+@Component
+@Profile(InMemoryCatalog.PROFILE)
+public class InMemoryCatalog {
+
+  /** Name of the Spring profile selecting the in-memory repositories. */
+  public static final String PROFILE = "in-memory";
+
+  /** Ordering of {@link UUID} values consistent with the database ordering of binary keys. */
+  public static final Comparator<UUID> ID_ORDER =
+      Comparator.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+          .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+  private static final Log logger = LogFactory.getLog(InMemoryCatalog.class);
+
+  private final Table quotes = new Table("Quote");
+  private final Table sources = new Table("Source");
+  private final ConcurrentMap<UUID, Set<UUID>> sourcesByQuote = new ConcurrentHashMap<>();
+  private final ConcurrentMap<UUID, Set<UUID>> quotesBySource = new ConcurrentHashMap<>();
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private final ObjectMapper mapper;
+  private final Path journalPath;
+  private final boolean sync;
+
+  private FileChannel journal;
+
+  /**
+   * Initializes this instance with the specified journal configuration.
+   *
+   * @param mapper JSON reader &amp; writer factory, used for the journal.
+   * @param journalPath path of journal file; if empty, changes are not journaled.
+   * @param sync flag controlling whether each journal write is forced to the storage device.
+   */
+  @Autowired
+  public InMemoryCatalog(ObjectMapper mapper,
+      @Value("${in-memory.journal.path:}") String journalPath,
+      @Value("${in-memory.journal.sync:false}") boolean sync) {
+    this.mapper = mapper;
+    this.journalPath = journalPath.isEmpty() ? null : Paths.get(journalPath);
+    this.sync = sync;
+  }
+
+  /**
+   * Replays the journal (if any) into memory, and opens it for appending.
+   *
+   * @throws IOException if the journal cannot be read or opened.
+   */
+  @PostConstruct
+  public void start() throws IOException {
+    writeLock.lock();
+    try {
+      if (journalPath != null) {
+        long length = Files.exists(journalPath) ? replay() : 0;
+        journal = FileChannel.open(journalPath,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (length > journal.size()) {
+          // The final line was complete, but its terminator was not written.
+          journal.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Closes the journal (if any).
+   *
+   * @throws IOException if the journal cannot be closed.
+   */
+  @PreDestroy
+  public void stop() throws IOException {
+    writeLock.lock();
+    try {
+      if (journal != null) {
+        journal.close();
+        journal = null;
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Writes the entire catalog to the specified consumers, in a single pass over each table: all
+   * sources and all quotes in ID order, followed by all attributions in quote ID and source ID
+   * order. Writes are excluded for the duration, so that the view is consistent.
+   *
+   * @param sourceConsumer recipient of source rows.
+   * @param quoteConsumer recipient of quote rows.
+   * @param attributionConsumer recipient of quote ID &amp; source ID pairs.
+   */
+  public void export(Consumer<Row> sourceConsumer, Consumer<Row> quoteConsumer,
+      BiConsumer<UUID, UUID> attributionConsumer) {
+    writeLock.lock();
+    try {
+      sources.stream().forEach(sourceConsumer);
+      quotes.stream().forEach(quoteConsumer);
+      for (UUID quoteId : quotes.ids) {
+        sourcesByQuote.getOrDefault(quoteId, Collections.emptySet()).stream()
+            .sorted(ID_ORDER)
+            .forEach((sourceId) -> attributionConsumer.accept(quoteId, sourceId));
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Adds the specified sources, quotes, and attributions (each a two-element array of quote ID
+   * &amp; source ID) to the catalog, retaining their IDs, creation timestamps, and versions. If any
+   * of these conflict with existing data, or with each other, nothing is added.
+   *
+   * @param sourceRows sources to add.
+   * @param quoteRows quotes to add.
+   * @param attributions attributions to add.
+   * @throws DataIntegrityViolationException if any ID, name, text, or attribution is a duplicate,
+   * or any attribution refers to a missing quote or source.
+   */
+  public void load(List<Row> sourceRows, List<Row> quoteRows, List<UUID[]> attributions) {
+    write(() -> {
+      loadRows(sourceRows, quoteRows, attributions);
+      return null;
+    });
+  }
+
+  private void loadRows(List<Row> sourceRows, List<Row> quoteRows, List<UUID[]> attributions) {
+    List<Change> changes = new ArrayList<>();
+    checkNew(sources, sourceRows);
+    checkNew(quotes, quoteRows);
+    Set<UUID> sourceIds = sourceRows.stream().map(Row::getId).collect(Collectors.toSet());
+    Set<UUID> quoteIds = quoteRows.stream().map(Row::getId).collect(Collectors.toSet());
+    Set<List<UUID>> added = new HashSet<>();
+    for (UUID[] attribution : attributions) {
+      UUID quoteId = attribution[0];
+      UUID sourceId = attribution[1];
+      if ((!quoteIds.contains(quoteId) && row(quotes, quoteId) == null)
+          || (!sourceIds.contains(sourceId) && row(sources, sourceId) == null)) {
+        throw new DataIntegrityViolationException(
+            String.format("Attribution of quote %s to source %s is invalid", quoteId, sourceId));
+      }
+      if (!added.add(Arrays.asList(quoteId, sourceId))
+          || sourceIdsOf(quoteId).contains(sourceId)) {
+        throw new DataIntegrityViolationException(
+            String.format("Quote %s is already attributed to source %s", quoteId, sourceId));
+      }
+    }
+    sourceRows.forEach((row) -> changes.add(new Change(Kind.PUT_SOURCE, row)));
+    quoteRows.forEach((row) -> changes.add(new Change(Kind.PUT_QUOTE, row)));
+    for (UUID[] attribution : attributions) {
+      changes.add(new Change(Kind.ATTACH, attribution[0], attribution[1]));
+    }
+    commit(changes);
+  }
+
+  Row getQuote(UUID id) {
+    return row(quotes, id);
+  }
+
+  Row getSource(UUID id) {
+    return row(sources, id);
+  }
+
+  long countQuotes() {
+    return quotes.rows.size();
+  }
+
+  long countSources() {
+    return sources.rows.size();
+  }
+
+  Stream<Row> quotesById() {
+    return quotes.stream();
+  }
+
+  Stream<Row> sourcesById() {
+    return sources.stream();
+  }
+
+  Stream<Row> quotesByText(String fragment) {
+    return quotes.byValue(fragment);
+  }
+
+  Stream<Row> sourcesByName(String fragment) {
+    return sources.byValue(fragment);
+  }
+
+  Row findQuoteByText(String text) {
+    UUID id = owner(quotes, fold(text));
+    return (id != null) ? row(quotes, id) : null;
+  }
+
+  Set<UUID> sourceIdsOf(UUID quoteId) {
+    Pending pending = pending();
+    return (pending != null && pending.sourcesByQuote.containsKey(quoteId))
+        ? Collections.unmodifiableSet(pending.sourcesByQuote.get(quoteId))
+        : sourcesByQuote.getOrDefault(quoteId, Collections.emptySet());
+  }
+
+  Set<UUID> quoteIdsOf(UUID sourceId) {
+    Pending pending = pending();
+    return (pending != null && pending.quotesBySource.containsKey(sourceId))
+        ? Collections.unmodifiableSet(pending.quotesBySource.get(sourceId))
+        : quotesBySource.getOrDefault(sourceId, Collections.emptySet());
+  }
+
+  Stream<Row> sourcesOf(UUID quoteId) {
+    return rowsOf(sources, sourceIdsOf(quoteId));
+  }
+
+  Stream<Row> quotesOf(UUID sourceId) {
+    return rowsOf(quotes, quoteIdsOf(sourceId));
+  }
+
+  List<Row> putQuotes(List<Row> candidates) {
+    return write(() -> put(quotes, Kind.PUT_QUOTE, candidates));
+  }
+
+  List<Row> putSources(List<Row> candidates) {
+    return write(() -> put(sources, Kind.PUT_SOURCE, candidates));
+  }
+
+  int incrementQuoteVersion(UUID id, Long version) {
+    return write(() -> incrementVersion(quotes, Kind.PUT_QUOTE, id, version));
+  }
+
+  int incrementSourceVersion(UUID id, Long version) {
+    return write(() -> incrementVersion(sources, Kind.PUT_SOURCE, id, version));
+  }
+
+  boolean deleteQuote(UUID id) {
+    return write(() -> {
+      if (row(quotes, id) == null) {
+        return false;
+      }
+      commit(Collections.singletonList(new Change(Kind.DELETE_QUOTE, id, null)));
+      return true;
+    });
+  }
+
+  boolean deleteSource(UUID id) {
+    return write(() -> {
+      if (row(sources, id) == null) {
+        return false;
+      }
+      if (!quoteIdsOf(id).isEmpty()) {
+        throw new DataIntegrityViolationException(
+            String.format("Source %s is attributed to one or more quotes", id));
+      }
+      commit(Collections.singletonList(new Change(Kind.DELETE_SOURCE, null, id)));
+      return true;
+    });
+  }
+
+  int attach(UUID quoteId, UUID sourceId) {
+    return attach(Collections.singleton(quoteId), Collections.singleton(sourceId));
+  }
+
+  int attach(Collection<UUID> quoteIds, Collection<UUID> sourceIds) {
+    return write(() -> {
+      List<Change> changes = new ArrayList<>();
+      for (UUID quoteId : new HashSet<>(quoteIds)) {
+        if (row(quotes, quoteId) != null) {
+          for (UUID sourceId : new HashSet<>(sourceIds)) {
+            if (row(sources, sourceId) != null && !sourceIdsOf(quoteId).contains(sourceId)) {
+              changes.add(new Change(Kind.ATTACH, quoteId, sourceId));
+            }
+          }
+        }
+      }
+      commit(changes);
+      return changes.size();
+    });
+  }
+
+  int detach(Collection<UUID> quoteIds, Collection<UUID> sourceIds) {
+    return write(() -> {
+      List<Change> changes = new ArrayList<>();
+      for (UUID quoteId : new HashSet<>(quoteIds)) {
+        for (UUID sourceId : new HashSet<>(sourceIds)) {
+          if (sourceIdsOf(quoteId).contains(sourceId)) {
+            changes.add(new Change(Kind.DETACH, quoteId, sourceId));
+          }
+        }
+      }
+      commit(changes);
+      return changes.size();
+    });
+  }
+
+  int detachAll(UUID sourceId) {
+    return write(() ->
+        detach(new ArrayList<>(quoteIdsOf(sourceId)), Collections.singleton(sourceId)));
+  }
+
+  Quote toQuote(Row row, boolean withSources) {
+    Quote quote = new Quote();
+    quote.setText(row.value);
+    assign(quote, row);
+    if (withSources) {
+      sourcesOf(row.id)
+          .sorted(Comparator.comparing(Row::getKey))
+          .forEach((source) -> quote.getSources().add(toSource(source, false)));
+    }
+    return quote;
+  }
+
+  Source toSource(Row row, boolean withQuotes) {
+    Source source = new Source();
+    source.setName(row.value);
+    assign(source, row);
+    if (withQuotes) {
+      quotesOf(row.id)
+          .sorted(Comparator.comparing(Row::getKey))
+          .forEach((quote) -> source.getQuotes().add(toQuote(quote, false)));
+    }
+    return source;
+  }
+
+  static void assign(Quote quote, Row row) {
+    quote.restore(row.id, new Date(row.created), row.version);
+  }
+
+  static void assign(Source source, Row row) {
+    source.restore(row.id, new Date(row.created), row.version);
+  }
+
+  /**
+   * Returns the folded form of the specified text, used for comparison and ordering: the text is
+   * decomposed, stripped of combining marks (accents), and converted to lower case.
+   *
+   * @param value text to fold.
+   * @return folded text.
+   */
+  static String fold(String value) {
+    return COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD))
+        .replaceAll("")
+        .toLowerCase(Locale.ROOT);
+  }
+
+  private List<Row> put(Table table, Kind kind, List<Row> candidates) {
+    Set<String> claimed = new HashSet<>();
+    List<Row> results = new ArrayList<>(candidates.size());
+    List<Change> changes = new ArrayList<>();
+    for (Row candidate : candidates) {
+      if (candidate.value == null) {
+        throw new DataIntegrityViolationException(
+            String.format("%s must not be null", table.name));
+      }
+      Row existing = null;
+      if (candidate.id != null) {
+        existing = row(table, candidate.id);
+        if (existing == null || existing.version != candidate.version) {
+          throw new OptimisticLockingFailureException(
+              String.format("%s %s has been modified", table.name, candidate.id));
+        }
+      }
+      UUID owner = owner(table, candidate.key);
+      if ((owner != null && !owner.equals(candidate.id)) || !claimed.add(candidate.key)) {
+        throw new DataIntegrityViolationException(
+            String.format("%s is a duplicate: %s", table.name, candidate.value));
+      }
+      Row row;
+      if (existing == null) {
+        row = new Row(TimeOrderedUuidGenerator.next(), System.currentTimeMillis(),
+            candidate.value, 0);
+        changes.add(new Change(kind, row));
+      } else if (existing.value.equals(candidate.value)) {
+        row = existing;
+      } else {
+        row = new Row(existing.id, existing.created, candidate.value, existing.version + 1);
+        changes.add(new Change(kind, row));
+      }
+      results.add(row);
+    }
+    commit(changes);
+    return results;
+  }
+
+  private int incrementVersion(Table table, Kind kind, UUID id, Long version) {
+    Row existing = row(table, id);
+    if (existing == null || (version != null && existing.version != version)) {
+      return 0;
+    }
+    commit(Collections.singletonList(new Change(kind,
+        new Row(existing.id, existing.created, existing.value, existing.version + 1))));
+    return 1;
+  }
+
+  private void checkNew(Table table, List<Row> rows) {
+    Set<UUID> ids = new HashSet<>();
+    Set<String> keys = new HashSet<>();
+    for (Row row : rows) {
+      if (row.id == null || row.value == null) {
+        throw new DataIntegrityViolationException(
+            String.format("%s ID and value must not be null", table.name));
+      }
+      if (row(table, row.id) != null || !ids.add(row.id)) {
+        throw new DataIntegrityViolationException(
+            String.format("%s ID is a duplicate: %s", table.name, row.id));
+      }
+      if (owner(table, row.key) != null || !keys.add(row.key)) {
+        throw new DataIntegrityViolationException(
+            String.format("%s is a duplicate: %s", table.name, row.value));
+      }
+    }
+  }
+
+  private Stream<Row> rowsOf(Table table, Set<UUID> ids) {
+    return ids.stream()
+        .map((id) -> row(table, id))
+        .filter(Objects::nonNull);
+  }
+
+  private Row row(Table table, UUID id) {
+    Pending pending = pending();
+    if (pending != null) {
+      Map<UUID, Row> rows = pending.overlay(table).rows;
+      if (rows.containsKey(id)) {
+        return rows.get(id);
+      }
+    }
+    return table.rows.get(id);
+  }
+
+  private UUID owner(Table table, String key) {
+    Pending pending = pending();
+    if (pending != null) {
+      Map<String, UUID> keys = pending.overlay(table).keys;
+      if (keys.containsKey(key)) {
+        return keys.get(key);
+      }
+    }
+    return table.keys.get(key);
+  }
+
+  private <T> T write(Supplier<T> operation) {
+    if (pending() != null) {
+      return operation.get();
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()
+        && TransactionSynchronizationManager.isActualTransactionActive()) {
+      writeLock.lock();
+      Pending pending = new Pending();
+      TransactionSynchronizationManager.bindResource(this, pending);
+      TransactionSynchronizationManager.registerSynchronization(pending);
+      return operation.get();
+    }
+    writeLock.lock();
+    try {
+      return operation.get();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private Pending pending() {
+    return TransactionSynchronizationManager.isSynchronizationActive()
+        ? (Pending) TransactionSynchronizationManager.getResource(this)
+        : null;
+  }
+
+  private void commit(List<Change> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    Pending pending = pending();
+    if (pending != null) {
+      changes.forEach(pending::apply);
+      pending.changes.addAll(changes);
+    } else {
+      publish(changes);
+    }
+  }
+
+  private void publish(List<Change> changes) {
+    if (journal != null) {
+      try {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer)) {
+          generator.writeStartArray();
+          for (Change change : changes) {
+            change.write(generator);
+          }
+          generator.writeEndArray();
+          generator.writeRaw('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+          journal.write(bytes);
+        }
+        if (sync) {
+          journal.force(false);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    changes.forEach(this::apply);
+  }
+
+  private void apply(Change change) {
+    switch (change.kind) {
+      case PUT_QUOTE:
+        quotes.put(change.row);
+        break;
+      case PUT_SOURCE:
+        sources.put(change.row);
+        break;
+      case DELETE_QUOTE:
+        for (UUID sourceId : new ArrayList<>(
+            sourcesByQuote.getOrDefault(change.quoteId, Collections.emptySet()))) {
+          unlink(change.quoteId, sourceId);
+        }
+        quotes.remove(change.quoteId);
+        break;
+      case DELETE_SOURCE:
+        sources.remove(change.sourceId);
+        break;
+      case ATTACH:
+        sourcesByQuote.computeIfAbsent(change.quoteId, (id) -> ConcurrentHashMap.newKeySet())
+            .add(change.sourceId);
+        quotesBySource.computeIfAbsent(change.sourceId, (id) -> ConcurrentHashMap.newKeySet())
+            .add(change.quoteId);
+        break;
+      case DETACH:
+        unlink(change.quoteId, change.sourceId);
+        break;
+    }
+  }
+
+  private void unlink(UUID quoteId, UUID sourceId) {
+    Set<UUID> sourceIds = sourcesByQuote.get(quoteId);
+    if (sourceIds != null) {
+      sourceIds.remove(sourceId);
+      if (sourceIds.isEmpty()) {
+        sourcesByQuote.remove(quoteId);
+      }
+    }
+    Set<UUID> quoteIds = quotesBySource.get(sourceId);
+    if (quoteIds != null) {
+      quoteIds.remove(quoteId);
+      if (quoteIds.isEmpty()) {
+        quotesBySource.remove(sourceId);
+      }
+    }
+  }
+
+  private long replay() throws IOException {
+    long valid = 0;
+    long commits = 0;
+    try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (!line.trim().isEmpty()) {
+          List<Change> changes = new ArrayList<>();
+          try {
+            for (JsonNode node : mapper.readTree(line)) {
+              changes.add(Change.read(node));
+            }
+          } catch (IOException | RuntimeException e) {
+            logger.warn(String.format(
+                "Discarding unreadable journal content at offset %d of %s", valid, journalPath),
+                e);
+            break;
+          }
+          changes.forEach(this::apply);
+          commits++;
+        }
+        valid += line.getBytes(StandardCharsets.UTF_8).length + 1;
+      }
+    }
+    if (valid < Files.size(journalPath)) {
+      try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+        channel.truncate(valid);
+      }
+    }
+    logger.info(String.format("Replayed %d commits from %s", commits, journalPath));
+    return valid;
+  }
+
+  /**
+   * Immutable row of the quote or source table. The value of a row is the quote text or the source
+   * name.
+   */
+  public static final class Row {
+
+    private final UUID id;
+    private final long created;
+    private final String value;
+    private final long version;
+    private final String key;
+
+    /**
+     * Initializes this instance with the specified column values.
+     *
+     * @param id row {@link UUID}.
+     * @param created creation timestamp, in milliseconds since the epoch.
+     * @param value quote text or source name.
+     * @param version entity version.
+     */
+    public Row(UUID id, long created, String value, long version) {
+      this.id = id;
+      this.created = created;
+      this.value = value;
+      this.version = version;
+      key = (value != null) ? fold(value) : null;
+    }
+
+    /**
+     * Returns the ID of this row.
+     *
+     * @return row {@link UUID}.
+     */
+    public UUID getId() {
+      return id;
+    }
+
+    /**
+     * Returns the creation timestamp of this row.
+     *
+     * @return creation timestamp, in milliseconds since the epoch.
+     */
+    public long getCreated() {
+      return created;
+    }
+
+    /**
+     * Returns the quote text or source name of this row.
+     *
+     * @return row value.
+     */
+    public String getValue() {
+      return value;
+    }
+
+    /**
+     * Returns the entity version of this row.
+     *
+     * @return version.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    String getKey() {
+      return key;
+    }
+
+  }
+
+  private static class Table {
+
+    private final String name;
+    private final ConcurrentMap<UUID, Row> rows = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<UUID> ids = new ConcurrentSkipListSet<>(ID_ORDER);
+    private final ConcurrentNavigableMap<String, UUID> keys = new ConcurrentSkipListMap<>();
+
+    private Table(String name) {
+      this.name = name;
+    }
+
+    private Stream<Row> stream() {
+      return ids.stream()
+          .map(rows::get)
+          .filter(Objects::nonNull);
+    }
+
+    private Stream<Row> byValue(String fragment) {
+      Stream<UUID> matches = (fragment == null)
+          ? keys.values().stream()
+          : keys.entrySet().stream()
+              .filter((entry) -> entry.getKey().contains(fold(fragment)))
+              .map(Map.Entry::getValue);
+      return matches
+          .map(rows::get)
+          .filter(Objects::nonNull);
+    }
+
+    private void put(Row row) {
+      Row previous = rows.put(row.id, row);
+      if (previous != null && !previous.key.equals(row.key)) {
+        keys.remove(previous.key, row.id);
+      }
+      keys.put(row.key, row.id);
+      ids.add(row.id);
+    }
+
+    private void remove(UUID id) {
+      Row row = rows.get(id);
+      if (row != null) {
+        keys.remove(row.key, id);
+        ids.remove(id);
+        rows.remove(id);
+      }
+    }
+
+  }
+
+  private static class Overlay {
+
+    private final Map<UUID, Row> rows = new HashMap<>();
+    private final Map<String, UUID> keys = new HashMap<>();
+
+  }
+
+  /**
+   * Writes of a single transaction, not yet applied to the shared maps. The overlay holds the rows
+   * and keys written (with {@code null} values for those removed), and the complete attributions
+   * of each quote and source whose attributions were changed.
+   */
+  private class Pending extends TransactionSynchronizationAdapter {
+
+    private final List<Change> changes = new ArrayList<>();
+    private final Overlay quoteOverlay = new Overlay();
+    private final Overlay sourceOverlay = new Overlay();
+    private final Map<UUID, Set<UUID>> sourcesByQuote = new HashMap<>();
+    private final Map<UUID, Set<UUID>> quotesBySource = new HashMap<>();
+
+    private Overlay overlay(Table table) {
+      return (table == quotes) ? quoteOverlay : sourceOverlay;
+    }
+
+    private void apply(Change change) {
+      switch (change.kind) {
+        case PUT_QUOTE:
+          put(quotes, change.row);
+          break;
+        case PUT_SOURCE:
+          put(sources, change.row);
+          break;
+        case DELETE_QUOTE:
+          for (UUID sourceId : new ArrayList<>(sourceIdsOf(change.quoteId))) {
+            link(change.quoteId, sourceId, false);
+          }
+          remove(quotes, change.quoteId);
+          break;
+        case DELETE_SOURCE:
+          remove(sources, change.sourceId);
+          break;
+        case ATTACH:
+          link(change.quoteId, change.sourceId, true);
+          break;
+        case DETACH:
+          link(change.quoteId, change.sourceId, false);
+          break;
+      }
+    }
+
+    private void put(Table table, Row row) {
+      Overlay overlay = overlay(table);
+      Row previous = row(table, row.id);
+      if (previous != null && !previous.key.equals(row.key)
+          && row.id.equals(owner(table, previous.key))) {
+        overlay.keys.put(previous.key, null);
+      }
+      overlay.rows.put(row.id, row);
+      overlay.keys.put(row.key, row.id);
+    }
+
+    private void remove(Table table, UUID id) {
+      Overlay overlay = overlay(table);
+      Row previous = row(table, id);
+      if (previous != null) {
+        if (id.equals(owner(table, previous.key))) {
+          overlay.keys.put(previous.key, null);
+        }
+        overlay.rows.put(id, null);
+      }
+    }
+
+    private void link(UUID quoteId, UUID sourceId, boolean linked) {
+      Set<UUID> sourceIds = sourcesByQuote.computeIfAbsent(quoteId, (id) ->
+          new HashSet<>(InMemoryCatalog.this.sourcesByQuote.getOrDefault(
+              id, Collections.emptySet())));
+      Set<UUID> quoteIds = quotesBySource.computeIfAbsent(sourceId, (id) ->
+          new HashSet<>(InMemoryCatalog.this.quotesBySource.getOrDefault(
+              id, Collections.emptySet())));
+      if (linked) {
+        sourceIds.add(sourceId);
+        quoteIds.add(quoteId);
+      } else {
+        sourceIds.remove(sourceId);
+        quoteIds.remove(quoteId);
+      }
+    }
+
+    @Override
+    public void afterCommit() {
+      try {
+        publish(changes);
+      } catch (RuntimeException e) {
+        logger.error("Writes of committed transaction could not be applied", e);
+      }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(InMemoryCatalog.this);
+      writeLock.unlock();
+    }
+
+  }
+
+  private enum Kind {
+    PUT_QUOTE, PUT_SOURCE, DELETE_QUOTE, DELETE_SOURCE, ATTACH, DETACH
+  }
+
+  private static class Change {
+
+    private final Kind kind;
+    private final Row row;
+    private final UUID quoteId;
+    private final UUID sourceId;
+
+    private Change(Kind kind, Row row) {
+      this.kind = kind;
+      this.row = row;
+      quoteId = null;
+      sourceId = null;
+    }
+
+    private Change(Kind kind, UUID quoteId, UUID sourceId) {
+      this.kind = kind;
+      row = null;
+      this.quoteId = quoteId;
+      this.sourceId = sourceId;
+    }
+
+    private void write(JsonGenerator generator) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("op", kind.name());
+      if (row != null) {
+        generator.writeStringField("id", row.id.toString());
+        generator.writeNumberField("created", row.created);
+        generator.writeStringField("value", row.value);
+        generator.writeNumberField("version", row.version);
+      }
+      if (quoteId != null) {
+        generator.writeStringField("quote", quoteId.toString());
+      }
+      if (sourceId != null) {
+        generator.writeStringField("source", sourceId.toString());
+      }
+      generator.writeEndObject();
+    }
+
+    private static Change read(JsonNode node) {
+      Kind kind = Kind.valueOf(node.path("op").asText());
+      if (kind == Kind.PUT_QUOTE || kind == Kind.PUT_SOURCE) {
+        return new Change(kind, new Row(UUID.fromString(node.path("id").asText()),
+            node.path("created").asLong(), node.path("value").asText(),
+            node.path("version").asLong()));
+      }
+      return new Change(kind, uuidOf(node.path("quote")), uuidOf(node.path("source")));
+    }
+
+    private static UUID uuidOf(JsonNode node) {
+      return node.isMissingNode() ? null : UUID.fromString(node.asText());
+    }
+
+  }
+
+}
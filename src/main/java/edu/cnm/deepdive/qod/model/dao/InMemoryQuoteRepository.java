@@ -0,0 +1,334 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog.Row;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.view.QuoteSummary;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements {@link QuoteRepository} over an {@link InMemoryCatalog}, in place of the Spring Data
+ * JPA implementation, when the {@value InMemoryCatalog#PROFILE} profile is active. Entities are
+ * validated before they are saved, as they would be by the persistence provider, and each {@link
+ * Quote} returned is a new instance, with its {@link Quote#getSources() sources} populated.
+ * <p>The class-level transaction attributes override those declared on {@link QuoteRepository},
+ * so that no database transaction (or connection) is started for any of these methods.</p>
+ */
+@Repository
+@Primary
+@Profile(InMemoryCatalog.PROFILE)
+@Transactional(propagation = Propagation.SUPPORTS)
+public class InMemoryQuoteRepository implements QuoteRepository {
+
+  private static final Comparator<Row> TEXT_ORDER = Comparator.comparing(Row::getKey);
+
+  private final InMemoryCatalog catalog;
+  private final Validator validator;
+
+  /**
+   * Initializes this instance with the specified {@link InMemoryCatalog} and {@link Validator}.
+   *
+   * @param catalog in-memory store of quotes, sources, and attributions.
+   * @param validator bean validator applied to quotes before they are saved.
+   */
+  @Autowired
+  public InMemoryQuoteRepository(InMemoryCatalog catalog, Validator validator) {
+    this.catalog = catalog;
+    this.validator = validator;
+  }
+
+  @Override
+  public Iterable<QuoteSummary> findAllByOrderByTextAsc() {
+    return catalog.quotesByText(null)
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterable<QuoteSummary> findAllByTextContainingOrderByTextAsc(String fragment) {
+    return catalog.quotesByText(fragment)
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterable<Quote> findDistinctByOrderByTextAsc() {
+    return catalog.quotesByText(null)
+        .map((row) -> catalog.toQuote(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterable<Quote> findDistinctByTextContainingOrderByTextAsc(String fragment) {
+    return catalog.quotesByText(fragment)
+        .map((row) -> catalog.toQuote(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<QuoteSummary> findAllByOrderByTextAsc(Pageable pageable) {
+    return catalog.quotesByText(null)
+        .skip(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<QuoteSummary> findAllByTextContainingOrderByTextAsc(String fragment,
+      Pageable pageable) {
+    return catalog.quotesByText(fragment)
+        .skip(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Quote> findDistinctByIdInOrderByTextAsc(Collection<UUID> ids) {
+    return ids.stream()
+        .distinct()
+        .map(catalog::getQuote)
+        .filter(Objects::nonNull)
+        .sorted(TEXT_ORDER)
+        .map((row) -> catalog.toQuote(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Optional<Quote> findWithSourcesById(UUID id) {
+    return findById(id);
+  }
+
+  @Override
+  public Iterable<QuoteSummary> findAllBySourceId(UUID sourceId) {
+    return catalog.quotesOf(sourceId)
+        .sorted(TEXT_ORDER)
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Optional<QuoteSummary> findSummaryById(UUID id) {
+    return Optional.ofNullable(catalog.getQuote(id))
+        .map(this::summarize);
+  }
+
+  @Override
+  public long countAttributions(UUID quoteId, UUID sourceId) {
+    return catalog.sourceIdsOf(quoteId).contains(sourceId) ? 1 : 0;
+  }
+
+  @Override
+  public List<UUID> findIdsBySourceId(UUID sourceId) {
+    return new ArrayList<>(catalog.quoteIdsOf(sourceId));
+  }
+
+  @Override
+  public Optional<Long> findVersionById(UUID id) {
+    return Optional.ofNullable(catalog.getQuote(id))
+        .map(Row::getVersion);
+  }
+
+  @Override
+  public List<Object[]> findAllAttributions() {
+    List<Object[]> attributions = new ArrayList<>();
+    catalog.quotesById().forEach((quote) -> catalog.sourceIdsOf(quote.getId())
+        .forEach((sourceId) -> attributions.add(new Object[]{quote.getId(), sourceId})));
+    return attributions;
+  }
+
+  @Override
+  public List<QuoteSummary> findAllSummaries(Pageable pageable) {
+    return catalog.quotesById()
+        .skip(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<String> findExistingText(Collection<String> texts) {
+    return texts.stream()
+        .map(catalog::findQuoteByText)
+        .filter(Objects::nonNull)
+        .map(Row::getValue)
+        .distinct()
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public int attachQuotes(UUID sourceId, Collection<UUID> quoteIds) {
+    return catalog.attach(quoteIds, Collections.singleton(sourceId));
+  }
+
+  @Override
+  public int attachSources(UUID quoteId, Collection<UUID> sourceIds) {
+    return catalog.attach(Collections.singleton(quoteId), sourceIds);
+  }
+
+  @Override
+  public int detachQuotes(UUID sourceId, Collection<UUID> quoteIds) {
+    return catalog.detach(quoteIds, Collections.singleton(sourceId));
+  }
+
+  @Override
+  public int detachSources(UUID quoteId, Collection<UUID> sourceIds) {
+    return catalog.detach(Collections.singleton(quoteId), sourceIds);
+  }
+
+  @Override
+  public Optional<Quote> findRandom() {
+    long count = catalog.countQuotes();
+    return (count == 0)
+        ? Optional.empty()
+        : catalog.quotesById()
+            .skip(ThreadLocalRandom.current().nextLong(count))
+            .findFirst()
+            .map((row) -> catalog.toQuote(row, true));
+  }
+
+  @Override
+  public int incrementVersion(UUID id) {
+    return catalog.incrementQuoteVersion(id, null);
+  }
+
+  @Override
+  public int incrementVersion(UUID id, long version) {
+    return catalog.incrementQuoteVersion(id, version);
+  }
+
+  @Override
+  public <S extends Quote> S save(S quote) {
+    return saveAll(Collections.singletonList(quote)).get(0);
+  }
+
+  /**
+   * Saves all of the specified quotes atomically: if any is invalid, stale, or a duplicate, none
+   * are saved.
+   *
+   * @param quotes {@link Quote} instances to save.
+   * @param <S> type of quotes.
+   * @return saved quotes, with IDs, creation timestamps, and versions updated.
+   */
+  @Override
+  public <S extends Quote> List<S> saveAll(Iterable<S> quotes) {
+    List<S> saved = StreamSupport.stream(quotes.spliterator(), false)
+        .collect(Collectors.toList());
+    List<Row> candidates = new ArrayList<>(saved.size());
+    for (S quote : saved) {
+      Set<ConstraintViolation<S>> violations = validator.validate(quote);
+      if (!violations.isEmpty()) {
+        throw new ConstraintViolationException(violations);
+      }
+      candidates.add(new Row(quote.getId(), 0, quote.getText(), quote.getVersion()));
+    }
+    List<Row> rows = catalog.putQuotes(candidates);
+    for (int i = 0; i < saved.size(); i++) {
+      InMemoryCatalog.assign(saved.get(i), rows.get(i));
+    }
+    return saved;
+  }
+
+  @Override
+  public Optional<Quote> findById(UUID id) {
+    return Optional.ofNullable(catalog.getQuote(id))
+        .map((row) -> catalog.toQuote(row, true));
+  }
+
+  @Override
+  public boolean existsById(UUID id) {
+    return catalog.getQuote(id) != null;
+  }
+
+  @Override
+  public Iterable<Quote> findAll() {
+    return catalog.quotesById()
+        .map((row) -> catalog.toQuote(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterable<Quote> findAllById(Iterable<UUID> ids) {
+    return StreamSupport.stream(ids.spliterator(), false)
+        .map(catalog::getQuote)
+        .filter(Objects::nonNull)
+        .map((row) -> catalog.toQuote(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public long count() {
+    return catalog.countQuotes();
+  }
+
+  @Override
+  public void deleteById(UUID id) {
+    if (!catalog.deleteQuote(id)) {
+      throw new EmptyResultDataAccessException(
+          String.format("No %s entity with id %s exists!", Quote.class, id), 1);
+    }
+  }
+
+  @Override
+  public void delete(Quote quote) {
+    if (quote.getId() != null) {
+      catalog.deleteQuote(quote.getId());
+    }
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends Quote> quotes) {
+    quotes.forEach(this::delete);
+  }
+
+  @Override
+  public void deleteAll() {
+    catalog.quotesById()
+        .map(Row::getId)
+        .collect(Collectors.toList())
+        .forEach(catalog::deleteQuote);
+  }
+
+  private QuoteSummary summarize(Row row) {
+    return new QuoteSummary(row.getId(), new Date(row.getCreated()), row.getValue());
+  }
+
+}
@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog.Row;
+import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.view.SourceSummary;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements {@link SourceRepository} over an {@link InMemoryCatalog}, in place of the Spring Data
+ * JPA implementation, when the {@value InMemoryCatalog#PROFILE} profile is active. As in the
+ * database, a source cannot be deleted while it is attributed to any quotes. Each {@link Source}
+ * returned is a new instance, with its {@link Source#getQuotes() quotes} populated.
+ * <p>The class-level transaction attributes override those declared on {@link SourceRepository},
+ * so that no database transaction (or connection) is started for any of these methods.</p>
+ */
+@Repository
+@Primary
+@Profile(InMemoryCatalog.PROFILE)
+@Transactional(propagation = Propagation.SUPPORTS)
+public class InMemorySourceRepository implements SourceRepository {
+
+  private static final Comparator<Row> NAME_ORDER = Comparator.comparing(Row::getKey);
+
+  private final InMemoryCatalog catalog;
+  private final Validator validator;
+
+  /**
+   * Initializes this instance with the specified {@link InMemoryCatalog} and {@link Validator}.
+   *
+   * @param catalog in-memory store of quotes, sources, and attributions.
+   * @param validator bean validator applied to sources before they are saved.
+   */
+  @Autowired
+  public InMemorySourceRepository(InMemoryCatalog catalog, Validator validator) {
+    this.catalog = catalog;
+    this.validator = validator;
+  }
+
+  @Override
+  public Iterable<SourceSummary> findAllByOrderByNameAsc() {
+    return catalog.sourcesByName(null)
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterable<SourceSummary> findAllByNameContainingOrderByNameAsc(String fragment) {
+    return catalog.sourcesByName(fragment)
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Optional<SourceSummary> findSummaryById(UUID id) {
+    return Optional.ofNullable(catalog.getSource(id))
+        .map(this::summarize);
+  }
+
+  @Override
+  public Optional<Long> findVersionById(UUID id) {
+    return Optional.ofNullable(catalog.getSource(id))
+        .map(Row::getVersion);
+  }
+
+  @Override
+  public List<UUID> findIdsByQuoteId(UUID quoteId) {
+    return new ArrayList<>(catalog.sourceIdsOf(quoteId));
+  }
+
+  @Override
+  public Iterable<Source> findDistinctByOrderByNameAsc() {
+    return catalog.sourcesByName(null)
+        .map((row) -> catalog.toSource(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterable<Source> findDistinctByNameContainingOrderByNameAsc(String fragment) {
+    return catalog.sourcesByName(fragment)
+        .map((row) -> catalog.toSource(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<SourceSummary> findAllByOrderByNameAsc(Pageable pageable) {
+    return catalog.sourcesByName(null)
+        .skip(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .map(this::summarize)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Source> findDistinctByIdInOrderByNameAsc(Collection<UUID> ids) {
+    return ids.stream()
+        .distinct()
+        .map(catalog::getSource)
+        .filter(Objects::nonNull)
+        .sorted(NAME_ORDER)
+        .map((row) -> catalog.toSource(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public int detachAllQuotes(UUID sourceId) {
+    return catalog.detachAll(sourceId);
+  }
+
+  @Override
+  public int deleteDirectlyById(UUID sourceId) {
+    return catalog.deleteSource(sourceId) ? 1 : 0;
+  }
+
+  @Override
+  public int incrementVersion(UUID id) {
+    return catalog.incrementSourceVersion(id, null);
+  }
+
+  @Override
+  public int incrementVersion(UUID id, long version) {
+    return catalog.incrementSourceVersion(id, version);
+  }
+
+  @Override
+  public <S extends Source> S save(S source) {
+    return saveAll(Collections.singletonList(source)).get(0);
+  }
+
+  /**
+   * Saves all of the specified sources atomically: if any is invalid, stale, or a duplicate, none
+   * are saved.
+   *
+   * @param sources {@link Source} instances to save.
+   * @param <S> type of sources.
+   * @return saved sources, with IDs, creation timestamps, and versions updated.
+   */
+  @Override
+  public <S extends Source> List<S> saveAll(Iterable<S> sources) {
+    List<S> saved = StreamSupport.stream(sources.spliterator(), false)
+        .collect(Collectors.toList());
+    List<Row> candidates = new ArrayList<>(saved.size());
+    for (S source : saved) {
+      Set<ConstraintViolation<S>> violations = validator.validate(source);
+      if (!violations.isEmpty()) {
+        throw new ConstraintViolationException(violations);
+      }
+      candidates.add(new Row(source.getId(), 0, source.getName(), source.getVersion()));
+    }
+    List<Row> rows = catalog.putSources(candidates);
+    for (int i = 0; i < saved.size(); i++) {
+      InMemoryCatalog.assign(saved.get(i), rows.get(i));
+    }
+    return saved;
+  }
+
+  @Override
+  public Optional<Source> findById(UUID id) {
+    return Optional.ofNullable(catalog.getSource(id))
+        .map((row) -> catalog.toSource(row, true));
+  }
+
+  @Override
+  public boolean existsById(UUID id) {
+    return catalog.getSource(id) != null;
+  }
+
+  @Override
+  public Iterable<Source> findAll() {
+    return catalog.sourcesById()
+        .map((row) -> catalog.toSource(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterable<Source> findAllById(Iterable<UUID> ids) {
+    return StreamSupport.stream(ids.spliterator(), false)
+        .map(catalog::getSource)
+        .filter(Objects::nonNull)
+        .map((row) -> catalog.toSource(row, true))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public long count() {
+    return catalog.countSources();
+  }
+
+  @Override
+  public void deleteById(UUID id) {
+    if (!catalog.deleteSource(id)) {
+      throw new EmptyResultDataAccessException(
+          String.format("No %s entity with id %s exists!", Source.class, id), 1);
+    }
+  }
+
+  @Override
+  public void delete(Source source) {
+    if (source.getId() != null) {
+      catalog.deleteSource(source.getId());
+    }
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends Source> sources) {
+    sources.forEach(this::delete);
+  }
+
+  @Override
+  public void deleteAll() {
+    catalog.sourcesById()
+        .map(Row::getId)
+        .collect(Collectors.toList())
+        .forEach(catalog::deleteSource);
+  }
+
+  private SourceSummary summarize(Row row) {
+    return new SourceSummary(row.getId(), new Date(row.getCreated()), row.getValue());
+  }
+
+}
@@ -15,32 +15,251 @@
  */
 package edu.cnm.deepdive.qod.model.dao;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
 import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.view.QuoteSummary;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import javax.persistence.QueryHint;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Declares database operations that can be performed on {@link Quote} entity instances.
+ * Declares database operations that can be performed on {@link Quote} entity instances. Results
+ * of the finder methods marked with the {@code HINT_CACHEABLE} hint are held in the query cache,
+ * and invalidated by any write to the tables queried.
  */
-public interface QuoteRepository extends CrudRepository<Quote, UUID> {
+public interface QuoteRepository extends CrudRepository<Quote, UUID>, QuoteRepositoryCustom {
+
+  /**
+   * Selects and returns projections of all {@link Quote} instances, sorted in alphabetical order.
+   *
+   * @return {@link Iterable} sequence of {@link QuoteSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.QuoteSummary(q.id, q.created, q.text) "
+      + "FROM Quote AS q ORDER BY q.text ASC")
+  Iterable<QuoteSummary> findAllByOrderByTextAsc();
 
   /**
-   * Selects and returns all {@link Quote} instances, sorted in alphabetical order.
+   * Selects and returns projections of all {@link Quote} instances containing the specified text
+   * fragment, in alphabetical order. Wildcard characters ({@code %} and {@code _}) in the
+   * fragment are escaped, and so matched literally.
+   *
+   * @param fragment filter text content.
+   * @return {@link Iterable} sequence of {@link QuoteSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.QuoteSummary(q.id, q.created, q.text) "
+      + "FROM Quote AS q WHERE q.text LIKE %:#{escape(#fragment)}% "
+      + "ESCAPE :#{escapeCharacter()} ORDER BY q.text ASC")
+  Iterable<QuoteSummary> findAllByTextContainingOrderByTextAsc(@Param("fragment") String fragment);
+
+  /**
+   * Selects and returns all {@link Quote} instances, sorted in alphabetical order, with the {@link
+   * Quote#getSources() sources} of each fetched in the same query.
    *
    * @return {@link Iterable} sequence of {@link Quote} instances.
    */
-  Iterable<Quote> findAllByOrderByTextAsc();
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "sources")
+  @QueryHints({
+      @QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"),
+      @QueryHint(name = HINT_CACHEABLE, value = "true")
+  })
+  Iterable<Quote> findDistinctByOrderByTextAsc();
 
   /**
    * Selects and returns all {@link Quote} instances containing the specified text fragment, in
-   * alphabetical order.
+   * alphabetical order, with the {@link Quote#getSources() sources} of each fetched in the same
+   * query. As for all derived {@code Containing} queries, wildcard characters in the fragment are
+   * escaped by Spring Data.
    *
    * @param fragment filter text content.
    * @return {@link Iterable} sequence of {@link Quote} instances.
    */
-  Iterable<Quote> findAllByTextContainingOrderByTextAsc(String fragment);
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "sources")
+  @QueryHints({
+      @QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"),
+      @QueryHint(name = HINT_CACHEABLE, value = "true")
+  })
+  Iterable<Quote> findDistinctByTextContainingOrderByTextAsc(String fragment);
+
+  /**
+   * Selects and returns the specified page of the projections returned by {@link
+   * #findAllByOrderByTextAsc()}.
+   *
+   * @param pageable page offset &amp; size.
+   * @return {@link List} of {@link QuoteSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.QuoteSummary(q.id, q.created, q.text) "
+      + "FROM Quote AS q ORDER BY q.text ASC")
+  List<QuoteSummary> findAllByOrderByTextAsc(Pageable pageable);
+
+  /**
+   * Selects and returns the specified page of the projections returned by {@link
+   * #findAllByTextContainingOrderByTextAsc(String)}.
+   *
+   * @param fragment filter text content.
+   * @param pageable page offset &amp; size.
+   * @return {@link List} of {@link QuoteSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.QuoteSummary(q.id, q.created, q.text) "
+      + "FROM Quote AS q WHERE q.text LIKE %:#{escape(#fragment)}% "
+      + "ESCAPE :#{escapeCharacter()} ORDER BY q.text ASC")
+  List<QuoteSummary> findAllByTextContainingOrderByTextAsc(@Param("fragment") String fragment,
+      Pageable pageable);
+
+  /**
+   * Selects and returns the {@link Quote} instances with the specified IDs, in alphabetical order,
+   * with the {@link Quote#getSources() sources} of each fetched in the same query. Used with one of
+   * the paged projection finders, this reads a page of quotes with their sources, without applying
+   * the page limits to the rows of the fetch join.
+   *
+   * @param ids {@link UUID} values of quotes.
+   * @return {@link List} of {@link Quote} instances.
+   */
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "sources")
+  @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+  List<Quote> findDistinctByIdInOrderByTextAsc(Collection<UUID> ids);
+
+  /**
+   * Selects and returns the {@link Quote} instance with the specified ID, with its {@link
+   * Quote#getSources() sources} fetched in the same query.
+   *
+   * @param id quote {@link UUID}.
+   * @return {@link Optional} containing the {@link Quote}, if found.
+   */
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "sources")
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  Optional<Quote> findWithSourcesById(UUID id);
+
+  /**
+   * Selects and returns projections of all {@link Quote} instances attributed to the specified
+   * source, in alphabetical order.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @return {@link Iterable} sequence of {@link QuoteSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.QuoteSummary(q.id, q.created, q.text) "
+      + "FROM Quote AS q JOIN q.sources AS s WHERE s.id = :sourceId ORDER BY q.text ASC")
+  Iterable<QuoteSummary> findAllBySourceId(@Param("sourceId") UUID sourceId);
+
+  /**
+   * Selects and returns a projection of the {@link Quote} instance with the specified ID.
+   *
+   * @param id quote {@link UUID}.
+   * @return {@link Optional} containing the {@link QuoteSummary}, if found.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.QuoteSummary(q.id, q.created, q.text) "
+      + "FROM Quote AS q WHERE q.id = :id")
+  Optional<QuoteSummary> findSummaryById(@Param("id") UUID id);
+
+  /**
+   * Counts the join table rows associating the specified quote and source (0 or 1), using only the
+   * join table index; neither collection is loaded.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @param sourceId {@link UUID} of source.
+   * @return number of matching associations.
+   */
+  @Transactional(readOnly = true)
+  @Query(value = "SELECT COUNT(*) FROM quote_sources WHERE quote_id = :quoteId "
+      + "AND source_id = :sourceId", nativeQuery = true)
+  long countAttributions(@Param("quoteId") UUID quoteId, @Param("sourceId") UUID sourceId);
+
+  /**
+   * Returns a flag indicating whether the specified quote is attributed to the specified source.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @param sourceId {@link UUID} of source.
+   * @return {@code true} if the quote and source exist and are associated; {@code false} otherwise.
+   */
+  default boolean isAttributed(UUID quoteId, UUID sourceId) {
+    return countAttributions(quoteId, sourceId) > 0;
+  }
+
+  /**
+   * Selects and returns the IDs of all {@link Quote} instances attributed to the specified source.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @return {@link List} of quote {@link UUID} values.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT q.id FROM Quote AS q JOIN q.sources AS s WHERE s.id = :sourceId")
+  List<UUID> findIdsBySourceId(@Param("sourceId") UUID sourceId);
+
+  /**
+   * Selects and returns the current version of the {@link Quote} instance with the specified ID.
+   * Since only a scalar value is selected, the result is always read from the database, even if
+   * the quote is already loaded in the current persistence context.
+   *
+   * @param id quote {@link UUID}.
+   * @return {@link Optional} containing the quote version, if found.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT q.version FROM Quote AS q WHERE q.id = :id")
+  Optional<Long> findVersionById(@Param("id") UUID id);
+
+  /**
+   * Selects and returns all quote-source associations, each as a two-element array containing the
+   * quote {@link UUID} and the source {@link UUID}.
+   *
+   * @return {@link List} of associations.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT q.id, s.id FROM Quote AS q JOIN q.sources AS s")
+  List<Object[]> findAllAttributions();
+
+  /**
+   * Selects and returns a page of {@link Quote} projections, in primary key order. Combined with
+   * {@link #count()} and a random page offset, this supports random selection without sorting the
+   * entire table.
+   *
+   * @param pageable page offset &amp; size.
+   * @return {@link List} of {@link QuoteSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.QuoteSummary(q.id, q.created, q.text) "
+      + "FROM Quote AS q ORDER BY q.id ASC")
+  List<QuoteSummary> findAllSummaries(Pageable pageable);
+
+  /**
+   * Selects and returns the text of all {@link Quote} instances matching any of the specified
+   * texts. Since the database collation is case-insensitive, the returned text may differ in case
+   * from the matching element of {@code texts}.
+   *
+   * @param texts candidate quote texts.
+   * @return {@link List} of existing quote texts.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT q.text FROM Quote AS q WHERE q.text IN :texts")
+  List<String> findExistingText(@Param("texts") Collection<String> texts);
 
   /**
    * Selects and returns a randomly selected {@link Quote} instance. Note that this is currently
@@ -53,4 +272,29 @@ public interface QuoteRepository extends CrudRepository<Quote, UUID> {
       nativeQuery = true)
   Optional<Quote> findRandom();
 
+  /**
+   * Increments the version of the specified {@link Quote}, as a guard for changes (such as
+   * modifications of the join table) that are not made through the entity itself. When called
+   * within a transaction, concurrent guarded changes to the same quote are serialized.
+   *
+   * @param id quote {@link UUID}.
+   * @param expectedVersion required current version, or {@code null} if any version is
+   * acceptable.
+   * @throws NoSuchElementException if the quote does not exist.
+   * @throws OptimisticLockingFailureException if {@code expectedVersion} is not {@code null},
+   * and the current version of the quote is different.
+   */
+  default void touch(UUID id, Long expectedVersion) {
+    int updated = (expectedVersion != null)
+        ? incrementVersion(id, expectedVersion)
+        : incrementVersion(id);
+    if (updated == 0) {
+      if (!existsById(id)) {
+        throw new NoSuchElementException();
+      }
+      throw new OptimisticLockingFailureException(
+          String.format("Quote %s has been modified", id));
+    }
+  }
+
 }
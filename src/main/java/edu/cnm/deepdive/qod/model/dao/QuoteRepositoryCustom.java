@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Declares database operations on {@link Quote} entity instances (and their associations with
+ * sources) that are not derived by Spring Data, but implemented directly (see {@link
+ * QuoteRepositoryImpl}), so that the second-level cache entries they invalidate are limited to
+ * those they can affect. Statements on the join table declare it as the only table written, so
+ * that only the cached quote sources, and the cached query results read from the join table,
+ * are invalidated; version increments evict only the quote updated.
+ */
+public interface QuoteRepositoryCustom {
+
+  /**
+   * Associates the specified {@link Quote} instances with the specified source, by inserting rows
+   * directly into the join table. Quote IDs that do not reference existing quotes, and quotes that
+   * are already associated with the source, are ignored.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @param quoteIds {@link UUID} values of quotes.
+   * @return number of associations added.
+   */
+  int attachQuotes(UUID sourceId, Collection<UUID> quoteIds);
+
+  /**
+   * Associates the specified {@link Quote} instance with the specified sources, by inserting rows
+   * directly into the join table. Source IDs that do not reference existing sources, and sources
+   * that are already associated with the quote, are ignored.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @param sourceIds {@link UUID} values of sources.
+   * @return number of associations added.
+   */
+  int attachSources(UUID quoteId, Collection<UUID> sourceIds);
+
+  /**
+   * Removes the associations between the specified {@link Quote} instances and the specified
+   * source, by deleting rows directly from the join table.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @param quoteIds {@link UUID} values of quotes.
+   * @return number of associations removed.
+   */
+  int detachQuotes(UUID sourceId, Collection<UUID> quoteIds);
+
+  /**
+   * Removes the associations between the specified {@link Quote} instance and the specified
+   * sources, by deleting rows directly from the join table.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @param sourceIds {@link UUID} values of sources.
+   * @return number of associations removed.
+   */
+  int detachSources(UUID quoteId, Collection<UUID> sourceIds);
+
+  /**
+   * Increments the version of the specified {@link Quote} with a single statement, without loading
+   * it, and returns the number of rows updated (0 or 1). Within a transaction, this also locks the
+   * quote row until the transaction completes. Only the updated quote is evicted from the
+   * second-level cache.
+   *
+   * @param id quote {@link UUID}.
+   * @return number of quotes updated.
+   */
+  int incrementVersion(UUID id);
+
+  /**
+   * Increments the version of the specified {@link Quote}, as for {@link
+   * #incrementVersion(UUID)}, but only if its current version is {@code version}.
+   *
+   * @param id quote {@link UUID}.
+   * @param version expected current version.
+   * @return number of quotes updated.
+   */
+  int incrementVersion(UUID id, long version);
+
+}
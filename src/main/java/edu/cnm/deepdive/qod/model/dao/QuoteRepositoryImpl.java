@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import java.util.Collection;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements {@link QuoteRepositoryCustom} with native statements on the join table, and JDBC
+ * version increments, executed by {@link DirectStatements}.
+ */
+class QuoteRepositoryImpl implements QuoteRepositoryCustom {
+
+  private static final String ATTACH_QUOTES = "INSERT INTO quote_sources (quote_id, source_id) "
+      + "SELECT q.quote_id, s.source_id FROM quote AS q, source AS s "
+      + "WHERE s.source_id = :ownerId AND q.quote_id IN :ids AND NOT EXISTS ("
+      + "SELECT * FROM quote_sources AS a "
+      + "WHERE a.quote_id = q.quote_id AND a.source_id = s.source_id)";
+  private static final String ATTACH_SOURCES = "INSERT INTO quote_sources (quote_id, source_id) "
+      + "SELECT q.quote_id, s.source_id FROM quote AS q, source AS s "
+      + "WHERE q.quote_id = :ownerId AND s.source_id IN :ids AND NOT EXISTS ("
+      + "SELECT * FROM quote_sources AS a "
+      + "WHERE a.quote_id = q.quote_id AND a.source_id = s.source_id)";
+  private static final String DETACH_QUOTES =
+      "DELETE FROM quote_sources WHERE source_id = :ownerId AND quote_id IN :ids";
+  private static final String DETACH_SOURCES =
+      "DELETE FROM quote_sources WHERE quote_id = :ownerId AND source_id IN :ids";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  @Transactional
+  public int attachQuotes(UUID sourceId, Collection<UUID> quoteIds) {
+    return DirectStatements.updateJoinTable(entityManager, ATTACH_QUOTES, sourceId, quoteIds);
+  }
+
+  @Override
+  @Transactional
+  public int attachSources(UUID quoteId, Collection<UUID> sourceIds) {
+    return DirectStatements.updateJoinTable(entityManager, ATTACH_SOURCES, quoteId, sourceIds);
+  }
+
+  @Override
+  @Transactional
+  public int detachQuotes(UUID sourceId, Collection<UUID> quoteIds) {
+    return DirectStatements.updateJoinTable(entityManager, DETACH_QUOTES, sourceId, quoteIds);
+  }
+
+  @Override
+  @Transactional
+  public int detachSources(UUID quoteId, Collection<UUID> sourceIds) {
+    return DirectStatements.updateJoinTable(entityManager, DETACH_SOURCES, quoteId, sourceIds);
+  }
+
+  @Override
+  @Transactional
+  public int incrementVersion(UUID id) {
+    return DirectStatements.incrementVersion(
+        entityManager, Quote.class, "quote", "quote_id", id, null);
+  }
+
+  @Override
+  @Transactional
+  public int incrementVersion(UUID id, long version) {
+    return DirectStatements.incrementVersion(
+        entityManager, Quote.class, "quote", "quote_id", id, version);
+  }
+
+}
@@ -15,29 +15,183 @@
  */
 package edu.cnm.deepdive.qod.model.dao;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
 import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.view.SourceSummary;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.UUID;
+import javax.persistence.QueryHint;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Declares database operations that can be performed on {@link Source} entity instances.
+ * Declares database operations that can be performed on {@link Source} entity instances. Results
+ * of the finder methods marked with the {@code HINT_CACHEABLE} hint are held in the query cache,
+ * and invalidated by any write to the tables queried.
  */
-public interface SourceRepository extends CrudRepository<Source, UUID> {
+public interface SourceRepository extends CrudRepository<Source, UUID>, SourceRepositoryCustom {
+
+  /**
+   * Selects and returns projections of all {@link Source} instances, sorted in alphabetical order.
+   *
+   * @return {@link Iterable} sequence of {@link SourceSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.SourceSummary(s.id, s.created, s.name) "
+      + "FROM Source AS s ORDER BY s.name ASC")
+  Iterable<SourceSummary> findAllByOrderByNameAsc();
+
+  /**
+   * Selects and returns projections of all {@link Source} instances containing the specified text
+   * fragment, in alphabetical order. Wildcard characters ({@code %} and {@code _}) in the
+   * fragment are escaped, and so matched literally.
+   *
+   * @param fragment filter text content.
+   * @return {@link Iterable} sequence of {@link SourceSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.SourceSummary(s.id, s.created, s.name) "
+      + "FROM Source AS s WHERE s.name LIKE %:#{escape(#fragment)}% "
+      + "ESCAPE :#{escapeCharacter()} ORDER BY s.name ASC")
+  Iterable<SourceSummary> findAllByNameContainingOrderByNameAsc(
+      @Param("fragment") String fragment);
+
+  /**
+   * Selects and returns a projection of the {@link Source} instance with the specified ID.
+   *
+   * @param id source {@link UUID}.
+   * @return {@link Optional} containing the {@link SourceSummary}, if found.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.SourceSummary(s.id, s.created, s.name) "
+      + "FROM Source AS s WHERE s.id = :id")
+  Optional<SourceSummary> findSummaryById(@Param("id") UUID id);
+
+  /**
+   * Selects and returns the current version of the {@link Source} instance with the specified ID.
+   * Since only a scalar value is selected, the result is always read from the database, even if
+   * the source is already loaded in the current persistence context.
+   *
+   * @param id source {@link UUID}.
+   * @return {@link Optional} containing the source version, if found.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT s.version FROM Source AS s WHERE s.id = :id")
+  Optional<Long> findVersionById(@Param("id") UUID id);
+
+  /**
+   * Selects and returns the IDs of all {@link Source} instances to which the specified quote is
+   * attributed.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @return {@link List} of source {@link UUID} values.
+   */
+  @Transactional(readOnly = true)
+  @Query("SELECT s.id FROM Source AS s JOIN s.quotes AS q WHERE q.id = :quoteId")
+  List<UUID> findIdsByQuoteId(@Param("quoteId") UUID quoteId);
 
   /**
-   * Selects and returns all {@link Source} instances, sorted in alphabetical order.
+   * Selects and returns all {@link Source} instances, sorted in alphabetical order, with the {@link
+   * Source#getQuotes() quotes} of each fetched in the same query.
    *
    * @return {@link Iterable} sequence of {@link Source} instances.
    */
-  Iterable<Source> findAllByOrderByNameAsc();
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "quotes")
+  @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+  Iterable<Source> findDistinctByOrderByNameAsc();
 
   /**
    * Selects and returns all {@link Source} instances containing the specified text fragment, in
-   * alphabetical order.
+   * alphabetical order, with the {@link Source#getQuotes() quotes} of each fetched in the same
+   * query. As for all derived {@code Containing} queries, wildcard characters in the fragment are
+   * escaped by Spring Data.
    *
    * @param fragment filter text content.
    * @return {@link Iterable} sequence of {@link Source} instances.
    */
-  Iterable<Source> findAllByNameContainingOrderByNameAsc(String fragment);
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "quotes")
+  @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+  Iterable<Source> findDistinctByNameContainingOrderByNameAsc(String fragment);
+
+  /**
+   * Selects and returns the specified page of the projections returned by {@link
+   * #findAllByOrderByNameAsc()}.
+   *
+   * @param pageable page offset &amp; size.
+   * @return {@link List} of {@link SourceSummary} instances.
+   */
+  @Transactional(readOnly = true)
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+  @Query("SELECT NEW edu.cnm.deepdive.qod.view.SourceSummary(s.id, s.created, s.name) "
+      + "FROM Source AS s ORDER BY s.name ASC")
+  List<SourceSummary> findAllByOrderByNameAsc(Pageable pageable);
+
+  /**
+   * Selects and returns the {@link Source} instances with the specified IDs, in alphabetical
+   * order, with the {@link Source#getQuotes() quotes} of each fetched in the same query. Used with
+   * {@link #findAllByOrderByNameAsc(Pageable)}, this reads a page of sources with their quotes,
+   * without applying the page limits to the rows of the fetch join.
+   *
+   * @param ids {@link UUID} values of sources.
+   * @return {@link List} of {@link Source} instances.
+   */
+  @Transactional(readOnly = true)
+  @EntityGraph(attributePaths = "quotes")
+  @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+  List<Source> findDistinctByIdInOrderByNameAsc(Collection<UUID> ids);
+
+  /**
+   * Deletes the specified {@link Source} with a bulk statement, without loading it. Any
+   * associations with quotes must already have been removed.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @return number of sources deleted (0 or 1).
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM Source AS s WHERE s.id = :sourceId")
+  int deleteDirectlyById(@Param("sourceId") UUID sourceId);
+
+  /**
+   * Increments the version of the specified {@link Source}, as a guard for changes (such as
+   * modifications of the join table) that are not made through the entity itself. When called
+   * within a transaction, concurrent guarded changes to the same source are serialized.
+   *
+   * @param id source {@link UUID}.
+   * @param expectedVersion required current version, or {@code null} if any version is
+   * acceptable.
+   * @throws NoSuchElementException if the source does not exist.
+   * @throws OptimisticLockingFailureException if {@code expectedVersion} is not {@code null},
+   * and the current version of the source is different.
+   */
+  default void touch(UUID id, Long expectedVersion) {
+    int updated = (expectedVersion != null)
+        ? incrementVersion(id, expectedVersion)
+        : incrementVersion(id);
+    if (updated == 0) {
+      if (!existsById(id)) {
+        throw new NoSuchElementException();
+      }
+      throw new OptimisticLockingFailureException(
+          String.format("Source %s has been modified", id));
+    }
+  }
 
 }
@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.entity.Source;
+import java.util.UUID;
+
+/**
+ * Declares database operations on {@link Source} entity instances (and their associations with
+ * quotes) that are not derived by Spring Data, but implemented directly (see {@link
+ * SourceRepositoryImpl}), so that the second-level cache entries they invalidate are limited to
+ * those they can affect, as for {@link QuoteRepositoryCustom}.
+ */
+public interface SourceRepositoryCustom {
+
+  /**
+   * Removes all associations between the specified source and any quotes, with a single statement
+   * on the join table.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @return number of associations removed.
+   */
+  int detachAllQuotes(UUID sourceId);
+
+  /**
+   * Increments the version of the specified {@link Source} with a single statement, without
+   * loading it, and returns the number of rows updated (0 or 1). Within a transaction, this also
+   * locks the source row until the transaction completes. Only the updated source is evicted from
+   * the second-level cache.
+   *
+   * @param id source {@link UUID}.
+   * @return number of sources updated.
+   */
+  int incrementVersion(UUID id);
+
+  /**
+   * Increments the version of the specified {@link Source}, as for {@link
+   * #incrementVersion(UUID)}, but only if its current version is {@code version}.
+   *
+   * @param id source {@link UUID}.
+   * @param version expected current version.
+   * @return number of sources updated.
+   */
+  int incrementVersion(UUID id, long version);
+
+}
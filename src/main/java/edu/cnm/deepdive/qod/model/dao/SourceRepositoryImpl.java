@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.dao;
+
+import edu.cnm.deepdive.qod.model.entity.Source;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements {@link SourceRepositoryCustom} with a native statement on the join table, and JDBC
+ * version increments, executed by {@link DirectStatements}.
+ */
+class SourceRepositoryImpl implements SourceRepositoryCustom {
+
+  private static final String DETACH_ALL_QUOTES =
+      "DELETE FROM quote_sources WHERE source_id = :ownerId";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  @Transactional
+  public int detachAllQuotes(UUID sourceId) {
+    return DirectStatements.updateJoinTable(entityManager, DETACH_ALL_QUOTES, sourceId, null);
+  }
+
+  @Override
+  @Transactional
+  public int incrementVersion(UUID id) {
+    return DirectStatements.incrementVersion(
+        entityManager, Source.class, "source", "source_id", id, null);
+  }
+
+  @Override
+  @Transactional
+  public int incrementVersion(UUID id, long version) {
+    return DirectStatements.incrementVersion(
+        entityManager, Source.class, "source", "source_id", id, version);
+  }
+
+}
@@ -1,4 +1,5 @@
 /**
- * Spring Data repository interfaces (aka data access objects, or DAO)
+ * Spring Data repository interfaces (aka data access objects, or DAO), and the in-memory
+ * implementations of these used with the {@code in-memory} profile.
  */
 package edu.cnm.deepdive.qod.model.dao;
\ No newline at end of file
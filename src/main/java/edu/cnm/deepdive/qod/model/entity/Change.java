@@ -0,0 +1,193 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.model.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.net.URI;
+import java.util.Date;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.lang.NonNull;
+
+/**
+ * Defines a database entity and REST resource recording a single change to the catalog: the
+ * creation, update, or deletion of a {@link Quote} or {@link Source}, or a change to the
+ * associations of one. Each change is identified by a sequence number, assigned in the order in
+ * which changes are recorded. Only the type of the change and the IDs of the affected resources are
+ * stored (in fixed-width columns), not the content of the resources.
+ */
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "ix_change_log_created", columnList = "created"))
+@JsonInclude(Include.NON_NULL)
+public class Change {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "change_seq", nullable = false, updatable = false)
+  private long sequence;
+
+  @NonNull
+  @CreationTimestamp
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(nullable = false, updatable = false)
+  private Date created;
+
+  @NonNull
+  @Enumerated(EnumType.ORDINAL)
+  @Column(nullable = false, updatable = false, columnDefinition = "SMALLINT")
+  private Type type;
+
+  @NonNull
+  @Enumerated(EnumType.ORDINAL)
+  @Column(nullable = false, updatable = false, columnDefinition = "SMALLINT")
+  private Resource resource;
+
+  @NonNull
+  @Column(name = "resource_id", columnDefinition = "CHAR(16) FOR BIT DATA",
+      nullable = false, updatable = false)
+  private UUID resourceId;
+
+  @Column(name = "related_id", columnDefinition = "CHAR(16) FOR BIT DATA", updatable = false)
+  private UUID relatedId;
+
+  /**
+   * Initializes an empty instance; required by JPA.
+   */
+  protected Change() {
+  }
+
+  /**
+   * Initializes this instance with the specified type and resources.
+   *
+   * @param type kind of change.
+   * @param resource kind of resource changed.
+   * @param resourceId {@link UUID} of resource changed.
+   * @param relatedId {@link UUID} of the resource associated with or disassociated from the changed
+   * resource, for a change of type {@link Type#ATTACH} or {@link Type#DETACH} affecting a single
+   * association; {@code null} otherwise.
+   */
+  public Change(Type type, Resource resource, UUID resourceId, UUID relatedId) {
+    this.type = type;
+    this.resource = resource;
+    this.resourceId = resourceId;
+    this.relatedId = relatedId;
+  }
+
+  /**
+   * Returns the sequence number of this change. Sequence numbers increase in the order in which
+   * changes are recorded, but are not necessarily contiguous.
+   *
+   * @return change sequence number.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Returns the date &amp; time at which this change was recorded.
+   *
+   * @return change timestamp.
+   */
+  public Date getCreated() {
+    return created;
+  }
+
+  /**
+   * Returns the kind of this change.
+   *
+   * @return change {@link Type}.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the kind of resource changed.
+   *
+   * @return changed {@link Resource} kind.
+   */
+  public Resource getResource() {
+    return resource;
+  }
+
+  /**
+   * Returns the ID of the resource changed.
+   *
+   * @return changed resource {@link UUID}.
+   */
+  public UUID getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * Returns the ID of the resource associated with or disassociated from the changed resource, if
+   * this change affects a single association. For a change affecting any number of associations of
+   * the changed resource, this is {@code null}.
+   *
+   * @return related resource {@link UUID}, or {@code null}.
+   */
+  public UUID getRelatedId() {
+    return relatedId;
+  }
+
+  /**
+   * Returns the URL of the changed resource.
+   *
+   * @return changed resource URL.
+   */
+  public URI getHref() {
+    return (resource == Resource.QUOTE) ? Quote.hrefFor(resourceId) : Source.hrefFor(resourceId);
+  }
+
+  /**
+   * Kinds of changes recorded.
+   */
+  public enum Type {
+    /** Resource was created. */
+    CREATE,
+    /** Resource was updated. */
+    UPDATE,
+    /** Resource was deleted, along with all of its associations. */
+    DELETE,
+    /** One or more associations were added to the resource. */
+    ATTACH,
+    /** One or more associations were removed from the resource. */
+    DETACH
+  }
+
+  /**
+   * Kinds of resources changed.
+   */
+  public enum Resource {
+    /** {@link Quote} resource. */
+    QUOTE,
+    /** {@link Source} resource. */
+    SOURCE
+  }
+
+}
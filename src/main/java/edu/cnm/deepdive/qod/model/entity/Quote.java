@@ -15,6 +15,7 @@
  */
 package edu.cnm.deepdive.qod.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import edu.cnm.deepdive.qod.view.FlatQuote;
@@ -26,20 +27,25 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import javax.annotation.PostConstruct;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.OrderBy;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.GenericGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,9 +55,12 @@ import org.springframework.stereotype.Component;
 
 /**
  * Defines a database entity and REST resource representing the text of a quote, and its
- * relationships to zero or more {@link Source} resources.
+ * relationships to zero or more {@link Source} resources. Instances, and their collections of
+ * sources, are held in the second-level cache.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Component
 @JsonIgnoreProperties(
     value = {"created", "sources", "href"}, allowGetters = true, ignoreUnknown = true)
@@ -60,8 +69,9 @@ public class Quote implements FlatQuote {
   private static EntityLinks entityLinks;
 
   @Id
-  @GeneratedValue(generator = "uuid2")
-  @GenericGenerator(name = "uuid2", strategy = "uuid2")
+  @GeneratedValue(generator = "uuid-ordered")
+  @GenericGenerator(name = "uuid-ordered",
+      strategy = "edu.cnm.deepdive.qod.model.entity.TimeOrderedUuidGenerator")
   @Column(name = "quote_id", columnDefinition = "CHAR(16) FOR BIT DATA",
       nullable = false, updatable = false)
   private UUID id;
@@ -78,11 +88,17 @@ public class Quote implements FlatQuote {
   @Column(length = 4096, nullable = false, unique = true)
   private String text;
 
+  @Version
+  @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+  private long version;
+
   @JsonSerialize(contentAs = FlatSource.class)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   @ManyToMany(fetch = FetchType.LAZY,
       cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})
   @JoinTable(joinColumns = @JoinColumn(name = "quote_id"),
-      inverseJoinColumns = @JoinColumn(name = "source_id"))
+      inverseJoinColumns = @JoinColumn(name = "source_id"),
+      indexes = @Index(name = "ix_quote_sources_source_quote", columnList = "source_id, quote_id"))
   @OrderBy("name ASC")
   private Set<Source> sources = new LinkedHashSet<>();
 
@@ -117,8 +133,45 @@ public class Quote implements FlatQuote {
     return sources;
   }
 
+  /**
+   * Returns the version of this {@code Quote}, incremented by each update. This is exposed to
+   * consumers as the {@code ETag} of the quote resource, rather than as a property.
+   *
+   * @return quote version.
+   */
+  @JsonIgnore
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the ID, creation timestamp, and version of this {@code Quote}, as assigned or read by a
+   * repository that stores quotes without JPA (see {@code InMemoryQuoteRepository}). Since this
+   * is not a property setter, it is not used by JSON deserialization.
+   *
+   * @param id quote {@link UUID}.
+   * @param created creation timestamp.
+   * @param version quote version.
+   */
+  public void restore(UUID id, Date created, long version) {
+    this.id = id;
+    this.created = created;
+    this.version = version;
+  }
+
   @Override
   public URI getHref() {
+    return hrefFor(id);
+  }
+
+  /**
+   * Returns the URL of the quote resource with the specified ID. This allows unmanaged projections
+   * of {@code Quote} instances to expose the same {@code href} property as the entity itself.
+   *
+   * @param id quote {@link UUID}.
+   * @return quote resource URL.
+   */
+  public static URI hrefFor(UUID id) {
     return entityLinks.linkForSingleResource(Quote.class, id).toUri();
   }
 
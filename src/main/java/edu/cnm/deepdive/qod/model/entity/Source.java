@@ -15,6 +15,7 @@
  */
 package edu.cnm.deepdive.qod.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import edu.cnm.deepdive.qod.view.FlatQuote;
@@ -26,6 +27,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import javax.annotation.PostConstruct;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -36,6 +38,9 @@ import javax.persistence.ManyToMany;
 import javax.persistence.OrderBy;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.GenericGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,9 +50,13 @@ import org.springframework.stereotype.Component;
 
 /**
  * Defines a database entity and REST resource representing the a quote source, and its
- * relationships to zero or more {@link Quote} resources.
+ * relationships to zero or more {@link Quote} resources. Instances are held in the second-level
+ * cache; their collections of quotes are not, since that is the inverse side of the association,
+ * and Hibernate does not evict it when a quote is deleted.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Component
 @JsonIgnoreProperties(
     value = {"created", "quotes", "href"}, allowGetters = true, ignoreUnknown = true)
@@ -56,8 +65,9 @@ public class Source implements FlatSource {
   private static EntityLinks entityLinks;
 
   @Id
-  @GeneratedValue(generator = "uuid2")
-  @GenericGenerator(name = "uuid2", strategy = "uuid2")
+  @GeneratedValue(generator = "uuid-ordered")
+  @GenericGenerator(name = "uuid-ordered",
+      strategy = "edu.cnm.deepdive.qod.model.entity.TimeOrderedUuidGenerator")
   @Column(name = "source_id", columnDefinition = "CHAR(16) FOR BIT DATA",
       nullable = false, updatable = false)
   private UUID id;
@@ -72,6 +82,10 @@ public class Source implements FlatSource {
   @Column(length = 1024, nullable = false, unique = true)
   private String name;
 
+  @Version
+  @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+  private long version;
+
   @JsonSerialize(contentAs = FlatQuote.class)
   @ManyToMany(fetch = FetchType.LAZY, mappedBy = "sources",
       cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})
@@ -111,8 +125,45 @@ public class Source implements FlatSource {
     return quotes;
   }
 
+  /**
+   * Returns the version of this {@code Source}, incremented by each update. This is exposed to
+   * consumers as the {@code ETag} of the source resource, rather than as a property.
+   *
+   * @return source version.
+   */
+  @JsonIgnore
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the ID, creation timestamp, and version of this {@code Source}, as assigned or read by a
+   * repository that stores sources without JPA (see {@code InMemorySourceRepository}). Since this
+   * is not a property setter, it is not used by JSON deserialization.
+   *
+   * @param id source {@link UUID}.
+   * @param created creation timestamp.
+   * @param version source version.
+   */
+  public void restore(UUID id, Date created, long version) {
+    this.id = id;
+    this.created = created;
+    this.version = version;
+  }
+
   @Override
   public URI getHref() {
+    return hrefFor(id);
+  }
+
+  /**
+   * Returns the URL of the source resource with the specified ID. This allows unmanaged projections
+   * of {@code Source} instances to expose the same {@code href} property as the entity itself.
+   *
+   * @param id source {@link UUID}.
+   * @return source resource URL.
+   */
+  public static URI hrefFor(UUID id) {
     return entityLinks.linkForSingleResource(Source.class, id).toUri();
   }
 
@@ -1,5 +1,6 @@
 /**
  * JPA/Hibernate definitions for {@link edu.cnm.deepdive.qod.model.entity.Quote} and {@link
- * edu.cnm.deepdive.qod.model.entity.Source} entities.
+ * edu.cnm.deepdive.qod.model.entity.Source} entities, and for the {@link
+ * edu.cnm.deepdive.qod.model.entity.Change} log entries recording changes to them.
  */
 package edu.cnm.deepdive.qod.model.entity;
\ No newline at end of file
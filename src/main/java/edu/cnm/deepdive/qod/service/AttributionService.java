@@ -0,0 +1,197 @@
+package edu.cnm.deepdive.qod.service;
+
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Adds and removes quote-source associations in bulk, operating directly on the join table with
+ * set-based statements, so that neither the quote nor the source collections are loaded. Large
+ * ID lists are split into chunks of a configurable size, to bound the size of each {@code IN}
+ * list; all chunks of a single request are processed in one transaction.
+ * <p>Since these changes are not made through the entities, each operation explicitly increments
+ * the version of the owning quote or source (the one whose ID is specified individually) at the
+ * start of its transaction. This serializes concurrent changes to the associations of the same
+ * owner, and allows each operation to be made conditional on the owner's current version.</p>
+ * <p>Each operation is recorded in the change log as a change to the owner, even if no
+ * associations were actually added or removed, since the version of the owner changes
+ * regardless.</p>
+ */
+@Component
+public class AttributionService {
+
+  private final QuoteRepository quoteRepository;
+  private final SourceRepository sourceRepository;
+  private final ChangeLogService changeLogService;
+  private final int chunkSize;
+
+  /**
+   * Initializes this instance with the specified repositories and chunk size.
+   *
+   * @param quoteRepository repository used to modify the quote-source join table.
+   * @param sourceRepository repository used to verify and increment the versions of sources.
+   * @param changeLogService service used to record changes to associations.
+   * @param chunkSize maximum number of IDs included in a single statement.
+   */
+  @Autowired
+  public AttributionService(QuoteRepository quoteRepository, SourceRepository sourceRepository,
+      ChangeLogService changeLogService, @Value("${attribution.chunk-size:500}") int chunkSize) {
+    this.quoteRepository = quoteRepository;
+    this.sourceRepository = sourceRepository;
+    this.changeLogService = changeLogService;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Associates the specified quotes with the specified source.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @param quoteIds {@link UUID} values of quotes; IDs of non-existent quotes are ignored.
+   * @param expectedVersion required current version of the source, or {@code null} if any version
+   * is acceptable.
+   * @return number of associations added.
+   * @throws NoSuchElementException if the source does not exist.
+   * @throws OptimisticLockingFailureException if the current version of the source does not match
+   * {@code expectedVersion}.
+   */
+  @Transactional
+  public int attachQuotes(UUID sourceId, Collection<UUID> quoteIds, Long expectedVersion) {
+    sourceRepository.touch(sourceId, expectedVersion);
+    int count = inChunks(quoteIds, (chunk) -> quoteRepository.attachQuotes(sourceId, chunk));
+    record(count, Type.ATTACH, Resource.SOURCE, sourceId, quoteIds);
+    return count;
+  }
+
+  /**
+   * Removes the associations between the specified quotes and the specified source.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @param quoteIds {@link UUID} values of quotes; IDs of non-associated quotes are ignored.
+   * @param expectedVersion required current version of the source, or {@code null} if any version
+   * is acceptable.
+   * @return number of associations removed.
+   * @throws NoSuchElementException if the source does not exist.
+   * @throws OptimisticLockingFailureException if the current version of the source does not match
+   * {@code expectedVersion}.
+   */
+  @Transactional
+  public int detachQuotes(UUID sourceId, Collection<UUID> quoteIds, Long expectedVersion) {
+    sourceRepository.touch(sourceId, expectedVersion);
+    int count = inChunks(quoteIds, (chunk) -> quoteRepository.detachQuotes(sourceId, chunk));
+    record(count, Type.DETACH, Resource.SOURCE, sourceId, quoteIds);
+    return count;
+  }
+
+  /**
+   * Associates the specified sources with the specified quote.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @param sourceIds {@link UUID} values of sources; IDs of non-existent sources are ignored.
+   * @param expectedVersion required current version of the quote, or {@code null} if any version
+   * is acceptable.
+   * @return number of associations added.
+   * @throws NoSuchElementException if the quote does not exist.
+   * @throws OptimisticLockingFailureException if the current version of the quote does not match
+   * {@code expectedVersion}.
+   */
+  @Transactional
+  public int attachSources(UUID quoteId, Collection<UUID> sourceIds, Long expectedVersion) {
+    quoteRepository.touch(quoteId, expectedVersion);
+    int count = inChunks(sourceIds, (chunk) -> quoteRepository.attachSources(quoteId, chunk));
+    record(count, Type.ATTACH, Resource.QUOTE, quoteId, sourceIds);
+    return count;
+  }
+
+  /**
+   * Removes the associations between the specified sources and the specified quote.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @param sourceIds {@link UUID} values of sources; IDs of non-associated sources are ignored.
+   * @param expectedVersion required current version of the quote, or {@code null} if any version
+   * is acceptable.
+   * @return number of associations removed.
+   * @throws NoSuchElementException if the quote does not exist.
+   * @throws OptimisticLockingFailureException if the current version of the quote does not match
+   * {@code expectedVersion}.
+   */
+  @Transactional
+  public int detachSources(UUID quoteId, Collection<UUID> sourceIds, Long expectedVersion) {
+    quoteRepository.touch(quoteId, expectedVersion);
+    int count = inChunks(sourceIds, (chunk) -> quoteRepository.detachSources(quoteId, chunk));
+    record(count, Type.DETACH, Resource.QUOTE, quoteId, sourceIds);
+    return count;
+  }
+
+  /**
+   * Removes the association between the specified source and the specified quote, as for {@link
+   * #detachQuotes(UUID, Collection, Long)}, but fails (without changing the version of the source)
+   * if the two are not associated.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @param quoteId {@link UUID} of quote.
+   * @param expectedVersion required current version of the source, or {@code null} if any version
+   * is acceptable.
+   * @throws NoSuchElementException if the source does not exist, or is not associated with the
+   * quote.
+   * @throws OptimisticLockingFailureException if the current version of the source does not match
+   * {@code expectedVersion}.
+   */
+  @Transactional
+  public void detachQuote(UUID sourceId, UUID quoteId, Long expectedVersion) {
+    if (detachQuotes(sourceId, Collections.singleton(quoteId), expectedVersion) == 0) {
+      throw new NoSuchElementException();
+    }
+  }
+
+  /**
+   * Removes the association between the specified quote and the specified source, as for {@link
+   * #detachSources(UUID, Collection, Long)}, but fails (without changing the version of the quote)
+   * if the two are not associated.
+   *
+   * @param quoteId {@link UUID} of quote.
+   * @param sourceId {@link UUID} of source.
+   * @param expectedVersion required current version of the quote, or {@code null} if any version
+   * is acceptable.
+   * @throws NoSuchElementException if the quote does not exist, or is not associated with the
+   * source.
+   * @throws OptimisticLockingFailureException if the current version of the quote does not match
+   * {@code expectedVersion}.
+   */
+  @Transactional
+  public void detachSource(UUID quoteId, UUID sourceId, Long expectedVersion) {
+    if (detachSources(quoteId, Collections.singleton(sourceId), expectedVersion) == 0) {
+      throw new NoSuchElementException();
+    }
+  }
+
+  private void record(int count, Type type, Resource resource, UUID ownerId,
+      Collection<UUID> ids) {
+    UUID relatedId = (count == 1 && ids.size() == 1) ? ids.iterator().next() : null;
+    changeLogService.record(type, resource, ownerId, relatedId);
+  }
+
+  private int inChunks(Collection<UUID> ids, Function<List<UUID>, Integer> operation) {
+    List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+    int total = 0;
+    for (int start = 0; start < distinct.size(); start += chunkSize) {
+      total += operation.apply(
+          distinct.subList(start, Math.min(start + chunkSize, distinct.size())));
+    }
+    return total;
+  }
+
+}
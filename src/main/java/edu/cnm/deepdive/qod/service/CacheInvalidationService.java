@@ -0,0 +1,121 @@
+package edu.cnm.deepdive.qod.service;
+
+import edu.cnm.deepdive.qod.model.entity.Change;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.model.entity.Source;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the state each instance derives from the shared database&mdash;the second-level and query
+ * caches, the read model, and the quote of the day&mdash;consistent across instances. Each change
+ * committed on this instance is published (after commit) to the {@link InvalidationBus}, if one is
+ * configured; each invalidation received from a peer is applied here, as follows:
+ * <ul>
+ * <li>The changed {@link Quote} or {@link Source} is evicted from the second-level cache, along
+ * with the cached sources of each affected quote. When the affected quotes are not known (i.e. a
+ * source is deleted, or attached to or detached from several quotes at once), the cached sources
+ * of all quotes are evicted.</li>
+ * <li>All query cache regions are evicted. (Hibernate invalidates cached query results by table
+ * timestamps, which are only updated by writes on the same instance; there is no finer-grained
+ * way to invalidate them remotely.)</li>
+ * <li>The read model (if enabled) re-reads the changed resource, as it does for local
+ * changes.</li>
+ * <li>The quote of the day is marked as stale, if it is the changed quote.</li>
+ * </ul>
+ * <p>An invalidation of all state (e.g. after a snapshot import) evicts all cache regions, rebuilds
+ * the read model, and marks the quote of the day as stale.</p>
+ */
+@Component
+public class CacheInvalidationService {
+
+  private static final String QUOTE_SOURCES_ROLE = Quote.class.getName() + ".sources";
+
+  private final InvalidationBus bus;
+  private final Cache cache;
+  private final CatalogReadModel readModel;
+  private final QuoteSelectionService selectionService;
+
+  /**
+   * Initializes this instance with the specified collaborators, registering for notification of
+   * local changes, and (if a bus is configured) of invalidations published by peers.
+   *
+   * @param changeLogService service notifying this instance of changes committed locally.
+   * @param bus provider of the {@link InvalidationBus} connecting this instance to its peers (if
+   * any).
+   * @param entityManagerFactory source of the second-level and query caches.
+   * @param readModel in-memory copy of the catalog, updated with changes made by peers.
+   * @param selectionService service maintaining the quote of the day.
+   */
+  @Autowired
+  public CacheInvalidationService(ChangeLogService changeLogService,
+      ObjectProvider<InvalidationBus> bus, EntityManagerFactory entityManagerFactory,
+      CatalogReadModel readModel, QuoteSelectionService selectionService) {
+    this.bus = bus.getIfAvailable();
+    cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    this.readModel = readModel;
+    this.selectionService = selectionService;
+    changeLogService.addListener(this::changed);
+    if (this.bus != null) {
+      this.bus.subscribe(this::invalidate);
+    }
+  }
+
+  /**
+   * Invalidates all derived state on peer instances, and the quote of the day on this instance.
+   * This must be invoked after any change to the database of which change log listeners are not
+   * notified; the caches and read model of this instance must be refreshed by the caller.
+   */
+  public void invalidateAll() {
+    selectionService.invalidateAll();
+    if (bus != null) {
+      bus.publish(Invalidation.all());
+    }
+  }
+
+  private void changed(Change change) {
+    if (change.getResource() == Resource.QUOTE) {
+      selectionService.invalidate(change.getResourceId());
+    }
+    if (bus != null) {
+      bus.publish(Invalidation.of(change));
+    }
+  }
+
+  private void invalidate(Invalidation invalidation) {
+    if (invalidation.isAll()) {
+      cache.evictAllRegions();
+      readModel.rebuild();
+      selectionService.invalidateAll();
+      return;
+    }
+    UUID id = invalidation.getResourceId();
+    UUID relatedId = invalidation.getRelatedId();
+    boolean associations =
+        invalidation.getType() == Type.ATTACH || invalidation.getType() == Type.DETACH;
+    if (invalidation.getResource() == Resource.QUOTE) {
+      cache.evictEntityData(Quote.class, id);
+      cache.evictCollectionData(QUOTE_SOURCES_ROLE, id);
+      selectionService.invalidate(id);
+    } else {
+      cache.evictEntityData(Source.class, id);
+      if (associations && relatedId != null) {
+        cache.evictCollectionData(QUOTE_SOURCES_ROLE, relatedId);
+      } else if (associations || invalidation.getType() == Type.DELETE) {
+        cache.evictCollectionData(QUOTE_SOURCES_ROLE);
+      }
+    }
+    cache.evictQueryRegions();
+    if (readModel.isEnabled()) {
+      readModel.apply(invalidation.toChange());
+    }
+  }
+
+}
@@ -0,0 +1,516 @@
+package edu.cnm.deepdive.qod.service;
+
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Change;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.view.ExpandedQuote;
+import edu.cnm.deepdive.qod.view.ExpandedSource;
+import edu.cnm.deepdive.qod.view.FlatQuote;
+import edu.cnm.deepdive.qod.view.QuoteSummary;
+import edu.cnm.deepdive.qod.view.SourceSummary;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.text.Normalizer.Form;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains an in-memory copy of the catalog (quotes, sources, and the associations between them),
+ * from which all read requests can be served without database access, when enabled via the {@code
+ * read-model.enabled} property.
+ * <p>The model is loaded in full at startup (and after a snapshot import), and is then updated
+ * synchronously as changes are committed, via {@link ChangeLogService}: for each change, the
+ * affected quote or source (and, for a change to associations, its associated IDs) is re-read from
+ * the database, so that the model always converges on the committed state. Since the update is made
+ * in the thread that made the change, before the response is sent, a client always reads its own
+ * writes.</p>
+ * <p>Each quote and source is held as a single compact entry, containing its scalar properties, a
+ * precomputed collation key (matching the primary-strength collation of the database), and an
+ * array of the IDs of its associated sources or quotes; entries are indexed by ID, and in
+ * collation order. Reads are made under a shared lock, and updates under an exclusive lock, which
+ * is held only while the in-memory structures are modified, never during database access.</p>
+ */
+@Component
+public class CatalogReadModel {
+
+  private static final UUID[] NO_IDS = new UUID[0];
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+  private final QuoteRepository quoteRepository;
+  private final SourceRepository sourceRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final Collator collator;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Object refreshLock = new Object();
+  private Index quotes = new Index();
+  private Index sources = new Index();
+
+  /**
+   * Initializes this instance with the specified repositories and configuration, registering for
+   * notification of changes if the model is enabled.
+   *
+   * @param quoteRepository repository from which quotes and associations are read.
+   * @param sourceRepository repository from which sources and associations are read.
+   * @param changeLogService service notifying this instance of committed changes.
+   * @param transactionManager manager of the (read-only) transactions in which the model is loaded.
+   * @param enabled flag indicating whether the read model is maintained (and used).
+   */
+  @Autowired
+  public CatalogReadModel(QuoteRepository quoteRepository, SourceRepository sourceRepository,
+      ChangeLogService changeLogService, PlatformTransactionManager transactionManager,
+      @Value("${read-model.enabled:false}") boolean enabled) {
+    this.quoteRepository = quoteRepository;
+    this.sourceRepository = sourceRepository;
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    transactionTemplate.setReadOnly(true);
+    this.enabled = enabled;
+    collator = Collator.getInstance();
+    collator.setStrength(Collator.PRIMARY);
+    if (enabled) {
+      changeLogService.addListener(this::apply);
+    }
+  }
+
+  /**
+   * Returns a flag indicating whether the read model is enabled; if not, it remains empty, and all
+   * reads must be made from the database.
+   *
+   * @return {@code true} if enabled, {@code false} otherwise.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Discards the current contents of the model (if any), and reloads all quotes, sources, and
+   * associations from the database. This is invoked at startup, and should be invoked after any
+   * change to the database that is not recorded in the change log.
+   */
+  @PostConstruct
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    synchronized (refreshLock) {
+      Index quotes = new Index();
+      Index sources = new Index();
+      transactionTemplate.execute((status) -> {
+        load(quotes, sources);
+        return null;
+      });
+      lock.writeLock().lock();
+      try {
+        this.quotes = quotes;
+        this.sources = sources;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the quotes containing the specified text (compared ignoring case and accents), or all
+   * quotes if {@code fragment} is {@code null}, in collation order by text.
+   *
+   * @param fragment text to match, or {@code null} to return all quotes.
+   * @return {@link List} of {@link QuoteSummary} instances.
+   */
+  public List<QuoteSummary> findQuotes(String fragment) {
+    return read(() -> find(quotes, fragment, this::summarizeQuote));
+  }
+
+  /**
+   * Returns the quotes containing the specified text, as for {@link #findQuotes(String)}, each with
+   * its sources.
+   *
+   * @param fragment text to match, or {@code null} to return all quotes.
+   * @return {@link List} of {@link ExpandedQuote} instances.
+   */
+  public List<ExpandedQuote> findExpandedQuotes(String fragment) {
+    return read(() -> find(quotes, fragment, this::expandQuote));
+  }
+
+  /**
+   * Returns the sources whose names contain the specified text (compared ignoring case and
+   * accents), or all sources if {@code fragment} is {@code null}, in collation order by name.
+   *
+   * @param fragment text to match, or {@code null} to return all sources.
+   * @return {@link List} of {@link SourceSummary} instances.
+   */
+  public List<SourceSummary> findSources(String fragment) {
+    return read(() -> find(sources, fragment, this::summarizeSource));
+  }
+
+  /**
+   * Returns the sources whose names contain the specified text, as for {@link
+   * #findSources(String)}, each with its quotes.
+   *
+   * @param fragment text to match, or {@code null} to return all sources.
+   * @return {@link List} of {@link ExpandedSource} instances.
+   */
+  public List<ExpandedSource> findExpandedSources(String fragment) {
+    return read(() -> find(sources, fragment, this::expandSource));
+  }
+
+  /**
+   * Returns the specified quote, with its sources.
+   *
+   * @param quoteId quote {@link UUID}.
+   * @return {@link Optional} containing the {@link ExpandedQuote}, if found.
+   */
+  public Optional<ExpandedQuote> getQuote(UUID quoteId) {
+    return read(() -> Optional.ofNullable(quotes.get(quoteId)).map(this::expandQuote));
+  }
+
+  /**
+   * Returns the specified source, with its quotes.
+   *
+   * @param sourceId source {@link UUID}.
+   * @return {@link Optional} containing the {@link ExpandedSource}, if found.
+   */
+  public Optional<ExpandedSource> getSource(UUID sourceId) {
+    return read(() -> Optional.ofNullable(sources.get(sourceId)).map(this::expandSource));
+  }
+
+  /**
+   * Returns the specified quote, without its sources.
+   *
+   * @param quoteId quote {@link UUID}.
+   * @return {@link Optional} containing the {@link QuoteSummary}, if found.
+   */
+  public Optional<QuoteSummary> getQuoteSummary(UUID quoteId) {
+    return read(() -> Optional.ofNullable(quotes.get(quoteId)).map(this::summarizeQuote));
+  }
+
+  /**
+   * Returns the specified source, without its quotes.
+   *
+   * @param sourceId source {@link UUID}.
+   * @return {@link Optional} containing the {@link SourceSummary}, if found.
+   */
+  public Optional<SourceSummary> getSourceSummary(UUID sourceId) {
+    return read(() -> Optional.ofNullable(sources.get(sourceId)).map(this::summarizeSource));
+  }
+
+  /**
+   * Returns a quote selected at random (with uniform probability) from all quotes.
+   *
+   * @param rng source of randomness.
+   * @param expand flag indicating whether the sources of the quote are included.
+   * @return {@link Optional} containing the {@link QuoteSummary} (or {@link ExpandedQuote}), if
+   * there are any quotes.
+   */
+  public Optional<FlatQuote> getRandomQuote(Random rng, boolean expand) {
+    return read(() -> {
+      if (quotes.all.isEmpty()) {
+        return Optional.empty();
+      }
+      Entry entry = quotes.all.get(rng.nextInt(quotes.all.size()));
+      return Optional.of(expand ? expandQuote(entry) : summarizeQuote(entry));
+    });
+  }
+
+  /**
+   * Returns a flag indicating whether the specified quote is attributed to the specified source.
+   *
+   * @param quoteId quote {@link UUID}.
+   * @param sourceId source {@link UUID}.
+   * @return {@code true} if the quote is attributed to the source, {@code false} otherwise
+   * (including if either does not exist).
+   */
+  public boolean isAttributed(UUID quoteId, UUID sourceId) {
+    return read(() -> {
+      Entry quote = quotes.get(quoteId);
+      return quote != null && Arrays.asList(quote.related).contains(sourceId);
+    });
+  }
+
+  private <T> T read(Supplier<T> reader) {
+    lock.readLock().lock();
+    try {
+      return reader.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Brings the model up to date with the specified committed change, re-reading the affected quote
+   * or source from the database. Changes made by this instance are applied automatically; this is
+   * also invoked (by {@link CacheInvalidationService}) for changes made by peer instances.
+   *
+   * @param change committed change.
+   */
+  void apply(Change change) {
+    boolean quote = (change.getResource() == Resource.QUOTE);
+    boolean associations = (change.getType() == Type.ATTACH || change.getType() == Type.DETACH);
+    UUID id = change.getResourceId();
+    synchronized (refreshLock) {
+      Entry entry = transactionTemplate.execute((status) -> load(quote, id));
+      List<UUID> related = (entry != null && associations)
+          ? transactionTemplate.execute((status) -> quote
+              ? sourceRepository.findIdsByQuoteId(id)
+              : quoteRepository.findIdsBySourceId(id))
+          : null;
+      lock.writeLock().lock();
+      try {
+        Index index = quote ? quotes : sources;
+        Index other = quote ? sources : quotes;
+        Entry previous = index.remove(id);
+        UUID[] previousRelated = (previous != null) ? previous.related : NO_IDS;
+        if (entry == null) {
+          unlink(id, previousRelated, other);
+        } else {
+          entry.related = previousRelated;
+          index.put(entry);
+          if (related != null) {
+            relink(entry, related, other);
+          }
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  private void load(Index quotes, Index sources) {
+    for (Quote quote : quoteRepository.findAll()) {
+      quotes.put(entry(quote.getId(), quote.getCreated(), quote.getText(), quote.getVersion()));
+    }
+    for (Source source : sourceRepository.findAll()) {
+      sources.put(
+          entry(source.getId(), source.getCreated(), source.getName(), source.getVersion()));
+    }
+    Map<UUID, List<UUID>> quoteSources = new HashMap<>();
+    Map<UUID, List<UUID>> sourceQuotes = new HashMap<>();
+    for (Object[] attribution : quoteRepository.findAllAttributions()) {
+      UUID quoteId = (UUID) attribution[0];
+      UUID sourceId = (UUID) attribution[1];
+      quoteSources.computeIfAbsent(quoteId, (id) -> new ArrayList<>()).add(sourceId);
+      sourceQuotes.computeIfAbsent(sourceId, (id) -> new ArrayList<>()).add(quoteId);
+    }
+    link(quotes, quoteSources);
+    link(sources, sourceQuotes);
+  }
+
+  private Entry load(boolean quote, UUID id) {
+    return quote
+        ? quoteRepository.findSummaryById(id)
+            .flatMap((summary) -> quoteRepository.findVersionById(id)
+                .map((version) -> entry(id, summary.getCreated(), summary.getText(), version)))
+            .orElse(null)
+        : sourceRepository.findSummaryById(id)
+            .flatMap((summary) -> sourceRepository.findVersionById(id)
+                .map((version) -> entry(id, summary.getCreated(), summary.getName(), version)))
+            .orElse(null);
+  }
+
+  private <T> List<T> find(Index index, String fragment, Function<Entry, T> mapper) {
+    String folded = (fragment != null) ? fold(fragment) : null;
+    List<T> results = new ArrayList<>();
+    for (Entry entry : index.ordered) {
+      if (folded == null || entry.folded.contains(folded)) {
+        results.add(mapper.apply(entry));
+      }
+    }
+    return results;
+  }
+
+  private QuoteSummary summarizeQuote(Entry entry) {
+    return new QuoteSummary(entry.id, entry.created, entry.label);
+  }
+
+  private SourceSummary summarizeSource(Entry entry) {
+    return new SourceSummary(entry.id, entry.created, entry.label);
+  }
+
+  private ExpandedQuote expandQuote(Entry entry) {
+    List<SourceSummary> related = new ArrayList<>(entry.related.length);
+    for (Entry source : resolve(entry.related, sources)) {
+      related.add(summarizeSource(source));
+    }
+    return new ExpandedQuote(entry.id, entry.created, entry.label, entry.version, related);
+  }
+
+  private ExpandedSource expandSource(Entry entry) {
+    List<QuoteSummary> related = new ArrayList<>(entry.related.length);
+    for (Entry quote : resolve(entry.related, quotes)) {
+      related.add(summarizeQuote(quote));
+    }
+    return new ExpandedSource(entry.id, entry.created, entry.label, entry.version, related);
+  }
+
+  private List<Entry> resolve(UUID[] ids, Index index) {
+    List<Entry> entries = new ArrayList<>(ids.length);
+    for (UUID id : ids) {
+      Entry entry = index.get(id);
+      if (entry != null) {
+        entries.add(entry);
+      }
+    }
+    Collections.sort(entries);
+    return entries;
+  }
+
+  private void link(Index index, Map<UUID, List<UUID>> related) {
+    for (Map.Entry<UUID, List<UUID>> item : related.entrySet()) {
+      Entry entry = index.get(item.getKey());
+      if (entry != null) {
+        entry.related = item.getValue().toArray(NO_IDS);
+      }
+    }
+  }
+
+  private void relink(Entry entry, List<UUID> relatedIds, Index other) {
+    Set<UUID> previous = new HashSet<>(Arrays.asList(entry.related));
+    Set<UUID> current = new LinkedHashSet<>();
+    for (UUID id : relatedIds) {
+      Entry related = other.get(id);
+      if (related != null) {
+        current.add(id);
+        if (!previous.contains(id)) {
+          related.related = with(related.related, entry.id);
+        }
+      }
+    }
+    for (UUID id : previous) {
+      Entry related = other.get(id);
+      if (related != null && !current.contains(id)) {
+        related.related = without(related.related, entry.id);
+      }
+    }
+    entry.related = current.toArray(NO_IDS);
+  }
+
+  private void unlink(UUID id, UUID[] relatedIds, Index other) {
+    for (UUID relatedId : relatedIds) {
+      Entry related = other.get(relatedId);
+      if (related != null) {
+        related.related = without(related.related, id);
+      }
+    }
+  }
+
+  private static UUID[] with(UUID[] ids, UUID id) {
+    UUID[] result = Arrays.copyOf(ids, ids.length + 1);
+    result[ids.length] = id;
+    return result;
+  }
+
+  private static UUID[] without(UUID[] ids, UUID id) {
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i].equals(id)) {
+        UUID[] result = new UUID[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, i);
+        System.arraycopy(ids, i + 1, result, i, ids.length - i - 1);
+        return result;
+      }
+    }
+    return ids;
+  }
+
+  private Entry entry(UUID id, Date created, String label, long version) {
+    return new Entry(id, created, label, version, collator.getCollationKey(label), fold(label));
+  }
+
+  private static String fold(String text) {
+    return COMBINING_MARKS.matcher(Normalizer.normalize(text, Form.NFD))
+        .replaceAll("")
+        .toLowerCase(Locale.ROOT);
+  }
+
+  private static class Index {
+
+    private final Map<UUID, Entry> byId = new HashMap<>();
+    private final NavigableSet<Entry> ordered = new TreeSet<>();
+    private final List<Entry> all = new ArrayList<>();
+
+    private Entry get(UUID id) {
+      return byId.get(id);
+    }
+
+    private void put(Entry entry) {
+      byId.put(entry.id, entry);
+      ordered.add(entry);
+      entry.position = all.size();
+      all.add(entry);
+    }
+
+    private Entry remove(UUID id) {
+      Entry entry = byId.remove(id);
+      if (entry != null) {
+        ordered.remove(entry);
+        Entry last = all.remove(all.size() - 1);
+        if (last != entry) {
+          all.set(entry.position, last);
+          last.position = entry.position;
+        }
+      }
+      return entry;
+    }
+
+  }
+
+  private static class Entry implements Comparable<Entry> {
+
+    private final UUID id;
+    private final Date created;
+    private final String label;
+    private final long version;
+    private final CollationKey key;
+    private final String folded;
+    private UUID[] related = NO_IDS;
+    private int position;
+
+    private Entry(UUID id, Date created, String label, long version, CollationKey key,
+        String folded) {
+      this.id = id;
+      this.created = created;
+      this.label = label;
+      this.version = version;
+      this.key = key;
+      this.folded = folded;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      int comparison = key.compareTo(other.key);
+      return (comparison != 0) ? comparison : id.compareTo(other.id);
+    }
+
+  }
+
+}
@@ -0,0 +1,407 @@
+package edu.cnm.deepdive.qod.service;
+
+import edu.cnm.deepdive.qod.model.dao.ChangeRepository;
+import edu.cnm.deepdive.qod.model.entity.Change;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Records changes to the catalog in a persistent log, and makes them available to clients
+ * synchronizing a copy of the catalog, either by sequence number (for catch-up) or as a stream of
+ * server-sent events (for live updates).
+ * <p>A change is inserted into the log in the transaction that makes it, so that the change is
+ * recorded if and only if that transaction commits. Since concurrent transactions may commit in a
+ * different order from that in which their sequence numbers were assigned, a change is only made
+ * available to clients once every lower sequence number has either been committed, or has been
+ * missing for longer than a configurable settling interval (which must exceed the duration of the
+ * longest writing transaction; gaps older than this are left by rolled-back transactions). In this
+ * way, a client that has seen all changes up to a given sequence number never later encounters a
+ * change with a lower sequence number, without serializing writers.</p>
+ * <p>Changes older than a configurable retention period are deleted periodically (though the most
+ * recent change is always retained). A client that asks for changes after a sequence number that
+ * has been deleted (i.e. a client that has fallen too far behind) is refused with a {@link
+ * CompactedException}, and must re-read the full catalog.</p>
+ * <p>Components maintaining derived state (e.g. a read model) may also register listeners, which
+ * are notified of each change synchronously, in the thread that made it, as soon as it commits.</p>
+ */
+@Component
+public class ChangeLogService {
+
+  private static final Log logger = LogFactory.getLog(ChangeLogService.class);
+
+  private final ChangeRepository changeRepository;
+  private final long retention;
+  private final long streamTimeout;
+  private final int pageSize;
+  private final long settle;
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
+  private final AtomicBoolean publishPending = new AtomicBoolean();
+  private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(
+      (runnable) -> new Thread(runnable, "change-feed"));
+  private long published;
+  private boolean retryPending;
+
+  /**
+   * Initializes this instance with the specified collaborators and configuration values.
+   *
+   * @param changeRepository repository used to store and read changes.
+   * @param retention time (in milliseconds) for which changes are retained.
+   * @param streamTimeout time (in milliseconds) after which a change stream is closed (and must be
+   * reopened by the client).
+   * @param pageSize maximum number of changes read in a single query.
+   * @param settle time (in milliseconds) after which a gap in the sequence numbers is assumed to
+   * have been left by a rolled-back transaction, rather than one still in progress.
+   */
+  @Autowired
+  public ChangeLogService(ChangeRepository changeRepository,
+      @Value("${changes.retention-ms:604800000}") long retention,
+      @Value("${changes.stream-timeout-ms:1800000}") long streamTimeout,
+      @Value("${changes.page-size:1000}") int pageSize,
+      @Value("${changes.settle-ms:5000}") long settle) {
+    this.changeRepository = changeRepository;
+    this.retention = retention;
+    this.streamTimeout = streamTimeout;
+    this.pageSize = pageSize;
+    this.settle = settle;
+  }
+
+  /**
+   * Positions the stream publisher after the most recent change recorded before startup.
+   */
+  @PostConstruct
+  public void start() {
+    Long maximum = changeRepository.findMaximumSequence();
+    published = (maximum != null) ? maximum : 0;
+  }
+
+  /**
+   * Stops publishing changes to streams.
+   */
+  @PreDestroy
+  public void stop() {
+    publisher.shutdown();
+    for (Subscriber subscriber : subscribers) {
+      subscriber.emitter.complete();
+    }
+  }
+
+  /**
+   * Registers a listener to be notified of each change, in the thread that made the change, after
+   * the change commits, but before the change is published to streams. A listener is notified of a
+   * change before the request that made it completes, but may be notified of concurrent changes in
+   * any order.
+   *
+   * @param listener consumer of changes.
+   */
+  public void addListener(Consumer<Change> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Records a change to the specified resource. This should be invoked in the transaction that
+   * makes the change; listeners are notified after (and only if) it commits. If no transaction is
+   * active, the change is recorded, and listeners notified, immediately.
+   *
+   * @param type kind of change.
+   * @param resource kind of resource changed.
+   * @param resourceId {@link UUID} of resource changed.
+   */
+  public void record(Type type, Resource resource, UUID resourceId) {
+    record(type, resource, resourceId, null);
+  }
+
+  /**
+   * Records a change to the specified resource, affecting its association with the specified
+   * related resource. This should be invoked in the transaction that makes the change; listeners
+   * are notified after (and only if) it commits. If no transaction is active, the change is
+   * recorded, and listeners notified, immediately.
+   *
+   * @param type kind of change.
+   * @param resource kind of resource changed.
+   * @param resourceId {@link UUID} of resource changed.
+   * @param relatedId {@link UUID} of resource associated with or disassociated from the changed
+   * resource (may be {@code null}).
+   */
+  public void record(Type type, Resource resource, UUID resourceId, UUID relatedId) {
+    Change change = new Change(type, resource, resourceId, relatedId);
+    changeRepository.save(change);
+    afterCommit(Collections.singletonList(change), true);
+  }
+
+  /**
+   * Records the specified changes, inserting them in JDBC batches (rather than one statement per
+   * change) in the current transaction. Listeners, if notified at all, are notified of each change
+   * after (and only if) the transaction commits; a caller that instead brings derived state up to
+   * date itself (e.g. by rebuilding it after a bulk import) may skip notification.
+   *
+   * @param changes changes to record, in order.
+   * @param notify {@code true} if listeners are to be notified of the changes.
+   */
+  public void recordAll(List<Change> changes, boolean notify) {
+    if (!changes.isEmpty()) {
+      changeRepository.insertAll(changes);
+      afterCommit(notify ? new ArrayList<>(changes) : Collections.emptyList(), notify);
+    }
+  }
+
+  /**
+   * Returns (up to the specified limit) the changes recorded after the specified sequence number,
+   * in sequence order. Changes following a gap in the sequence numbers that may still be filled by
+   * a transaction in progress are withheld.
+   *
+   * @param since sequence number of the last change already seen by the client (0 if none).
+   * @param limit maximum number of changes to return.
+   * @return {@link List} of {@link Change} instances.
+   * @throws CompactedException if changes after {@code since} have been deleted.
+   * @throws IllegalArgumentException if {@code limit} is not positive.
+   */
+  public List<Change> list(long since, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException();
+    }
+    verifyRetained(since);
+    return readSettled(since, Math.min(limit, pageSize));
+  }
+
+  /**
+   * Opens a stream of the changes recorded after the specified sequence number: first, all of the
+   * retained changes after {@code since} are sent; then, each change is sent as it becomes
+   * available. The ID of each event is the sequence number of the change it contains; the name of
+   * the event is the type of the change.
+   *
+   * @param since sequence number of the last change already seen by the client, or {@code null}
+   * to send only changes recorded from now on.
+   * @return {@link SseEmitter} to which changes are sent.
+   * @throws CompactedException if changes after {@code since} have been deleted.
+   */
+  public SseEmitter subscribe(Long since) {
+    long start;
+    if (since != null) {
+      verifyRetained(since);
+      start = since;
+    } else {
+      Long maximum = changeRepository.findMaximumSequence();
+      start = (maximum != null) ? maximum : 0;
+    }
+    SseEmitter emitter = new SseEmitter(streamTimeout);
+    Subscriber subscriber = new Subscriber(emitter, start);
+    subscribers.add(subscriber);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> subscribers.remove(subscriber));
+    try {
+      List<Change> page;
+      long last = start;
+      do {
+        page = readSettled(last, pageSize);
+        for (Change change : page) {
+          subscriber.replay(change);
+          last = change.getSequence();
+        }
+      } while (page.size() == pageSize);
+      subscriber.goLive();
+    } catch (IOException e) {
+      subscribers.remove(subscriber);
+      emitter.completeWithError(e);
+    }
+    return emitter;
+  }
+
+  /**
+   * Deletes changes older than the configured retention period, always retaining the most recent
+   * change (so that the sequence number of the earliest retained change remains known).
+   */
+  @Scheduled(fixedDelayString = "${changes.compaction-interval-ms:3600000}")
+  public void compact() {
+    compact(new Date(System.currentTimeMillis() - retention));
+  }
+
+  /**
+   * Deletes changes recorded before the specified cutoff, always retaining the most recent change.
+   *
+   * @param cutoff date &amp; time before which changes are deleted.
+   * @return number of changes deleted.
+   */
+  public int compact(Date cutoff) {
+    Long maximum = changeRepository.findMaximumSequence();
+    return (maximum != null) ? changeRepository.deleteExpired(cutoff, maximum) : 0;
+  }
+
+  private void verifyRetained(long since) {
+    Long minimum = changeRepository.findMinimumSequence();
+    if (minimum != null && since < minimum - 1) {
+      throw new CompactedException();
+    }
+  }
+
+  private List<Change> readSettled(long since, int limit) {
+    List<Change> changes =
+        changeRepository.findAllBySequenceGreaterThanOrderBySequenceAsc(
+            since, PageRequest.of(0, limit));
+    long horizon = System.currentTimeMillis() - settle;
+    long expected = since + 1;
+    for (int i = 0; i < changes.size(); i++) {
+      Change change = changes.get(i);
+      if (change.getSequence() != expected && change.getCreated().getTime() > horizon) {
+        return changes.subList(0, i);
+      }
+      expected = change.getSequence() + 1;
+    }
+    return changes;
+  }
+
+  private void afterCommit(List<Change> changes, boolean notify) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              dispatch(changes, notify);
+            }
+          });
+    } else {
+      dispatch(changes, notify);
+    }
+  }
+
+  private void dispatch(List<Change> changes, boolean notify) {
+    if (notify) {
+      for (Change change : changes) {
+        for (Consumer<Change> listener : listeners) {
+          try {
+            listener.accept(change);
+          } catch (RuntimeException e) {
+            logger.error(String.format("Change to %s %s could not be applied",
+                change.getResource(), change.getResourceId()), e);
+          }
+        }
+      }
+    }
+    if (publishPending.compareAndSet(false, true)) {
+      try {
+        publisher.execute(this::publishSettled);
+      } catch (RejectedExecutionException e) {
+        // Shutting down.
+      }
+    }
+  }
+
+  private void publishSettled() {
+    publishPending.set(false);
+    try {
+      List<Change> page;
+      do {
+        page = readSettled(published, pageSize);
+        for (Change change : page) {
+          publish(change);
+          published = change.getSequence();
+        }
+      } while (page.size() == pageSize);
+      Long maximum = changeRepository.findMaximumSequence();
+      if (maximum != null && maximum > published && !retryPending) {
+        retryPending = true;
+        publisher.schedule(this::retryPublish, settle, TimeUnit.MILLISECONDS);
+      }
+    } catch (RuntimeException e) {
+      logger.error("Changes could not be published", e);
+    }
+  }
+
+  private void retryPublish() {
+    retryPending = false;
+    publishSettled();
+  }
+
+  private void publish(Change change) {
+    for (Subscriber subscriber : subscribers) {
+      try {
+        subscriber.publish(change);
+      } catch (IOException | IllegalStateException e) {
+        subscribers.remove(subscriber);
+        subscriber.emitter.completeWithError(e);
+      }
+    }
+  }
+
+  /**
+   * Exception thrown when changes requested by a client have already been deleted by compaction.
+   */
+  public static class CompactedException extends RuntimeException {
+
+    private CompactedException() {
+      super("Requested changes are no longer retained");
+    }
+
+  }
+
+  private static class Subscriber {
+
+    private final SseEmitter emitter;
+    private final List<Change> pending = new ArrayList<>();
+    private long last;
+    private boolean live;
+
+    private Subscriber(SseEmitter emitter, long since) {
+      this.emitter = emitter;
+      last = since;
+    }
+
+    private synchronized void replay(Change change) throws IOException {
+      send(change);
+    }
+
+    private synchronized void publish(Change change) throws IOException {
+      if (live) {
+        send(change);
+      } else {
+        pending.add(change);
+      }
+    }
+
+    private synchronized void goLive() throws IOException {
+      for (Change change : pending) {
+        send(change);
+      }
+      pending.clear();
+      live = true;
+    }
+
+    private void send(Change change) throws IOException {
+      if (change.getSequence() > last) {
+        emitter.send(SseEmitter.event()
+            .id(Long.toString(change.getSequence()))
+            .name(change.getType().name().toLowerCase())
+            .data(change, MediaType.APPLICATION_JSON));
+        last = change.getSequence();
+      }
+    }
+
+  }
+
+}
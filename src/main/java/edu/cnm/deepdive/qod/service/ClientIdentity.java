@@ -0,0 +1,36 @@
+package edu.cnm.deepdive.qod.service;
+
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Identifies the client making a request, for keying per-client state (e.g. rate limits and stored
+ * idempotent responses): by the authenticated subject or, for anonymous requests, the client
+ * address.
+ */
+public final class ClientIdentity {
+
+  private static final String SUBJECT_PREFIX = "sub:";
+  private static final String ADDRESS_PREFIX = "ip:";
+
+  private ClientIdentity() {
+  }
+
+  /**
+   * Returns a key identifying the client making the specified request. The authenticated subject
+   * is taken from the {@link SecurityContextHolder} of the current thread.
+   *
+   * @param request client request.
+   * @return client key.
+   */
+  public static String of(HttpServletRequest request) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return (authentication != null && authentication.isAuthenticated()
+        && !(authentication instanceof AnonymousAuthenticationToken))
+        ? SUBJECT_PREFIX + authentication.getName()
+        : ADDRESS_PREFIX + request.getRemoteAddr();
+  }
+
+}
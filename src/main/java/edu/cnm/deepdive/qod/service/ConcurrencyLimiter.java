@@ -0,0 +1,197 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the number of database-bound operations in progress, so that excess requests are refused
+ * immediately, rather than queuing (and holding request threads) while the database is slow. Reads
+ * and writes are limited separately, so that a backlog of one kind does not exhaust capacity for
+ * the other.
+ * <p>Each limit adapts to observed latency by additive increase, multiplicative decrease (AIMD):
+ * each operation completing within the target latency, while the limit is at least half used,
+ * raises the limit by {@code 1/limit} (i.e. by about 1 for each limit's worth of operations); an
+ * operation exceeding the target latency lowers the limit by the configured backoff factor (at
+ * most once per target latency interval, so that a burst of slow completions does not collapse the
+ * limit). The limit never falls below 1, nor rises above the configured maximum.</p>
+ */
+@Component
+public class ConcurrencyLimiter {
+
+  private static final int MIN_LIMIT = 1;
+
+  private final boolean enabled;
+  private final Limit readLimit;
+  private final Limit writeLimit;
+  private final LongSupplier ticker;
+
+  /**
+   * Initializes this instance with the specified configuration values.
+   *
+   * @param enabled flag controlling whether concurrency is limited.
+   * @param readInitial initial limit of concurrent reads.
+   * @param readMax maximum limit of concurrent reads.
+   * @param readTarget target latency (in milliseconds) of reads.
+   * @param writeInitial initial limit of concurrent writes.
+   * @param writeMax maximum limit of concurrent writes.
+   * @param writeTarget target latency (in milliseconds) of writes.
+   * @param backoff factor (between 0 and 1) by which a limit is multiplied on excess latency.
+   */
+  @Autowired
+  public ConcurrencyLimiter(@Value("${concurrency-limit.enabled:true}") boolean enabled,
+      @Value("${concurrency-limit.read.initial:20}") int readInitial,
+      @Value("${concurrency-limit.read.max:200}") int readMax,
+      @Value("${concurrency-limit.read.target-latency-ms:100}") long readTarget,
+      @Value("${concurrency-limit.write.initial:10}") int writeInitial,
+      @Value("${concurrency-limit.write.max:100}") int writeMax,
+      @Value("${concurrency-limit.write.target-latency-ms:200}") long writeTarget,
+      @Value("${concurrency-limit.backoff:0.9}") double backoff) {
+    this(enabled, new Limit(readInitial, readMax, readTarget, backoff),
+        new Limit(writeInitial, writeMax, writeTarget, backoff), System::nanoTime);
+  }
+
+  ConcurrencyLimiter(boolean enabled, Limit readLimit, Limit writeLimit, LongSupplier ticker) {
+    this.enabled = enabled;
+    this.readLimit = readLimit;
+    this.writeLimit = writeLimit;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Returns a flag indicating whether concurrency is limited.
+   *
+   * @return {@code true} if concurrency is limited, {@code false} otherwise.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Attempts to start an operation of the specified kind. If the number of operations of that kind
+   * already in progress is below the current limit, a {@link Permit} is returned, which must be
+   * released when the operation completes; otherwise, {@code null} is returned, and the operation
+   * should be refused.
+   *
+   * @param operation kind of operation.
+   * @return {@link Permit}, or {@code null} if the limit has been reached.
+   */
+  public Permit tryAcquire(Operation operation) {
+    Limit limit = limitOf(operation);
+    if (!enabled || limit.tryAcquire()) {
+      return new Permit(enabled ? limit : null, ticker.getAsLong());
+    }
+    limit.shed.increment();
+    return null;
+  }
+
+  /**
+   * Returns the current limit of concurrent operations of the specified kind.
+   *
+   * @param operation kind of operation.
+   * @return concurrency limit.
+   */
+  public int getLimit(Operation operation) {
+    return limitOf(operation).current();
+  }
+
+  /**
+   * Returns the number of operations of the specified kind refused because the limit was reached.
+   *
+   * @param operation kind of operation.
+   * @return count of refused operations.
+   */
+  public long getShedCount(Operation operation) {
+    return limitOf(operation).shed.sum();
+  }
+
+  private Limit limitOf(Operation operation) {
+    return (operation == Operation.READ) ? readLimit : writeLimit;
+  }
+
+  /**
+   * Kinds of operations, limited separately.
+   */
+  public enum Operation {
+    /** Operation that only reads from the database. */
+    READ,
+    /** Operation that (potentially) writes to the database. */
+    WRITE
+  }
+
+  /**
+   * Token representing an operation in progress. Releasing the permit ends the operation, records
+   * its latency, and adjusts the limit accordingly.
+   */
+  public final class Permit {
+
+    private final Limit limit;
+    private final long started;
+
+    private Permit(Limit limit, long started) {
+      this.limit = limit;
+      this.started = started;
+    }
+
+    /**
+     * Ends the operation for which this permit was acquired. This method must be invoked exactly
+     * once per permit.
+     */
+    public void release() {
+      if (limit != null) {
+        long now = ticker.getAsLong();
+        limit.release(now - started, now);
+      }
+    }
+
+  }
+
+  static class Limit {
+
+    private final int max;
+    private final long target;
+    private final double backoff;
+    private final LongAdder shed = new LongAdder();
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+    private boolean decreased;
+
+    Limit(int initial, int max, long target, double backoff) {
+      this.max = max;
+      this.target = TimeUnit.MILLISECONDS.toNanos(target);
+      this.backoff = backoff;
+      limit = Math.max(MIN_LIMIT, Math.min(max, initial));
+    }
+
+    private synchronized boolean tryAcquire() {
+      if (inFlight < (int) limit) {
+        inFlight++;
+        return true;
+      }
+      return false;
+    }
+
+    private synchronized void release(long latency, long now) {
+      if (latency > target) {
+        if (!decreased || now - lastDecrease >= target) {
+          limit = Math.max(MIN_LIMIT, limit * backoff);
+          lastDecrease = now;
+          decreased = true;
+        }
+      } else if (2 * inFlight >= limit) {
+        limit = Math.min(max, limit + 1 / limit);
+      }
+      inFlight--;
+    }
+
+    private synchronized int current() {
+      return (int) limit;
+    }
+
+  }
+
+}
@@ -0,0 +1,196 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+
+/**
+ * Runs database-bound work for controller methods on a dedicated, bounded pool of threads, so that
+ * servlet container threads are not held while waiting on JDBC. Controller methods return the
+ * {@link CompletableFuture} obtained from {@link #submit(Callable)}, and Spring MVC completes the
+ * response asynchronously when the future completes; the container thread is released as soon as
+ * the controller method returns, and remains available for requests served without the database
+ * (e.g. from caches).
+ * <p>By default, the number of threads matches the maximum size of the connection pool, since
+ * additional threads would only wait for connections. The queue of pending tasks is bounded; a task
+ * submitted when the queue is full is refused with a {@link RejectedExecutionException}. A task
+ * that waits in the queue for longer than the asynchronous request timeout is not run, since its
+ * request has already timed out; it is completed with an {@link AsyncRequestTimeoutException}.</p>
+ * <p>The request attributes and security context of the submitting thread (used, for example, in
+ * building links to resources, and in identifying the client) are made available to the task while
+ * it runs, as is any {@link EntityManager} bound to the submitting thread (e.g. by the open-in-view
+ * interceptor). The latter allows entities returned by the task to be serialized&mdash;including
+ * their lazily loaded associations&mdash;when the response is written, just as if the controller
+ * method had run on the container thread.</p>
+ * <p>If disabled, each task is run immediately, in the submitting thread.</p>
+ */
+@Component
+public class DatabaseExecutor {
+
+  private final boolean enabled;
+  private final long timeout;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Initializes this instance with the specified pool size, queue capacity, and timeout.
+   *
+   * @param enabled flag indicating whether tasks are run on the pool; if {@code false}, tasks are
+   * run in the submitting thread.
+   * @param threads number of threads in the pool.
+   * @param queueCapacity maximum number of tasks waiting for a thread.
+   * @param timeout maximum time (in milliseconds) a task may wait for a thread before it is
+   * abandoned.
+   */
+  @Autowired
+  public DatabaseExecutor(
+      @Value("${db-executor.enabled:true}") boolean enabled,
+      @Value("${db-executor.threads:${spring.datasource.hikari.maximum-pool-size:10}}")
+          int threads,
+      @Value("${db-executor.queue-capacity:1000}") int queueCapacity,
+      @Value("${spring.mvc.async.request-timeout:30000}") long timeout) {
+    this.enabled = enabled;
+    this.timeout = timeout;
+    AtomicInteger counter = new AtomicInteger();
+    executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        (runnable) -> new Thread(runnable, "db-executor-" + counter.incrementAndGet()));
+  }
+
+  /**
+   * Shuts down the pool, allowing queued tasks to complete.
+   */
+  @PreDestroy
+  public void stop() {
+    executor.shutdown();
+  }
+
+  /**
+   * Queues the specified task for execution, and returns a {@link CompletableFuture} that is
+   * completed with the result of the task, or exceptionally with any exception it throws.
+   *
+   * @param task database-bound work.
+   * @param <T> type of result.
+   * @return future result of {@code task}.
+   * @throws RejectedExecutionException if the queue is full.
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> task) {
+    return capture().submit(task);
+  }
+
+  /**
+   * Captures the request attributes, security context, and entity managers of the current thread,
+   * for tasks that are submitted later, possibly from other threads&mdash;e.g. the successive pages
+   * of a reactive stream, each of which is requested as the client consumes the preceding page.
+   *
+   * @return {@link Context} through which tasks are submitted.
+   */
+  public Context capture() {
+    Map<Object, EntityManagerHolder> holders = new HashMap<>();
+    TransactionSynchronizationManager.getResourceMap().forEach((key, value) -> {
+      if (value instanceof EntityManagerHolder) {
+        holders.put(key, (EntityManagerHolder) value);
+      }
+    });
+    return new Context(Thread.currentThread(), RequestContextHolder.getRequestAttributes(),
+        SecurityContextHolder.getContext(), holders);
+  }
+
+  private <T> void run(Callable<T> task, CompletableFuture<T> future) {
+    try {
+      future.complete(task.call());
+    } catch (Exception | Error e) {
+      future.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Request attributes, security context, and entity managers captured by {@link #capture()}, and
+   * made available to each task submitted through this instance while it runs.
+   */
+  public class Context {
+
+    private final Thread origin;
+    private final RequestAttributes attributes;
+    private final SecurityContext securityContext;
+    private final Map<Object, EntityManagerHolder> holders;
+
+    private Context(Thread origin, RequestAttributes attributes, SecurityContext securityContext,
+        Map<Object, EntityManagerHolder> holders) {
+      this.origin = origin;
+      this.attributes = attributes;
+      this.securityContext = securityContext;
+      this.holders = holders;
+    }
+
+    /**
+     * Queues the specified task for execution, with the captured context, and returns a {@link
+     * CompletableFuture} that is completed with the result of the task, or exceptionally with any
+     * exception it throws.
+     *
+     * @param task database-bound work.
+     * @param <T> type of result.
+     * @return future result of {@code task}.
+     * @throws RejectedExecutionException if the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      if (!enabled && Thread.currentThread() == origin) {
+        run(task, future);
+        return future;
+      }
+      if (!enabled) {
+        runInContext(task, future);
+        return future;
+      }
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+      executor.execute(() -> {
+        if (System.nanoTime() - deadline > 0) {
+          future.completeExceptionally(new AsyncRequestTimeoutException());
+          return;
+        }
+        runInContext(task, future);
+      });
+      return future;
+    }
+
+    private <T> void runInContext(Callable<T> task, CompletableFuture<T> future) {
+      ServletRequestAttributes taskAttributes = (attributes instanceof ServletRequestAttributes)
+          ? new ServletRequestAttributes(((ServletRequestAttributes) attributes).getRequest())
+          : null;
+      RequestContextHolder.setRequestAttributes(taskAttributes);
+      SecurityContextHolder.setContext(securityContext);
+      holders.forEach(TransactionSynchronizationManager::bindResource);
+      try {
+        run(task, future);
+      } finally {
+        holders.keySet().forEach(TransactionSynchronizationManager::unbindResourceIfPossible);
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+        if (taskAttributes != null) {
+          taskAttributes.requestCompleted();
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,23 @@
+package edu.cnm.deepdive.qod.service;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shuts the application down (and exits the JVM) as soon as it is ready to serve requests. This
+ * is used for training runs, which record the classes loaded during startup&mdash;e.g. to build a
+ * class-data-sharing archive&mdash;or create the database schema, and then exit.
+ */
+@Component
+@ConditionalOnProperty(name = "fast-start.exit-on-ready", havingValue = "true")
+public class ExitOnReadyListener implements ApplicationListener<ApplicationReadyEvent> {
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    System.exit(SpringApplication.exit(event.getApplicationContext()));
+  }
+
+}
@@ -2,14 +2,28 @@ package edu.cnm.deepdive.qod.service;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken.Payload;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.HttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -26,39 +40,153 @@ import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConv
 import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.stereotype.Component;
 
+/**
+ * Authenticates requests bearing Google ID tokens. Each token is verified in-process&mdash;its
+ * RS256 signature is checked against a public key from the {@link KeySetCache} (which is refreshed
+ * in the background), and its issuer, audience, and time validity are checked against the
+ * configured client ID and the current time&mdash;so that no network call is made while handling a
+ * request. The result of each verification is cached in a bounded, least-recently-used cache,
+ * keyed by a SHA-256 hash of the token (so that the tokens themselves are not used as keys). A
+ * successful result is cached until the expiration time of the token; a rejection is cached for a
+ * short, configurable interval. Thus, repeated requests with the same token require only a hash
+ * computation and lookup. A token signed with a key that is not (yet) loaded is rejected, but the
+ * rejection is not cached, so that the token is accepted as soon as the key set has been re-read in
+ * the background.
+ * <p>Concurrent requests with the same (uncached) token are coalesced: only the first verifies the
+ * token, and the others wait for and share its result. Counts of verifications (by outcome),
+ * coalesced requests, and cache hits are maintained for monitoring.</p>
+ */
 @Component
 public class GoogleTokenServices implements ResourceServerTokenServices {
 
-  @Value("${oauth.clientId}")
-  private String clientId;
+  private static final String HASH_ALGORITHM = "SHA-256";
+  private static final String SIGNATURE_ALGORITHM = "RS256";
+  private static final Collection<String> ISSUERS =
+      Arrays.asList("accounts.google.com", "https://accounts.google.com");
+  private static final long CLOCK_SKEW_SECONDS = 300;
+  private static final long MILLISECONDS_PER_SECOND = 1000;
 
   private final AccessTokenConverter converter = new DefaultAccessTokenConverter();
+  private final Verifier verifier;
+  private final long negativeTtl;
+  private final Clock clock;
+  private final Map<String, CachedResult> cache;
+  private final ConcurrentMap<String, CompletableFuture<CachedResult>> inFlight =
+      new ConcurrentHashMap<>();
+  private final LongAdder verified = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+
+  /**
+   * Initializes this instance to verify tokens using keys from the specified {@link KeySetCache},
+   * for the specified client ID, with the specified cache configuration.
+   *
+   * @param keySet source of the public keys used to verify token signatures.
+   * @param clientId OAuth2 client ID, required as the audience of each token.
+   * @param capacity maximum number of cached verification results.
+   * @param negativeTtl time (in milliseconds) for which a rejected token remains rejected without
+   * verification.
+   */
+  @Autowired
+  public GoogleTokenServices(KeySetCache keySet, @Value("${oauth.clientId}") String clientId,
+      @Value("${oauth.token-cache.capacity:10000}") int capacity,
+      @Value("${oauth.token-cache.negative-ttl-ms:10000}") long negativeTtl) {
+    this(keySetVerifier(keySet, clientId, Clock.systemUTC()), capacity, negativeTtl,
+        Clock.systemUTC());
+  }
+
+  GoogleTokenServices(Verifier verifier, int capacity, long negativeTtl, Clock clock) {
+    this.verifier = verifier;
+    this.negativeTtl = negativeTtl;
+    this.clock = clock;
+    cache = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
 
   @Override
   public OAuth2Authentication loadAuthentication(String accessToken)
       throws AuthenticationException, InvalidTokenException {
-    try {
-      HttpTransport transport = new NetHttpTransport();
-      JacksonFactory jsonFactory = new JacksonFactory();
-      GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(transport, jsonFactory)
-          .setAudience(Collections.singletonList(clientId))
-          .build();
-      GoogleIdToken idToken = verifier.verify(accessToken);
-      if (idToken != null) {
-        Payload payload = idToken.getPayload(); // Payload may contain more useful info than we're using.
-        // TODO CHeck user registry (if any) to see what roles should be granted.
-        Collection<GrantedAuthority> grants =
-            Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"));
-        Authentication base =
-            new UsernamePasswordAuthenticationToken(payload.getSubject(), accessToken, grants);
-        OAuth2Request request = converter.extractAuthentication(payload).getOAuth2Request();
-        return new OAuth2Authentication(request, base);
+    String key = hash(accessToken);
+    CachedResult cached = lookup(key, clock.millis());
+    if (cached != null) {
+      cacheHits.increment();
+    } else {
+      CompletableFuture<CachedResult> flight = new CompletableFuture<>();
+      CompletableFuture<CachedResult> existing = inFlight.putIfAbsent(key, flight);
+      if (existing != null) {
+        coalesced.increment();
+        cached = await(existing);
       } else {
-        throw new BadCredentialsException(accessToken);
+        try {
+          long now = clock.millis();
+          cached = lookup(key, now); // Another flight may have completed since the first lookup.
+          if (cached == null) {
+            cached = verify(accessToken, now);
+            if (cached.expires > now) {
+              synchronized (cache) {
+                cache.put(key, cached);
+              }
+            }
+          } else {
+            cacheHits.increment();
+          }
+          flight.complete(cached);
+        } catch (RuntimeException e) {
+          flight.completeExceptionally(e);
+          throw e;
+        } finally {
+          inFlight.remove(key, flight);
+        }
       }
-    } catch (GeneralSecurityException | IOException e) {
-      throw new RuntimeException(e);
     }
+    if (cached.authentication == null) {
+      throw new BadCredentialsException("Invalid ID token");
+    }
+    return cached.authentication;
+  }
+
+  /**
+   * Returns the number of tokens verified successfully (excluding cache hits and coalesced
+   * requests).
+   *
+   * @return count of successful verifications.
+   */
+  public long getVerifiedCount() {
+    return verified.sum();
+  }
+
+  /**
+   * Returns the number of tokens rejected by verification (excluding cache hits and coalesced
+   * requests).
+   *
+   * @return count of failed verifications.
+   */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Returns the number of requests that waited for, and shared the result of, a verification of
+   * the same token already in progress.
+   *
+   * @return count of coalesced requests.
+   */
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Returns the number of requests (successful or not) resolved from the cache.
+   *
+   * @return count of cache hits.
+   */
+  public long getCacheHitCount() {
+    return cacheHits.sum();
   }
 
   @Override
@@ -66,4 +194,138 @@ public class GoogleTokenServices implements ResourceServerTokenServices {
     return null;
   }
 
+  private CachedResult lookup(String key, long now) {
+    synchronized (cache) {
+      CachedResult cached = cache.get(key);
+      if (cached != null && cached.expires <= now) {
+        cache.remove(key);
+        cached = null;
+      }
+      return cached;
+    }
+  }
+
+  private CachedResult await(CompletableFuture<CachedResult> flight) {
+    try {
+      return flight.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private CachedResult verify(String accessToken, long now) {
+    Payload payload;
+    try {
+      payload = verifier.verify(accessToken);
+    } catch (IllegalArgumentException e) {
+      payload = null; // Malformed token; treated as rejected.
+    } catch (UnknownKeyException e) {
+      rejected.increment();
+      return new CachedResult(null, now); // Not cached; the key may be loaded shortly.
+    } catch (GeneralSecurityException | IOException e) {
+      throw new RuntimeException(e);
+    }
+    if (payload == null) {
+      rejected.increment();
+      return new CachedResult(null, now + negativeTtl);
+    }
+    verified.increment();
+    // TODO CHeck user registry (if any) to see what roles should be granted.
+    Collection<GrantedAuthority> grants =
+        Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"));
+    Authentication base =
+        new UsernamePasswordAuthenticationToken(payload.getSubject(), accessToken, grants);
+    OAuth2Request request = converter.extractAuthentication(payload).getOAuth2Request();
+    Long expiration = payload.getExpirationTimeSeconds();
+    return new CachedResult(new OAuth2Authentication(request, base),
+        (expiration != null) ? expiration * MILLISECONDS_PER_SECOND : now);
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM)
+          .digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static Verifier keySetVerifier(KeySetCache keySet, String clientId, Clock clock) {
+    JsonFactory jsonFactory = JacksonFactory.getDefaultInstance();
+    Collection<String> audience = Collections.singleton(clientId);
+    return (token) -> {
+      GoogleIdToken idToken;
+      try {
+        idToken = GoogleIdToken.parse(jsonFactory, token);
+      } catch (IOException e) {
+        return null; // Header or payload is not valid JSON.
+      }
+      String keyId = idToken.getHeader().getKeyId();
+      if (keyId == null) {
+        return null;
+      }
+      PublicKey key = keySet.get(keyId);
+      if (key == null) {
+        throw new UnknownKeyException(keyId);
+      }
+      boolean valid;
+      try {
+        valid = SIGNATURE_ALGORITHM.equals(idToken.getHeader().getAlgorithm())
+            && idToken.verifySignature(key)
+            && idToken.verifyIssuer(ISSUERS)
+            && idToken.verifyAudience(audience)
+            && idToken.verifyTime(clock.millis(), CLOCK_SKEW_SECONDS);
+      } catch (SignatureException e) {
+        valid = false; // Signature is malformed.
+      }
+      return valid ? idToken.getPayload() : null;
+    };
+  }
+
+  /**
+   * Verifies the signature, audience, and time validity of an ID token.
+   */
+  @FunctionalInterface
+  interface Verifier {
+
+    /**
+     * Verifies the specified token, returning its payload if valid.
+     *
+     * @param token encoded ID token.
+     * @return token payload, or {@code null} if the token is not valid.
+     * @throws UnknownKeyException if the token is signed with a key that is not loaded.
+     * @throws GeneralSecurityException if the signature cannot be checked.
+     * @throws IOException if the token cannot be read.
+     */
+    Payload verify(String token) throws GeneralSecurityException, IOException;
+
+  }
+
+  /**
+   * Exception thrown when a token is signed with a key that is not in the current key set.
+   */
+  static class UnknownKeyException extends GeneralSecurityException {
+
+    UnknownKeyException(String keyId) {
+      super("Unknown key ID: " + keyId);
+    }
+
+  }
+
+  private static class CachedResult {
+
+    private final OAuth2Authentication authentication;
+    private final long expires;
+
+    private CachedResult(OAuth2Authentication authentication, long expires) {
+      this.authentication = authentication;
+      this.expires = expires;
+    }
+
+  }
+
 }
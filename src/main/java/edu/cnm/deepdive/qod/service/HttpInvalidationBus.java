@@ -0,0 +1,217 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * {@link InvalidationBus} connecting instances over HTTP, selected with {@code
+ * invalidation.bus=http}. Each instance is configured with the base URLs of its peers ({@code
+ * invalidation.http.peers}, comma-separated), and a secret shared by all of them ({@code
+ * invalidation.http.secret}), which is sent with each request, and required of each request
+ * received (by {@link edu.cnm.deepdive.qod.controller.InvalidationController}).
+ * <p>Invalidations are queued as they are published, and sent by a single background thread, in
+ * batches of up to {@code invalidation.http.max-batch}, so that a writing request never waits on a
+ * peer. If a batch cannot be delivered to a peer, the invalidations in it are not retried
+ * individually; instead, the peer is marked for resynchronization, and an invalidation of all
+ * state is sent to it&mdash;both in place of the next batch published, and by retries scheduled
+ * with exponential backoff (starting at {@code invalidation.http.retry-ms}, and doubling up to
+ * {@code invalidation.http.max-retry-ms}), independently of publication&mdash;until one is
+ * delivered. Thus a peer that has missed invalidations (e.g. during a network partition) stops
+ * serving stale data soon after it is reachable again, even if no further changes are made.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "http")
+public class HttpInvalidationBus implements InvalidationBus {
+
+  /** Name of the request header containing the shared secret. */
+  public static final String SECRET_HEADER = "X-Invalidation-Secret";
+
+  private static final Log logger = LogFactory.getLog(HttpInvalidationBus.class);
+  private static final String INVALIDATIONS_PATH = "/invalidations";
+
+  private final List<String> peers = new ArrayList<>();
+  private final byte[] secret;
+  private final int maxBatch;
+  private final RestTemplate restTemplate;
+  private final BlockingQueue<Invalidation> queue = new LinkedBlockingQueue<>();
+  private final long retryInterval;
+  private final long maxRetryInterval;
+  private final Map<String, Long> resync = new ConcurrentHashMap<>();
+  private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+  private final ScheduledThreadPoolExecutor sender = new ScheduledThreadPoolExecutor(1,
+      (runnable) -> new Thread(runnable, "invalidation-sender"));
+
+  /**
+   * Initializes this instance with the specified configuration values.
+   *
+   * @param builder builder of the {@link RestTemplate} used to send invalidations.
+   * @param peers base URLs (including context path) of peer instances.
+   * @param secret value shared by all instances, authenticating invalidations sent between them.
+   * @param timeout connection and read timeout (in milliseconds) for each request.
+   * @param maxBatch maximum number of invalidations sent in a single request.
+   * @param retryInterval time (in milliseconds) after which delivery to an unreachable peer is
+   * first retried.
+   * @param maxRetryInterval maximum time (in milliseconds) between retries of delivery to an
+   * unreachable peer.
+   * @throws IllegalStateException if {@code secret} is empty.
+   */
+  @Autowired
+  public HttpInvalidationBus(RestTemplateBuilder builder,
+      @Value("${invalidation.http.peers:}") String[] peers,
+      @Value("${invalidation.http.secret:}") String secret,
+      @Value("${invalidation.http.timeout-ms:2000}") long timeout,
+      @Value("${invalidation.http.max-batch:100}") int maxBatch,
+      @Value("${invalidation.http.retry-ms:1000}") long retryInterval,
+      @Value("${invalidation.http.max-retry-ms:60000}") long maxRetryInterval) {
+    if (secret.isEmpty()) {
+      throw new IllegalStateException("invalidation.http.secret must be set");
+    }
+    for (String peer : peers) {
+      if (!peer.trim().isEmpty()) {
+        this.peers.add(peer.trim().replaceAll("/+$", ""));
+      }
+    }
+    this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    this.maxBatch = maxBatch;
+    this.retryInterval = retryInterval;
+    this.maxRetryInterval = maxRetryInterval;
+    sender.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    restTemplate = builder
+        .setConnectTimeout(Duration.ofMillis(timeout))
+        .setReadTimeout(Duration.ofMillis(timeout))
+        .build();
+  }
+
+  /**
+   * Stops sending invalidations to peers; pending retries are abandoned.
+   */
+  @PreDestroy
+  public void stop() {
+    sender.shutdown();
+  }
+
+  @Override
+  public void publish(Invalidation invalidation) {
+    if (!peers.isEmpty()) {
+      queue.add(invalidation);
+      sender.execute(this::send);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<Invalidation> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  /**
+   * Returns a flag indicating whether the specified value matches the shared secret.
+   *
+   * @param secret value of the {@link #SECRET_HEADER} header of a request.
+   * @return {@code true} if the request is from a peer, {@code false} otherwise.
+   */
+  public boolean isAuthentic(String secret) {
+    return secret != null
+        && MessageDigest.isEqual(this.secret, secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Notifies the subscribers of this instance of the specified invalidations, received from a
+   * peer.
+   *
+   * @param invalidations invalidations published by a peer.
+   */
+  public void receive(List<Invalidation> invalidations) {
+    for (Invalidation invalidation : invalidations) {
+      for (Consumer<Invalidation> subscriber : subscribers) {
+        try {
+          subscriber.accept(invalidation);
+        } catch (RuntimeException e) {
+          logger.error(String.format("%s could not be applied", invalidation), e);
+        }
+      }
+    }
+  }
+
+  private void send() {
+    List<Invalidation> batch = new ArrayList<>();
+    queue.drainTo(batch, maxBatch);
+    if (batch.isEmpty()) {
+      return;
+    }
+    for (String peer : peers) {
+      boolean recovering = resync.containsKey(peer);
+      List<Invalidation> body =
+          recovering ? Collections.singletonList(Invalidation.all()) : batch;
+      try {
+        post(peer, body);
+        if (recovering) {
+          resync.remove(peer);
+        }
+      } catch (RestClientException e) {
+        if (resync.putIfAbsent(peer, retryInterval) == null) {
+          logger.warn(String.format("Invalidations could not be sent to %s; state will be "
+              + "invalidated in full on next contact", peer), e);
+          scheduleRetry(peer, retryInterval);
+        }
+      }
+    }
+  }
+
+  private void retry(String peer) {
+    Long delay = resync.get(peer);
+    if (delay == null) {
+      return; // Resynchronized by a published batch.
+    }
+    try {
+      post(peer, Collections.singletonList(Invalidation.all()));
+      resync.remove(peer);
+      logger.info(String.format("State of %s invalidated in full after reconnection", peer));
+    } catch (RestClientException e) {
+      long next = Math.min(2 * delay, maxRetryInterval);
+      resync.put(peer, next);
+      scheduleRetry(peer, next);
+    }
+  }
+
+  private void scheduleRetry(String peer, long delay) {
+    try {
+      sender.schedule(() -> retry(peer), delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // Stopped; no further retries.
+    }
+  }
+
+  private void post(String peer, List<Invalidation> body) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8));
+    restTemplate.postForLocation(peer + INVALIDATIONS_PATH, new HttpEntity<>(body, headers));
+  }
+
+}
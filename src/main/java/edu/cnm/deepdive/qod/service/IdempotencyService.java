@@ -0,0 +1,229 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Executes non-idempotent operations (e.g. resource creation) at most once per client-supplied
+ * idempotency key, replaying the stored response to any retry with the same key. Keys are scoped to
+ * the client (as identified by {@link ClientIdentity}), so that one client cannot replay&mdash;or
+ * block&mdash;another's requests by reusing its key. Responses are
+ * stored (already serialized, so that no persistence context is needed to replay them) in a
+ * bounded in-memory cache, and expire after a configurable interval.
+ * <p>The cache is divided into a number of stripes, each guarded by its own lock; a lock is held
+ * only while an entry is looked up or inserted, never while an operation executes. Instead, the
+ * first request with a given key inserts a pending entry and starts the operation; concurrent
+ * requests with the same key find the pending entry and complete with its result, rather than
+ * executing the operation again. If the operation fails, its entry is removed (so that a later
+ * retry executes it again), and the failure is reported to all waiting requests.</p>
+ */
+@Component
+public class IdempotencyService {
+
+  /** Name of request header containing the idempotency key. */
+  public static final String KEY_HEADER = "Idempotency-Key";
+  /** Name of response header marking a replayed response. */
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private final ObjectMapper mapper;
+  private final long expiration;
+  private final Stripe[] stripes;
+
+  /**
+   * Initializes this instance with the specified {@link ObjectMapper} and configuration values.
+   *
+   * @param mapper JSON writer used to serialize stored responses.
+   * @param capacity maximum number of stored responses.
+   * @param stripeCount number of independently locked cache stripes.
+   * @param expiration time (in milliseconds) for which a stored response is replayed.
+   */
+  @Autowired
+  public IdempotencyService(ObjectMapper mapper,
+      @Value("${idempotency.capacity:10000}") int capacity,
+      @Value("${idempotency.stripes:16}") int stripeCount,
+      @Value("${idempotency.expiration-ms:86400000}") long expiration) {
+    this.mapper = mapper;
+    this.expiration = expiration;
+    stripes = new Stripe[stripeCount];
+    int stripeCapacity = Math.max(1, capacity / stripeCount);
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(stripeCapacity);
+    }
+  }
+
+  /**
+   * Starts the specified operation, unless a response for the same client, key, and scope has
+   * already been stored (or is being produced), in which case that response is returned instead. If
+   * {@code key} is {@code null}, the operation is simply started, and its response returned as is.
+   * The client is identified from the current request (which must be available through {@link
+   * RequestContextHolder}); outside of a request, all callers are treated as a single client.
+   * <p>No thread is blocked while waiting for a response being produced for another request with
+   * the same key: the returned future is completed when that response is, so a waiting request is
+   * bounded by the asynchronous request timeout, like any other.</p>
+   *
+   * @param key client-supplied idempotency key (may be {@code null}).
+   * @param scope name of the operation; a key is only matched against requests in the same scope.
+   * @param fingerprint value identifying the content of the request (e.g. the path parameters and
+   * body); retries with the same key must have an equal fingerprint.
+   * @param operation operation to start, returning the future response.
+   * @return future response of the operation, or a replay of the stored response.
+   * @throws ConflictingRequestException if a response has been stored for the same client, key, and
+   * scope, but for a request with a different fingerprint.
+   */
+  public CompletableFuture<ResponseEntity<?>> execute(String key, String scope,
+      Object fingerprint, Supplier<CompletableFuture<ResponseEntity<?>>> operation) {
+    if (key == null) {
+      return operation.get();
+    }
+    String cacheKey = client() + ' ' + scope + ':' + key;
+    Stripe stripe = stripes[Math.floorMod(cacheKey.hashCode(), stripes.length)];
+    long now = System.currentTimeMillis();
+    Entry entry;
+    boolean owner = false;
+    synchronized (stripe) {
+      entry = stripe.entries.get(cacheKey);
+      if (entry == null || entry.expires < now) {
+        entry = new Entry(fingerprint, now + expiration);
+        stripe.entries.put(cacheKey, entry);
+        owner = true;
+      }
+    }
+    if (!Objects.equals(entry.fingerprint, fingerprint)) {
+      throw new ConflictingRequestException();
+    }
+    if (!owner) {
+      return entry.response.thenApply(StoredResponse::toReplay);
+    }
+    Entry pending = entry;
+    CompletableFuture<ResponseEntity<?>> response;
+    try {
+      response = operation.get();
+    } catch (RuntimeException | Error e) {
+      fail(stripe, cacheKey, pending, e);
+      throw e;
+    }
+    return response
+        .thenApply(this::store)
+        .whenComplete((stored, failure) -> {
+          if (failure == null) {
+            pending.response.complete(stored);
+          } else {
+            fail(stripe, cacheKey, pending, failure);
+          }
+        })
+        .thenApply(StoredResponse::toResponse);
+  }
+
+  private void fail(Stripe stripe, String cacheKey, Entry entry, Throwable failure) {
+    synchronized (stripe) {
+      stripe.entries.remove(cacheKey, entry);
+    }
+    entry.response.completeExceptionally(
+        (failure instanceof CompletionException && failure.getCause() != null)
+            ? failure.getCause()
+            : failure);
+  }
+
+  private static String client() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return (attributes instanceof ServletRequestAttributes)
+        ? ClientIdentity.of(((ServletRequestAttributes) attributes).getRequest())
+        : "";
+  }
+
+  private StoredResponse store(ResponseEntity<?> response) {
+    try {
+      byte[] body = (response.getBody() != null)
+          ? mapper.writeValueAsBytes(response.getBody())
+          : null;
+      return new StoredResponse(response.getStatusCode(), response.getHeaders(), body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Exception thrown when an idempotency key is reused for a request with different content.
+   */
+  public static class ConflictingRequestException extends RuntimeException {
+
+    private ConflictingRequestException() {
+      super("Idempotency key has already been used for a different request");
+    }
+
+  }
+
+  private static class Stripe {
+
+    private final Map<String, Entry> entries;
+
+    private Stripe(int capacity) {
+      entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+  }
+
+  private static class Entry {
+
+    private final Object fingerprint;
+    private final long expires;
+    private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+    private Entry(Object fingerprint, long expires) {
+      this.fingerprint = fingerprint;
+      this.expires = expires;
+    }
+
+  }
+
+  private static class StoredResponse {
+
+    private final HttpStatus status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    private StoredResponse(HttpStatus status, HttpHeaders headers, byte[] body) {
+      this.status = status;
+      this.headers = new HttpHeaders();
+      this.headers.putAll(headers);
+      if (body != null) {
+        this.headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+      }
+      this.body = body;
+    }
+
+    private ResponseEntity<byte[]> toResponse() {
+      return new ResponseEntity<>(body, headers, status);
+    }
+
+    private ResponseEntity<byte[]> toReplay() {
+      HttpHeaders replayHeaders = new HttpHeaders();
+      replayHeaders.putAll(headers);
+      replayHeaders.set(REPLAYED_HEADER, Boolean.TRUE.toString());
+      return new ResponseEntity<>(body, replayHeaders, status);
+    }
+
+  }
+
+}
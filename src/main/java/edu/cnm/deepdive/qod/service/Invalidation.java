@@ -0,0 +1,152 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.cnm.deepdive.qod.model.entity.Change;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Notice, sent by one instance to its peers over an {@link InvalidationBus}, that state derived
+ * from the database must be refreshed. An invalidation either identifies a single committed {@link
+ * Change} (by its type, the kind and ID of the resource changed, and the ID of the related
+ * resource, if any), or&mdash;after a change not recorded in the change log, such as a snapshot
+ * import&mdash;applies to all state.
+ */
+@JsonInclude(Include.NON_NULL)
+public final class Invalidation {
+
+  private static final Invalidation ALL = new Invalidation(null, null, null, null);
+
+  private final Type type;
+  private final Resource resource;
+  private final UUID resourceId;
+  private final UUID relatedId;
+
+  @JsonCreator
+  private Invalidation(@JsonProperty("type") Type type,
+      @JsonProperty("resource") Resource resource,
+      @JsonProperty("resourceId") UUID resourceId,
+      @JsonProperty("relatedId") UUID relatedId) {
+    this.type = type;
+    this.resource = resource;
+    this.resourceId = resourceId;
+    this.relatedId = relatedId;
+  }
+
+  /**
+   * Returns an invalidation identifying the specified change.
+   *
+   * @param change committed change.
+   * @return invalidation of state derived from the changed resource.
+   */
+  public static Invalidation of(Change change) {
+    return new Invalidation(change.getType(), change.getResource(), change.getResourceId(),
+        change.getRelatedId());
+  }
+
+  /**
+   * Returns an invalidation applying to all state derived from the database.
+   *
+   * @return invalidation of all state.
+   */
+  public static Invalidation all() {
+    return ALL;
+  }
+
+  /**
+   * Returns a flag indicating whether this invalidation applies to all state, rather than to a
+   * single change.
+   *
+   * @return {@code true} if all state is invalidated, {@code false} otherwise.
+   */
+  @JsonIgnore
+  public boolean isAll() {
+    return type == null || resource == null || resourceId == null;
+  }
+
+  /**
+   * Returns the kind of change, or {@code null} if this invalidation applies to all state.
+   *
+   * @return kind of change.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the kind of resource changed, or {@code null} if this invalidation applies to all
+   * state.
+   *
+   * @return kind of resource.
+   */
+  public Resource getResource() {
+    return resource;
+  }
+
+  /**
+   * Returns the {@link UUID} of the resource changed, or {@code null} if this invalidation applies
+   * to all state.
+   *
+   * @return resource {@link UUID}.
+   */
+  public UUID getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * Returns the {@link UUID} of the resource associated with or disassociated from the changed
+   * resource, or {@code null} if there is none (or more than one).
+   *
+   * @return related resource {@link UUID}.
+   */
+  public UUID getRelatedId() {
+    return relatedId;
+  }
+
+  /**
+   * Returns a (transient) {@link Change} equivalent to this invalidation, for use by components
+   * that are notified of local changes in that form.
+   *
+   * @return unsaved {@link Change} instance.
+   * @throws IllegalStateException if this invalidation applies to all state.
+   */
+  public Change toChange() {
+    if (isAll()) {
+      throw new IllegalStateException();
+    }
+    return new Change(type, resource, resourceId, relatedId);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Invalidation)) {
+      return false;
+    }
+    Invalidation other = (Invalidation) obj;
+    return type == other.type && resource == other.resource
+        && Objects.equals(resourceId, other.resourceId)
+        && Objects.equals(relatedId, other.relatedId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(type, resource, resourceId, relatedId);
+  }
+
+  @Override
+  public String toString() {
+    return isAll()
+        ? "Invalidation[all]"
+        : String.format("Invalidation[%s %s %s %s]", type, resource, resourceId, relatedId);
+  }
+
+}
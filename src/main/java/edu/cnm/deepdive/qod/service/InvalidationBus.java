@@ -0,0 +1,29 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts {@link Invalidation} notices between the instances of a multi-instance deployment,
+ * so that each instance can refresh the state (caches, read model, quote of the day) it derives
+ * from the shared database. An implementation is selected with the {@code invalidation.bus}
+ * property; if none is selected, no bus is present, and each instance is unaware of its peers.
+ * <p>An invalidation published by an instance is delivered to the subscribers of every other
+ * instance, but never to those of the publishing instance itself.</p>
+ */
+public interface InvalidationBus {
+
+  /**
+   * Sends the specified invalidation to all peer instances.
+   *
+   * @param invalidation notice to send.
+   */
+  void publish(Invalidation invalidation);
+
+  /**
+   * Registers a subscriber to be notified of each invalidation published by a peer instance.
+   *
+   * @param subscriber consumer of invalidations.
+   */
+  void subscribe(Consumer<Invalidation> subscriber);
+
+}
@@ -0,0 +1,209 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URLConnection;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Maintains an in-memory copy of the RSA public keys (published as a JSON Web Key Set) used to
+ * verify the signatures of ID tokens. The key set is read from a configurable location (an HTTP(S)
+ * URL, a file, or a classpath resource) by a background thread, starting at startup, and re-read
+ * periodically&mdash;at the configured refresh interval, or at half the {@code max-age} specified
+ * by the server, if that is shorter (but never more often than the retry interval)&mdash;so that
+ * keys are replaced before they expire. Keys are parsed when the key set is read, so that looking
+ * up a key is a single map access, with no I/O.
+ * <p>If the key set cannot be read, the keys already loaded (if any) are retained, and the read is
+ * retried after a shorter interval. Each read is bounded by configurable connect and read
+ * timeouts, so that an unresponsive server cannot stall the background thread.</p>
+ * <p>A lookup of a key ID that is not in the current key set (e.g. one issued since the last read,
+ * or requested before the first read completes) fails immediately, but triggers a read on the
+ * background thread, so that the key is available to a later lookup; no lookup ever waits for I/O.
+ * To bound the cost of tokens with bogus key IDs, such reads are made no more often than the retry
+ * interval.</p>
+ */
+@Component
+public class KeySetCache {
+
+  private static final Log logger = LogFactory.getLog(KeySetCache.class);
+  private static final Pattern MAX_AGE_PATTERN = Pattern.compile("max-age=(\\d+)");
+  private static final String RSA_KEY_TYPE = "RSA";
+  private static final long MILLISECONDS_PER_SECOND = 1000;
+
+  private final ObjectMapper mapper;
+  private final String location;
+  private final long refreshInterval;
+  private final long retryInterval;
+  private final int connectTimeout;
+  private final int readTimeout;
+  private final AtomicLong nextDemandRefresh = new AtomicLong();
+  private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+      (runnable) -> new Thread(runnable, "key-set-refresh"));
+  private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+
+  /**
+   * Initializes this instance with the specified collaborators and configuration values.
+   *
+   * @param mapper {@link ObjectMapper} used to parse the key set.
+   * @param location URL, file, or {@code classpath:} resource from which the key set is read.
+   * @param refreshInterval maximum time (in milliseconds) between successful reads.
+   * @param retryInterval time (in milliseconds) after which a failed read is retried, and minimum
+   * time between reads triggered by unknown key IDs.
+   * @param connectTimeout maximum time (in milliseconds) to wait for a connection to the location.
+   * @param readTimeout maximum time (in milliseconds) to wait for data from the location.
+   */
+  @Autowired
+  public KeySetCache(ObjectMapper mapper,
+      @Value("${oauth.key-set.location:https://www.googleapis.com/oauth2/v3/certs}")
+          String location,
+      @Value("${oauth.key-set.refresh-ms:3600000}") long refreshInterval,
+      @Value("${oauth.key-set.retry-ms:60000}") long retryInterval,
+      @Value("${oauth.key-set.connect-timeout-ms:5000}") int connectTimeout,
+      @Value("${oauth.key-set.read-timeout-ms:5000}") int readTimeout) {
+    this.mapper = mapper;
+    this.location = location;
+    this.refreshInterval = refreshInterval;
+    this.retryInterval = retryInterval;
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+  }
+
+  /**
+   * Starts reading the key set (now, and periodically thereafter) in the background.
+   */
+  @PostConstruct
+  public void start() {
+    refresher.execute(this::scheduledRefresh);
+  }
+
+  /**
+   * Stops reading the key set in the background. Keys already loaded remain available.
+   */
+  @PreDestroy
+  public void stop() {
+    refresher.shutdownNow();
+  }
+
+  /**
+   * Returns the public key with the specified key ID, if that key is in the current key set. If it
+   * is not, a read of the key set is scheduled on the background thread (unless one was scheduled
+   * for the same reason less than the retry interval ago), without waiting for it to complete.
+   *
+   * @param keyId key ID, as specified in the header of a signed token.
+   * @return {@link PublicKey}, or {@code null} if no key with the specified ID is loaded.
+   */
+  public PublicKey get(String keyId) {
+    if (keyId == null) {
+      return null;
+    }
+    PublicKey key = keys.get(keyId);
+    if (key == null) {
+      long now = System.currentTimeMillis();
+      long next = nextDemandRefresh.get();
+      if (now >= next && nextDemandRefresh.compareAndSet(next, now + retryInterval)) {
+        try {
+          refresher.execute(this::demandRefresh);
+        } catch (RejectedExecutionException e) {
+          // Stopped; no further reads.
+        }
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Reads the key set from the configured location, replacing the keys currently loaded. Keys of
+   * types other than RSA are ignored.
+   *
+   * @return time (in milliseconds) after which the key set should be read again.
+   * @throws IOException if the key set cannot be read or parsed.
+   * @throws GeneralSecurityException if an RSA key in the key set is not valid.
+   */
+  public synchronized long refresh() throws IOException, GeneralSecurityException {
+    URLConnection connection = ResourceUtils.getURL(location).openConnection();
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    JsonNode keySet;
+    try (InputStream input = connection.getInputStream()) {
+      keySet = mapper.readTree(input);
+    }
+    KeyFactory factory = KeyFactory.getInstance(RSA_KEY_TYPE);
+    Map<String, PublicKey> loaded = new HashMap<>();
+    for (JsonNode key : keySet.path("keys")) {
+      if (RSA_KEY_TYPE.equals(key.path("kty").asText()) && key.hasNonNull("kid")) {
+        BigInteger modulus = new BigInteger(1, decode(key.path("n")));
+        BigInteger exponent = new BigInteger(1, decode(key.path("e")));
+        loaded.put(key.get("kid").asText(),
+            factory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+      }
+    }
+    keys = Collections.unmodifiableMap(loaded);
+    long delay = refreshInterval;
+    String cacheControl = connection.getHeaderField("Cache-Control");
+    if (cacheControl != null) {
+      Matcher matcher = MAX_AGE_PATTERN.matcher(cacheControl);
+      if (matcher.find()) {
+        delay = Math.max(retryInterval,
+            Math.min(delay, Long.parseLong(matcher.group(1)) * MILLISECONDS_PER_SECOND / 2));
+      }
+    }
+    return delay;
+  }
+
+  private void scheduledRefresh() {
+    long delay;
+    try {
+      delay = refresh();
+    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+      logger.warn(String.format("Key set could not be read from %s", location), e);
+      delay = retryInterval;
+    }
+    try {
+      refresher.schedule(this::scheduledRefresh, delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // Stopped; no further reads.
+    }
+  }
+
+  private void demandRefresh() {
+    try {
+      refresh();
+    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+      logger.warn(String.format("Key set could not be read from %s", location), e);
+    }
+  }
+
+  private static byte[] decode(JsonNode node) throws GeneralSecurityException {
+    try {
+      return Base64.getUrlDecoder().decode(node.asText());
+    } catch (IllegalArgumentException e) {
+      throw new GeneralSecurityException(e);
+    }
+  }
+
+}
@@ -0,0 +1,47 @@
+package edu.cnm.deepdive.qod.service;
+
+import javax.annotation.PostConstruct;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Marks application beans for lazy initialization, so that each is created when it is first
+ * needed&mdash;typically by the first request routed to a controller that depends on
+ * it&mdash;rather than during startup. Lazy initialization is applied only where it is safe to
+ * defer creation: infrastructure beans, and beans whose classes are explicitly annotated with
+ * {@link Lazy}, are left as they are; so are beans whose classes declare {@link Scheduled} methods
+ * (which are only scheduled once the bean exists), or {@link PostConstruct} methods (which load
+ * state or start background work that should be complete before the first request arrives).
+ */
+@Component
+@ConditionalOnProperty(name = "fast-start.lazy-initialization", havingValue = "true")
+public class LazyInitializationPostProcessor implements BeanFactoryPostProcessor {
+
+  @Override
+  public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory)
+      throws BeansException {
+    for (String name : beanFactory.getBeanDefinitionNames()) {
+      BeanDefinition definition = beanFactory.getBeanDefinition(name);
+      if (definition.getRole() == BeanDefinition.ROLE_APPLICATION
+          && !(definition instanceof AnnotatedBeanDefinition
+              && isEager(((AnnotatedBeanDefinition) definition).getMetadata()))) {
+        definition.setLazyInit(true);
+      }
+    }
+  }
+
+  private boolean isEager(AnnotationMetadata metadata) {
+    return metadata.isAnnotated(Lazy.class.getName())
+        || metadata.hasAnnotatedMethods(Scheduled.class.getName())
+        || metadata.hasAnnotatedMethods(PostConstruct.class.getName());
+  }
+
+}
@@ -0,0 +1,86 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link InvalidationBus} connecting application contexts in the same JVM (e.g. the several
+ * instances started by a test), selected with {@code invalidation.bus=loopback}. Contexts
+ * configured with the same {@code invalidation.channel} are peers. Delivery is synchronous: when
+ * {@link #publish(Invalidation)} returns, the subscribers of every peer have been notified.
+ */
+@Component
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "loopback")
+public class LoopbackInvalidationBus implements InvalidationBus {
+
+  private static final Log logger = LogFactory.getLog(LoopbackInvalidationBus.class);
+  private static final Map<String, List<LoopbackInvalidationBus>> channels =
+      new ConcurrentHashMap<>();
+  private static final List<LoopbackInvalidationBus> NO_PEERS = Collections.emptyList();
+
+  private final String channel;
+  private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+  /**
+   * Initializes this instance, and joins the specified channel.
+   *
+   * @param channel name of the channel shared by peer instances.
+   */
+  @Autowired
+  public LoopbackInvalidationBus(@Value("${invalidation.channel:default}") String channel) {
+    this.channel = channel;
+    channels.compute(channel, (key, members) -> {
+      List<LoopbackInvalidationBus> joined =
+          (members != null) ? members : new CopyOnWriteArrayList<>();
+      joined.add(this);
+      return joined;
+    });
+  }
+
+  /**
+   * Leaves the channel, so that no further invalidations are delivered to this instance.
+   */
+  @PreDestroy
+  public void stop() {
+    channels.computeIfPresent(channel, (key, members) -> {
+      members.remove(this);
+      return members.isEmpty() ? null : members;
+    });
+  }
+
+  @Override
+  public void publish(Invalidation invalidation) {
+    for (LoopbackInvalidationBus peer : channels.getOrDefault(channel, NO_PEERS)) {
+      if (peer != this) {
+        peer.deliver(invalidation);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<Invalidation> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  private void deliver(Invalidation invalidation) {
+    for (Consumer<Invalidation> subscriber : subscribers) {
+      try {
+        subscriber.accept(invalidation);
+      } catch (RuntimeException e) {
+        logger.error(String.format("%s could not be applied", invalidation), e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,122 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.util.Map;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enables Hibernate statistics, when {@code query-statistics.enabled} is {@code true}, and
+ * supplies Hibernate with an instrumented implementation of its statistics collector. In addition
+ * to the session-factory-wide statistics (per-query execution counts, times, and rows; entity and
+ * collection load counts; etc.) reported by {@code /admin/statistics}, the instrumented collector
+ * <ul>
+ * <li>logs (at {@code WARN} level) each query whose execution takes at least {@code
+ * query-statistics.slow-query-ms} milliseconds, with its execution time and number of rows;
+ * and</li>
+ * <li>attributes each statement, query, and load to the HTTP request (if any) on whose behalf it
+ * is performed, in a {@link RequestQueryStatistics} instance.</li>
+ * </ul>
+ * <p>Hibernate measures query execution time (including the time taken to read the result set)
+ * only for JPQL, criteria, and native queries; loads by ID and lazy initialization are counted, but
+ * not timed.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "query-statistics.enabled", havingValue = "true")
+public class QueryStatisticsCustomizer implements HibernatePropertiesCustomizer {
+
+  private static final Log logger = LogFactory.getLog(QueryStatisticsCustomizer.class);
+  private static final String GENERATE_STATISTICS_PROPERTY = "hibernate.generate_statistics";
+  private static final String STATISTICS_FACTORY_PROPERTY = "hibernate.stats.factory";
+
+  private final long slowQueryThreshold;
+
+  /**
+   * Initializes this instance with the specified slow-query threshold.
+   *
+   * @param slowQueryThreshold minimum execution time (in milliseconds) of a query that is logged.
+   */
+  public QueryStatisticsCustomizer(
+      @Value("${query-statistics.slow-query-ms:200}") long slowQueryThreshold) {
+    this.slowQueryThreshold = slowQueryThreshold;
+  }
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    hibernateProperties.put(GENERATE_STATISTICS_PROPERTY, Boolean.TRUE.toString());
+    hibernateProperties.put(STATISTICS_FACTORY_PROPERTY,
+        (StatisticsFactory) InstrumentedStatistics::new);
+  }
+
+  private class InstrumentedStatistics extends StatisticsImpl {
+
+    private InstrumentedStatistics(SessionFactoryImplementor sessionFactory) {
+      super(sessionFactory);
+    }
+
+    @Override
+    public void prepareStatement() {
+      super.prepareStatement();
+      RequestQueryStatistics statistics = RequestQueryStatistics.current();
+      if (statistics != null) {
+        statistics.statementPrepared();
+      }
+    }
+
+    @Override
+    public void queryExecuted(String query, int rows, long time) {
+      super.queryExecuted(query, rows, time);
+      if (time >= slowQueryThreshold) {
+        logger.warn(String.format("Slow query (%d ms, %d rows): %s", time, rows, query));
+      }
+      RequestQueryStatistics statistics = RequestQueryStatistics.current();
+      if (statistics != null) {
+        statistics.queryExecuted(time);
+      }
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+      super.loadEntity(entityName);
+      RequestQueryStatistics statistics = RequestQueryStatistics.current();
+      if (statistics != null) {
+        statistics.entityLoaded();
+      }
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+      super.fetchEntity(entityName);
+      RequestQueryStatistics statistics = RequestQueryStatistics.current();
+      if (statistics != null) {
+        statistics.entityFetched();
+      }
+    }
+
+    @Override
+    public void loadCollection(String role) {
+      super.loadCollection(role);
+      RequestQueryStatistics statistics = RequestQueryStatistics.current();
+      if (statistics != null) {
+        statistics.collectionLoaded();
+      }
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+      super.fetchCollection(role);
+      RequestQueryStatistics statistics = RequestQueryStatistics.current();
+      if (statistics != null) {
+        statistics.collectionFetched();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,255 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.entity.Change;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inserts large collections of {@link Quote} instances efficiently. Submitted quotes are
+ * de-duplicated in memory (using the case-insensitive comparison of {@link Quote#equals(Object)}),
+ * checked against existing quotes with a single query per chunk, and persisted in chunks of a
+ * configurable size, each in its own transaction; with {@code hibernate.jdbc.batch_size} set, the
+ * inserts of each chunk are sent as JDBC batch statements. The outcome of every submitted item is
+ * reported individually, and the creation of every inserted quote is recorded in the change log,
+ * with a JDBC batch statement in the same transaction as the chunk that inserts it.
+ */
+@Component
+public class QuoteBatchService {
+
+  private final QuoteRepository quoteRepository;
+  private final ChangeLogService changeLogService;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper mapper;
+  private final int chunkSize;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Initializes this instance with the specified collaborators and chunk size.
+   *
+   * @param quoteRepository repository used to check for existing quotes, and to save new ones.
+   * @param changeLogService service used to record inserted quotes.
+   * @param transactionManager manager of the per-chunk transactions.
+   * @param mapper JSON reader used for NDJSON content.
+   * @param chunkSize maximum number of quotes written in a single transaction.
+   */
+  @Autowired
+  public QuoteBatchService(QuoteRepository quoteRepository, ChangeLogService changeLogService,
+      PlatformTransactionManager transactionManager, ObjectMapper mapper,
+      @Value("${quote.batch.chunk-size:100}") int chunkSize) {
+    this.quoteRepository = quoteRepository;
+    this.changeLogService = changeLogService;
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    this.mapper = mapper;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Reads {@link Quote} objects from the specified NDJSON content, and ingests them as described
+   * for {@link #ingest(Iterator)}.
+   *
+   * @param input NDJSON content, with one quote object per line.
+   * @return outcome of each quote, in the order read.
+   * @throws IOException if the content cannot be read or parsed.
+   */
+  public List<Result> ingest(InputStream input) throws IOException {
+    try (MappingIterator<Quote> quotes = mapper.readerFor(Quote.class).readValues(input)) {
+      return ingest(quotes);
+    }
+  }
+
+  /**
+   * Ingests the specified {@link Quote} objects. Only the {@code text} of each is used; any other
+   * properties are ignored. A quote is rejected as {@link Status#INVALID} if its text is missing or
+   * blank, and as {@link Status#DUPLICATE} if its text matches (ignoring case) that of an earlier
+   * quote in the same sequence or of an existing quote.
+   *
+   * @param quotes quotes to ingest.
+   * @return outcome of each quote, in the order submitted.
+   */
+  public List<Result> ingest(Iterator<Quote> quotes) {
+    List<Result> results = new ArrayList<>();
+    Set<Quote> seen = new HashSet<>();
+    List<Result> chunk = new ArrayList<>(chunkSize);
+    for (int index = 0; quotes.hasNext(); index++) {
+      Quote submitted = quotes.next();
+      Result result = new Result(index);
+      results.add(result);
+      String text = (submitted != null) ? submitted.getText() : null;
+      if (text == null || text.trim().isEmpty()) {
+        result.status = Status.INVALID;
+      } else {
+        Quote quote = new Quote();
+        quote.setText(text);
+        if (!seen.add(quote)) {
+          result.status = Status.DUPLICATE;
+        } else {
+          result.quote = quote;
+          chunk.add(result);
+          if (chunk.size() >= chunkSize) {
+            write(chunk);
+          }
+        }
+      }
+    }
+    write(chunk);
+    return results;
+  }
+
+  private void write(List<Result> chunk) {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    Set<String> existing = quoteRepository.findExistingText(
+        chunk.stream()
+            .map((result) -> result.quote.getText())
+            .collect(Collectors.toList()))
+        .stream()
+        .map(String::toUpperCase)
+        .collect(Collectors.toSet());
+    List<Result> pending = new ArrayList<>(chunk.size());
+    for (Result result : chunk) {
+      if (existing.contains(result.quote.getText().toUpperCase())) {
+        result.status = Status.DUPLICATE;
+        result.quote = null;
+      } else {
+        pending.add(result);
+      }
+    }
+    try {
+      persist(pending);
+    } catch (DataAccessException | PersistenceException e) {
+      // Most likely a concurrent insert of the same text; fall back to one transaction per quote.
+      for (Result result : pending) {
+        Quote quote = new Quote();
+        quote.setText(result.quote.getText());
+        result.quote = quote;
+        try {
+          persist(Collections.singletonList(result));
+        } catch (DataAccessException | PersistenceException ex) {
+          result.status = Status.FAILED;
+        }
+      }
+    }
+    for (Result result : pending) {
+      if (result.status == null) {
+        result.status = Status.CREATED;
+        result.id = result.quote.getId();
+        result.href = result.quote.getHref();
+      }
+      result.quote = null;
+    }
+    chunk.clear();
+  }
+
+  private void persist(List<Result> results) {
+    transactionTemplate.execute((status) -> {
+      List<Quote> quotes =
+          results.stream().map((result) -> result.quote).collect(Collectors.toList());
+      quoteRepository.saveAll(quotes);
+      changeLogService.recordAll(quotes.stream()
+          .map((quote) -> new Change(Type.CREATE, Resource.QUOTE, quote.getId(), null))
+          .collect(Collectors.toList()), true);
+      entityManager.flush();
+      entityManager.clear();
+      return null;
+    });
+  }
+
+  /**
+   * Possible outcomes of ingesting a single quote.
+   */
+  public enum Status {
+    /** Quote was inserted. */
+    CREATED,
+    /** Quote text duplicates an earlier item or an existing quote; quote was not inserted. */
+    DUPLICATE,
+    /** Quote text is missing or blank; quote was not inserted. */
+    INVALID,
+    /** Quote could not be inserted for another reason. */
+    FAILED
+  }
+
+  /**
+   * Outcome of ingesting a single quote, identified by its (zero-based) position in the submitted
+   * sequence.
+   */
+  @JsonInclude(Include.NON_NULL)
+  public static class Result {
+
+    private final int index;
+    private Status status;
+    private UUID id;
+    private URI href;
+    private Quote quote;
+
+    private Result(int index) {
+      this.index = index;
+    }
+
+    /**
+     * Returns the position of the quote in the submitted sequence.
+     *
+     * @return zero-based index.
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    /**
+     * Returns the outcome of ingesting the quote.
+     *
+     * @return ingestion {@link Status}.
+     */
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * Returns the ID of the inserted quote, if {@link #getStatus()} is {@link Status#CREATED}.
+     *
+     * @return quote {@link UUID}, or {@code null}.
+     */
+    public UUID getId() {
+      return id;
+    }
+
+    /**
+     * Returns the URL of the inserted quote, if {@link #getStatus()} is {@link Status#CREATED}.
+     *
+     * @return quote URL, or {@code null}.
+     */
+    public URI getHref() {
+      return href;
+    }
+
+  }
+
+}
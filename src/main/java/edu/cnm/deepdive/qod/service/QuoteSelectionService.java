@@ -0,0 +1,145 @@
+package edu.cnm.deepdive.qod.service;
+
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.view.FlatQuote;
+import edu.cnm.deepdive.qod.view.QuoteSummary;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.StreamSupport;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * Selects quotes at random: either a new selection on each request, or a "quote of the day", which
+ * is retained until that quote is removed, or until the next day (according to the server). Both
+ * the servlet and reactive controllers use this service, so that they serve the same quote of the
+ * day.
+ * <p>Confirming that the quote of the day still exists consults the second-level cache (or the
+ * read model, if enabled); the database is only queried when the quote is not in the cache, or a
+ * new selection must be made. When the quote of the day is changed or removed (on this instance or
+ * a peer), {@link CacheInvalidationService} marks it as stale, and it is re-read on the next
+ * request.</p>
+ */
+@Service
+public class QuoteSelectionService {
+
+  private static final long MILLISECONDS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+  private final QuoteRepository quoteRepository;
+  private final RandomReplacementStage<QuoteSummary> stage;
+  private final Random rng;
+  private final CatalogReadModel readModel;
+  private final Cache entityCache;
+  private int daysSinceEpoch = Integer.MIN_VALUE;
+  private volatile QuoteSummary lastQod = null;
+  private volatile boolean stale;
+
+  /**
+   * Initializes this instance with the specified repository, selection stage, and source of
+   * randomness.
+   *
+   * @param quoteRepository repository from which quotes are selected.
+   * @param stage container used to select the quote of the day at random from a stream.
+   * @param rng source of randomness used to select a random quote.
+   * @param readModel in-memory copy of the catalog, used (if enabled) in place of the repository.
+   * @param entityManagerFactory source of the second-level cache, consulted to confirm that the
+   * quote of the day still exists.
+   */
+  @Autowired
+  public QuoteSelectionService(QuoteRepository quoteRepository,
+      RandomReplacementStage<QuoteSummary> stage, Random rng, CatalogReadModel readModel,
+      EntityManagerFactory entityManagerFactory) {
+    this.quoteRepository = quoteRepository;
+    this.stage = stage;
+    this.rng = rng;
+    this.readModel = readModel;
+    entityCache = entityManagerFactory.getCache();
+  }
+
+  /**
+   * Returns the quote of the day, selecting a new one if the previous selection was made on an
+   * earlier day, or has since been removed.
+   *
+   * @return quote of the day.
+   * @throws NoSuchElementException if there are no quotes.
+   */
+  public QuoteSummary getQuoteOfTheDay() {
+    int daysSinceEpoch = (int) (System.currentTimeMillis() / MILLISECONDS_PER_DAY);
+    QuoteSummary qod = lastQod;
+    if (qod != null && stale) {
+      stale = false;
+      qod = (readModel.isEnabled()
+          ? readModel.getQuoteSummary(qod.getId())
+          : quoteRepository.findSummaryById(qod.getId()))
+          .orElse(null);
+    } else if (qod != null
+        && !(readModel.isEnabled()
+            ? readModel.getQuoteSummary(qod.getId()).isPresent()
+            : entityCache.contains(Quote.class, qod.getId())
+                || quoteRepository.findById(qod.getId()).isPresent())) {
+      qod = null;
+    }
+    if (qod == null || daysSinceEpoch != this.daysSinceEpoch) {
+      Iterable<QuoteSummary> quotes = readModel.isEnabled()
+          ? readModel.findQuotes(null)
+          : quoteRepository.findAllByOrderByTextAsc();
+      qod = StreamSupport.stream(quotes.spliterator(), false)
+          .reduce((a, b) -> stage.offer(b))
+          .get();
+      this.daysSinceEpoch = daysSinceEpoch;
+    }
+    lastQod = qod;
+    return qod;
+  }
+
+  /**
+   * Marks the quote of the day as stale, if it is the specified quote, so that it is re-read (or,
+   * if it has been removed, replaced) on the next request.
+   *
+   * @param quoteId {@link UUID} of a quote that has been changed or removed.
+   */
+  public void invalidate(UUID quoteId) {
+    QuoteSummary qod = lastQod;
+    if (qod != null && qod.getId().equals(quoteId)) {
+      stale = true;
+    }
+  }
+
+  /**
+   * Marks the quote of the day as stale, regardless of its identity.
+   */
+  public void invalidateAll() {
+    stale = true;
+  }
+
+  /**
+   * Returns a quote selected at random, independently of any previous selection.
+   *
+   * @param expand flag indicating whether the sources to which the quote is attributed are
+   * included.
+   * @return random quote.
+   * @throws NoSuchElementException if there are no quotes.
+   */
+  public FlatQuote getRandomQuote(boolean expand) {
+    if (readModel.isEnabled()) {
+      return readModel.getRandomQuote(rng, expand).get();
+    }
+    long count = quoteRepository.count();
+    if (count == 0) {
+      throw new NoSuchElementException();
+    }
+    int offset = rng.nextInt((int) Math.min(count, Integer.MAX_VALUE));
+    QuoteSummary quote = quoteRepository.findAllSummaries(PageRequest.of(offset, 1)).stream()
+        .findFirst()
+        .get();
+    return expand
+        ? quoteRepository.findWithSourcesById(quote.getId()).get()
+        : quote;
+  }
+
+}
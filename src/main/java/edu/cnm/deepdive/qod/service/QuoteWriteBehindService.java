@@ -0,0 +1,386 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.model.entity.TimeOrderedUuidGenerator;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional write-behind pipeline for quote submissions. When enabled, submitted quotes are
+ * validated and checked against other pending submissions immediately, then placed in a bounded
+ * queue; a single dedicated writer thread drains the queue and commits the queued quotes in groups
+ * (via {@link QuoteBatchService}), so that many submissions share each transaction and log flush.
+ * When the queue is full, submissions are rejected immediately (rather than blocking the request
+ * thread), with a {@link RejectedExecutionException}.
+ * <p>The durability offered to clients is configurable: with {@link Durability#ACCEPTED}, a
+ * submission is acknowledged as soon as it is queued (and will be lost if the process stops
+ * abnormally before it is written); with {@link Durability#COMMITTED}, the caller waits for the
+ * group commit that includes the submission, but still shares that commit with other
+ * submissions.</p>
+ */
+@Component
+public class QuoteWriteBehindService {
+
+  private static final Log logger = LogFactory.getLog(QuoteWriteBehindService.class);
+  private static final long POLL_INTERVAL = 100;
+
+  private final QuoteBatchService batchService;
+  private final boolean enabled;
+  private final Durability durability;
+  private final int maxBatch;
+  private final long linger;
+  private final long commitTimeout;
+  private final BlockingQueue<Submission> queue;
+  private final Set<Quote> pending = ConcurrentHashMap.newKeySet();
+  private final Map<UUID, Submission> submissions;
+
+  private volatile boolean running;
+  private Thread writer;
+  private ScheduledExecutorService timer;
+
+  /**
+   * Initializes this instance with the specified {@link QuoteBatchService} and configuration
+   * values.
+   *
+   * @param batchService service used to write each group of queued quotes.
+   * @param enabled flag indicating whether write-behind mode is enabled.
+   * @param durability point at which submissions are acknowledged.
+   * @param queueCapacity maximum number of queued submissions.
+   * @param maxBatch maximum number of submissions written in a single group.
+   * @param linger maximum time (in milliseconds) the writer waits for a group to fill.
+   * @param commitTimeout maximum time (in milliseconds) a caller waits for a group commit, with
+   * {@link Durability#COMMITTED} durability.
+   * @param retained maximum number of submissions for which status is retained.
+   */
+  @Autowired
+  public QuoteWriteBehindService(QuoteBatchService batchService,
+      @Value("${quote.write-behind.enabled:false}") boolean enabled,
+      @Value("${quote.write-behind.durability:ACCEPTED}") Durability durability,
+      @Value("${quote.write-behind.queue-capacity:10000}") int queueCapacity,
+      @Value("${quote.write-behind.max-batch:100}") int maxBatch,
+      @Value("${quote.write-behind.linger-ms:5}") long linger,
+      @Value("${quote.write-behind.commit-timeout-ms:5000}") long commitTimeout,
+      @Value("${quote.write-behind.retained-submissions:10000}") int retained) {
+    this.batchService = batchService;
+    this.enabled = enabled;
+    this.durability = durability;
+    this.maxBatch = maxBatch;
+    this.linger = linger;
+    this.commitTimeout = commitTimeout;
+    queue = new ArrayBlockingQueue<>(queueCapacity);
+    submissions = Collections.synchronizedMap(new LinkedHashMap<UUID, Submission>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, Submission> eldest) {
+        return size() > retained;
+      }
+    });
+  }
+
+  /**
+   * Starts the writer thread, if write-behind mode is enabled.
+   */
+  @PostConstruct
+  public void start() {
+    if (enabled) {
+      running = true;
+      writer = new Thread(this::drain, "quote-writer");
+      writer.setDaemon(true);
+      writer.start();
+      timer = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "quote-writer-timer");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Stops the writer thread, after writing any submissions still in the queue.
+   *
+   * @throws InterruptedException if interrupted while waiting for the writer thread to stop.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (writer != null) {
+      writer.interrupt();
+      writer.join();
+    }
+    if (timer != null) {
+      timer.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns a flag indicating whether write-behind mode is enabled.
+   *
+   * @return {@code true} if submissions should be made via {@link #submit(Quote)}.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the configured point at which submissions are acknowledged.
+   *
+   * @return submission {@link Durability}.
+   */
+  public Durability getDurability() {
+    return durability;
+  }
+
+  /**
+   * Validates the specified quote, and (if valid and not a duplicate of another pending
+   * submission) queues it for writing. Only the {@code text} of the quote is used.
+   *
+   * @param submitted quote to write.
+   * @return {@link Submission} recording the status of the quote.
+   * @throws IllegalArgumentException if the text of the quote is missing or blank.
+   * @throws RejectedExecutionException if the queue is full.
+   */
+  public Submission submit(Quote submitted) {
+    String text = submitted.getText();
+    if (text == null || text.trim().isEmpty()) {
+      throw new IllegalArgumentException();
+    }
+    Quote quote = new Quote();
+    quote.setText(text);
+    Submission submission = new Submission(quote);
+    if (!pending.add(quote)) {
+      submission.complete(Status.DUPLICATE, null);
+    } else if (!queue.offer(submission)) {
+      pending.remove(quote);
+      throw new RejectedExecutionException();
+    }
+    submissions.put(submission.getId(), submission);
+    return submission;
+  }
+
+  /**
+   * Returns a {@link CompletableFuture} that completes with {@code true} when the specified
+   * submission is written (or rejected), or with {@code false} if the configured commit timeout
+   * elapses first. No thread waits for the submission in the meantime.
+   *
+   * @param submission pending {@link Submission}.
+   * @return future flag indicating whether the submission was written within the timeout.
+   */
+  public CompletableFuture<Boolean> whenWritten(Submission submission) {
+    CompletableFuture<Boolean> written = new CompletableFuture<>();
+    submission.completion.whenComplete((result, failure) -> written.complete(true));
+    if (!written.isDone()) {
+      ScheduledFuture<?> timeout = timer.schedule(
+          () -> written.complete(false), commitTimeout, TimeUnit.MILLISECONDS);
+      written.whenComplete((result, failure) -> timeout.cancel(false));
+    }
+    return written;
+  }
+
+  /**
+   * Returns the {@link Submission} with the specified ID.
+   *
+   * @param id submission {@link UUID}.
+   * @return {@link Submission}.
+   * @throws NoSuchElementException if no submission with the specified ID has been made
+   * recently.
+   */
+  public Submission get(UUID id) {
+    Submission submission = submissions.get(id);
+    if (submission == null) {
+      throw new NoSuchElementException();
+    }
+    return submission;
+  }
+
+  private void drain() {
+    List<Submission> batch = new ArrayList<>(maxBatch);
+    while (running || !queue.isEmpty()) {
+      try {
+        Submission first = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          batch.add(first);
+          long deadline = System.currentTimeMillis() + linger;
+          long remaining;
+          while (running && batch.size() < maxBatch
+              && (remaining = deadline - System.currentTimeMillis()) > 0) {
+            Submission next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+            if (next == null) {
+              break;
+            }
+            batch.add(next);
+          }
+          queue.drainTo(batch, maxBatch - batch.size());
+        }
+      } catch (InterruptedException e) {
+        running = false;
+      }
+      if (!batch.isEmpty()) {
+        commit(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void commit(List<Submission> batch) {
+    try {
+      List<QuoteBatchService.Result> results =
+          batchService.ingest(batch.stream().map((submission) -> submission.quote).iterator());
+      for (int i = 0; i < batch.size(); i++) {
+        QuoteBatchService.Result result = results.get(i);
+        Submission submission = batch.get(i);
+        switch (result.getStatus()) {
+          case CREATED:
+            submission.quoteId = result.getId();
+            submission.complete(Status.CREATED, result.getHref());
+            break;
+          case DUPLICATE:
+            submission.complete(Status.DUPLICATE, null);
+            break;
+          default:
+            submission.complete(Status.FAILED, null);
+            break;
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.error("Write-behind group commit failed", e);
+      for (Submission submission : batch) {
+        submission.complete(Status.FAILED, null);
+      }
+    } finally {
+      for (Submission submission : batch) {
+        pending.remove(submission.quote);
+      }
+    }
+  }
+
+  /**
+   * Points at which a write-behind submission may be acknowledged.
+   */
+  public enum Durability {
+    /** Submission is acknowledged when queued. */
+    ACCEPTED,
+    /** Submission is acknowledged when the group including it is committed. */
+    COMMITTED
+  }
+
+  /**
+   * Status of a write-behind submission.
+   */
+  public enum Status {
+    /** Submission is queued, but not yet written. */
+    PENDING,
+    /** Quote was inserted. */
+    CREATED,
+    /** Quote text duplicates a pending submission or an existing quote; quote was not inserted. */
+    DUPLICATE,
+    /** Quote could not be inserted for another reason. */
+    FAILED
+  }
+
+  /**
+   * Record of a single quote submitted for write-behind, and its current status.
+   */
+  @JsonInclude(Include.NON_NULL)
+  public static class Submission {
+
+    private final UUID id = TimeOrderedUuidGenerator.next();
+    private final Quote quote;
+    private final CompletableFuture<Submission> completion = new CompletableFuture<>();
+    private volatile Status status = Status.PENDING;
+    private volatile UUID quoteId;
+    private volatile URI quoteHref;
+
+    private Submission(Quote quote) {
+      this.quote = quote;
+    }
+
+    private void complete(Status status, URI quoteHref) {
+      this.quoteHref = quoteHref;
+      this.status = status;
+      completion.complete(this);
+    }
+
+    /**
+     * Returns the ID of this submission (not of the quote).
+     *
+     * @return submission {@link UUID}.
+     */
+    public UUID getId() {
+      return id;
+    }
+
+    /**
+     * Returns the submitted quote text.
+     *
+     * @return quote text.
+     */
+    public String getText() {
+      return quote.getText();
+    }
+
+    /**
+     * Returns the current status of this submission.
+     *
+     * @return submission {@link Status}.
+     */
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * Returns the ID of the inserted quote, if {@link #getStatus()} is {@link Status#CREATED}.
+     *
+     * @return quote {@link UUID}, or {@code null}.
+     */
+    public UUID getQuoteId() {
+      return quoteId;
+    }
+
+    /**
+     * Returns the URL of the inserted quote, if {@link #getStatus()} is {@link Status#CREATED}.
+     *
+     * @return quote URL, or {@code null}.
+     */
+    public URI getQuoteHref() {
+      return quoteHref;
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} that completes when this submission is written or
+     * rejected.
+     *
+     * @return submission completion.
+     */
+    @JsonIgnore
+    public CompletableFuture<Submission> getCompletion() {
+      return completion;
+    }
+
+  }
+
+}
@@ -0,0 +1,200 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+/**
+ * Limits the rate at which each client (identified by authenticated subject or by address) may
+ * make requests, using a token bucket per client and endpoint rule. Each bucket holds up to a
+ * configured burst of tokens, and is refilled continuously at a configured rate; a request is
+ * admitted if it can take a token from its bucket, and refused otherwise.
+ * <p>Endpoint rules are configured as a comma-separated list of entries of the form {@code [METHOD]
+ * pattern=rate/burst} (e.g. {@code GET /quotes/random=5/10}), where {@code pattern} is an Ant-style
+ * path pattern and {@code rate} is in requests per second; the first matching rule applies, and
+ * requests matching no rule are subject to a default rule. Buckets are held in a bounded cache,
+ * divided into stripes, each guarded by its own lock; a lock is held only while a single bucket is
+ * updated. (A bucket evicted from the cache is simply replaced by a full bucket.)</p>
+ */
+@Component
+public class RateLimiter {
+
+  private static final double NANOSECONDS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final boolean enabled;
+  private final List<Rule> rules;
+  private final Rule defaultRule;
+  private final Stripe[] stripes;
+  private final LongSupplier ticker;
+  private final PathMatcher matcher = new AntPathMatcher();
+
+  /**
+   * Initializes this instance with the specified configuration values.
+   *
+   * @param enabled flag controlling whether rate limiting is applied.
+   * @param endpoints comma-separated endpoint rules.
+   * @param defaultLimit limit (in the form {@code rate/burst}) applied to requests matching no rule.
+   * @param capacity maximum number of buckets retained.
+   * @param stripeCount number of independently locked bucket cache stripes.
+   */
+  @Autowired
+  public RateLimiter(@Value("${rate-limit.enabled:true}") boolean enabled,
+      @Value("${rate-limit.endpoints:}") String endpoints,
+      @Value("${rate-limit.default:20/40}") String defaultLimit,
+      @Value("${rate-limit.capacity:100000}") int capacity,
+      @Value("${rate-limit.stripes:16}") int stripeCount) {
+    this(enabled, endpoints, defaultLimit, capacity, stripeCount, System::nanoTime);
+  }
+
+  RateLimiter(boolean enabled, String endpoints, String defaultLimit, int capacity,
+      int stripeCount, LongSupplier ticker) {
+    this.enabled = enabled;
+    this.ticker = ticker;
+    List<Rule> rules = new ArrayList<>();
+    for (String entry : endpoints.split(",")) {
+      if (!entry.trim().isEmpty()) {
+        rules.add(Rule.parse(entry.trim(), rules.size()));
+      }
+    }
+    this.rules = Collections.unmodifiableList(rules);
+    defaultRule = Rule.parse("/**=" + defaultLimit.trim(), rules.size());
+    stripes = new Stripe[stripeCount];
+    int stripeCapacity = Math.max(1, capacity / stripeCount);
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(stripeCapacity);
+    }
+  }
+
+  /**
+   * Returns a flag indicating whether rate limiting is applied.
+   *
+   * @return {@code true} if requests are rate-limited, {@code false} otherwise.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Attempts to take a token from the bucket of the specified client, for the rule matching the
+   * specified request method and path.
+   *
+   * @param client client identity (e.g. authenticated subject or address).
+   * @param method HTTP request method.
+   * @param path request path, relative to the application context.
+   * @return {@code 0} if the request is admitted; otherwise, time (in milliseconds, at least 1)
+   * after which a token will be available.
+   */
+  public long tryAcquire(String client, String method, String path) {
+    if (!enabled) {
+      return 0;
+    }
+    Rule rule = match(method, path);
+    String key = rule.index + ":" + client;
+    Stripe stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    long now = ticker.getAsLong();
+    double deficit;
+    synchronized (stripe) {
+      Bucket bucket = stripe.buckets.get(key);
+      if (bucket == null) {
+        bucket = new Bucket(rule.burst, now);
+        stripe.buckets.put(key, bucket);
+      } else {
+        bucket.tokens = Math.min(rule.burst,
+            bucket.tokens + (now - bucket.updated) * rule.rate / NANOSECONDS_PER_SECOND);
+        bucket.updated = now;
+      }
+      if (bucket.tokens >= 1) {
+        bucket.tokens--;
+        return 0;
+      }
+      deficit = 1 - bucket.tokens;
+    }
+    return Math.max(1, (long) Math.ceil(deficit / rule.rate * 1000));
+  }
+
+  private Rule match(String method, String path) {
+    for (Rule rule : rules) {
+      if ((rule.method == null || rule.method.equalsIgnoreCase(method))
+          && matcher.match(rule.pattern, path)) {
+        return rule;
+      }
+    }
+    return defaultRule;
+  }
+
+  private static class Rule {
+
+    private final int index;
+    private final String method;
+    private final String pattern;
+    private final double rate;
+    private final double burst;
+
+    private Rule(int index, String method, String pattern, double rate, double burst) {
+      this.index = index;
+      this.method = method;
+      this.pattern = pattern;
+      this.rate = rate;
+      this.burst = burst;
+    }
+
+    private static Rule parse(String entry, int index) {
+      String[] endpointAndLimit = entry.split("=");
+      String[] methodAndPattern = endpointAndLimit[0].trim().split("\\s+");
+      String[] rateAndBurst = (endpointAndLimit.length == 2)
+          ? endpointAndLimit[1].trim().split("/")
+          : new String[0];
+      if (methodAndPattern.length > 2 || rateAndBurst.length != 2) {
+        throw new IllegalArgumentException(
+            String.format("Rate limit must be of the form [METHOD] pattern=rate/burst: %s", entry));
+      }
+      double rate = Double.parseDouble(rateAndBurst[0].trim());
+      double burst = Double.parseDouble(rateAndBurst[1].trim());
+      if (rate <= 0 || burst < 1) {
+        throw new IllegalArgumentException(
+            String.format("Rate must be positive, and burst at least 1: %s", entry));
+      }
+      return (methodAndPattern.length == 2)
+          ? new Rule(index, methodAndPattern[0], methodAndPattern[1], rate, burst)
+          : new Rule(index, null, methodAndPattern[0], rate, burst);
+    }
+
+  }
+
+  private static class Bucket {
+
+    private double tokens;
+    private long updated;
+
+    private Bucket(double tokens, long updated) {
+      this.tokens = tokens;
+      this.updated = updated;
+    }
+
+  }
+
+  private static class Stripe {
+
+    private final Map<String, Bucket> buckets;
+
+    private Stripe(int capacity) {
+      buckets = new LinkedHashMap<String, Bucket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+  }
+
+}
@@ -0,0 +1,160 @@
+package edu.cnm.deepdive.qod.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Counts the database work performed on behalf of a single HTTP request: JDBC statements prepared,
+ * queries executed (and the total time spent in them), and entities and collections loaded. An
+ * instance is attached to the request (as a request attribute) when its first database work is
+ * recorded, so that work done in any thread to which the request attributes are propagated (e.g.
+ * by {@link DatabaseExecutor}) is counted; it remains available after the response is complete,
+ * so that tests can assert on the work done by each request. Counts are recorded only when query
+ * statistics are enabled (with {@code query-statistics.enabled}).
+ */
+public class RequestQueryStatistics {
+
+  private static final String ATTRIBUTE_NAME = RequestQueryStatistics.class.getName();
+
+  private final AtomicInteger statements = new AtomicInteger();
+  private final AtomicInteger queries = new AtomicInteger();
+  private final AtomicLong queryTime = new AtomicLong();
+  private final AtomicInteger entityLoads = new AtomicInteger();
+  private final AtomicInteger entityFetches = new AtomicInteger();
+  private final AtomicInteger collectionLoads = new AtomicInteger();
+  private final AtomicInteger collectionFetches = new AtomicInteger();
+
+  /**
+   * Returns the statistics recorded for the specified request; if no database work was recorded,
+   * the returned instance has all counts equal to zero.
+   *
+   * @param request completed (or in-progress) request.
+   * @return statistics for {@code request}.
+   */
+  public static RequestQueryStatistics of(ServletRequest request) {
+    Object statistics = request.getAttribute(ATTRIBUTE_NAME);
+    return (statistics instanceof RequestQueryStatistics)
+        ? (RequestQueryStatistics) statistics
+        : new RequestQueryStatistics();
+  }
+
+  static RequestQueryStatistics current() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (!(attributes instanceof ServletRequestAttributes)) {
+      return null;
+    }
+    HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+    synchronized (request) {
+      Object statistics = request.getAttribute(ATTRIBUTE_NAME);
+      if (!(statistics instanceof RequestQueryStatistics)) {
+        statistics = new RequestQueryStatistics();
+        request.setAttribute(ATTRIBUTE_NAME, statistics);
+      }
+      return (RequestQueryStatistics) statistics;
+    }
+  }
+
+  /**
+   * Returns the number of JDBC statements prepared.
+   *
+   * @return statement count.
+   */
+  public int getStatements() {
+    return statements.get();
+  }
+
+  /**
+   * Returns the number of queries (JPQL, criteria, or native) executed.
+   *
+   * @return query count.
+   */
+  public int getQueries() {
+    return queries.get();
+  }
+
+  /**
+   * Returns the total time (in milliseconds) spent executing queries.
+   *
+   * @return query time.
+   */
+  public long getQueryTime() {
+    return queryTime.get();
+  }
+
+  /**
+   * Returns the number of entities loaded from the database (i.e. not from the second-level
+   * cache).
+   *
+   * @return entity load count.
+   */
+  public int getEntityLoads() {
+    return entityLoads.get();
+  }
+
+  /**
+   * Returns the number of entities fetched individually (e.g. by lazy initialization), with a
+   * statement of their own.
+   *
+   * @return entity fetch count.
+   */
+  public int getEntityFetches() {
+    return entityFetches.get();
+  }
+
+  /**
+   * Returns the number of collections loaded from the database.
+   *
+   * @return collection load count.
+   */
+  public int getCollectionLoads() {
+    return collectionLoads.get();
+  }
+
+  /**
+   * Returns the number of collections fetched individually (e.g. by lazy initialization), with a
+   * statement of their own.
+   *
+   * @return collection fetch count.
+   */
+  public int getCollectionFetches() {
+    return collectionFetches.get();
+  }
+
+  void statementPrepared() {
+    statements.incrementAndGet();
+  }
+
+  void queryExecuted(long time) {
+    queries.incrementAndGet();
+    queryTime.addAndGet(time);
+  }
+
+  void entityLoaded() {
+    entityLoads.incrementAndGet();
+  }
+
+  void entityFetched() {
+    entityFetches.incrementAndGet();
+  }
+
+  void collectionLoaded() {
+    collectionLoads.incrementAndGet();
+  }
+
+  void collectionFetched() {
+    collectionFetches.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d statements, %d queries (%d ms), %d entity loads (%d fetches), "
+            + "%d collection loads (%d fetches)", getStatements(), getQueries(), getQueryTime(),
+        getEntityLoads(), getEntityFetches(), getCollectionLoads(), getCollectionFetches());
+  }
+
+}
@@ -0,0 +1,38 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Supplies Hibernate's JCache region factory with a {@link CacheManager} of its own. Hibernate
+ * closes the cache manager when the persistence unit is closed; by default, it obtains the
+ * provider-wide default cache manager, which would be shared by (and closed out from under) every
+ * persistence unit in the JVM&mdash;e.g. the several application contexts of a test run. Cache
+ * sizes are configured in {@code application.conf}, in the form read by the Caffeine JCache
+ * provider.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheCustomizer implements HibernatePropertiesCustomizer {
+
+  private static final String CACHE_MANAGER_PROPERTY = "hibernate.javax.cache.cache_manager";
+  private static final String CACHE_MANAGER_URI_FORMAT = "qod:second-level-cache:%s";
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    CacheManager cacheManager = Caching
+        .getCachingProvider(CaffeineCachingProvider.class.getName())
+        .getCacheManager(URI.create(String.format(CACHE_MANAGER_URI_FORMAT, UUID.randomUUID())),
+            getClass().getClassLoader());
+    hibernateProperties.put(CACHE_MANAGER_PROPERTY, cacheManager);
+  }
+
+}
@@ -0,0 +1,433 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog;
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog.Row;
+import edu.cnm.deepdive.qod.model.entity.Change;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes and reads complete snapshots of the quote catalog&mdash;sources, quotes, and the
+ * attributions between them&mdash;as newline-delimited JSON (NDJSON). The first line of a snapshot
+ * is a header identifying the format and version; each subsequent line is a single record, with
+ * all source records preceding all quote records, and all quote records preceding all attribution
+ * records, so that a snapshot can be loaded in a single pass without violating foreign key
+ * constraints.
+ * <p>Both directions bypass the persistence context entirely: export streams rows straight from
+ * JDBC result sets to the output, and import inserts rows (retaining their original IDs,
+ * timestamps, and versions) with JDBC batch statements. Since Hibernate is unaware of imported
+ * rows, the second-level and query caches are cleared when an import commits. When the {@link
+ * InMemoryCatalog} is in use, export reads from it, and import adds all records to it
+ * atomically.</p>
+ * <p>Every imported record is also recorded in the change log (as the creation of a source or
+ * quote, or the attachment of a source to a quote), in the import transaction, so that clients
+ * synchronizing via the change log receive the imported data. Change log listeners are not
+ * notified of these changes, since the caller is expected to rebuild derived state after an
+ * import.</p>
+ */
+@Component
+public class SnapshotService {
+
+  /** Media type of newline-delimited JSON (NDJSON) content, including snapshots. */
+  public static final String MEDIA_TYPE = "application/x-ndjson";
+  /** Value of the {@code format} property of a snapshot header. */
+  public static final String FORMAT = "qod-snapshot";
+  /** Current (and only supported) snapshot format version. */
+  public static final int VERSION = 2;
+
+  private static final String TYPE_SOURCE = "source";
+  private static final String TYPE_QUOTE = "quote";
+  private static final String TYPE_ATTRIBUTION = "attribution";
+
+  private static final String SELECT_SOURCES =
+      "SELECT source_id, created, name, version FROM source ORDER BY source_id";
+  private static final String SELECT_QUOTES =
+      "SELECT quote_id, created, text, version FROM quote ORDER BY quote_id";
+  private static final String SELECT_ATTRIBUTIONS =
+      "SELECT quote_id, source_id FROM quote_sources ORDER BY quote_id, source_id";
+  private static final String INSERT_SOURCE =
+      "INSERT INTO source (source_id, created, name, version) VALUES (?, ?, ?, ?)";
+  private static final String INSERT_QUOTE =
+      "INSERT INTO quote (quote_id, created, text, version) VALUES (?, ?, ?, ?)";
+  private static final String INSERT_ATTRIBUTION =
+      "INSERT INTO quote_sources (quote_id, source_id) VALUES (?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManagerFactory entityManagerFactory;
+  private final InMemoryCatalog catalog;
+  private final ChangeLogService changeLogService;
+  private final ObjectMapper mapper;
+  private final int batchSize;
+
+  /**
+   * Initializes this instance with the specified {@link DataSource}, {@link
+   * EntityManagerFactory}, {@link InMemoryCatalog} (if any), {@link ChangeLogService}, {@link
+   * ObjectMapper}, and import batch size.
+   *
+   * @param dataSource connection source for export queries and import statements.
+   * @param entityManagerFactory persistence unit whose caches are cleared after an import.
+   * @param catalog provider of the in-memory catalog, used in place of the database if present.
+   * @param changeLogService service used to record imported records.
+   * @param mapper JSON reader &amp; writer factory.
+   * @param batchSize maximum number of rows inserted in a single JDBC batch on import.
+   * @param fetchSize JDBC fetch size hint used when streaming rows on export.
+   */
+  @Autowired
+  public SnapshotService(DataSource dataSource, EntityManagerFactory entityManagerFactory,
+      ObjectProvider<InMemoryCatalog> catalog, ChangeLogService changeLogService,
+      ObjectMapper mapper,
+      @Value("${snapshot.batch-size:500}") int batchSize,
+      @Value("${snapshot.fetch-size:500}") int fetchSize) {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.setFetchSize(fetchSize);
+    this.entityManagerFactory = entityManagerFactory;
+    this.catalog = catalog.getIfAvailable();
+    this.changeLogService = changeLogService;
+    this.mapper = mapper;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Writes a complete snapshot of the catalog to the specified {@link OutputStream}, in a single
+   * pass over each table. The export is performed in a serializable, read-only transaction, so that
+   * every attribution written refers to a source and quote also written.
+   *
+   * @param output destination of snapshot content; this is not closed by this method.
+   * @return numbers of records written.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  @Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+  public Totals export(OutputStream output) throws IOException {
+    Totals totals = new Totals();
+    try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.setRootValueSeparator(new SerializedString("\n"));
+      generator.writeStartObject();
+      generator.writeStringField("format", FORMAT);
+      generator.writeNumberField("version", VERSION);
+      generator.writeEndObject();
+      if (catalog != null) {
+        catalog.export(
+            (row) -> {
+              writeEntity(generator, TYPE_SOURCE, row.getId(), row.getCreated(), "name",
+                  row.getValue(), row.getVersion());
+              totals.sources++;
+            },
+            (row) -> {
+              writeEntity(generator, TYPE_QUOTE, row.getId(), row.getCreated(), "text",
+                  row.getValue(), row.getVersion());
+              totals.quotes++;
+            },
+            (quoteId, sourceId) -> {
+              writeAttribution(generator, quoteId, sourceId);
+              totals.attributions++;
+            });
+      } else {
+        jdbcTemplate.query(SELECT_SOURCES, (rs) -> {
+          writeEntity(generator, TYPE_SOURCE, toUuid(rs.getBytes(1)),
+              rs.getTimestamp(2).getTime(), "name", rs.getString(3), rs.getLong(4));
+          totals.sources++;
+        });
+        jdbcTemplate.query(SELECT_QUOTES, (rs) -> {
+          writeEntity(generator, TYPE_QUOTE, toUuid(rs.getBytes(1)),
+              rs.getTimestamp(2).getTime(), "text", rs.getString(3), rs.getLong(4));
+          totals.quotes++;
+        });
+        jdbcTemplate.query(SELECT_ATTRIBUTIONS, (rs) -> {
+          writeAttribution(generator, toUuid(rs.getBytes(1)), toUuid(rs.getBytes(2)));
+          totals.attributions++;
+        });
+      }
+      generator.writeRaw('\n');
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return totals;
+  }
+
+  /**
+   * Reads a snapshot from the specified {@link InputStream}, inserting all of its records in
+   * batches, within a single transaction. Records retain the IDs, creation timestamps, and versions
+   * recorded in the snapshot (so that entity tags obtained before an export remain valid after the
+   * snapshot is imported); if any of these conflict with existing data, the entire import is rolled
+   * back. The changes recorded for the imported records are written in the same transaction.
+   *
+   * @param input source of snapshot content.
+   * @return numbers of records read &amp; inserted.
+   * @throws IOException if the snapshot cannot be read.
+   * @throws IllegalArgumentException if the snapshot header is missing, or specifies an
+   * unsupported format or version, or if a record is of an unrecognized type.
+   */
+  @Transactional
+  public Totals load(InputStream input) throws IOException {
+    Loader loader = (catalog != null) ? new CatalogLoader() : new JdbcLoader();
+    Totals totals = new Totals();
+    List<Change> changes = new ArrayList<>(batchSize);
+    try (MappingIterator<JsonNode> records = mapper.readerFor(JsonNode.class).readValues(input)) {
+      if (!records.hasNext()) {
+        throw new IllegalArgumentException("Empty snapshot");
+      }
+      JsonNode header = records.next();
+      if (!FORMAT.equals(header.path("format").asText())
+          || header.path("version").asInt() != VERSION) {
+        throw new IllegalArgumentException("Unsupported snapshot format or version");
+      }
+      while (records.hasNext()) {
+        JsonNode record = records.next();
+        String type = record.path("type").asText();
+        switch (type) {
+          case TYPE_SOURCE: {
+            Row row = entityRow(record, "name");
+            loader.addSource(row);
+            changes.add(new Change(Type.CREATE, Resource.SOURCE, row.getId(), null));
+            totals.sources++;
+            break;
+          }
+          case TYPE_QUOTE: {
+            Row row = entityRow(record, "text");
+            loader.addQuote(row);
+            changes.add(new Change(Type.CREATE, Resource.QUOTE, row.getId(), null));
+            totals.quotes++;
+            break;
+          }
+          case TYPE_ATTRIBUTION: {
+            UUID quoteId = UUID.fromString(record.path("quote").asText());
+            UUID sourceId = UUID.fromString(record.path("source").asText());
+            loader.addAttribution(quoteId, sourceId);
+            changes.add(new Change(Type.ATTACH, Resource.QUOTE, quoteId, sourceId));
+            totals.attributions++;
+            break;
+          }
+          default:
+            throw new IllegalArgumentException("Unrecognized record type: " + type);
+        }
+        if (changes.size() >= batchSize) {
+          changeLogService.recordAll(changes, false);
+          changes.clear();
+        }
+      }
+      loader.finish();
+      changeLogService.recordAll(changes, false);
+    }
+    return totals;
+  }
+
+  private void writeEntity(JsonGenerator generator, String type, UUID id, long created,
+      String field, String value, long version) {
+    try {
+      generator.writeStartObject();
+      generator.writeStringField("type", type);
+      generator.writeStringField("id", id.toString());
+      generator.writeNumberField("created", created);
+      generator.writeStringField(field, value);
+      generator.writeNumberField("version", version);
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeAttribution(JsonGenerator generator, UUID quoteId, UUID sourceId) {
+    try {
+      generator.writeStartObject();
+      generator.writeStringField("type", TYPE_ATTRIBUTION);
+      generator.writeStringField("quote", quoteId.toString());
+      generator.writeStringField("source", sourceId.toString());
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Row entityRow(JsonNode record, String field) {
+    return new Row(UUID.fromString(record.path("id").asText()), record.path("created").asLong(),
+        record.path(field).asText(), record.path("version").asLong());
+  }
+
+  private interface Loader {
+
+    void addSource(Row row);
+
+    void addQuote(Row row);
+
+    void addAttribution(UUID quoteId, UUID sourceId);
+
+    void finish();
+
+  }
+
+  private class JdbcLoader implements Loader {
+
+    private final List<Object[]> batch = new ArrayList<>(batchSize);
+    private String batchSql;
+
+    JdbcLoader() {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+            }
+          });
+    }
+
+    @Override
+    public void addSource(Row row) {
+      add(INSERT_SOURCE, entityParameters(row));
+    }
+
+    @Override
+    public void addQuote(Row row) {
+      add(INSERT_QUOTE, entityParameters(row));
+    }
+
+    @Override
+    public void addAttribution(UUID quoteId, UUID sourceId) {
+      add(INSERT_ATTRIBUTION, new Object[]{toBytes(quoteId), toBytes(sourceId)});
+    }
+
+    @Override
+    public void finish() {
+      if (!batch.isEmpty()) {
+        jdbcTemplate.batchUpdate(batchSql, batch);
+        batch.clear();
+      }
+    }
+
+    private void add(String sql, Object[] parameters) {
+      if (!sql.equals(batchSql)) {
+        finish();
+        batchSql = sql;
+      }
+      batch.add(parameters);
+      if (batch.size() >= batchSize) {
+        finish();
+      }
+    }
+
+    private Object[] entityParameters(Row row) {
+      return new Object[]{toBytes(row.getId()), new Timestamp(row.getCreated()), row.getValue(),
+          row.getVersion()};
+    }
+
+  }
+
+  private class CatalogLoader implements Loader {
+
+    private final List<Row> sourceRows = new ArrayList<>();
+    private final List<Row> quoteRows = new ArrayList<>();
+    private final List<UUID[]> attributions = new ArrayList<>();
+
+    @Override
+    public void addSource(Row row) {
+      sourceRows.add(row);
+    }
+
+    @Override
+    public void addQuote(Row row) {
+      quoteRows.add(row);
+    }
+
+    @Override
+    public void addAttribution(UUID quoteId, UUID sourceId) {
+      attributions.add(new UUID[]{quoteId, sourceId});
+    }
+
+    @Override
+    public void finish() {
+      catalog.load(sourceRows, quoteRows, attributions);
+    }
+
+  }
+
+  /**
+   * Converts a {@link UUID} to the 16-byte big-endian form used for primary and foreign key
+   * columns.
+   *
+   * @param id {@link UUID} to convert.
+   * @return binary representation of {@code id}.
+   */
+  public static byte[] toBytes(UUID id) {
+    return ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+  }
+
+  /**
+   * Converts the 16-byte big-endian form used for primary and foreign key columns to a {@link
+   * UUID}.
+   *
+   * @param bytes binary representation of a {@link UUID}.
+   * @return {@link UUID} value.
+   */
+  public static UUID toUuid(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  /**
+   * Numbers of source, quote, and attribution records written to or read from a snapshot.
+   */
+  public static class Totals {
+
+    private long sources;
+    private long quotes;
+    private long attributions;
+
+    /**
+     * Returns the number of source records.
+     *
+     * @return source record count.
+     */
+    public long getSources() {
+      return sources;
+    }
+
+    /**
+     * Returns the number of quote records.
+     *
+     * @return quote record count.
+     */
+    public long getQuotes() {
+      return quotes;
+    }
+
+    /**
+     * Returns the number of attribution (quote-source association) records.
+     *
+     * @return attribution record count.
+     */
+    public long getAttributions() {
+      return attributions;
+    }
+
+  }
+
+}
@@ -0,0 +1,237 @@
+package edu.cnm.deepdive.qod.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Change.Resource;
+import edu.cnm.deepdive.qod.model.entity.Change.Type;
+import edu.cnm.deepdive.qod.model.entity.TimeOrderedUuidGenerator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes sources with set-based statements, without loading either the source or any of the
+ * quotes attributed to it. Synchronous deletion removes all of the source's join-table rows with a
+ * single statement, then the source row, in one transaction. Asynchronous deletion (intended for
+ * sources with very many quotes) removes the join-table rows in chunks, each in its own short
+ * transaction, so that locks are held only briefly and row locks are not escalated to a table
+ * lock; the source row itself is removed last. In either case, the deletion is recorded in the
+ * change log when the source row is removed. The progress and outcome of each asynchronous
+ * deletion are recorded in a {@link Deletion}, retained (for a configurable number of the most
+ * recent deletions) so that clients can poll for them.
+ */
+@Component
+public class SourceDeletionService {
+
+  private static final Log logger = LogFactory.getLog(SourceDeletionService.class);
+
+  private final QuoteRepository quoteRepository;
+  private final SourceRepository sourceRepository;
+  private final ChangeLogService changeLogService;
+  private final TaskExecutor executor;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+  private final Map<UUID, Deletion> deletions;
+
+  /**
+   * Initializes this instance with the specified repositories, executor, and chunk size.
+   *
+   * @param quoteRepository repository used to remove associations in chunks.
+   * @param sourceRepository repository used to remove associations and sources.
+   * @param changeLogService service used to record deletions.
+   * @param executor executor on which asynchronous deletions are performed.
+   * @param transactionManager manager of the final transaction of an asynchronous deletion.
+   * @param chunkSize maximum number of associations removed per transaction, in asynchronous
+   * deletion.
+   * @param retained maximum number of asynchronous deletions for which status is retained.
+   */
+  @Autowired
+  public SourceDeletionService(QuoteRepository quoteRepository, SourceRepository sourceRepository,
+      ChangeLogService changeLogService, TaskExecutor executor,
+      PlatformTransactionManager transactionManager,
+      @Value("${attribution.chunk-size:500}") int chunkSize,
+      @Value("${source.deletion.retained-deletions:1000}") int retained) {
+    this.quoteRepository = quoteRepository;
+    this.sourceRepository = sourceRepository;
+    this.changeLogService = changeLogService;
+    this.executor = executor;
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    this.chunkSize = chunkSize;
+    deletions = Collections.synchronizedMap(new LinkedHashMap<UUID, Deletion>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, Deletion> eldest) {
+        return size() > retained;
+      }
+    });
+  }
+
+  /**
+   * Deletes the specified source, and all of its associations with quotes, in a single
+   * transaction.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @param expectedVersion required current version of the source, or {@code null} if any version
+   * is acceptable.
+   * @throws NoSuchElementException if the source does not exist.
+   * @throws OptimisticLockingFailureException if the current version of the source does not match
+   * {@code expectedVersion}.
+   */
+  @Transactional
+  public void delete(UUID sourceId, Long expectedVersion) {
+    if (expectedVersion != null) {
+      sourceRepository.touch(sourceId, expectedVersion);
+    }
+    deleteDirectly(sourceId);
+  }
+
+  /**
+   * Verifies that the specified source exists (and, if {@code expectedVersion} is specified, that
+   * it has the expected version), then schedules its deletion for asynchronous execution, as
+   * described above. The version check is made only when scheduling; the source is deleted even if
+   * it is modified before the deletion is performed.
+   *
+   * @param sourceId {@link UUID} of source.
+   * @param expectedVersion required current version of the source, or {@code null} if any version
+   * is acceptable.
+   * @return {@link Deletion} recording the progress and outcome of the deletion.
+   * @throws NoSuchElementException if the source does not exist.
+   * @throws OptimisticLockingFailureException if the current version of the source does not match
+   * {@code expectedVersion}.
+   */
+  public Deletion deleteAsync(UUID sourceId, Long expectedVersion) {
+    if (expectedVersion != null) {
+      sourceRepository.touch(sourceId, expectedVersion);
+    } else if (!sourceRepository.existsById(sourceId)) {
+      throw new NoSuchElementException();
+    }
+    Deletion deletion = new Deletion(sourceId);
+    deletions.put(deletion.getId(), deletion);
+    executor.execute(() -> {
+      try {
+        List<UUID> quoteIds = quoteRepository.findIdsBySourceId(sourceId);
+        for (int start = 0; start < quoteIds.size(); start += chunkSize) {
+          deletion.detached += quoteRepository.detachQuotes(
+              sourceId, quoteIds.subList(start, Math.min(start + chunkSize, quoteIds.size())));
+        }
+        transactionTemplate.execute((status) -> {
+          deleteDirectly(sourceId);
+          return null;
+        });
+        deletion.status = Status.DELETED;
+      } catch (RuntimeException e) {
+        logger.error(String.format("Asynchronous deletion of source %s failed", sourceId), e);
+        deletion.status = Status.FAILED;
+      }
+    });
+    return deletion;
+  }
+
+  /**
+   * Returns the {@link Deletion} with the specified ID.
+   *
+   * @param id deletion {@link UUID}.
+   * @return {@link Deletion}.
+   * @throws NoSuchElementException if no asynchronous deletion with the specified ID has been
+   * scheduled recently.
+   */
+  public Deletion get(UUID id) {
+    Deletion deletion = deletions.get(id);
+    if (deletion == null) {
+      throw new NoSuchElementException();
+    }
+    return deletion;
+  }
+
+  private void deleteDirectly(UUID sourceId) {
+    sourceRepository.detachAllQuotes(sourceId);
+    if (sourceRepository.deleteDirectlyById(sourceId) == 0) {
+      throw new NoSuchElementException();
+    }
+    changeLogService.record(Type.DELETE, Resource.SOURCE, sourceId);
+  }
+
+  /**
+   * Status of an asynchronous source deletion.
+   */
+  public enum Status {
+    /** Deletion is scheduled or in progress. */
+    PENDING,
+    /** Source and all of its associations with quotes were removed. */
+    DELETED,
+    /**
+     * Deletion failed (e.g. because the source was already deleted); some associations may have
+     * been removed, but the source was not.
+     */
+    FAILED
+  }
+
+  /**
+   * Record of a single asynchronous source deletion, and its current status.
+   */
+  @JsonInclude(Include.NON_NULL)
+  public static class Deletion {
+
+    private final UUID id = TimeOrderedUuidGenerator.next();
+    private final UUID sourceId;
+    private volatile Status status = Status.PENDING;
+    private volatile int detached;
+
+    private Deletion(UUID sourceId) {
+      this.sourceId = sourceId;
+    }
+
+    /**
+     * Returns the ID of this deletion (not of the source).
+     *
+     * @return deletion {@link UUID}.
+     */
+    public UUID getId() {
+      return id;
+    }
+
+    /**
+     * Returns the ID of the source being deleted.
+     *
+     * @return source {@link UUID}.
+     */
+    public UUID getSourceId() {
+      return sourceId;
+    }
+
+    /**
+     * Returns the current status of this deletion.
+     *
+     * @return deletion {@link Status}.
+     */
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * Returns the number of associations with quotes removed so far, in chunks, before the source
+     * row itself.
+     *
+     * @return number of associations removed.
+     */
+    public int getDetached() {
+      return detached;
+    }
+
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.view;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable, unmanaged representation of a quote together with the (flat) sources to which it is
+ * attributed, serialized in the same form as the {@link edu.cnm.deepdive.qod.model.entity.Quote}
+ * entity with its sources loaded. Instances are constructed from the in-memory read model, rather
+ * than from query results.
+ */
+public class ExpandedQuote extends QuoteSummary {
+
+  private final long version;
+  private final List<SourceSummary> sources;
+
+  /**
+   * Initializes this instance with the specified property values.
+   *
+   * @param id quote {@link UUID}.
+   * @param created quote creation timestamp.
+   * @param text quote text.
+   * @param version quote version.
+   * @param sources sources to which the quote is attributed, in order by name.
+   */
+  public ExpandedQuote(UUID id, Date created, String text, long version,
+      List<SourceSummary> sources) {
+    super(id, created, text);
+    this.version = version;
+    this.sources = sources;
+  }
+
+  /**
+   * Returns the version of the quote, from which its entity tag is derived.
+   *
+   * @return quote version.
+   */
+  @JsonIgnore
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the sources to which the quote is attributed, in order by name.
+   *
+   * @return {@link List} of {@link SourceSummary} instances.
+   */
+  public List<SourceSummary> getSources() {
+    return sources;
+  }
+
+}
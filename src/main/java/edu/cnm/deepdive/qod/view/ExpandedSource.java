@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.view;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable, unmanaged representation of a source together with the (flat) quotes attributed to
+ * it, serialized in the same form as the {@link edu.cnm.deepdive.qod.model.entity.Source} entity
+ * with its quotes loaded. Instances are constructed from the in-memory read model, rather than from
+ * query results.
+ */
+public class ExpandedSource extends SourceSummary {
+
+  private final long version;
+  private final List<QuoteSummary> quotes;
+
+  /**
+   * Initializes this instance with the specified property values.
+   *
+   * @param id source {@link UUID}.
+   * @param created source creation timestamp.
+   * @param name source name.
+   * @param version source version.
+   * @param quotes quotes attributed to the source, in order by text.
+   */
+  public ExpandedSource(UUID id, Date created, String name, long version,
+      List<QuoteSummary> quotes) {
+    super(id, created, name);
+    this.version = version;
+    this.quotes = quotes;
+  }
+
+  /**
+   * Returns the version of the source, from which its entity tag is derived.
+   *
+   * @return source version.
+   */
+  @JsonIgnore
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the quotes attributed to the source, in order by text.
+   *
+   * @return {@link List} of {@link QuoteSummary} instances.
+   */
+  public List<QuoteSummary> getQuotes() {
+    return quotes;
+  }
+
+}
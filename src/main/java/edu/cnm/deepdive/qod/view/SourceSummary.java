@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2019 Nicholas Bennett & Deep Dive Coding
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.qod.view;
+
+import edu.cnm.deepdive.qod.model.entity.Source;
+import java.net.URI;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Immutable, unmanaged implementation of {@link FlatSource}, constructed directly from query results
+ * (via a JPQL constructor expression) by read-only repository methods. Since instances are never
+ * attached to a persistence context, no snapshot or proxy overhead is incurred in producing them.
+ */
+public class SourceSummary implements FlatSource {
+
+  private final UUID id;
+  private final Date created;
+  private final String name;
+
+  /**
+   * Initializes this instance with the specified property values.
+   *
+   * @param id source {@link UUID}.
+   * @param created source creation timestamp.
+   * @param name source name.
+   */
+  public SourceSummary(UUID id, Date created, String name) {
+    this.id = id;
+    this.created = created;
+    this.name = name;
+  }
+
+  @Override
+  public UUID getId() {
+    return id;
+  }
+
+  @Override
+  public Date getCreated() {
+    return created;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public URI getHref() {
+    return Source.hrefFor(id);
+  }
+
+}
@@ -0,0 +1,152 @@
+package edu.cnm.deepdive.qod;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures time-to-first-request&mdash;from launching a JVM running the application, until the
+ * first response to a request for the list of quotes is received&mdash;with the default
+ * configuration and with the {@code fast-start} profile, against the same (already created)
+ * database. Each configuration is launched several times, and the median of each is reported.
+ * <p>The application is launched with its runtime classpath only&mdash;as written to {@code
+ * target/classpath.txt} by the {@code fast-start} Maven profile, or otherwise the classpath of this
+ * test without the test classes and resources&mdash;so that it runs with the shipped {@code
+ * application.properties}, not the test configuration.</p>
+ */
+class StartupBenchmarkIT {
+
+  private static final int ITERATIONS = Integer.getInteger("startup-benchmark.iterations", 3);
+  private static final long TIMEOUT_MS = 120_000;
+  private static final long POLL_INTERVAL_MS = 10;
+  private static final String FIRST_REQUEST_PATH = "/rest/qod/quotes/";
+  private static final Path BUILD_DIRECTORY = Paths.get("target").toAbsolutePath();
+  private static final Path CLASSPATH_FILE = BUILD_DIRECTORY.resolve("classpath.txt");
+  private static final Path TEST_CLASSES = BUILD_DIRECTORY.resolve("test-classes");
+  private static final Path KEY_SET = TEST_CLASSES.resolve("jwks.json");
+
+  private static Path workingDirectory;
+  private static String classpath;
+
+  @BeforeAll
+  static void createSchema() throws Exception {
+    workingDirectory = Files.createTempDirectory(BUILD_DIRECTORY, "startup-benchmark");
+    classpath = runtimeClasspath();
+    Process process = launch(freePort(), "default",
+        "--spring.jpa.hibernate.ddl-auto=update", "--fast-start.exit-on-ready=true");
+    if (!process.waitFor(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+      process.destroyForcibly();
+      fail("Schema creation run did not exit");
+    }
+    assertEquals(0, process.exitValue());
+  }
+
+  @Test
+  void timeToFirstRequest() throws Exception {
+    long baseline = median("default");
+    long fastStart = median("fast-start");
+    System.out.printf("Time to first request (median of %d): default = %,d ms; "
+        + "fast-start = %,d ms%n", ITERATIONS, baseline, fastStart);
+  }
+
+  private long median(String profile) throws Exception {
+    List<Long> times = new ArrayList<>();
+    for (int i = 0; i < ITERATIONS; i++) {
+      times.add(timeToFirstRequest(profile));
+    }
+    Collections.sort(times);
+    return times.get(times.size() / 2);
+  }
+
+  private long timeToFirstRequest(String profile) throws Exception {
+    int port = freePort();
+    long start = System.nanoTime();
+    Process process = launch(port, profile);
+    try {
+      URL url = new URL("http", "localhost", port, FIRST_REQUEST_PATH);
+      long deadline = start + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+      while (System.nanoTime() < deadline) {
+        if (!process.isAlive()) {
+          fail(String.format("Application (%s) exited with status %d before responding",
+              profile, process.exitValue()));
+        }
+        try {
+          HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+          int status = connection.getResponseCode();
+          long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+          connection.disconnect();
+          assertEquals(HttpURLConnection.HTTP_OK, status);
+          return elapsed;
+        } catch (IOException e) {
+          Thread.sleep(POLL_INTERVAL_MS); // Not listening yet.
+        }
+      }
+      return fail(
+          String.format("Application (%s) did not respond within %,d ms", profile, TIMEOUT_MS));
+    } finally {
+      process.destroy();
+      if (!process.waitFor(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        process.destroyForcibly();
+      }
+    }
+  }
+
+  private static Process launch(int port, String profile, String... extraArgs)
+      throws IOException {
+    List<String> command = new ArrayList<>(Arrays.asList(
+        Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+        "-cp", classpath,
+        QodApplication.class.getName(),
+        "--spring.profiles.active=" + profile,
+        "--server.port=" + port,
+        "--spring.datasource.url=jdbc:derby:" + workingDirectory.resolve("qod_db").toAbsolutePath()
+            + ";create=true;collation=TERRITORY_BASED:PRIMARY",
+        "--oauth.key-set.location=" + KEY_SET.toUri()
+    ));
+    command.addAll(Arrays.asList(extraArgs));
+    return new ProcessBuilder(command)
+        .redirectErrorStream(true)
+        .redirectOutput(new File(workingDirectory.toFile(), profile + ".log"))
+        .start();
+  }
+
+  private static String runtimeClasspath() throws IOException {
+    List<String> entries = new ArrayList<>();
+    if (Files.exists(CLASSPATH_FILE)) {
+      String content = new String(Files.readAllBytes(CLASSPATH_FILE), StandardCharsets.UTF_8);
+      for (String entry : content.trim().split(File.pathSeparator)) {
+        entries.add(BUILD_DIRECTORY.resolve(entry).toString());
+      }
+    } else {
+      for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+        if (!Paths.get(entry).toAbsolutePath().equals(TEST_CLASSES)) {
+          entries.add(entry);
+        }
+      }
+    }
+    return String.join(File.pathSeparator, entries);
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+}
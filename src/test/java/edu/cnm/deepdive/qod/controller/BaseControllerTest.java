@@ -5,17 +5,27 @@ import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.docu
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessRequest;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.preprocessResponse;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 
 import capital.scalable.restdocs.AutoDocumentation;
 import capital.scalable.restdocs.jackson.JacksonResultHandlers;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.service.RequestQueryStatistics;
 import java.util.Base64;
 import java.util.Random;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
+import org.springframework.http.MediaType;
 import org.springframework.restdocs.RestDocumentationContextProvider;
 import org.springframework.restdocs.http.HttpDocumentation;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
@@ -71,6 +81,23 @@ public class BaseControllerTest {
     return mockMvc;
   }
 
+  /**
+   * Performs the specified request and, if the controller method completes it asynchronously,
+   * waits for the result and performs the asynchronous dispatch.
+   */
+  protected ResultActions perform(RequestBuilder request) throws Exception {
+    return perform(mockMvc, request);
+  }
+
+  protected static ResultActions perform(MockMvc mockMvc, RequestBuilder request)
+      throws Exception {
+    ResultActions actions = mockMvc.perform(request);
+    MvcResult result = actions.andReturn();
+    return result.getRequest().isAsyncStarted()
+        ? mockMvc.perform(asyncDispatch(result))
+        : actions;
+  }
+
   protected ObjectMapper getMapper() {
     return mapper;
   }
@@ -79,6 +106,51 @@ public class BaseControllerTest {
     return context;
   }
 
+  protected Statistics getStatistics() {
+    return context.getBean(EntityManagerFactory.class)
+        .unwrap(SessionFactory.class)
+        .getStatistics();
+  }
+
+  /**
+   * Returns the database work recorded for the request performed by the specified actions (if
+   * query statistics are enabled).
+   */
+  protected RequestQueryStatistics getQueryStatistics(ResultActions actions) {
+    return RequestQueryStatistics.of(actions.andReturn().getRequest());
+  }
+
+  /**
+   * Returns the {@code id} property of the JSON object in the response to the request performed by
+   * the specified actions.
+   */
+  protected String idOf(ResultActions actions) throws Exception {
+    return mapper
+        .readTree(actions.andReturn().getResponse().getContentAsString())
+        .path("id")
+        .asText();
+  }
+
+  protected ResultActions addQuote(String text) throws Exception {
+    return perform(
+        post("/quotes")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(String.format("{\"text\": \"%s\"}", text))
+    );
+  }
+
+  protected ResultActions addSource(String name) throws Exception {
+    return perform(
+        post("/sources")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(String.format("{\"name\": \"%s\"}", name))
+    );
+  }
+
   protected RequestPostProcessor oauthTokenRequired() {
     return (request) -> {
       byte[] bytes = new byte[48];
@@ -0,0 +1,125 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.delete;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.service.ChangeLogService;
+import java.util.Date;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+class ChangeControllerTest extends BaseControllerTest {
+
+  private final ChangeLogService changeLogService;
+
+  @Autowired
+  ChangeControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng,
+      ChangeLogService changeLogService) {
+    super(mapper, context, rng);
+    this.changeLogService = changeLogService;
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void listChanges() throws Exception {
+    String sourceId = idOf(addSource("George Box"));
+    String quoteId = idOf(addQuote("All models are wrong, but some are useful."));
+    perform(put("/quotes/{quoteId}/sources/{sourceId}", quoteId, sourceId)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    perform(put("/quotes/{quoteId}", quoteId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(oauthTokenRequired())
+        .content("{\"text\": \"All models are wrong; some are useful.\"}"))
+        .andExpect(status().isOk());
+    perform(delete("/quotes/{quoteId}", quoteId)
+        .with(oauthTokenRequired()))
+        .andExpect(status().is2xxSuccessful());
+    String body = perform(get("/changes").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(5)))
+        .andExpect(jsonPath("$[0].type").value("CREATE"))
+        .andExpect(jsonPath("$[0].resource").value("SOURCE"))
+        .andExpect(jsonPath("$[0].resourceId").value(sourceId))
+        .andExpect(jsonPath("$[1].type").value("CREATE"))
+        .andExpect(jsonPath("$[1].resourceId").value(quoteId))
+        .andExpect(jsonPath("$[2].type").value("ATTACH"))
+        .andExpect(jsonPath("$[2].resource").value("QUOTE"))
+        .andExpect(jsonPath("$[2].relatedId").value(sourceId))
+        .andExpect(jsonPath("$[3].type").value("UPDATE"))
+        .andExpect(jsonPath("$[4].type").value("DELETE"))
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    long last = getMapper().readTree(body).path(4).path("sequence").asLong();
+    perform(get("/changes")
+        .param("since", Long.toString(last))
+        .with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(0)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void listChangesRolledBack() throws Exception {
+    String quoteId = idOf(addQuote("We begin where we are."));
+    addQuote("We begin where we are.")
+        .andExpect(status().isBadRequest());
+    perform(get("/changes").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].resourceId").value(quoteId));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void listChangesCompacted() throws Exception {
+    addSource("George Box");
+    addSource("Yogi Berra");
+    addSource("Lao Tzu");
+    changeLogService.compact(new Date(System.currentTimeMillis() + 60_000));
+    perform(get("/changes").with(oauthTokenRequired()))
+        .andExpect(status().isGone());
+  }
+
+  @Test
+  void listChangesInvalidLimit() throws Exception {
+    perform(get("/changes")
+        .param("limit", "0")
+        .with(oauthTokenRequired()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void streamChanges() throws Exception {
+    String sourceId = idOf(addSource("George Box"));
+    getMockMvc().perform(get("/changes/stream")
+        .param("since", "0")
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .with(oauthTokenRequired()))
+        .andExpect(request().asyncStarted())
+        .andExpect(content().string(containsString("event:create")))
+        .andExpect(content().string(containsString(sourceId)));
+  }
+
+}
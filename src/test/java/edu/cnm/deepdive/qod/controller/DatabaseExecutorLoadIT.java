@@ -0,0 +1,144 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the throughput of quote-of-the-day requests (served from a cache) while the database is
+ * saturated by slow search requests, with the {@link edu.cnm.deepdive.qod.service.DatabaseExecutor}
+ * enabled and disabled. With the executor disabled, the slow requests occupy all of the servlet
+ * container threads, and the cached requests queue behind them; with it enabled, the container
+ * threads are released as soon as the slow requests are handed off.
+ */
+class DatabaseExecutorLoadIT {
+
+  private static final int QUOTES = 20_000;
+  private static final int SEED_BATCH = 1_000;
+  private static final int CONTAINER_THREADS = 8;
+  private static final int CONNECTIONS = 4;
+  private static final int SLOW_CLIENTS = 32;
+  private static final int FAST_CLIENTS = 4;
+  private static final long WARM_UP_MS = 2_000;
+  private static final long MEASUREMENT_MS = 10_000;
+  private static final String SLOW_PATH = "/rest/qod/quotes/search?q=";
+  private static final String FAST_PATH = "/rest/qod/quotes/qod";
+  private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+  @Test
+  void cachedThroughputUnderDatabaseLoad() throws Exception {
+    double disabled = cachedThroughput(false);
+    double enabled = cachedThroughput(true);
+    System.out.printf("Quote of the day under database load: executor disabled = %,.1f/s; "
+        + "executor enabled = %,.1f/s%n", disabled, enabled);
+    // Throughput depends heavily on the host, so only the direction of the difference is checked.
+    assertTrue(enabled > disabled, "Executor did not improve cached throughput under load");
+  }
+
+  private double cachedThroughput(boolean executorEnabled) throws Exception {
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(QodApplicationTest.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:derby:memory:load-" + UUID.randomUUID()
+                + ";create=true;collation=TERRITORY_BASED:PRIMARY",
+            "spring.jpa.hibernate.ddl-auto=create",
+            "server.tomcat.max-threads=" + CONTAINER_THREADS,
+            "spring.datasource.hikari.maximum-pool-size=" + CONNECTIONS,
+            "db-executor.enabled=" + executorEnabled,
+            "rate-limit.enabled=false",
+            "concurrency-limit.enabled=false")
+        .run();
+    ExecutorService clients = Executors.newFixedThreadPool(SLOW_CLIENTS + FAST_CLIENTS);
+    try {
+      seed(context.getBean(QuoteRepository.class));
+      int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+      long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARM_UP_MS);
+      long end = start + TimeUnit.MILLISECONDS.toNanos(MEASUREMENT_MS);
+      AtomicLong completed = new AtomicLong();
+      for (int i = 0; i < SLOW_CLIENTS; i++) {
+        clients.execute(() -> {
+          while (System.nanoTime() < end) {
+            request(port, SLOW_PATH + randomFragment());
+          }
+        });
+      }
+      for (int i = 0; i < FAST_CLIENTS; i++) {
+        clients.execute(() -> {
+          long now;
+          while ((now = System.nanoTime()) < end) {
+            if (request(port, FAST_PATH) && now >= start) {
+              completed.incrementAndGet();
+            }
+          }
+        });
+      }
+      clients.shutdown();
+      clients.awaitTermination(WARM_UP_MS + MEASUREMENT_MS + 60_000, TimeUnit.MILLISECONDS);
+      return completed.get() * 1000.0 / MEASUREMENT_MS;
+    } finally {
+      clients.shutdownNow();
+      context.close();
+    }
+  }
+
+  private void seed(QuoteRepository repository) {
+    List<Quote> batch = new ArrayList<>(SEED_BATCH);
+    for (int i = 0; i < QUOTES; i++) {
+      Quote quote = new Quote();
+      quote.setText(String.format("%s %d %s", randomFragment(), i, randomFragment()));
+      batch.add(quote);
+      if (batch.size() == SEED_BATCH) {
+        repository.saveAll(batch);
+        batch.clear();
+      }
+    }
+    repository.saveAll(batch);
+  }
+
+  private String randomFragment() {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 3; i++) {
+      builder.append(LETTERS.charAt(rng.nextInt(LETTERS.length())));
+    }
+    return builder.toString();
+  }
+
+  private boolean request(int port, String path) {
+    try {
+      HttpURLConnection connection =
+          (HttpURLConnection) new URL("http", "localhost", port, path).openConnection();
+      try (InputStream input = connection.getResponseCode() < 400
+          ? connection.getInputStream()
+          : connection.getErrorStream()) {
+        if (input != null) {
+          byte[] buffer = new byte[8192];
+          while (input.read(buffer) >= 0) {
+            // Drain the response, so that the connection may be reused.
+          }
+        }
+      }
+      return connection.getResponseCode() == 200;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,50 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog;
+import edu.cnm.deepdive.qod.model.dao.InMemoryQuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Runs the {@link QuoteControllerTest} cases with the {@value InMemoryCatalog#PROFILE} profile
+ * active, verifying that the in-memory repositories behave as the JPA repositories do.
+ */
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+@ActiveProfiles(InMemoryCatalog.PROFILE)
+class InMemoryQuoteControllerTest extends QuoteControllerTest {
+
+  private final QuoteRepository quoteRepository;
+
+  @Autowired
+  InMemoryQuoteControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng,
+      QuoteRepository quoteRepository) {
+    super(mapper, context, rng);
+    this.quoteRepository = quoteRepository;
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void readsServedFromMemory() throws Exception {
+    assertTrue(quoteRepository instanceof InMemoryQuoteRepository);
+    addAndAttribute("I'm your huckleberry.", "Tombstone");
+    assertEquals(0, countStatements(get("/quotes/?expand=sources")));
+    assertEquals(0, countStatements(get("/quotes/search?q=HUCKLEBERRY")));
+  }
+
+}
@@ -0,0 +1,31 @@
+package edu.cnm.deepdive.qod.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import java.util.Random;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Runs the {@link SnapshotControllerTest} cases with the {@value InMemoryCatalog#PROFILE} profile
+ * active, so that snapshots are exported from and imported into the in-memory catalog.
+ */
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+@ActiveProfiles(InMemoryCatalog.PROFILE)
+class InMemorySnapshotControllerTest extends SnapshotControllerTest {
+
+  @Autowired
+  InMemorySnapshotControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng,
+      QuoteRepository quoteRepository, SourceRepository sourceRepository) {
+    super(mapper, context, rng, quoteRepository, sourceRepository);
+  }
+
+}
@@ -0,0 +1,33 @@
+package edu.cnm.deepdive.qod.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.service.SnapshotService;
+import java.util.Random;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Runs the {@link SourceControllerTest} cases with the {@value InMemoryCatalog#PROFILE} profile
+ * active.
+ */
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+@ActiveProfiles(InMemoryCatalog.PROFILE)
+class InMemorySourceControllerTest extends SourceControllerTest {
+
+  @Autowired
+  InMemorySourceControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng,
+      QuoteRepository quoteRepository, SourceRepository sourceRepository,
+      SnapshotService snapshotService) {
+    super(mapper, context, rng, quoteRepository, sourceRepository, snapshotService);
+  }
+
+}
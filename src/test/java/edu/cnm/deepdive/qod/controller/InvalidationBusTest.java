@@ -0,0 +1,133 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static edu.cnm.deepdive.qod.controller.BaseControllerTest.perform;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Verifies that a change made on one instance is visible on a peer instance sharing the same
+ * database, through the peer's second-level cache, quote of the day, and read model, when the
+ * instances are connected by the loopback invalidation bus.
+ */
+class InvalidationBusTest {
+
+  private ConfigurableApplicationContext writerContext;
+  private ConfigurableApplicationContext readerContext;
+  private MockMvc writer;
+  private MockMvc reader;
+
+  @AfterEach
+  void tearDown() {
+    if (readerContext != null) {
+      readerContext.close();
+    }
+    if (writerContext != null) {
+      writerContext.close();
+    }
+  }
+
+  @Test
+  void updateVisibleThroughPeerCache() throws Exception {
+    start(false);
+    String id = addQuote("Original quote");
+    perform(reader, get("/quotes/{id}", id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.text").value("Original quote"));
+    updateQuote(id, "Revised quote");
+    perform(reader, get("/quotes/{id}", id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.text").value("Revised quote"));
+  }
+
+  @Test
+  void updateVisibleInPeerQuoteOfTheDay() throws Exception {
+    start(false);
+    String id = addQuote("Original quote");
+    perform(reader, get("/quotes/qod"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.text").value("Original quote"));
+    updateQuote(id, "Revised quote");
+    perform(reader, get("/quotes/qod"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(id))
+        .andExpect(jsonPath("$.text").value("Revised quote"));
+  }
+
+  @Test
+  void changesVisibleInPeerReadModel() throws Exception {
+    start(true);
+    String id = addQuote("Original quote");
+    perform(reader, get("/quotes/search?q=original"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)));
+    perform(writer, delete("/quotes/{id}", id))
+        .andExpect(status().isNoContent());
+    perform(reader, get("/quotes/search?q=original"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(0)));
+  }
+
+  private void start(boolean readModel) {
+    String database = "jdbc:derby:memory:invalidation-" + UUID.randomUUID()
+        + ";create=true;collation=TERRITORY_BASED:PRIMARY";
+    String channel = UUID.randomUUID().toString();
+    writerContext = start(database, channel, "create", readModel);
+    readerContext = start(database, channel, "none", readModel);
+    writer = MockMvcBuilders.webAppContextSetup((WebApplicationContext) writerContext).build();
+    reader = MockMvcBuilders.webAppContextSetup((WebApplicationContext) readerContext).build();
+  }
+
+  private ConfigurableApplicationContext start(String database, String channel, String ddl,
+      boolean readModel) {
+    return new SpringApplicationBuilder(QodApplicationTest.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=" + database,
+            "spring.jpa.hibernate.ddl-auto=" + ddl,
+            "invalidation.bus=loopback",
+            "invalidation.channel=" + channel,
+            "read-model.enabled=" + readModel,
+            "rate-limit.enabled=false",
+            "concurrency-limit.enabled=false")
+        .run();
+  }
+
+  private String addQuote(String text) throws Exception {
+    String body = perform(writer,
+        post("/quotes")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(String.format("{\"text\": \"%s\"}", text)))
+        .andExpect(status().isCreated())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    return new ObjectMapper().readTree(body).path("id").asText();
+  }
+
+  private void updateQuote(String id, String text) throws Exception {
+    perform(writer,
+        put("/quotes/{id}", id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(String.format("{\"text\": \"%s\"}", text)))
+        .andExpect(status().isOk());
+  }
+
+}
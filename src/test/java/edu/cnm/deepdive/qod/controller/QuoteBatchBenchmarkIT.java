@@ -0,0 +1,145 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * Compares the throughput (and number of statements prepared) of loading a collection of quotes
+ * with one {@code POST /quotes} request per quote, and with {@code POST /quotes/batch} requests
+ * of many quotes each. Both runs insert the same quotes, into an empty database.
+ */
+class QuoteBatchBenchmarkIT {
+
+  private static final int QUOTES = 5_000;
+  private static final int WARM_UP_QUOTES = 500;
+  private static final int BATCH_SIZE = 1_000;
+  private static final String POST_PATH = "/rest/qod/quotes";
+  private static final String BATCH_PATH = "/rest/qod/quotes/batch";
+
+  @Test
+  void batchVersusSequential() throws Exception {
+    Result sequential = load(false);
+    Result batch = load(true);
+    System.out.printf("Sequential POST: %,d quotes, %,d statements, %,.1f quotes/s%n",
+        sequential.quotes, sequential.statements, sequential.throughput());
+    System.out.printf("Batch POST (%,d per request): %,d quotes, %,d statements, "
+            + "%,.1f quotes/s%n",
+        BATCH_SIZE, batch.quotes, batch.statements, batch.throughput());
+    // Throughput depends heavily on the host, so only the direction of the difference is checked.
+    assertTrue(batch.throughput() > sequential.throughput(),
+        "Batch ingestion was not faster than sequential POST requests");
+  }
+
+  private Result load(boolean batched) throws Exception {
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(QodApplicationTest.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:derby:memory:batch-" + UUID.randomUUID()
+                + ";create=true;collation=TERRITORY_BASED:PRIMARY",
+            "spring.jpa.hibernate.ddl-auto=create",
+            "spring.jpa.properties.hibernate.generate_statistics=true",
+            "read-model.enabled=false",
+            "rate-limit.enabled=false",
+            "concurrency-limit.enabled=false")
+        .run();
+    try {
+      int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+      Statistics statistics = context.getBean(EntityManagerFactory.class)
+          .unwrap(SessionFactory.class)
+          .getStatistics();
+      insert(port, "Warm-up", WARM_UP_QUOTES, batched);
+      statistics.clear();
+      long start = System.nanoTime();
+      insert(port, "Quote", QUOTES, batched);
+      long elapsed = System.nanoTime() - start;
+      long statements = statistics.getPrepareStatementCount();
+      assertEquals(WARM_UP_QUOTES + QUOTES, context.getBean(QuoteRepository.class).count());
+      return new Result(QUOTES, statements, elapsed);
+    } finally {
+      context.close();
+    }
+  }
+
+  private void insert(int port, String prefix, int count, boolean batched) throws IOException {
+    if (batched) {
+      for (int start = 0; start < count; start += BATCH_SIZE) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = start; i < Math.min(start + BATCH_SIZE, count); i++) {
+          body.append((i > start) ? "," : "").append(quote(prefix, i));
+        }
+        post(port, BATCH_PATH, body.append("]").toString());
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        post(port, POST_PATH, quote(prefix, i));
+      }
+    }
+  }
+
+  private String quote(String prefix, int index) {
+    return String.format("{\"text\": \"%s %d: well begun is half done.\"}", prefix, index);
+  }
+
+  private void post(int port, String path, String body) throws IOException {
+    HttpURLConnection connection =
+        (HttpURLConnection) new URL("http", "localhost", port, path).openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.setRequestProperty(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    connection.setRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+    try (OutputStream output = connection.getOutputStream()) {
+      output.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+    int status = connection.getResponseCode();
+    try (InputStream input = (status < 400)
+        ? connection.getInputStream()
+        : connection.getErrorStream()) {
+      if (input != null) {
+        byte[] buffer = new byte[8192];
+        while (input.read(buffer) >= 0) {
+          // Drain the response, so that the connection may be reused.
+        }
+      }
+    }
+    if (status >= 400) {
+      throw new IOException(String.format("POST %s failed with status %d", path, status));
+    }
+  }
+
+  private static class Result {
+
+    private final int quotes;
+    private final long statements;
+    private final long elapsedNanos;
+
+    Result(int quotes, long statements, long elapsedNanos) {
+      this.quotes = quotes;
+      this.statements = statements;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    double throughput() {
+      return quotes * 1e9 / elapsedNanos;
+    }
+
+  }
+
+}
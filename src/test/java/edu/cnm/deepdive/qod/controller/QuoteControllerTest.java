@@ -1,10 +1,13 @@
 package edu.cnm.deepdive.qod.controller;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.delete;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -12,22 +15,41 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.cnm.deepdive.qod.QodApplicationTest;
 import edu.cnm.deepdive.qod.model.entity.Quote;
 import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.service.IdempotencyService;
+import edu.cnm.deepdive.qod.service.SnapshotService;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.restdocs.RestDocumentationExtension;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 @ExtendWith(RestDocumentationExtension.class)
 @SpringBootTest(classes = QodApplicationTest.class)
 class QuoteControllerTest extends BaseControllerTest {
 
+  private static final String COUNTER_PREFIX = "Counter: ";
+  private static final int CONCURRENT_EDITORS = 8;
+  private static final int INCREMENTS_PER_EDITOR = 10;
+  private static final int CONCURRENT_RETRIES = 8;
+
   @Autowired
   QuoteControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng) {
     super(mapper, context, rng);
@@ -35,7 +57,7 @@ class QuoteControllerTest extends BaseControllerTest {
 
   @Test
   void getRandomNotFound() throws Exception {
-    getMockMvc().perform(get("/quotes/random").with(oauthTokenRequired()))
+    perform(get("/quotes/random").with(oauthTokenRequired()))
         .andExpect(status().isNotFound());
   }
 
@@ -43,13 +65,13 @@ class QuoteControllerTest extends BaseControllerTest {
   @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
   void getRandom() throws Exception {
     addAndAttribute("Be excellent to each other", "Bill and Ted's Excellent Adventure");
-    getMockMvc().perform(get("/quotes/random").with(oauthTokenRequired()))
+    perform(get("/quotes/random").with(oauthTokenRequired()))
         .andExpect(status().isOk());
   }
 
   @Test
   void getQodNotFound() throws Exception {
-    getMockMvc().perform(get("/quotes/qod").with(oauthTokenRequired()))
+    perform(get("/quotes/qod").with(oauthTokenRequired()))
         .andExpect(status().isNotFound());
   }
 
@@ -57,13 +79,13 @@ class QuoteControllerTest extends BaseControllerTest {
   @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
   void getQod() throws Exception {
     addAndAttribute("I'm your huckleberry.", "Tombstone");
-    getMockMvc().perform(get("/quotes/qod").with(oauthTokenRequired()))
+    perform(get("/quotes/qod").with(oauthTokenRequired()))
         .andExpect(status().isOk());
   }
 
   @Test
   void getQuotesNone() throws Exception {
-    getMockMvc().perform(get("/quotes/").with(oauthTokenRequired()))
+    perform(get("/quotes/").with(oauthTokenRequired()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(0)));
   }
@@ -73,20 +95,56 @@ class QuoteControllerTest extends BaseControllerTest {
   void getQuotes() throws Exception {
     addAndAttribute("Be excellent to each other", "Bill and Ted's Excellent Adventure");
     addQuote("We begin where we are.");
-    getMockMvc().perform(get("/quotes/").with(oauthTokenRequired()))
+    perform(get("/quotes/").with(oauthTokenRequired()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(2)));
   }
 
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void getQuotesFlat() throws Exception {
+    addAndAttribute("Be excellent to each other", "Bill and Ted's Excellent Adventure");
+    perform(get("/quotes/").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].href").exists())
+        .andExpect(jsonPath("$[0].sources").doesNotExist());
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void getQuotesExpanded() throws Exception {
+    addAndAttribute("Be excellent to each other", "Bill and Ted's Excellent Adventure");
+    long single = countStatements(get("/quotes/?expand=sources"));
+    addAndAttribute("I'm your huckleberry.", "Tombstone");
+    addAndAttribute("We begin where we are.", "George Box");
+    long multiple = countStatements(get("/quotes/?expand=sources"));
+    assertEquals(single, multiple);
+    perform(get("/quotes/?expand=sources").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)))
+        .andExpect(jsonPath("$[0].sources", hasSize(1)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void searchQuotesExpanded() throws Exception {
+    addAndAttribute("Be excellent to each other", "Bill and Ted's Excellent Adventure");
+    long single = countStatements(get("/quotes/search?q=e&expand=sources"));
+    addAndAttribute("I'm your huckleberry.", "Tombstone");
+    addAndAttribute("We begin where we are.", "George Box");
+    long multiple = countStatements(get("/quotes/search?q=e&expand=sources"));
+    assertEquals(single, multiple);
+  }
+
   @Test
   void searchQuotesNoParameter() throws Exception {
-    getMockMvc().perform(get("/quotes/search").with(oauthTokenRequired()))
+    perform(get("/quotes/search").with(oauthTokenRequired()))
         .andExpect(status().isBadRequest());
   }
 
   @Test
   void searchQuotesNoMatch() throws Exception {
-    getMockMvc().perform(get("/quotes/search?q=excel").with(oauthTokenRequired()))
+    perform(get("/quotes/search?q=excel").with(oauthTokenRequired()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(0)));
   }
@@ -96,11 +154,29 @@ class QuoteControllerTest extends BaseControllerTest {
   void searchQuotes() throws Exception {
     addQuote("We begin where we are");
     addAndAttribute("Be excellent to each other", "Bill and Ted's Excellent Adventure");
-    getMockMvc().perform(get("/quotes/search?q=be").with(oauthTokenRequired()))
+    perform(get("/quotes/search?q=be").with(oauthTokenRequired()))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(2)));
   }
 
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void searchQuotesWildcards() throws Exception {
+    addQuote("Give 100% or go home");
+    addQuote("We begin where we are");
+    for (String expand : new String[]{"", "sources"}) {
+      perform(get("/quotes/search").param("q", "%").param("expand", expand)
+          .with(oauthTokenRequired()))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$", hasSize(1)))
+          .andExpect(jsonPath("$[0].text").value("Give 100% or go home"));
+      perform(get("/quotes/search").param("q", "_").param("expand", expand)
+          .with(oauthTokenRequired()))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$", hasSize(0)));
+    }
+  }
+
   @Test
   @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
   void postDuplicateQuote() throws Exception {
@@ -117,6 +193,126 @@ class QuoteControllerTest extends BaseControllerTest {
         .andExpect(jsonPath("$.id").exists());
   }
 
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void postQuoteIdempotent() throws Exception {
+    String key = UUID.randomUUID().toString();
+    String id = idOf(addQuote("We begin where we are.", key)
+        .andExpect(status().isCreated())
+        .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER)));
+    addQuote("We begin where we are.", key)
+        .andExpect(status().isCreated())
+        .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+        .andExpect(jsonPath("$.id").value(id));
+    addQuote("I'm your huckleberry.", key)
+        .andExpect(status().isUnprocessableEntity());
+    perform(get("/quotes").with(oauthTokenRequired()))
+        .andExpect(jsonPath("$", hasSize(1)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void postQuoteIdempotentPerClient() throws Exception {
+    String key = UUID.randomUUID().toString();
+    String id = idOf(addQuote("We begin where we are.", key)
+        .andExpect(status().isCreated()));
+    perform(
+        post("/quotes")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .header(IdempotencyService.KEY_HEADER, key)
+            .with(oauthTokenRequired())
+            .with((request) -> {
+              request.setRemoteAddr("192.0.2.1");
+              return request;
+            })
+            .content("{\"text\": \"I'm your huckleberry.\"}"))
+        .andExpect(status().isCreated())
+        .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER))
+        .andExpect(jsonPath("$.id").value(not(id)));
+    perform(get("/quotes").with(oauthTokenRequired()))
+        .andExpect(jsonPath("$", hasSize(2)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void postQuoteIdempotentConcurrent() throws Exception {
+    String key = UUID.randomUUID().toString();
+    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(getContext()).build();
+    ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_RETRIES);
+    try {
+      List<Future<MockHttpServletResponse>> requests = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_RETRIES; i++) {
+        requests.add(executor.submit(() -> perform(mockMvc,
+            post("/quotes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(IdempotencyService.KEY_HEADER, key)
+                .content("{\"text\": \"We begin where we are.\"}"))
+            .andReturn()
+            .getResponse()));
+      }
+      String id = null;
+      for (Future<MockHttpServletResponse> request : requests) {
+        MockHttpServletResponse response = request.get();
+        assertEquals(HttpStatus.CREATED.value(), response.getStatus());
+        String responseId = getMapper().readTree(response.getContentAsString()).path("id").asText();
+        if (id == null) {
+          id = responseId;
+        }
+        assertEquals(id, responseId);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    perform(get("/quotes").with(oauthTokenRequired()))
+        .andExpect(jsonPath("$", hasSize(1)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void postQuoteBatch() throws Exception {
+    addQuote("We begin where we are.");
+    String content = "[{\"text\": \"Be excellent to each other\"}, "
+        + "{\"text\": \"BE EXCELLENT TO EACH OTHER\"}, "
+        + "{\"text\": \"we begin where we are.\"}, "
+        + "{\"text\": \" \"}, "
+        + "{\"text\": \"I'm your huckleberry.\"}]";
+    perform(
+        post("/quotes/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(content))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(5)))
+        .andExpect(jsonPath("$[0].status").value("CREATED"))
+        .andExpect(jsonPath("$[0].id").exists())
+        .andExpect(jsonPath("$[1].status").value("DUPLICATE"))
+        .andExpect(jsonPath("$[2].status").value("DUPLICATE"))
+        .andExpect(jsonPath("$[3].status").value("INVALID"))
+        .andExpect(jsonPath("$[4].status").value("CREATED"));
+    perform(get("/quotes/").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void postQuoteBatchStream() throws Exception {
+    String content = "{\"text\": \"Be excellent to each other\"}\n"
+        + "{\"text\": \"I'm your huckleberry.\"}\n";
+    perform(
+        post("/quotes/batch")
+            .contentType(SnapshotService.MEDIA_TYPE)
+            .accept(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(content))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[1].status").value("CREATED"));
+  }
+
   @Test
   @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
   void putQuoteNoText() throws Exception {
@@ -124,7 +320,7 @@ class QuoteControllerTest extends BaseControllerTest {
     String content = "{}";
     addAndAttribute("Ignored", "George Box", builder);
     String url = builder.substring(0, builder.indexOf("/sources"));
-    getMockMvc().perform(
+    perform(
         put(url)
             .contentType(MediaType.APPLICATION_JSON)
             .accept(MediaType.APPLICATION_JSON)
@@ -140,7 +336,7 @@ class QuoteControllerTest extends BaseControllerTest {
     String content = "{\"text\": \"\"}";
     addAndAttribute("Ignored", "George Box", builder);
     String url = builder.substring(0, builder.indexOf("/sources"));
-    getMockMvc().perform(
+    perform(
         put(url)
             .contentType(MediaType.APPLICATION_JSON)
             .accept(MediaType.APPLICATION_JSON)
@@ -156,7 +352,7 @@ class QuoteControllerTest extends BaseControllerTest {
     String content = "{\"text\": \"Essentially, all models are wrong, but some are useful.\"}";
     addAndAttribute("Ignored", "George Box", builder);
     String url = builder.substring(0, builder.indexOf("/sources"));
-    getMockMvc().perform(
+    perform(
         put(url)
             .contentType(MediaType.APPLICATION_JSON)
             .accept(MediaType.APPLICATION_JSON)
@@ -165,15 +361,82 @@ class QuoteControllerTest extends BaseControllerTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void putQuoteStale() throws Exception {
+    String url = "/quotes/" + idOf(addQuote("We begin where we are."));
+    String tag = perform(get(url).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(HttpHeaders.ETAG))
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+    putText(getMockMvc(), url, "We begin where we were.", tag)
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, not(tag)));
+    putText(getMockMvc(), url, "We begin where we will be.", tag)
+        .andExpect(status().isPreconditionFailed());
+    perform(delete(url).header(HttpHeaders.IF_MATCH, tag).with(oauthTokenRequired()))
+        .andExpect(status().isPreconditionFailed());
+    perform(get(url).with(oauthTokenRequired()))
+        .andExpect(jsonPath("$.text").value("We begin where we were."));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void putQuoteConcurrent() throws Exception {
+    String url = "/quotes/" + idOf(addQuote(COUNTER_PREFIX + 0));
+    // Snippets aren't written for these requests, since they would be written concurrently.
+    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(getContext()).build();
+    ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_EDITORS);
+    try {
+      List<Future<Void>> editors = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_EDITORS; i++) {
+        editors.add(executor.submit(() -> increment(mockMvc, url, INCREMENTS_PER_EDITOR)));
+      }
+      for (Future<Void> editor : editors) {
+        editor.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    perform(get(url).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.text")
+            .value(COUNTER_PREFIX + CONCURRENT_EDITORS * INCREMENTS_PER_EDITOR));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void attachSourcesStale() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    addAndAttribute("I'm your huckleberry.", "Tombstone", builder);
+    String url = builder.substring(0, builder.indexOf("/sources"));
+    String tag = perform(get(url).with(oauthTokenRequired()))
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+    perform(delete(builder.toString())
+        .header(HttpHeaders.IF_MATCH, tag)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isNoContent());
+    perform(put(builder.toString())
+        .header(HttpHeaders.IF_MATCH, tag)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isPreconditionFailed());
+    perform(get(builder.toString()).with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+  }
+
   @Test
   void getQuoteBadId() throws Exception {
-    getMockMvc().perform(get("/quotes/XXXXXXXX").with(oauthTokenRequired()))
+    perform(get("/quotes/XXXXXXXX").with(oauthTokenRequired()))
         .andExpect(status().isBadRequest());
   }
 
   @Test
   void getQuoteNotFound() throws Exception {
-    getMockMvc().perform(get("/quotes/01234567-89AB-CDEF-0123-456789ABCDEF").with(oauthTokenRequired()))
+    perform(get("/quotes/01234567-89AB-CDEF-0123-456789ABCDEF").with(oauthTokenRequired()))
         .andExpect(status().isNotFound());
   }
 
@@ -182,21 +445,21 @@ class QuoteControllerTest extends BaseControllerTest {
   void getQuote() throws Exception {
     StringBuilder builder = new StringBuilder();
     addAndAttribute("Be excellent to each other", "Bill and Ted's Excellent Adventure", builder);
-    getMockMvc().perform(get(builder.substring(0, builder.indexOf("/sources")))
+    perform(get(builder.substring(0, builder.indexOf("/sources")))
         .with(oauthTokenRequired()))
         .andExpect(status().isOk());
   }
 
   @Test
   void deleteQuoteBadId() throws Exception {
-    getMockMvc().perform(delete("/quotes/XXXXXXXX").with(oauthTokenRequired()))
+    perform(delete("/quotes/XXXXXXXX").with(oauthTokenRequired()))
         .andExpect(status().isBadRequest());
   }
 
   @Test
   @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
   void deleteQuoteNotFound() throws Exception {
-    getMockMvc().perform(delete("/quotes/01234567-89AB-CDEF-0123-456789ABCDEF").with(oauthTokenRequired()))
+    perform(delete("/quotes/01234567-89AB-CDEF-0123-456789ABCDEF").with(oauthTokenRequired()))
         .andExpect(status().isNotFound());
   }
 
@@ -209,7 +472,7 @@ class QuoteControllerTest extends BaseControllerTest {
           Quote quote = getMapper().readValue(mvcResult.getResponse().getContentAsString(), Quote.class);
           builder.append(quote.getId().toString());
         });
-    getMockMvc().perform(delete(builder.toString()).with(oauthTokenRequired())
+    perform(delete(builder.toString()).with(oauthTokenRequired())
         .contentType(MediaType.APPLICATION_JSON)
         .accept(MediaType.APPLICATION_JSON))
         .andExpect(status().isNoContent());
@@ -227,36 +490,98 @@ class QuoteControllerTest extends BaseControllerTest {
   void getQuoteAttribution() throws Exception {
     StringBuilder builder = new StringBuilder();
     addAndAttribute("I'm your huckleberry.", "Tombstone", builder);
-    getMockMvc().perform(get(builder.toString()).with(oauthTokenRequired()))
+    perform(get(builder.toString()).with(oauthTokenRequired()))
         .andExpect(status().isOk());
   }
 
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void getQuoteAttributionNotFound() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    addAndAttribute("I'm your huckleberry.", "Tombstone", builder);
+    perform(delete(builder.toString()).with(oauthTokenRequired()))
+        .andExpect(status().isNoContent());
+    perform(get(builder.toString()).with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+    perform(delete(builder.toString()).with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void unattributeQuoteNotAttributed() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    addAndAttribute("I'm your huckleberry.", "Tombstone", builder);
+    perform(delete(builder.toString()).with(oauthTokenRequired()))
+        .andExpect(status().isNoContent());
+    String url = builder.substring(0, builder.indexOf("/sources"));
+    String tag = perform(get(url).with(oauthTokenRequired()))
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+    perform(delete(builder.toString())
+        .header(HttpHeaders.IF_MATCH, tag)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+    perform(get(url).with(oauthTokenRequired()))
+        .andExpect(header().string(HttpHeaders.ETAG, tag));
+  }
+
   @Test
   @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
   void unattributeQuote() throws Exception {
     StringBuilder builder = new StringBuilder();
     addAndAttribute("I'm your huckleberry.", "Tombstone", builder);
-    getMockMvc().perform(delete(builder.toString()).with(oauthTokenRequired()))
+    perform(delete(builder.toString()).with(oauthTokenRequired()))
         .andExpect(status().isNoContent());
   }
 
-  ResultActions addQuote(String text) throws Exception {
-    return getMockMvc().perform(
-        post("/quotes")
+  Void increment(MockMvc mockMvc, String url, int count) throws Exception {
+    for (int completed = 0; completed < count; ) {
+      MockHttpServletResponse current = perform(mockMvc, get(url).with(oauthTokenRequired()))
+          .andReturn()
+          .getResponse();
+      String text = getMapper().readTree(current.getContentAsString()).path("text").asText();
+      int value = Integer.parseInt(text.substring(COUNTER_PREFIX.length()));
+      int status = putText(mockMvc, url, COUNTER_PREFIX + (value + 1),
+          current.getHeader(HttpHeaders.ETAG))
+          .andReturn()
+          .getResponse()
+          .getStatus();
+      if (status == HttpStatus.OK.value()) {
+        completed++;
+      } else {
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), status);
+      }
+    }
+    return null;
+  }
+
+  ResultActions putText(MockMvc mockMvc, String url, String text, String tag) throws Exception {
+    return perform(mockMvc,
+        put(url)
             .contentType(MediaType.APPLICATION_JSON)
             .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, tag)
             .with(oauthTokenRequired())
-            .content(String.format("{\"text\": \"%s\"}", text))
-    );
+            .content(String.format("{\"text\": \"%s\"}", text)));
   }
 
-  ResultActions addSource(String name) throws Exception {
-    return getMockMvc().perform(
-        post("/sources")
+  long countStatements(MockHttpServletRequestBuilder request) throws Exception {
+    getStatistics().clear();
+    perform(request.with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    return getStatistics().getPrepareStatementCount();
+  }
+
+  ResultActions addQuote(String text, String idempotencyKey) throws Exception {
+    return perform(
+        post("/quotes")
             .contentType(MediaType.APPLICATION_JSON)
             .accept(MediaType.APPLICATION_JSON)
+            .header(IdempotencyService.KEY_HEADER, idempotencyKey)
             .with(oauthTokenRequired())
-            .content(String.format("{\"name\": \"%s\"}", name))
+            .content(String.format("{\"text\": \"%s\"}", text))
     );
   }
 
@@ -270,7 +595,7 @@ class QuoteControllerTest extends BaseControllerTest {
       Source source = getMapper().readValue(mvcResult.getResponse().getContentAsString(), Source.class);
       builder.append(source.getId().toString());
     });
-    return getMockMvc().perform(put(builder.toString()).with(oauthTokenRequired()));
+    return perform(put(builder.toString()).with(oauthTokenRequired()));
   }
 
   ResultActions addAndAttribute(String text, String name) throws Exception {
@@ -0,0 +1,92 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+@TestPropertySource(properties = {
+    "quote.write-behind.enabled=true",
+    "quote.write-behind.durability=COMMITTED"
+})
+class QuoteWriteBehindTest extends BaseControllerTest {
+
+  @Autowired
+  QuoteWriteBehindTest(ObjectMapper mapper, WebApplicationContext context, Random rng) {
+    super(mapper, context, rng);
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void postCommitted() throws Exception {
+    String body = submit("We begin where we are.")
+        .andExpect(status().isCreated())
+        .andExpect(header().exists("Location"))
+        .andExpect(jsonPath("$.status").value("CREATED"))
+        .andExpect(jsonPath("$.quoteId").exists())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    String submissionId = getMapper().readTree(body).path("id").asText();
+    String quoteId = getMapper().readTree(body).path("quoteId").asText();
+    perform(get("/quotes/submissions/{id}", submissionId)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("CREATED"));
+    perform(get("/quotes/{id}", quoteId).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.text").value("We begin where we are."));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void postDuplicate() throws Exception {
+    submit("We begin where we are.")
+        .andExpect(status().isCreated());
+    submit("WE BEGIN WHERE WE ARE.")
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.status").value("DUPLICATE"));
+  }
+
+  @Test
+  void postBlank() throws Exception {
+    submit(" ")
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void getSubmissionNotFound() throws Exception {
+    perform(get("/quotes/submissions/{id}", UUID.randomUUID())
+        .with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+  }
+
+  private ResultActions submit(String text) throws Exception {
+    return perform(
+        post("/quotes")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(String.format("{\"text\": \"%s\"}", text)));
+  }
+
+}
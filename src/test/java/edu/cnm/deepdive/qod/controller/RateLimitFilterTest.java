@@ -0,0 +1,72 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.cnm.deepdive.qod.service.RateLimiter;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class RateLimitFilterTest {
+
+  private RateLimitFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    filter = new RateLimitFilter(
+        new RateLimiter(true, "GET /quotes/random=0.001/1", "1000/1000", 100, 4));
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void anonymousLimitedByAddress() throws Exception {
+    assertEquals(HttpStatus.OK.value(), random().getStatus());
+    MockHttpServletResponse refused = random();
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), refused.getStatus());
+    assertEquals("1000", refused.getHeader(HttpHeaders.RETRY_AFTER));
+  }
+
+  @Test
+  void authenticatedLimitedBySubject() throws Exception {
+    authenticate("alice");
+    assertEquals(HttpStatus.OK.value(), random().getStatus());
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), random().getStatus());
+    authenticate("bob");
+    MockHttpServletResponse admitted = random();
+    assertEquals(HttpStatus.OK.value(), admitted.getStatus());
+    assertNull(admitted.getHeader(HttpHeaders.RETRY_AFTER));
+  }
+
+  private MockHttpServletResponse random() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/quotes/random");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(request, response, chain);
+    if (response.getStatus() == HttpStatus.OK.value()) {
+      assertNotNull(chain.getRequest());
+    }
+    return response;
+  }
+
+  private void authenticate(String subject) {
+    SecurityContextHolder.getContext().setAuthentication(
+        new UsernamePasswordAuthenticationToken(subject, null,
+            Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"))));
+  }
+
+}
@@ -0,0 +1,86 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class, properties = "reactive.page-size=2")
+class ReactiveCatalogControllerTest extends BaseControllerTest {
+
+  @Autowired
+  ReactiveCatalogControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng) {
+    super(mapper, context, rng);
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void reactiveMatchesServlet() throws Exception {
+    String box = idOf(addSource("George Box"));
+    String models = idOf(addQuote("All models are wrong, but some are useful."));
+    addQuote("A journey of a thousand miles begins with a single step.");
+    addQuote("When you come to a fork in the road, take it.");
+    perform(put("/quotes/{quoteId}/sources/{sourceId}", models, box)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+
+    assertConsistent("/quotes", "/reactive/quotes");
+    assertConsistent("/quotes?expand=sources", "/reactive/quotes?expand=sources");
+    assertConsistent("/quotes/search?q=WHEN", "/reactive/quotes/search?q=WHEN");
+    assertConsistent("/quotes/search?q=a&expand=sources",
+        "/reactive/quotes/search?q=a&expand=sources");
+    assertConsistent("/sources", "/reactive/sources");
+    assertConsistent("/sources?expand=quotes", "/reactive/sources?expand=quotes");
+    assertConsistent("/quotes/qod", "/reactive/quotes/qod");
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void streamQuotes() throws Exception {
+    addQuote("All models are wrong, but some are useful.");
+    addQuote("A journey of a thousand miles begins with a single step.");
+    addQuote("When you come to a fork in the road, take it.");
+    JsonNode expected = getMapper().readTree(read("/quotes", MediaType.APPLICATION_JSON));
+    List<JsonNode> streamed = new ArrayList<>();
+    for (String line : read("/reactive/quotes", MediaType.APPLICATION_STREAM_JSON).split("\n")) {
+      if (!line.trim().isEmpty()) {
+        streamed.add(getMapper().readTree(line));
+      }
+    }
+    assertEquals(expected.size(), streamed.size());
+    for (int i = 0; i < streamed.size(); i++) {
+      assertEquals(expected.get(i), streamed.get(i));
+    }
+  }
+
+  private void assertConsistent(String servletUrl, String reactiveUrl) throws Exception {
+    assertEquals(getMapper().readTree(read(servletUrl, MediaType.APPLICATION_JSON)),
+        getMapper().readTree(read(reactiveUrl, MediaType.APPLICATION_JSON)), reactiveUrl);
+  }
+
+  private String read(String url, MediaType mediaType) throws Exception {
+    return perform(get(url).accept(mediaType).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+  }
+
+}
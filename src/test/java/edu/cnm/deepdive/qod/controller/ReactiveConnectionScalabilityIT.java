@@ -0,0 +1,184 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+
+/**
+ * Compares the servlet and reactive endpoints for the list of quotes, with thousands of clients
+ * connected concurrently. All of the clients are driven from a single thread, with non-blocking
+ * sockets; for each endpoint, the number of successful responses, the median and 99th-percentile
+ * times to the first byte of the response, and the total elapsed time are reported.
+ */
+class ReactiveConnectionScalabilityIT {
+
+  private static final int CLIENTS = Integer.getInteger("scalability.clients", 2_000);
+  private static final int QUOTES = 2_000;
+  private static final int CONTAINER_THREADS = 50;
+  private static final long TIMEOUT_MS = 120_000;
+  private static final String SERVLET_PATH = "/rest/qod/quotes";
+  private static final String REACTIVE_PATH = "/rest/qod/reactive/quotes";
+  private static final String STATUS_OK = "HTTP/1.1 200";
+
+  private static ConfigurableApplicationContext context;
+  private static int port;
+
+  @BeforeAll
+  static void start() {
+    context = new SpringApplicationBuilder(QodApplicationTest.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:derby:memory:scalability-" + UUID.randomUUID()
+                + ";create=true;collation=TERRITORY_BASED:PRIMARY",
+            "spring.jpa.hibernate.ddl-auto=create",
+            "server.tomcat.max-threads=" + CONTAINER_THREADS,
+            "db-executor.queue-capacity=" + CLIENTS,
+            "rate-limit.enabled=false",
+            "concurrency-limit.enabled=false")
+        .run();
+    port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    QuoteRepository repository = context.getBean(QuoteRepository.class);
+    List<Quote> quotes = new ArrayList<>();
+    for (int i = 0; i < QUOTES; i++) {
+      Quote quote = new Quote();
+      quote.setText(String.format("Quote %d, long enough to make the response non-trivial.", i));
+      quotes.add(quote);
+    }
+    repository.saveAll(quotes);
+  }
+
+  @AfterAll
+  static void stop() {
+    context.close();
+  }
+
+  @Test
+  void concurrentClients() throws Exception {
+    Result servlet = run(SERVLET_PATH, MediaType.APPLICATION_JSON_VALUE);
+    Result reactive = run(REACTIVE_PATH, MediaType.APPLICATION_STREAM_JSON_VALUE);
+    System.out.printf("%,d concurrent clients: servlet = %s; reactive = %s%n",
+        CLIENTS, servlet, reactive);
+    assertEquals(CLIENTS, reactive.successes);
+  }
+
+  private Result run(String path, String accept) throws IOException {
+    byte[] request = String.format("GET %s HTTP/1.1\r\nHost: localhost\r\nAccept: %s\r\n"
+        + "Connection: close\r\n\r\n", path, accept).getBytes(StandardCharsets.US_ASCII);
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+    long[] firstByte = new long[CLIENTS];
+    Arrays.fill(firstByte, -1);
+    int successes = 0;
+    try (Selector selector = Selector.open()) {
+      for (int i = 0; i < CLIENTS; i++) {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+        channel.write(ByteBuffer.wrap(request));
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Client(i));
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+      while (!selector.keys().isEmpty() && System.nanoTime() < deadline) {
+        selector.select(1_000);
+        for (SelectionKey key : selector.selectedKeys()) {
+          SocketChannel channel = (SocketChannel) key.channel();
+          Client client = (Client) key.attachment();
+          buffer.clear();
+          int read;
+          try {
+            read = channel.read(buffer);
+          } catch (IOException e) {
+            read = -1;
+          }
+          if (read > 0) {
+            if (firstByte[client.index] < 0) {
+              firstByte[client.index] = System.nanoTime() - start;
+            }
+            client.append(buffer, read);
+          } else if (read < 0) {
+            if (client.isOk()) {
+              successes++;
+            }
+            key.cancel();
+            channel.close();
+          }
+        }
+        selector.selectedKeys().clear();
+      }
+      for (SelectionKey key : selector.keys()) {
+        key.channel().close();
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    return new Result(successes, firstByte, elapsed);
+  }
+
+  private static class Client {
+
+    private final int index;
+    private final StringBuilder statusLine = new StringBuilder();
+
+    private Client(int index) {
+      this.index = index;
+    }
+
+    private void append(ByteBuffer buffer, int length) {
+      for (int i = 0; i < length && statusLine.length() < STATUS_OK.length(); i++) {
+        statusLine.append((char) buffer.get(i));
+      }
+    }
+
+    private boolean isOk() {
+      return statusLine.toString().equals(STATUS_OK);
+    }
+
+  }
+
+  private static class Result {
+
+    private final int successes;
+    private final long medianFirstByte;
+    private final long p99FirstByte;
+    private final long elapsed;
+
+    private Result(int successes, long[] firstByte, long elapsed) {
+      this.successes = successes;
+      long[] received = Arrays.stream(firstByte)
+          .filter((time) -> time >= 0)
+          .sorted()
+          .toArray();
+      medianFirstByte = (received.length > 0) ? received[received.length / 2] : -1;
+      p99FirstByte = (received.length > 0) ? received[(int) (received.length * 0.99)] : -1;
+      this.elapsed = elapsed;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%,d OK, first byte p50 %,d ms / p99 %,d ms, total %,d ms", successes,
+          TimeUnit.NANOSECONDS.toMillis(medianFirstByte),
+          TimeUnit.NANOSECONDS.toMillis(p99FirstByte),
+          TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+  }
+
+}
@@ -0,0 +1,131 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.delete;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Source;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+@TestPropertySource(properties = "read-model.enabled=true")
+class ReadModelConsistencyTest extends BaseControllerTest {
+
+  private final QuoteRepository quoteRepository;
+  private final SourceRepository sourceRepository;
+
+  @Autowired
+  ReadModelConsistencyTest(ObjectMapper mapper, WebApplicationContext context, Random rng,
+      QuoteRepository quoteRepository, SourceRepository sourceRepository) {
+    super(mapper, context, rng);
+    this.quoteRepository = quoteRepository;
+    this.sourceRepository = sourceRepository;
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void readModelMatchesDatabase() throws Exception {
+    UUID box = UUID.fromString(idOf(addSource("George Box")));
+    UUID lao = UUID.fromString(idOf(addSource("Lao Tzu")));
+    UUID yogi = UUID.fromString(idOf(addSource("Yogi Berra")));
+    UUID models = UUID.fromString(idOf(addQuote("All models are wrong, but some are useful.")));
+    UUID journey = UUID.fromString(
+        idOf(addQuote("A journey of a thousand miles begins with a single step.")));
+    UUID fork = UUID.fromString(idOf(addQuote("When you come to a fork in the road, take it.")));
+    UUID later = UUID.fromString(idOf(addQuote("It ain't over till it's over.")));
+    modify(put("/quotes/{quoteId}/sources/{sourceId}", models, box));
+    modify(put("/sources/{sourceId}/quotes", lao)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(String.format("[\"%s\", \"%s\"]", models, journey)));
+    modify(put("/quotes/{quoteId}/sources", fork)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(String.format("[\"%s\"]", yogi)));
+    modify(put("/quotes/{quoteId}/sources/{sourceId}", later, yogi));
+    modify(put("/sources/{sourceId}", yogi)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"name\": \"Lawrence Peter Berra\"}"));
+    modify(put("/quotes/{quoteId}", fork)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"text\": \"When you come to a fork in the road, TAKE IT.\"}"));
+    modify(delete("/sources/{sourceId}/quotes/{quoteId}", lao, models));
+    modify(delete("/quotes/{quoteId}", later));
+
+    assertConsistent(quoteRepository.findAllByOrderByTextAsc(), "/quotes");
+    assertConsistent(quoteRepository.findDistinctByOrderByTextAsc(), "/quotes?expand=sources");
+    assertConsistent(quoteRepository.findAllByTextContainingOrderByTextAsc("WHEN"),
+        "/quotes/search?q=WHEN");
+    assertConsistent(quoteRepository.findDistinctByTextContainingOrderByTextAsc("a"),
+        "/quotes/search?q=a&expand=sources");
+    assertConsistent(sourceRepository.findAllByOrderByNameAsc(), "/sources");
+    assertConsistent(sourceRepository.findDistinctByOrderByNameAsc(), "/sources?expand=quotes");
+    assertConsistent(sourceRepository.findAllByNameContainingOrderByNameAsc("ao"),
+        "/sources/search?q=ao");
+    assertConsistent(sourceRepository.findDistinctByNameContainingOrderByNameAsc("e"),
+        "/sources/search?q=e&expand=quotes");
+    for (UUID quoteId : new UUID[]{models, journey, fork}) {
+      assertConsistent(quoteRepository.findWithSourcesById(quoteId).get(), "/quotes/" + quoteId);
+      perform(get("/quotes/{quoteId}", quoteId).with(oauthTokenRequired()))
+          .andExpect(header().string(HttpHeaders.ETAG,
+              EntityTags.of(quoteRepository.findVersionById(quoteId).get())));
+    }
+    for (UUID sourceId : new UUID[]{box, lao, yogi}) {
+      Source source = StreamSupport.stream(
+          sourceRepository.findDistinctByOrderByNameAsc().spliterator(), false)
+          .filter((candidate) -> candidate.getId().equals(sourceId))
+          .findFirst()
+          .get();
+      assertConsistent(source, "/sources/" + sourceId);
+      assertConsistent(quoteRepository.findAllBySourceId(sourceId),
+          "/sources/" + sourceId + "/quotes");
+      perform(get("/sources/{sourceId}", sourceId).with(oauthTokenRequired()))
+          .andExpect(header().string(HttpHeaders.ETAG,
+              EntityTags.of(sourceRepository.findVersionById(sourceId).get())));
+    }
+    assertConsistent(sourceRepository.findSummaryById(box).get(),
+        "/quotes/" + models + "/sources/" + box);
+    assertConsistent(quoteRepository.findSummaryById(journey).get(),
+        "/sources/" + lao + "/quotes/" + journey);
+    perform(get("/quotes/{quoteId}/sources/{sourceId}", models, lao)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+    perform(get("/quotes/{quoteId}", later).with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+  }
+
+  private void assertConsistent(Object expected, String url) throws Exception {
+    String body = perform(get(url).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    assertEquals(getMapper().valueToTree(expected), getMapper().readTree(body), url);
+  }
+
+  private void modify(MockHttpServletRequestBuilder request) throws Exception {
+    perform(request.with(oauthTokenRequired()))
+        .andExpect(status().is2xxSuccessful());
+  }
+
+}
@@ -0,0 +1,201 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.model.entity.Source;
+import edu.cnm.deepdive.qod.service.AttributionService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the number of statements sent to the database (and the throughput) of a typical mix of
+ * read requests&mdash;mostly individual quotes and sources, with some searches and lists of the
+ * quotes of a source&mdash;with the second-level and query caches enabled and disabled. A small
+ * fraction of the operations attach sources to quotes, so that the cost of the invalidations they
+ * cause is included. Both runs use the same data and the same sequence of operations.
+ */
+class SecondLevelCacheBenchmarkIT {
+
+  private static final int QUOTES = 2_000;
+  private static final int SOURCES = 50;
+  private static final int SEED_BATCH = 500;
+  private static final int WARM_UP_OPERATIONS = 2_000;
+  private static final int MEASURED_OPERATIONS = 10_000;
+  private static final int WRITE_INTERVAL = 100;
+  private static final long MIX_SEED = 42;
+  private static final String[] TOPICS = {
+      "courage", "wisdom", "patience", "humility", "kindness", "honesty", "curiosity", "freedom",
+      "justice", "friendship", "labor", "learning", "hope", "silence", "time", "change"
+  };
+
+  @Test
+  void readMixRoundTrips() throws Exception {
+    Result disabled = runMix(false);
+    Result enabled = runMix(true);
+    System.out.printf("Read mix with caches disabled: %,d statements (%.2f/operation), "
+            + "%,.1f operations/s%n",
+        disabled.statements, disabled.statementsPerOperation(), disabled.throughput());
+    System.out.printf("Read mix with caches enabled: %,d statements (%.2f/operation), "
+            + "%,.1f operations/s%n",
+        enabled.statements, enabled.statementsPerOperation(), enabled.throughput());
+    // Statement counts depend on cache sizes and eviction timing, and throughput on the host, so
+    // only the direction of the difference in statement counts is checked.
+    assertTrue(enabled.statements < disabled.statements,
+        "Second-level and query caches did not reduce database round trips");
+  }
+
+  private Result runMix(boolean cacheEnabled) throws Exception {
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(QodApplicationTest.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:derby:memory:cache-" + UUID.randomUUID()
+                + ";create=true;collation=TERRITORY_BASED:PRIMARY",
+            "spring.jpa.hibernate.ddl-auto=create",
+            "spring.jpa.properties.hibernate.generate_statistics=true",
+            "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cacheEnabled,
+            "spring.jpa.properties.hibernate.cache.use_query_cache=" + cacheEnabled,
+            "read-model.enabled=false",
+            "rate-limit.enabled=false",
+            "concurrency-limit.enabled=false")
+        .run();
+    try {
+      AttributionService attributionService = context.getBean(AttributionService.class);
+      List<Source> sources = seedSources(context.getBean(SourceRepository.class));
+      List<Quote> quotes = seedQuotes(context.getBean(QuoteRepository.class));
+      attribute(attributionService, quotes, sources);
+      int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+      Statistics statistics = context.getBean(EntityManagerFactory.class)
+          .unwrap(SessionFactory.class)
+          .getStatistics();
+      Random rng = new Random(MIX_SEED);
+      for (int i = 0; i < WARM_UP_OPERATIONS; i++) {
+        operation(i, rng, port, quotes, sources, attributionService);
+      }
+      statistics.clear();
+      long start = System.nanoTime();
+      for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+        operation(i, rng, port, quotes, sources, attributionService);
+      }
+      long elapsed = System.nanoTime() - start;
+      return new Result(statistics.getPrepareStatementCount(), elapsed);
+    } finally {
+      context.close();
+    }
+  }
+
+  private List<Source> seedSources(SourceRepository repository) {
+    List<Source> sources = new ArrayList<>(SOURCES);
+    for (int i = 0; i < SOURCES; i++) {
+      Source source = new Source();
+      source.setName(String.format("Source %d", i));
+      sources.add(source);
+    }
+    return StreamSupport.stream(repository.saveAll(sources).spliterator(), false)
+        .collect(Collectors.toList());
+  }
+
+  private List<Quote> seedQuotes(QuoteRepository repository) {
+    List<Quote> quotes = new ArrayList<>(QUOTES);
+    List<Quote> batch = new ArrayList<>(SEED_BATCH);
+    for (int i = 0; i < QUOTES; i++) {
+      Quote quote = new Quote();
+      quote.setText(String.format("Quote %d on %s", i, TOPICS[i % TOPICS.length]));
+      batch.add(quote);
+      if (batch.size() == SEED_BATCH) {
+        repository.saveAll(batch).forEach(quotes::add);
+        batch.clear();
+      }
+    }
+    repository.saveAll(batch).forEach(quotes::add);
+    return quotes;
+  }
+
+  private void attribute(AttributionService attributionService, List<Quote> quotes,
+      List<Source> sources) {
+    for (int i = 0; i < sources.size(); i++) {
+      List<UUID> quoteIds = new ArrayList<>();
+      for (int j = i; j < quotes.size(); j += sources.size()) {
+        quoteIds.add(quotes.get(j).getId());
+      }
+      attributionService.attachQuotes(sources.get(i).getId(), quoteIds, null);
+    }
+  }
+
+  private void operation(int index, Random rng, int port, List<Quote> quotes,
+      List<Source> sources, AttributionService attributionService) {
+    Quote quote = quotes.get(rng.nextInt(quotes.size()));
+    Source source = sources.get(rng.nextInt(sources.size()));
+    int choice = rng.nextInt(100);
+    if (index % WRITE_INTERVAL == WRITE_INTERVAL - 1) {
+      attributionService.attachSources(
+          quote.getId(), Collections.singleton(source.getId()), null);
+    } else if (choice < 60) {
+      request(port, "/rest/qod/quotes/" + quote.getId());
+    } else if (choice < 75) {
+      request(port, "/rest/qod/sources/" + source.getId());
+    } else if (choice < 90) {
+      request(port, "/rest/qod/quotes/search?q=" + TOPICS[rng.nextInt(TOPICS.length)]);
+    } else {
+      request(port, "/rest/qod/sources/" + source.getId() + "/quotes");
+    }
+  }
+
+  private void request(int port, String path) {
+    try {
+      HttpURLConnection connection =
+          (HttpURLConnection) new URL("http", "localhost", port, path).openConnection();
+      try (InputStream input = connection.getResponseCode() < 400
+          ? connection.getInputStream()
+          : connection.getErrorStream()) {
+        if (input != null) {
+          byte[] buffer = new byte[8192];
+          while (input.read(buffer) >= 0) {
+            // Drain the response, so that the connection may be reused.
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static class Result {
+
+    private final long statements;
+    private final long elapsedNanos;
+
+    Result(long statements, long elapsedNanos) {
+      this.statements = statements;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    double statementsPerOperation() {
+      return (double) statements / MEASURED_OPERATIONS;
+    }
+
+    double throughput() {
+      return MEASURED_OPERATIONS * 1e9 / elapsedNanos;
+    }
+
+  }
+
+}
@@ -0,0 +1,149 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Compares the number of statements sent to the database by a mix of read requests, first with
+ * empty second-level and query caches, and then repeated with warm caches; also verifies that
+ * updates are visible to subsequent reads through the caches, and that changes to attributions
+ * evict only the affected entities.
+ */
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+class SecondLevelCacheTest extends BaseControllerTest {
+
+  private static final int QUOTES = 10;
+
+  @Autowired
+  SecondLevelCacheTest(ObjectMapper mapper, WebApplicationContext context, Random rng) {
+    super(mapper, context, rng);
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void warmReadsReduceRoundTrips() throws Exception {
+    List<String> ids = populate();
+    getContext().getBean(EntityManagerFactory.class)
+        .unwrap(SessionFactory.class)
+        .getCache()
+        .evictAllRegions();
+    long cold = countReadMixStatements(ids);
+    long warm = countReadMixStatements(ids);
+    assertTrue(cold > 0);
+    assertTrue(warm * 2 <= cold,
+        String.format("Statements with cold caches = %d; with warm caches = %d", cold, warm));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void updatesVisibleThroughCaches() throws Exception {
+    List<String> ids = populate();
+    countReadMixStatements(ids);
+    String id = ids.get(0);
+    perform(
+        put("/quotes/{id}", id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content("{\"text\": \"Revised quote\"}"))
+        .andExpect(status().isOk());
+    perform(get("/quotes/{id}", id).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.text").value("Revised quote"));
+    perform(get("/quotes/search?q=Revised").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)));
+    perform(get("/quotes/").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.text == 'Revised quote')]", hasSize(1)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void attributionEvictsOnlyAffectedEntries() throws Exception {
+    List<String> ids = populate();
+    countReadMixStatements(ids);
+    Cache cache = getContext().getBean(EntityManagerFactory.class).getCache();
+    String sourceId = idOf(
+        perform(
+            post("/sources")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(oauthTokenRequired())
+                .content("{\"name\": \"Attributed\"}")));
+    perform(
+        put("/quotes/{quoteId}/sources/{sourceId}", ids.get(0), sourceId)
+            .with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    assertFalse(cache.contains(Quote.class, UUID.fromString(ids.get(0))));
+    assertTrue(cache.contains(Quote.class, UUID.fromString(ids.get(1))));
+    perform(get("/quotes/{id}", ids.get(0)).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sources", hasSize(2)));
+  }
+
+  private List<String> populate() throws Exception {
+    String sourceId = idOf(
+        perform(
+            post("/sources")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(oauthTokenRequired())
+                .content("{\"name\": \"Anonymous\"}")));
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < QUOTES; i++) {
+      String quoteId = idOf(
+          perform(
+              post("/quotes")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .with(oauthTokenRequired())
+                  .content(String.format("{\"text\": \"Quote number %d\"}", i))));
+      perform(
+          put("/quotes/{quoteId}/sources/{sourceId}", quoteId, sourceId)
+              .with(oauthTokenRequired()))
+          .andExpect(status().isOk());
+      ids.add(quoteId);
+    }
+    return ids;
+  }
+
+  private long countReadMixStatements(List<String> ids) throws Exception {
+    getStatistics().clear();
+    perform(get("/quotes/").with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    perform(get("/quotes/search?q=number").with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    perform(get("/sources/").with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    for (String id : ids) {
+      perform(get("/quotes/{id}", id).with(oauthTokenRequired()))
+          .andExpect(status().isOk());
+    }
+    return getStatistics().getPrepareStatementCount();
+  }
+
+}
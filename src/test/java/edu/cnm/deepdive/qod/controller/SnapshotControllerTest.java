@@ -0,0 +1,160 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.service.SnapshotService;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+class SnapshotControllerTest extends BaseControllerTest {
+
+  private final QuoteRepository quoteRepository;
+  private final SourceRepository sourceRepository;
+
+  @Autowired
+  SnapshotControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng,
+      QuoteRepository quoteRepository, SourceRepository sourceRepository) {
+    super(mapper, context, rng);
+    this.quoteRepository = quoteRepository;
+    this.sourceRepository = sourceRepository;
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void roundTrip() throws Exception {
+    String quoteId = create("/quotes", "{\"text\": \"I'm your huckleberry.\"}");
+    String sourceId = create("/sources", "{\"name\": \"Tombstone\"}");
+    create("/quotes", "{\"text\": \"We begin where we are.\"}");
+    perform(put(String.format("/quotes/%s/sources/%s", quoteId, sourceId))
+        .with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    String tag = etagOf("/quotes/" + quoteId);
+    byte[] snapshot = export();
+    quoteRepository.deleteAll();
+    sourceRepository.deleteAll();
+    perform(
+        post("/admin/snapshot")
+            .contentType(SnapshotService.MEDIA_TYPE)
+            .accept(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(snapshot))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.sources").value(1))
+        .andExpect(jsonPath("$.quotes").value(2))
+        .andExpect(jsonPath("$.attributions").value(1));
+    assertArrayEquals(snapshot, export());
+    assertEquals(tag, etagOf("/quotes/" + quoteId));
+    perform(get(String.format("/quotes/%s/sources/%s", quoteId, sourceId))
+        .with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    perform(get("/quotes?expand=sources").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void exportViaSendfile() throws Exception {
+    create("/quotes", "{\"text\": \"I'm your huckleberry.\"}");
+    byte[] snapshot = export();
+    MvcResult result = perform(get("/admin/snapshot")
+        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andReturn();
+    MockHttpServletRequest request = result.getRequest();
+    MockHttpServletResponse response = result.getResponse();
+    // The body is left to the container, which sends the named file after the handler returns.
+    assertEquals(0, response.getContentAsByteArray().length);
+    assertEquals(snapshot.length, response.getContentLengthLong());
+    String filename = (String) request.getAttribute("org.apache.tomcat.sendfile.filename");
+    assertTrue(Files.exists(Paths.get(filename)));
+    assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+    assertEquals((long) snapshot.length, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    assertArrayEquals(snapshot, Files.readAllBytes(Paths.get(filename)));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void importConflict() throws Exception {
+    create("/sources", "{\"name\": \"Tombstone\"}");
+    byte[] snapshot = export();
+    perform(
+        post("/admin/snapshot")
+            .contentType(SnapshotService.MEDIA_TYPE)
+            .with(oauthTokenRequired())
+            .content(snapshot))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  void importUnsupportedVersion() throws Exception {
+    perform(
+        post("/admin/snapshot")
+            .contentType(SnapshotService.MEDIA_TYPE)
+            .with(oauthTokenRequired())
+            .content("{\"format\": \"qod-snapshot\", \"version\": 99}\n"
+                .getBytes(StandardCharsets.UTF_8)))
+        .andExpect(status().isBadRequest());
+  }
+
+  private byte[] export() throws Exception {
+    return perform(get("/admin/snapshot").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray();
+  }
+
+  private String etagOf(String url) throws Exception {
+    return perform(get(url).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+  }
+
+  private String create(String url, String content) throws Exception {
+    String body = perform(
+        post(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(content))
+        .andExpect(status().isCreated())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    return getMapper().readTree(body).path("id").asText();
+  }
+
+}
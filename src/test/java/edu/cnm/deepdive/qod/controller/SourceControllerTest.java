@@ -1,34 +1,56 @@
 package edu.cnm.deepdive.qod.controller;
 
-
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.delete;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
-import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.post;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.dao.QuoteRepository;
+import edu.cnm.deepdive.qod.model.dao.SourceRepository;
+import edu.cnm.deepdive.qod.service.SnapshotService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Random;
+import java.util.UUID;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.restdocs.RestDocumentationExtension;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.MethodMode;
-import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.web.context.WebApplicationContext;
 
 @ExtendWith(RestDocumentationExtension.class)
 @SpringBootTest(classes = QodApplicationTest.class)
 public class SourceControllerTest extends BaseControllerTest {
 
+  private static final int LARGE_SOURCE_QUOTES = 100_000;
+  private static final int ASYNC_SOURCE_QUOTES = 5_000;
+  private static final long ASYNC_TIMEOUT = 60_000;
+
+  private final QuoteRepository quoteRepository;
+  private final SourceRepository sourceRepository;
+  private final SnapshotService snapshotService;
+
   @Autowired
   SourceControllerTest(ObjectMapper mapper,
-      WebApplicationContext context, Random rng) {
+      WebApplicationContext context, Random rng,
+      QuoteRepository quoteRepository, SourceRepository sourceRepository,
+      SnapshotService snapshotService) {
     super(mapper, context, rng);
+    this.quoteRepository = quoteRepository;
+    this.sourceRepository = sourceRepository;
+    this.snapshotService = snapshotService;
   }
 
   @Test
@@ -45,7 +67,7 @@ public class SourceControllerTest extends BaseControllerTest {
   void getSources() throws Exception {
     addSource("George Box");
     addSource("Bill and Ted's Excellent Adventure");
-    getMockMvc().perform(
+    perform(
         get("/sources")
             .accept(MediaType.APPLICATION_JSON)
             .with(oauthTokenRequired())
@@ -54,14 +76,154 @@ public class SourceControllerTest extends BaseControllerTest {
         .andExpect(jsonPath("$", hasSize(2)));
   }
 
-  private ResultActions addSource(String name) throws Exception {
-    return getMockMvc().perform(
-        post("/sources")
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void attachAndDetachQuotes() throws Exception {
+    String sourceId = idOf(addSource("George Box"));
+    String first = idOf(addQuote("Essentially, all models are wrong, but some are useful."));
+    String second = idOf(addQuote("Statisticians, like artists, have the bad habit of falling in "
+        + "love with their models."));
+    String third = idOf(addQuote("Remember that all models are wrong."));
+    String url = String.format("/sources/%s/quotes", sourceId);
+    perform(
+        put(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content(String.format("[\"%s\", \"%s\", \"%s\", \"%s\"]",
+                first, second, third, first)))
+        .andExpect(status().isNoContent());
+    perform(get(url).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)));
+    perform(
+        delete(url)
             .contentType(MediaType.APPLICATION_JSON)
-            .accept(MediaType.APPLICATION_JSON)
             .with(oauthTokenRequired())
-            .content(String.format("{\"name\": \"%s\"}", name))
-    );
+            .content(String.format("[\"%s\", \"%s\"]", first, third)))
+        .andExpect(status().isNoContent());
+    perform(get(url).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id").value(second));
+  }
+
+  @Test
+  void attachQuotesSourceNotFound() throws Exception {
+    perform(
+        put("/sources/01234567-89AB-CDEF-0123-456789ABCDEF/quotes")
+            .contentType(MediaType.APPLICATION_JSON)
+            .with(oauthTokenRequired())
+            .content("[\"01234567-89AB-CDEF-0123-456789ABCDEF\"]"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void deleteLargeSource() throws Exception {
+    UUID sourceId = loadLinkedQuotes(LARGE_SOURCE_QUOTES);
+    Statistics statistics = getStatistics();
+    statistics.clear();
+    perform(delete("/sources/" + sourceId).with(oauthTokenRequired()))
+        .andExpect(status().isNoContent());
+    // The source and its attributions are removed with bulk statements; nothing is loaded.
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(0, statistics.getCollectionLoadCount());
+    assertFalse(sourceRepository.existsById(sourceId));
+    assertEquals(LARGE_SOURCE_QUOTES, quoteRepository.count());
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void deleteLargeSourceAsync() throws Exception {
+    UUID sourceId = loadLinkedQuotes(ASYNC_SOURCE_QUOTES);
+    String location = perform(delete("/sources/" + sourceId + "?async=true")
+        .with(oauthTokenRequired()))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.sourceId").value(sourceId.toString()))
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.LOCATION);
+    String state = "PENDING";
+    long deadline = System.currentTimeMillis() + ASYNC_TIMEOUT;
+    while (state.equals("PENDING") && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+      String body = perform(get(location).with(oauthTokenRequired()))
+          .andExpect(status().isOk())
+          .andReturn()
+          .getResponse()
+          .getContentAsString();
+      state = getMapper().readTree(body).path("status").asText();
+    }
+    assertEquals("DELETED", state);
+    assertFalse(sourceRepository.existsById(sourceId));
+    assertEquals(ASYNC_SOURCE_QUOTES, quoteRepository.count());
+  }
+
+  @Test
+  void getDeletionNotFound() throws Exception {
+    perform(get("/sources/deletions/{id}", UUID.randomUUID())
+        .with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void deleteSourceNotFound() throws Exception {
+    perform(delete("/sources/01234567-89AB-CDEF-0123-456789ABCDEF")
+        .with(oauthTokenRequired()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void deleteSourceStale() throws Exception {
+    String url = "/sources/" + idOf(addSource("George Box"));
+    String tag = perform(get(url).with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+    String quoteId = idOf(addQuote("Essentially, all models are wrong, but some are useful."));
+    perform(put(url + "/quotes/" + quoteId).with(oauthTokenRequired()))
+        .andExpect(status().isOk());
+    perform(delete(url).header(HttpHeaders.IF_MATCH, tag).with(oauthTokenRequired()))
+        .andExpect(status().isPreconditionFailed());
+    String current = perform(get(url).with(oauthTokenRequired()))
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+    perform(delete(url).header(HttpHeaders.IF_MATCH, current)
+        .with(oauthTokenRequired()))
+        .andExpect(status().isNoContent());
+  }
+
+  /**
+   * Loads a source with the specified number of attributed quotes through {@link SnapshotService},
+   * rather than through the (documenting) {@link org.springframework.test.web.servlet.MockMvc}.
+   */
+  private UUID loadLinkedQuotes(int count) throws Exception {
+    UUID sourceId = UUID.randomUUID();
+    long created = System.currentTimeMillis();
+    StringBuilder snapshot = new StringBuilder()
+        .append(String.format("{\"format\": \"%s\", \"version\": %d}%n",
+            SnapshotService.FORMAT, SnapshotService.VERSION))
+        .append(String.format(
+            "{\"type\": \"source\", \"id\": \"%s\", \"created\": %d, \"name\": \"Prolific\"}%n",
+            sourceId, created));
+    UUID[] quoteIds = new UUID[count];
+    for (int i = 0; i < count; i++) {
+      quoteIds[i] = UUID.randomUUID();
+      snapshot.append(String.format(
+          "{\"type\": \"quote\", \"id\": \"%s\", \"created\": %d, \"text\": \"Quote %d\"}%n",
+          quoteIds[i], created, i));
+    }
+    for (UUID quoteId : quoteIds) {
+      snapshot.append(String.format(
+          "{\"type\": \"attribution\", \"quote\": \"%s\", \"source\": \"%s\"}%n",
+          quoteId, sourceId));
+    }
+    snapshotService.load(
+        new ByteArrayInputStream(snapshot.toString().getBytes(StandardCharsets.UTF_8)));
+    return sourceId;
   }
 
 }
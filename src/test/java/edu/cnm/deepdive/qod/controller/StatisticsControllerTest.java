@@ -0,0 +1,83 @@
+package edu.cnm.deepdive.qod.controller;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.delete;
+import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import edu.cnm.deepdive.qod.service.RequestQueryStatistics;
+import java.util.Random;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.web.context.WebApplicationContext;
+
+@ExtendWith(RestDocumentationExtension.class)
+@SpringBootTest(classes = QodApplicationTest.class)
+class StatisticsControllerTest extends BaseControllerTest {
+
+  @Autowired
+  StatisticsControllerTest(ObjectMapper mapper, WebApplicationContext context, Random rng) {
+    super(mapper, context, rng);
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void requestStatisticsReflectCache() throws Exception {
+    String id = idOf(addQuote("All models are wrong, but some are useful.")
+        .andExpect(status().isCreated()));
+    getContext().getBean(EntityManagerFactory.class)
+        .unwrap(SessionFactory.class)
+        .getCache()
+        .evictAllRegions();
+    RequestQueryStatistics cold = getQueryStatistics(
+        perform(get("/quotes/{id}", id).with(oauthTokenRequired()))
+            .andExpect(status().isOk()));
+    RequestQueryStatistics warm = getQueryStatistics(
+        perform(get("/quotes/{id}", id).with(oauthTokenRequired()))
+            .andExpect(status().isOk()));
+    assertTrue(cold.getStatements() > 0);
+    assertEquals(1, cold.getEntityLoads());
+    assertEquals(0, warm.getEntityLoads());
+    assertTrue(warm.getStatements() < cold.getStatements(),
+        String.format("Statements when cold = %d; when warm = %d",
+            cold.getStatements(), warm.getStatements()));
+  }
+
+  @Test
+  @DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+  void reportQueriesAndLoads() throws Exception {
+    perform(delete("/admin/statistics").with(oauthTokenRequired()))
+        .andExpect(status().isNoContent());
+    addQuote("All models are wrong, but some are useful.")
+        .andExpect(status().isCreated());
+    addQuote("When you come to a fork in the road, take it.")
+        .andExpect(status().isCreated());
+    RequestQueryStatistics search = getQueryStatistics(
+        perform(get("/quotes/search?q=fork").with(oauthTokenRequired()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1))));
+    assertTrue(search.getQueries() > 0);
+    perform(get("/admin/statistics").with(oauthTokenRequired()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totals.queries").value(greaterThan(0)))
+        .andExpect(jsonPath("$.queries", hasSize(greaterThan(0))))
+        .andExpect(jsonPath("$.queries[0].executions").value(greaterThan(0)))
+        .andExpect(jsonPath(String.format("$.entities['%s'].inserts", Quote.class.getName()))
+            .value(2));
+  }
+
+}
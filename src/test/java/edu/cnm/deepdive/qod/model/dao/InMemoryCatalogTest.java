@@ -0,0 +1,179 @@
+package edu.cnm.deepdive.qod.model.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cnm.deepdive.qod.model.dao.InMemoryCatalog.Row;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class InMemoryCatalogTest {
+
+  private Path file;
+  private InMemoryCatalog catalog;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.createTempFile("catalog", ".journal");
+    catalog = open();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    catalog.stop();
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  void replay() throws IOException {
+    Row quote = catalog.putQuotes(Collections.singletonList(row("Brevity is the soul of wit.")))
+        .get(0);
+    Row source = catalog.putSources(Collections.singletonList(row("Shakespeare"))).get(0);
+    catalog.attach(quote.getId(), source.getId());
+    Row removed = catalog.putQuotes(Collections.singletonList(row("Removed"))).get(0);
+    catalog.deleteQuote(removed.getId());
+    catalog.stop();
+    catalog = open();
+    assertEquals(1, catalog.countQuotes());
+    assertEquals(quote.getValue(), catalog.getQuote(quote.getId()).getValue());
+    assertEquals(quote.getCreated(), catalog.getQuote(quote.getId()).getCreated());
+    assertTrue(catalog.sourceIdsOf(quote.getId()).contains(source.getId()));
+    assertNull(catalog.getQuote(removed.getId()));
+  }
+
+  @Test
+  void replayDiscardsTornCommit() throws IOException {
+    Row quote = catalog.putQuotes(Collections.singletonList(row("Complete"))).get(0);
+    catalog.stop();
+    long length = Files.size(file);
+    Files.write(file, "[{\"op\":\"PUT_QU".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+    catalog = open();
+    assertEquals(1, catalog.countQuotes());
+    assertEquals(length, Files.size(file));
+    Row next = catalog.putQuotes(Collections.singletonList(row("Next"))).get(0);
+    catalog.stop();
+    catalog = open();
+    assertEquals(2, catalog.countQuotes());
+    assertEquals(quote.getValue(), catalog.getQuote(quote.getId()).getValue());
+    assertEquals(next.getValue(), catalog.getQuote(next.getId()).getValue());
+  }
+
+  @Test
+  void duplicateKeysRejectedAtomically() {
+    catalog.putQuotes(Collections.singletonList(row("Café society")));
+    List<Row> candidates = Arrays.asList(row("Fresh"), row("CAFE SOCIETY"));
+    assertThrows(DataIntegrityViolationException.class, () -> catalog.putQuotes(candidates));
+    assertEquals(1, catalog.countQuotes());
+    assertNull(catalog.findQuoteByText("Fresh"));
+  }
+
+  @Test
+  void staleVersionRejected() {
+    Row quote = catalog.putQuotes(Collections.singletonList(row("Original"))).get(0);
+    catalog.putQuotes(Collections.singletonList(
+        new Row(quote.getId(), 0, "Revised", quote.getVersion())));
+    assertThrows(OptimisticLockingFailureException.class, () -> catalog.putQuotes(
+        Collections.singletonList(new Row(quote.getId(), 0, "Stale", quote.getVersion()))));
+  }
+
+  @Test
+  void attributedSourceNotDeleted() {
+    Row quote = catalog.putQuotes(Collections.singletonList(row("Attributed"))).get(0);
+    Row source = catalog.putSources(Collections.singletonList(row("Someone"))).get(0);
+    catalog.attach(quote.getId(), source.getId());
+    assertThrows(DataIntegrityViolationException.class,
+        () -> catalog.deleteSource(source.getId()));
+    assertEquals(1, catalog.detachAll(source.getId()));
+    assertTrue(catalog.deleteSource(source.getId()));
+  }
+
+  @Test
+  void transactionWritesIsolatedUntilCommit() {
+    Row source = catalog.putSources(Collections.singletonList(row("Isolated"))).get(0);
+    TransactionTemplate template = new TransactionTemplate(new NoOpTransactionManager());
+    Row quote = template.execute((status) -> {
+      Row written = catalog.putQuotes(Collections.singletonList(row("Pending"))).get(0);
+      catalog.attach(written.getId(), source.getId());
+      assertEquals(written.getValue(), catalog.getQuote(written.getId()).getValue());
+      assertTrue(catalog.quoteIdsOf(source.getId()).contains(written.getId()));
+      assertNull(CompletableFuture.supplyAsync(() -> catalog.getQuote(written.getId())).join());
+      assertFalse(CompletableFuture.supplyAsync(() -> catalog.quoteIdsOf(source.getId()))
+          .join().contains(written.getId()));
+      return written;
+    });
+    assertEquals(quote.getValue(), catalog.getQuote(quote.getId()).getValue());
+    assertTrue(catalog.quoteIdsOf(source.getId()).contains(quote.getId()));
+  }
+
+  @Test
+  void transactionWritesDiscardedOnRollback() throws IOException {
+    Row source = catalog.putSources(Collections.singletonList(row("Kept"))).get(0);
+    TransactionTemplate template = new TransactionTemplate(new NoOpTransactionManager());
+    Row quote = template.execute((status) -> {
+      Row written = catalog.putQuotes(Collections.singletonList(row("Discarded"))).get(0);
+      catalog.attach(written.getId(), source.getId());
+      catalog.incrementSourceVersion(source.getId(), null);
+      status.setRollbackOnly();
+      return written;
+    });
+    assertNull(catalog.getQuote(quote.getId()));
+    assertTrue(catalog.quoteIdsOf(source.getId()).isEmpty());
+    assertEquals(source.getVersion(), catalog.getSource(source.getId()).getVersion());
+    catalog.stop();
+    catalog = open();
+    assertEquals(0, catalog.countQuotes());
+  }
+
+  private InMemoryCatalog open() throws IOException {
+    InMemoryCatalog catalog = new InMemoryCatalog(new ObjectMapper(), file.toString(), true);
+    catalog.start();
+    return catalog;
+  }
+
+  private static Row row(String value) {
+    return new Row(null, 0, value, 0);
+  }
+
+  private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+    @Override
+    protected Object doGetTransaction() {
+      return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+
+  }
+
+}
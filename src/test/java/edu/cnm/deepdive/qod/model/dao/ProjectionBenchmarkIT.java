@@ -0,0 +1,153 @@
+package edu.cnm.deepdive.qod.model.dao;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.management.ThreadMXBean;
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import edu.cnm.deepdive.qod.model.entity.Quote;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+import java.util.stream.StreamSupport;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the latency and heap allocation of the list and search queries served by the read-only
+ * {@link edu.cnm.deepdive.qod.view.QuoteSummary} projections with those of the same queries
+ * loading managed {@link Quote} entities in a read-write transaction, as they were loaded before
+ * the projections were introduced. The second-level and query caches are disabled, so that every
+ * execution reads and materializes all of the selected rows.
+ */
+class ProjectionBenchmarkIT {
+
+  private static final int QUOTES = 10_000;
+  private static final int SEED_BATCH = 1_000;
+  private static final int WARM_UP_ITERATIONS = 20;
+  private static final int MEASURED_ITERATIONS = 100;
+  private static final String FRAGMENT = "wisdom";
+  private static final String[] TOPICS = {
+      "courage", "wisdom", "patience", "humility", "kindness", "honesty", "curiosity", "freedom",
+      "justice", "friendship", "labor", "learning", "hope", "silence", "time", "change"
+  };
+
+  @Test
+  void projectionsVersusEntities() {
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(QodApplicationTest.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:derby:memory:projection-" + UUID.randomUUID()
+                + ";create=true;collation=TERRITORY_BASED:PRIMARY",
+            "spring.jpa.hibernate.ddl-auto=create",
+            "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+            "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+            "read-model.enabled=false",
+            "rate-limit.enabled=false",
+            "concurrency-limit.enabled=false")
+        .run();
+    try {
+      QuoteRepository repository = context.getBean(QuoteRepository.class);
+      seed(repository);
+      EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+          context.getBean(EntityManagerFactory.class));
+      TransactionTemplate template =
+          new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+      Result listEntities = measure(() -> template.execute((status) -> entityManager
+          .createQuery("SELECT q FROM Quote AS q ORDER BY q.text ASC", Quote.class)
+          .getResultList()
+          .size()));
+      Result listProjections = measure(() -> count(repository.findAllByOrderByTextAsc()));
+      Result searchEntities = measure(() -> template.execute((status) -> entityManager
+          .createQuery("SELECT q FROM Quote AS q WHERE q.text LIKE :pattern ORDER BY q.text ASC",
+              Quote.class)
+          .setParameter("pattern", "%" + FRAGMENT + "%")
+          .getResultList()
+          .size()));
+      Result searchProjections =
+          measure(() -> count(repository.findAllByTextContainingOrderByTextAsc(FRAGMENT)));
+      print("List entities", listEntities);
+      print("List projections", listProjections);
+      print("Search entities", searchEntities);
+      print("Search projections", searchProjections);
+      // Latency depends on the host, and allocation on the JVM, so only the direction of the
+      // difference in allocation is checked.
+      assertTrue(listProjections.allocated < listEntities.allocated,
+          "Projections did not reduce allocation when listing quotes");
+      assertTrue(searchProjections.allocated < searchEntities.allocated,
+          "Projections did not reduce allocation when searching quotes");
+    } finally {
+      context.close();
+    }
+  }
+
+  private void seed(QuoteRepository repository) {
+    List<Quote> batch = new ArrayList<>(SEED_BATCH);
+    for (int i = 0; i < QUOTES; i++) {
+      Quote quote = new Quote();
+      quote.setText(String.format("Quote %d on %s", i, TOPICS[i % TOPICS.length]));
+      batch.add(quote);
+      if (batch.size() == SEED_BATCH) {
+        repository.saveAll(batch);
+        batch.clear();
+      }
+    }
+    repository.saveAll(batch);
+  }
+
+  private Result measure(IntSupplier operation) {
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      operation.getAsInt();
+    }
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long rows = 0;
+    long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      rows += operation.getAsInt();
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    return new Result(rows / MEASURED_ITERATIONS, elapsed, allocated);
+  }
+
+  private int count(Iterable<?> results) {
+    return (int) StreamSupport.stream(results.spliterator(), false).count();
+  }
+
+  private void print(String label, Result result) {
+    System.out.printf("%s: %,d rows, %.2f ms/query, %,.1f KB allocated/query%n",
+        label, result.rows, result.latencyMillis(), result.allocatedKilobytes());
+  }
+
+  private static class Result {
+
+    private final long rows;
+    private final long elapsedNanos;
+    private final long allocated;
+
+    Result(long rows, long elapsedNanos, long allocated) {
+      this.rows = rows;
+      this.elapsedNanos = elapsedNanos;
+      this.allocated = allocated;
+    }
+
+    double latencyMillis() {
+      return elapsedNanos / 1e6 / MEASURED_ITERATIONS;
+    }
+
+    double allocatedKilobytes() {
+      return allocated / 1024.0 / MEASURED_ITERATIONS;
+    }
+
+  }
+
+}
@@ -0,0 +1,189 @@
+package edu.cnm.deepdive.qod.model.entity;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.cnm.deepdive.qod.QodApplicationTest;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Compares the insert throughput, and the resulting index sizes (in Derby pages), of quotes and
+ * attributions keyed by time-ordered UUIDs (as generated by {@link TimeOrderedUuidGenerator}) and
+ * by random version 4 UUIDs (as previously generated by Hibernate's {@code uuid2} generator). Rows
+ * are inserted with JDBC batches into the schema generated for the entities, in an on-disk
+ * database, so that page splits and page cache misses have their usual cost. Both runs insert the
+ * same text in the same order; only the keys differ.
+ */
+class TimeOrderedUuidBenchmarkIT {
+
+  private static final int QUOTES = 200_000;
+  private static final int SOURCES = 100;
+  private static final int COMMIT_BATCH = 1_000;
+  private static final String[] TABLES = {"QUOTE", "QUOTE_SOURCES"};
+  private static final String SPACE_QUERY = "SELECT conglomeratename, numallocatedpages "
+      + "FROM TABLE (SYSCS_DIAG.SPACE_TABLE('%s', '%s')) AS t WHERE isindex = 1";
+
+  @Test
+  void timeOrderedVersusRandomKeys() throws Exception {
+    Result random = insert("random", UUID::randomUUID);
+    Result ordered = insert("ordered", TimeOrderedUuidGenerator::next);
+    print("Random (v4) keys", random);
+    print("Time-ordered (v7) keys", ordered);
+    // Throughput depends heavily on the host, so only the direction of the difference in index
+    // size is checked.
+    assertTrue(ordered.indexPages < random.indexPages,
+        "Time-ordered keys did not reduce the size of the indices");
+  }
+
+  private Result insert(String label, Supplier<UUID> keys) throws Exception {
+    Path directory = Files.createTempDirectory("qod-uuid-" + label);
+    String url = "jdbc:derby:directory:" + directory.resolve("db");
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(QodApplicationTest.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=" + url + ";create=true;collation=TERRITORY_BASED:PRIMARY",
+            "spring.jpa.hibernate.ddl-auto=create",
+            "read-model.enabled=false",
+            "rate-limit.enabled=false",
+            "concurrency-limit.enabled=false")
+        .run();
+    try (Connection connection = context.getBean(DataSource.class).getConnection()) {
+      connection.setAutoCommit(false);
+      List<UUID> sourceIds = insertSources(connection, keys);
+      long start = System.nanoTime();
+      insertQuotes(connection, keys, sourceIds);
+      long elapsed = System.nanoTime() - start;
+      return new Result(elapsed, indexPages(connection, label));
+    } finally {
+      context.close();
+      shutdown(url);
+      FileSystemUtils.deleteRecursively(directory);
+    }
+  }
+
+  private List<UUID> insertSources(Connection connection, Supplier<UUID> keys)
+      throws SQLException {
+    List<UUID> sourceIds = new ArrayList<>(SOURCES);
+    try (PreparedStatement statement = connection.prepareStatement(
+        "INSERT INTO source (source_id, created, name, version) VALUES (?, ?, ?, 0)")) {
+      for (int i = 0; i < SOURCES; i++) {
+        UUID id = keys.get();
+        statement.setBytes(1, toBytes(id));
+        statement.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+        statement.setString(3, String.format("Source %d", i));
+        statement.addBatch();
+        sourceIds.add(id);
+      }
+      statement.executeBatch();
+    }
+    connection.commit();
+    return sourceIds;
+  }
+
+  private void insertQuotes(Connection connection, Supplier<UUID> keys, List<UUID> sourceIds)
+      throws SQLException {
+    try (
+        PreparedStatement quoteStatement = connection.prepareStatement(
+            "INSERT INTO quote (quote_id, created, text, version) VALUES (?, ?, ?, 0)");
+        PreparedStatement attributionStatement = connection.prepareStatement(
+            "INSERT INTO quote_sources (quote_id, source_id) VALUES (?, ?)")
+    ) {
+      for (int i = 0; i < QUOTES; i++) {
+        byte[] id = toBytes(keys.get());
+        quoteStatement.setBytes(1, id);
+        quoteStatement.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+        quoteStatement.setString(3, String.format("Quote %d: well begun is half done.", i));
+        quoteStatement.addBatch();
+        attributionStatement.setBytes(1, id);
+        attributionStatement.setBytes(2, toBytes(sourceIds.get(i % sourceIds.size())));
+        attributionStatement.addBatch();
+        if ((i + 1) % COMMIT_BATCH == 0 || i == QUOTES - 1) {
+          quoteStatement.executeBatch();
+          attributionStatement.executeBatch();
+          connection.commit();
+        }
+      }
+    }
+  }
+
+  private long indexPages(Connection connection, String label) throws SQLException {
+    String schema;
+    try (
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("VALUES CURRENT SCHEMA")
+    ) {
+      resultSet.next();
+      schema = resultSet.getString(1);
+    }
+    long total = 0;
+    for (String table : TABLES) {
+      try (
+          Statement statement = connection.createStatement();
+          ResultSet resultSet =
+              statement.executeQuery(String.format(SPACE_QUERY, schema, table))
+      ) {
+        while (resultSet.next()) {
+          long pages = resultSet.getLong(2);
+          System.out.printf("%s: index %s on %s: %,d pages%n",
+              label, resultSet.getString(1), table, pages);
+          total += pages;
+        }
+      }
+    }
+    return total;
+  }
+
+  private void shutdown(String url) {
+    try {
+      DriverManager.getConnection(url + ";shutdown=true").close();
+    } catch (SQLException e) {
+      // Derby always reports a successful shutdown with an exception.
+    }
+  }
+
+  private void print(String label, Result result) {
+    System.out.printf("%s: %,.1f quotes/s, %,d index pages%n",
+        label, result.throughput(), result.indexPages);
+  }
+
+  private static byte[] toBytes(UUID id) {
+    return ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+  }
+
+  private static class Result {
+
+    private final long elapsedNanos;
+    private final long indexPages;
+
+    Result(long elapsedNanos, long indexPages) {
+      this.elapsedNanos = elapsedNanos;
+      this.indexPages = indexPages;
+    }
+
+    double throughput() {
+      return QUOTES * 1e9 / elapsedNanos;
+    }
+
+  }
+
+}
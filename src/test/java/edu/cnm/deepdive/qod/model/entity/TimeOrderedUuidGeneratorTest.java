@@ -0,0 +1,57 @@
+package edu.cnm.deepdive.qod.model.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedUuidGeneratorTest {
+
+  private static final int ITERATIONS = 100_000;
+
+  @Test
+  void versionAndVariant() {
+    UUID id = TimeOrderedUuidGenerator.next();
+    assertEquals(7, id.version());
+    assertEquals(2, id.variant());
+  }
+
+  @Test
+  void timestamp() {
+    long before = System.currentTimeMillis();
+    UUID id = TimeOrderedUuidGenerator.next();
+    long timestamp = id.getMostSignificantBits() >>> 16;
+    assertTrue(timestamp >= before);
+    assertTrue(timestamp <= System.currentTimeMillis() + 1000);
+  }
+
+  @Test
+  void binaryOrderIncreasing() {
+    byte[] previous = toBytes(TimeOrderedUuidGenerator.next());
+    for (int i = 0; i < ITERATIONS; i++) {
+      byte[] current = toBytes(TimeOrderedUuidGenerator.next());
+      assertTrue(compareUnsigned(previous, current) < 0);
+      previous = current;
+    }
+  }
+
+  private static byte[] toBytes(UUID id) {
+    return ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+  }
+
+  private static int compareUnsigned(byte[] a, byte[] b) {
+    for (int i = 0; i < a.length; i++) {
+      int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+}
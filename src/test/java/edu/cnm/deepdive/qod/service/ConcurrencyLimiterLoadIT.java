@@ -0,0 +1,106 @@
+package edu.cnm.deepdive.qod.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Limit;
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Operation;
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Permit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives a simulated database (which serves a fixed number of queries at a time, queuing the rest)
+ * with many more concurrent clients than it can serve, with and without a {@link
+ * ConcurrencyLimiter}, and compares the 99th percentile latency of admitted requests.
+ */
+class ConcurrencyLimiterLoadIT {
+
+  private static final int DATABASE_CAPACITY = 4;
+  private static final long SERVICE_TIME_MS = 5;
+  private static final long TARGET_LATENCY_MS = 15;
+  private static final int CLIENTS = 32;
+  private static final long WARMUP_MS = 1000;
+  private static final long MEASUREMENT_MS = 3000;
+
+  private final Semaphore database = new Semaphore(DATABASE_CAPACITY, true);
+
+  @Test
+  void stableTailLatencyUnderOverload() throws Exception {
+    Result unlimited = run(null);
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(true,
+        new Limit(CLIENTS, CLIENTS, TARGET_LATENCY_MS, 0.9),
+        new Limit(CLIENTS, CLIENTS, TARGET_LATENCY_MS, 0.9), System::nanoTime);
+    Result limited = run(limiter);
+    assertTrue(limited.shed > 0);
+    assertTrue(limited.p99 * 2 < unlimited.p99,
+        String.format("p99 with limit = %,d us; without limit = %,d us",
+            TimeUnit.NANOSECONDS.toMicros(limited.p99),
+            TimeUnit.NANOSECONDS.toMicros(unlimited.p99)));
+  }
+
+  private Result run(ConcurrencyLimiter limiter) throws InterruptedException {
+    List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    LongAdder shed = new LongAdder();
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(WARMUP_MS);
+    long end = measureFrom + TimeUnit.MILLISECONDS.toNanos(MEASUREMENT_MS);
+    ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+    for (int i = 0; i < CLIENTS; i++) {
+      clients.execute(() -> {
+        try {
+          for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+            Permit permit = (limiter != null) ? limiter.tryAcquire(Operation.READ) : null;
+            if (limiter != null && permit == null) {
+              shed.increment();
+              Thread.sleep(SERVICE_TIME_MS); // Client backs off before retrying.
+              continue;
+            }
+            query();
+            if (permit != null) {
+              permit.release();
+            }
+            if (now >= measureFrom) {
+              latencies.add(System.nanoTime() - now);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    clients.shutdown();
+    clients.awaitTermination(WARMUP_MS + MEASUREMENT_MS * 2, TimeUnit.MILLISECONDS);
+    List<Long> sorted = new ArrayList<>(latencies);
+    Collections.sort(sorted);
+    return new Result(sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1), shed.sum());
+  }
+
+  private void query() throws InterruptedException {
+    database.acquire();
+    try {
+      Thread.sleep(SERVICE_TIME_MS);
+    } finally {
+      database.release();
+    }
+  }
+
+  private static class Result {
+
+    private final long p99;
+    private final long shed;
+
+    private Result(long p99, long shed) {
+      this.p99 = p99;
+      this.shed = shed;
+    }
+
+  }
+
+}
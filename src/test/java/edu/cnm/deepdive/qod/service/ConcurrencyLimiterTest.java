@@ -0,0 +1,86 @@
+package edu.cnm.deepdive.qod.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Limit;
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Operation;
+import edu.cnm.deepdive.qod.service.ConcurrencyLimiter.Permit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+  private static final long TARGET = 100;
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(TARGET / 10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(TARGET * 2);
+
+  private long now;
+  private ConcurrencyLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    now = 0;
+    limiter = new ConcurrencyLimiter(true, new Limit(2, 4, TARGET, 0.5),
+        new Limit(8, 16, TARGET, 0.5), () -> now);
+  }
+
+  @Test
+  void excessShed() {
+    assertNotNull(limiter.tryAcquire(Operation.READ));
+    assertNotNull(limiter.tryAcquire(Operation.READ));
+    assertNull(limiter.tryAcquire(Operation.READ));
+    assertNotNull(limiter.tryAcquire(Operation.WRITE));
+    assertEquals(1, limiter.getShedCount(Operation.READ));
+    assertEquals(0, limiter.getShedCount(Operation.WRITE));
+  }
+
+  @Test
+  void limitIncreasedWhenFast() {
+    for (int i = 0; i < 20; i++) {
+      List<Permit> permits = acquireAll(Operation.READ);
+      now += FAST;
+      permits.forEach(Permit::release);
+    }
+    assertEquals(4, limiter.getLimit(Operation.READ));
+    assertEquals(8, limiter.getLimit(Operation.WRITE));
+  }
+
+  @Test
+  void limitDecreasedWhenSlow() {
+    List<Permit> permits = acquireAll(Operation.WRITE);
+    assertEquals(8, permits.size());
+    now += SLOW;
+    permits.forEach(Permit::release);
+    assertEquals(4, limiter.getLimit(Operation.WRITE));
+    permits = acquireAll(Operation.WRITE);
+    assertEquals(4, permits.size());
+    now += SLOW;
+    permits.forEach(Permit::release);
+    assertEquals(2, limiter.getLimit(Operation.WRITE));
+  }
+
+  @Test
+  void disabled() {
+    limiter = new ConcurrencyLimiter(false, new Limit(1, 1, TARGET, 0.5),
+        new Limit(1, 1, TARGET, 0.5), () -> now);
+    for (int i = 0; i < 10; i++) {
+      assertNotNull(limiter.tryAcquire(Operation.READ));
+    }
+    assertEquals(0, limiter.getShedCount(Operation.READ));
+  }
+
+  private List<Permit> acquireAll(Operation operation) {
+    List<Permit> permits = new ArrayList<>();
+    for (Permit permit = limiter.tryAcquire(operation); permit != null;
+        permit = limiter.tryAcquire(operation)) {
+      permits.add(permit);
+    }
+    return permits;
+  }
+
+}
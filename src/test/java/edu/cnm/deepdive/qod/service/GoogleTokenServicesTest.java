@@ -0,0 +1,196 @@
+package edu.cnm.deepdive.qod.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken.Payload;
+import edu.cnm.deepdive.qod.service.GoogleTokenServices.UnknownKeyException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+class GoogleTokenServicesTest {
+
+  private static final String VALID_TOKEN = "valid";
+  private static final String INVALID_TOKEN = "invalid";
+  private static final String MALFORMED_TOKEN = "malformed";
+  private static final String UNKNOWN_KEY_TOKEN = "unknown-key";
+  private static final String SUBJECT = "subject";
+  private static final long START = 1_600_000_000_000L;
+  private static final long LIFETIME = 3_600_000;
+  private static final long NEGATIVE_TTL = 10_000;
+
+  private static final int CONCURRENT_REQUESTS = 10;
+  private static final long TIMEOUT = 10_000;
+
+  private final AtomicInteger verifications = new AtomicInteger();
+  private CountDownLatch gate;
+  private MutableClock clock;
+  private GoogleTokenServices services;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(START);
+    services = new GoogleTokenServices(this::verify, 2, NEGATIVE_TTL, clock);
+  }
+
+  @Test
+  void validTokenCachedUntilExpiration() {
+    OAuth2Authentication authentication = services.loadAuthentication(VALID_TOKEN);
+    assertEquals(SUBJECT, authentication.getName());
+    clock.advance(LIFETIME - 1);
+    assertSame(authentication, services.loadAuthentication(VALID_TOKEN));
+    assertEquals(1, verifications.get());
+    assertEquals(1, services.getCacheHitCount());
+    clock.advance(1);
+    services.loadAuthentication(VALID_TOKEN);
+    assertEquals(2, verifications.get());
+  }
+
+  @Test
+  void invalidTokenCachedBriefly() {
+    assertThrows(BadCredentialsException.class, () -> services.loadAuthentication(INVALID_TOKEN));
+    assertThrows(BadCredentialsException.class, () -> services.loadAuthentication(INVALID_TOKEN));
+    assertEquals(1, verifications.get());
+    clock.advance(NEGATIVE_TTL);
+    assertThrows(BadCredentialsException.class, () -> services.loadAuthentication(INVALID_TOKEN));
+    assertEquals(2, verifications.get());
+    assertEquals(2, services.getRejectedCount());
+    assertEquals(0, services.getVerifiedCount());
+  }
+
+  @Test
+  void malformedTokenRejected() {
+    assertThrows(BadCredentialsException.class,
+        () -> services.loadAuthentication(MALFORMED_TOKEN));
+    assertThrows(BadCredentialsException.class,
+        () -> services.loadAuthentication(MALFORMED_TOKEN));
+    assertEquals(1, verifications.get());
+  }
+
+  @Test
+  void unknownKeyNotCached() {
+    assertThrows(BadCredentialsException.class,
+        () -> services.loadAuthentication(UNKNOWN_KEY_TOKEN));
+    assertThrows(BadCredentialsException.class,
+        () -> services.loadAuthentication(UNKNOWN_KEY_TOKEN));
+    assertEquals(2, verifications.get());
+    assertEquals(0, services.getCacheHitCount());
+  }
+
+  @Test
+  void leastRecentlyUsedEvicted() {
+    services.loadAuthentication(VALID_TOKEN);
+    assertThrows(BadCredentialsException.class, () -> services.loadAuthentication(INVALID_TOKEN));
+    services.loadAuthentication(VALID_TOKEN);
+    assertThrows(BadCredentialsException.class,
+        () -> services.loadAuthentication(MALFORMED_TOKEN));
+    services.loadAuthentication(VALID_TOKEN);
+    assertEquals(3, verifications.get());
+    assertThrows(BadCredentialsException.class, () -> services.loadAuthentication(INVALID_TOKEN));
+    assertEquals(4, verifications.get());
+  }
+
+  @Test
+  void concurrentVerificationsCoalesced() throws Exception {
+    gate = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+    try {
+      List<Future<OAuth2Authentication>> futures = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+        futures.add(executor.submit(() -> services.loadAuthentication(VALID_TOKEN)));
+      }
+      long deadline = System.currentTimeMillis() + TIMEOUT;
+      while (services.getCoalescedCount() < CONCURRENT_REQUESTS - 1
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      gate.countDown();
+      OAuth2Authentication authentication = futures.get(0).get(TIMEOUT, TimeUnit.MILLISECONDS);
+      for (Future<OAuth2Authentication> future : futures) {
+        assertSame(authentication, future.get(TIMEOUT, TimeUnit.MILLISECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, verifications.get());
+    assertEquals(1, services.getVerifiedCount());
+    assertEquals(CONCURRENT_REQUESTS - 1, services.getCoalescedCount());
+    services.loadAuthentication(VALID_TOKEN);
+    assertEquals(1, services.getCacheHitCount());
+  }
+
+  private Payload verify(String token) throws IOException, UnknownKeyException {
+    verifications.incrementAndGet();
+    if (gate != null) {
+      try {
+        gate.await(); // Stands in for a slow verification.
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      }
+    }
+    switch (token) {
+      case VALID_TOKEN:
+        return new Payload()
+            .setSubject(SUBJECT)
+            .setExpirationTimeSeconds((START + LIFETIME) / 1000);
+      case MALFORMED_TOKEN:
+        throw new IllegalArgumentException();
+      case UNKNOWN_KEY_TOKEN:
+        throw new UnknownKeyException(UNKNOWN_KEY_TOKEN);
+      default:
+        return null;
+    }
+  }
+
+  private static class MutableClock extends Clock {
+
+    private long millis;
+
+    private MutableClock(long millis) {
+      this.millis = millis;
+    }
+
+    private void advance(long delta) {
+      millis += delta;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+
+  }
+
+}
@@ -0,0 +1,141 @@
+package edu.cnm.deepdive.qod.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken.Payload;
+import edu.cnm.deepdive.qod.service.GoogleTokenServices.UnknownKeyException;
+import edu.cnm.deepdive.qod.service.GoogleTokenServices.Verifier;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Base64.Encoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class KeySetCacheTest {
+
+  private static final String CLIENT_ID = "client";
+  private static final String ISSUER = "https://accounts.google.com";
+  private static final String SUBJECT = "subject";
+  private static final long LIFETIME_SECONDS = 3600;
+  private static final long TIMEOUT = 10_000;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+  private KeyPair current;
+  private KeyPair next;
+  private Path file;
+  private KeySetCache keySet;
+  private Verifier verifier;
+
+  @BeforeEach
+  void setUp() throws IOException, GeneralSecurityException {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    current = generator.generateKeyPair();
+    next = generator.generateKeyPair();
+    file = Files.createTempFile("jwks", ".json");
+    writeKeySet("current", current);
+    keySet = new KeySetCache(mapper, file.toUri().toString(), 3_600_000, 60_000, 5_000, 5_000);
+    keySet.refresh();
+    verifier = GoogleTokenServices.keySetVerifier(keySet, CLIENT_ID, Clock.systemUTC());
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    keySet.stop();
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  void validToken() throws Exception {
+    String token = sign("current", current, CLIENT_ID, 0);
+    assertEquals(SUBJECT, verifier.verify(token).getSubject());
+    GoogleTokenServices services = new GoogleTokenServices(keySet, CLIENT_ID, 10, 10_000);
+    assertEquals(SUBJECT, services.loadAuthentication(token).getName());
+  }
+
+  @Test
+  void invalidTokens() throws Exception {
+    assertNull(verifier.verify(sign("current", current, "other", 0)));
+    assertNull(verifier.verify(sign("current", current, CLIENT_ID, -2 * LIFETIME_SECONDS)));
+    assertNull(verifier.verify(sign("current", next, CLIENT_ID, 0)));
+    assertThrows(UnknownKeyException.class,
+        () -> verifier.verify(sign("next", next, CLIENT_ID, 0)));
+  }
+
+  @Test
+  void rotatedKeys() throws Exception {
+    writeKeySet("next", next);
+    keySet.refresh();
+    assertNotNull(verifier.verify(sign("next", next, CLIENT_ID, 0)));
+    assertNull(verifier.verify(sign("current", current, CLIENT_ID, 0)));
+  }
+
+  @Test
+  void unknownKeyRefreshesInBackground() throws Exception {
+    writeKeySet("next", next);
+    String token = sign("next", next, CLIENT_ID, 0);
+    assertThrows(UnknownKeyException.class, () -> verifier.verify(token));
+    Payload payload = null;
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (payload == null && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+      try {
+        payload = verifier.verify(token);
+      } catch (UnknownKeyException e) {
+        // Not loaded yet.
+      }
+    }
+    assertNotNull(payload);
+  }
+
+  private void writeKeySet(String keyId, KeyPair keyPair) throws IOException {
+    RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+    ObjectNode keySet = mapper.createObjectNode();
+    keySet.putArray("keys").addObject()
+        .put("kty", "RSA")
+        .put("alg", "RS256")
+        .put("use", "sig")
+        .put("kid", keyId)
+        .put("n", encoder.encodeToString(key.getModulus().toByteArray()))
+        .put("e", encoder.encodeToString(key.getPublicExponent().toByteArray()));
+    Files.write(file, mapper.writeValueAsBytes(keySet));
+  }
+
+  private String sign(String keyId, KeyPair keyPair, String audience, long offsetSeconds)
+      throws IOException, GeneralSecurityException {
+    long issued = System.currentTimeMillis() / 1000 + offsetSeconds;
+    ObjectNode header = mapper.createObjectNode()
+        .put("alg", "RS256")
+        .put("typ", "JWT")
+        .put("kid", keyId);
+    ObjectNode payload = mapper.createObjectNode()
+        .put("iss", ISSUER)
+        .put("aud", audience)
+        .put("sub", SUBJECT)
+        .put("iat", issued)
+        .put("exp", issued + LIFETIME_SECONDS);
+    String content = encoder.encodeToString(mapper.writeValueAsBytes(header)) + "."
+        + encoder.encodeToString(mapper.writeValueAsBytes(payload));
+    Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(keyPair.getPrivate());
+    signature.update(content.getBytes(StandardCharsets.US_ASCII));
+    return content + "." + encoder.encodeToString(signature.sign());
+  }
+
+}
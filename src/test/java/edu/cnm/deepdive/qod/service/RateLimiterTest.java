@@ -0,0 +1,60 @@
+package edu.cnm.deepdive.qod.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+  private static final String ENDPOINTS = "GET /quotes/random=2/3, /admin/**=1/1";
+  private static final String DEFAULT_LIMIT = "10/10";
+
+  private long now;
+  private RateLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    now = 0;
+    limiter = new RateLimiter(true, ENDPOINTS, DEFAULT_LIMIT, 100, 4, () -> now);
+  }
+
+  @Test
+  void burstThenRefill() {
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, limiter.tryAcquire("alice", "GET", "/quotes/random"));
+    }
+    assertEquals(500, limiter.tryAcquire("alice", "GET", "/quotes/random"));
+    now += TimeUnit.MILLISECONDS.toNanos(250);
+    assertEquals(250, limiter.tryAcquire("alice", "GET", "/quotes/random"));
+    now += TimeUnit.MILLISECONDS.toNanos(250);
+    assertEquals(0, limiter.tryAcquire("alice", "GET", "/quotes/random"));
+    assertEquals(500, limiter.tryAcquire("alice", "GET", "/quotes/random"));
+  }
+
+  @Test
+  void separateBucketsPerClientAndRule() {
+    assertEquals(0, limiter.tryAcquire("alice", "POST", "/admin/snapshot"));
+    assertEquals(1000, limiter.tryAcquire("alice", "GET", "/admin/snapshot"));
+    assertEquals(0, limiter.tryAcquire("bob", "GET", "/admin/snapshot"));
+    assertEquals(0, limiter.tryAcquire("alice", "GET", "/quotes/qod"));
+    assertEquals(0, limiter.tryAcquire("alice", "POST", "/quotes/random"));
+  }
+
+  @Test
+  void disabled() {
+    limiter = new RateLimiter(false, ENDPOINTS, DEFAULT_LIMIT, 100, 4, () -> now);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(0, limiter.tryAcquire("alice", "GET", "/admin/snapshot"));
+    }
+  }
+
+  @Test
+  void invalidRule() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new RateLimiter(true, "/quotes=5", DEFAULT_LIMIT, 100, 4, () -> now));
+  }
+
+}